@@ -16,6 +16,7 @@
 package io.servicetalk.benchmark.concurrent;
 
 import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.AsyncContextMap;
 import io.servicetalk.concurrent.api.AsyncContextMap.Key;
 
 import org.openjdk.jmh.annotations.Benchmark;
@@ -102,6 +103,17 @@ public class AsyncContextMapBenchmark {
         AsyncContext.get(K8);
     }
 
+    @Benchmark
+    public Object copyPutThree() {
+        // Models an operator boundary: the context is copied on subscribe and then modified further down the chain.
+        AsyncContext.put(K1, "v1");
+        final AsyncContextMap copy = AsyncContext.current().copy();
+        copy.put(K2, "v2");
+        copy.put(K3, "v3");
+        copy.put(K4, "v4");
+        return copy.get(K1);
+    }
+
     @Benchmark
     public void putGetMultiFour() {
         AsyncContext.putAll(FourMap.INSTANCE);
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Executors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/*
+ * This benchmark compares the global scheduler used by Executors.newCachedThreadExecutor() with the timing wheel
+ * used by Executors.withTimingWheel(...) for the common timeout pattern: a timer is scheduled for every request and
+ * cancelled before it fires. Multiple threads schedule concurrently to expose contention on the scheduler.
+ */
+@Fork(value = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class ExecutorTimerBenchmark {
+
+    @Param({"global-scheduler", "timing-wheel"})
+    public String scheduler;
+
+    private Executor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = "timing-wheel".equals(scheduler) ?
+                Executors.withTimingWheel(newCachedThreadPool(), 10, MILLISECONDS) :
+                Executors.newCachedThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public void scheduleAndCancel() {
+        final Cancellable cancellable = executor.schedule(() -> { }, 30, SECONDS);
+        cancellable.cancel();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.concurrent;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.internal.OffloaderAwareExecutor;
+import io.servicetalk.concurrent.internal.SignalOffloaderFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.internal.SignalOffloaders.newBatchingOffloaderFactory;
+import static io.servicetalk.concurrent.internal.SignalOffloaders.taskBasedOffloaderFactory;
+import static io.servicetalk.concurrent.internal.SignalOffloaders.threadBasedOffloaderFactory;
+
+/*
+ * This benchmark compares the SignalOffloaders: task based (an executor task per signal), thread based (a thread
+ * captured per offloader) and batching (signals for many subscribers drained by one executor task per lane).
+ *
+ * Each invocation subscribes "concurrency" sources which are offloaded via publishOn(...) and waits for all of them to
+ * terminate. Multiple benchmark threads subscribe concurrently to expose contention on the executor queue.
+ */
+@Fork(value = 1)
+@Threads(4)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class SignalOffloaderBenchmark {
+
+    @Param({"task", "thread", "batching"})
+    public String offloader;
+
+    @Param({"64"})
+    public int concurrency;
+
+    private Executor executor;
+    private Executor offloadingExecutor;
+    private Publisher<Integer> publisher;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = newCachedThreadExecutor();
+        final SignalOffloaderFactory factory;
+        switch (offloader) {
+            case "task":
+                factory = taskBasedOffloaderFactory();
+                break;
+            case "thread":
+                factory = threadBasedOffloaderFactory();
+                break;
+            case "batching":
+                factory = newBatchingOffloaderFactory();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown offloader: " + offloader);
+        }
+        offloadingExecutor = new OffloaderAwareExecutor(executor, factory);
+        publisher = Publisher.from(1, 2, 3, 4, 5, 6, 7, 8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public void single() throws InterruptedException {
+        final Single<Integer> single = succeeded(1).publishOn(offloadingExecutor);
+        awaitAll(single.ignoreElement());
+    }
+
+    @Benchmark
+    public void completable() throws InterruptedException {
+        awaitAll(completed().publishOn(offloadingExecutor));
+    }
+
+    @Benchmark
+    public void publisher() throws InterruptedException {
+        awaitAll(publisher.publishOn(offloadingExecutor).ignoreElements());
+    }
+
+    private void awaitAll(final Completable source) throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(concurrency);
+        final Completable counted = source.afterFinally(latch::countDown);
+        for (int i = 0; i < concurrency; i++) {
+            counted.subscribe();
+        }
+        latch.await();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.data.jackson;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.serialization.api.StreamingDeserializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.api.Buffer.asOutputStream;
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+
+/*
+ * This benchmark measures JacksonSerializationProvider for small and large POJOs:
+ * - serialize: cached ObjectWriter, writing directly into the destination Buffer.
+ * - serializeNewWriter: ObjectWriter created per call, as done before writers were cached.
+ * - deserialize: deserialization of a single POJO from a Buffer.
+ * - deserializeArrayElements: element by element deserialization of a top-level JSON array of POJOs.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class JacksonSerializationBenchmark {
+
+    @Param({"small", "large"})
+    public String size;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JacksonSerializationProvider provider = new JacksonSerializationProvider(mapper);
+    private Pojo pojo;
+    private Buffer serialized;
+    private Buffer serializedArray;
+    private Buffer destination;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pojo = "small".equals(size) ? newPojo(1, 0) : newPojo(64, 16);
+        serialized = DEFAULT_ALLOCATOR.newBuffer();
+        provider.serialize(pojo, serialized);
+        serializedArray = DEFAULT_ALLOCATOR.newBuffer().writeAscii("[");
+        for (int i = 0; i < 16; i++) {
+            if (i > 0) {
+                serializedArray.writeAscii(",");
+            }
+            provider.serialize(pojo, serializedArray);
+        }
+        serializedArray.writeAscii("]");
+        destination = DEFAULT_ALLOCATOR.newBuffer(serialized.readableBytes());
+    }
+
+    @Benchmark
+    public Buffer serialize() {
+        destination.clear();
+        provider.serialize(pojo, destination);
+        return destination;
+    }
+
+    @Benchmark
+    public Buffer serializeNewWriter() throws IOException {
+        destination.clear();
+        mapper.writerFor(Pojo.class).writeValue(asOutputStream(destination), pojo);
+        return destination;
+    }
+
+    @Benchmark
+    public Iterable<Pojo> deserialize() {
+        final StreamingDeserializer<Pojo> deserializer = provider.getDeserializer(Pojo.class);
+        final Iterable<Pojo> result = deserializer.deserialize(serialized.duplicate());
+        deserializer.close();
+        return result;
+    }
+
+    @Benchmark
+    public Iterable<Pojo> deserializeArrayElements() {
+        final StreamingDeserializer<Pojo> deserializer = provider.getArrayElementsDeserializer(Pojo.class);
+        final Iterable<Pojo> result = deserializer.deserialize(serializedArray.duplicate());
+        deserializer.close();
+        return result;
+    }
+
+    private static Pojo newPojo(final int tags, final int children) {
+        final Pojo pojo = new Pojo();
+        pojo.id = 42;
+        pojo.name = "servicetalk";
+        pojo.score = 0.5;
+        pojo.enabled = true;
+        pojo.tags = new ArrayList<>(tags);
+        for (int i = 0; i < tags; i++) {
+            pojo.tags.add("tag-" + i);
+        }
+        pojo.children = new ArrayList<>(children);
+        for (int i = 0; i < children; i++) {
+            pojo.children.add(newPojo(tags / 4, 0));
+        }
+        return pojo;
+    }
+
+    public static final class Pojo {
+        public long id;
+        public String name;
+        public double score;
+        public boolean enabled;
+        public List<String> tags;
+        public List<Pojo> children;
+    }
+}
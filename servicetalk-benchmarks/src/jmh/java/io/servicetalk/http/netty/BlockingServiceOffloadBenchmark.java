@@ -0,0 +1,132 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.stream.IntStream;
+
+import static io.servicetalk.concurrent.api.Executors.newCachedThreadExecutor;
+import static io.servicetalk.concurrent.api.Executors.newVirtualThreadExecutor;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/*
+ * This benchmark compares offloading a BlockingHttpService to platform threads (Executors.newCachedThreadExecutor())
+ * and to virtual threads (Executors.newVirtualThreadExecutor()) while many requests are blocked at the same time,
+ * e.g. waiting on a slow downstream. Each invocation issues "concurrency" requests at once over a single HTTP/2
+ * connection, the service blocks each of them for "blockMillis".
+ *
+ * The reported score is the latency to complete all requests, the "peakThreads" secondary result is the peak number
+ * of live platform threads in the JVM during the iteration (virtual threads are not counted by the ThreadMXBean).
+ *
+ * The "virtual" executor falls back to platform threads when the JVM does not support virtual threads, run with JDK
+ * 21+ to compare both.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+public class BlockingServiceOffloadBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"10000"})
+    public int concurrency;
+
+    @Param({"50"})
+    public int blockMillis;
+
+    private Executor serviceExecutor;
+    private ServerContext serverContext;
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serviceExecutor = "virtual".equals(threads) ? newVirtualThreadExecutor() : newCachedThreadExecutor();
+        final int sleepMillis = blockMillis;
+        serverContext = HttpServers.forAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .protocols(h2Default())
+                .executionStrategy(defaultStrategy(serviceExecutor))
+                .listenBlockingAndAwait((ctx, request, responseFactory) -> {
+                    Thread.sleep(sleepMillis);
+                    return responseFactory.ok();
+                });
+        client = HttpClients.forResolvedAddress((InetSocketAddress) serverContext.listenAddress())
+                .protocols(h2Default())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        serverContext.close();
+        serviceExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public void concurrentBlockedRequests(final ThreadCounters counters) throws Exception {
+        fromIterable(() -> IntStream.range(0, concurrency).iterator())
+                .flatMapMergeSingle(i -> client.request(client.get("/")), concurrency)
+                .ignoreElements()
+                .toFuture().get();
+        counters.sample();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class ThreadCounters {
+        private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        public long peakThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            threadMXBean.resetPeakThreadCount();
+            peakThreads = 0;
+        }
+
+        void sample() {
+            peakThreads = max(peakThreads, threadMXBean.getPeakThreadCount());
+        }
+    }
+}
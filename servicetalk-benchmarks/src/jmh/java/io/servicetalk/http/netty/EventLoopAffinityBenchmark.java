@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.IoThreadFactory;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.netty.StaticScoreHttpProtocolBinder.provideStaticScoreIfNeeded;
+import static io.servicetalk.loadbalancer.RoundRobinLoadBalancer.newEventLoopAffineRoundRobinFactory;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createEventLoopAffineIoExecutor;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoExecutor;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/*
+ * This benchmark measures the cost of handing a request off between I/O threads in a proxy-like service: a "frontend"
+ * server calls a "backend" server for every request it receives. Neither side offloads.
+ *
+ * With "affine" the frontend server and its client to the backend share an event loop affine IoExecutor and use an
+ * event loop affine load balancer, so the downstream call is issued and completed on the I/O thread that received the
+ * request. Otherwise the downstream connection is selected regardless of the calling I/O thread.
+ *
+ * The score is the latency of "concurrency" concurrent requests. The "handoffsPerRequest" secondary result is the
+ * fraction of requests for which the downstream response was delivered on a different thread than the one which
+ * received the request.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+public class EventLoopAffinityBenchmark {
+
+    @Param({"false", "true"})
+    public boolean affine;
+
+    @Param({"4"})
+    public int ioThreads;
+
+    @Param({"64"})
+    public int concurrency;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder handoffs = new LongAdder();
+    private IoExecutor frontendIoExecutor;
+    private ServerContext backend;
+    private HttpClient backendClient;
+    private ServerContext frontend;
+    private HttpClient client;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final IoThreadFactory threadFactory = new IoThreadFactory("frontend-io");
+        frontendIoExecutor = affine ? createEventLoopAffineIoExecutor(ioThreads, threadFactory) :
+                createIoExecutor(ioThreads, threadFactory);
+
+        backend = HttpServers.forAddress(localAddress())
+                .executionStrategy(noOffloadsStrategy())
+                .listenAndAwait((ctx, request, responseFactory) -> succeeded(responseFactory.ok()));
+
+        SingleAddressHttpClientBuilder<InetSocketAddress, InetSocketAddress> backendClientBuilder =
+                HttpClients.forResolvedAddress((InetSocketAddress) backend.listenAddress())
+                        .ioExecutor(frontendIoExecutor)
+                        .executionStrategy(noOffloadsStrategy());
+        if (affine) {
+            backendClientBuilder = backendClientBuilder.loadBalancerFactory(newEventLoopAffineRoundRobinFactory(),
+                    provideStaticScoreIfNeeded(1));
+        }
+        backendClient = backendClientBuilder.build();
+
+        frontend = HttpServers.forAddress(localAddress())
+                .ioExecutor(frontendIoExecutor)
+                .executionStrategy(noOffloadsStrategy())
+                .listenAndAwait((ctx, request, responseFactory) -> {
+                    final Thread receiver = Thread.currentThread();
+                    return backendClient.request(backendClient.get("/")).map(response -> {
+                        requests.increment();
+                        if (Thread.currentThread() != receiver) {
+                            handoffs.increment();
+                        }
+                        return responseFactory.ok();
+                    });
+                });
+
+        client = HttpClients.forResolvedAddress((InetSocketAddress) frontend.listenAddress())
+                .executionStrategy(noOffloadsStrategy())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        frontend.close();
+        backendClient.close();
+        backend.close();
+        frontendIoExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public void proxiedRequests(final HandoffCounters counters) throws Exception {
+        fromIterable(() -> IntStream.range(0, concurrency).iterator())
+                .flatMapMergeSingle(i -> client.request(client.get("/")), concurrency)
+                .ignoreElements()
+                .toFuture().get();
+        counters.sample(this);
+    }
+
+    private static InetSocketAddress localAddress() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HandoffCounters {
+        public double handoffsPerRequest;
+
+        @Setup(Level.Iteration)
+        public void reset(final EventLoopAffinityBenchmark benchmark) {
+            benchmark.requests.reset();
+            benchmark.handoffs.reset();
+            handoffsPerRequest = 0;
+        }
+
+        void sample(final EventLoopAffinityBenchmark benchmark) {
+            final long requests = benchmark.requests.sum();
+            handoffsPerRequest = requests == 0 ? 0 : (double) benchmark.handoffs.sum() / requests;
+        }
+    }
+}
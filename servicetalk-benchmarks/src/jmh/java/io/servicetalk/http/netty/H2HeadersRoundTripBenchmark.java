@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpHeadersFactory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersDecoder;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersEncoder;
+import io.netty.handler.codec.http2.Http2Headers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.function.BiPredicate;
+
+import static io.netty.buffer.Unpooled.directBuffer;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.AUTHORITY;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.METHOD;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.PATH;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.SCHEME;
+import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.STATUS;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.HOST;
+import static io.servicetalk.http.api.HttpHeaderNames.TE;
+import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
+import static io.servicetalk.http.api.HttpHeaderValues.TRAILERS;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.netty.H2ToStH1Utils.h1HeadersToH2Headers;
+import static io.servicetalk.http.netty.H2ToStH1Utils.h2HeadersSanitizeForH1;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+
+/*
+ * This benchmark measures the header round trip of a gRPC unary call over HTTP/2: request headers, response headers and
+ * response trailers are each converted from HttpHeaders, HPACK encoded, decoded and bridged back to HttpHeaders, the
+ * way H2ToStH1ClientDuplexHandler and H2ToStH1ServerDuplexHandler do it. Encoder and decoder keep their dynamic tables
+ * between invocations, like they would for a connection that carries many calls.
+ * - headersFactory: "h2" headers are backed by Http2Headers and handed to the encoder as is, "default" headers are
+ * copied into Http2Headers.
+ * - neverIndexVolatile: whether headers that change with every call are kept out of the HPACK dynamic table.
+ */
+@Fork(value = 1)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class H2HeadersRoundTripBenchmark {
+
+    private static final String PATH_VALUE = "/routeguide.RouteGuide/GetFeature";
+    private static final String AUTHORITY_VALUE = "routeguide.example.com:8980";
+
+    @Param({"h2", "default"})
+    public String headersFactory;
+
+    @Param({"false", "true"})
+    public boolean neverIndexVolatile;
+
+    private HttpHeadersFactory factory;
+    private DefaultHttp2HeadersEncoder clientEncoder;
+    private DefaultHttp2HeadersDecoder serverDecoder;
+    private DefaultHttp2HeadersEncoder serverEncoder;
+    private DefaultHttp2HeadersDecoder clientDecoder;
+    private ByteBuf headerBlock;
+    private int callId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (headersFactory) {
+            case "h2":
+                factory = H2HeadersFactory.INSTANCE;
+                break;
+            case "default":
+                factory = DefaultHttpHeadersFactory.INSTANCE;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown headers factory: " + headersFactory);
+        }
+        final BiPredicate<CharSequence, CharSequence> sensitivityDetector = (neverIndexVolatile ?
+                h2().neverIndexedHeaders("grpc-timeout", "x-request-id") : h2()).build().headersSensitivityDetector();
+        clientEncoder = new DefaultHttp2HeadersEncoder(sensitivityDetector::test);
+        serverEncoder = new DefaultHttp2HeadersEncoder(sensitivityDetector::test);
+        serverDecoder = new DefaultHttp2HeadersDecoder(true);
+        clientDecoder = new DefaultHttp2HeadersDecoder(true);
+        headerBlock = directBuffer(4096);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        headerBlock.release();
+    }
+
+    @Benchmark
+    public int unaryCall() throws Exception {
+        final int id = ++callId;
+        final int streamId = 2 * (id & 0x3fffffff) + 1;
+
+        // Client: request headers
+        final HttpHeaders requestHeaders = factory.newHeaders()
+                .set(CONTENT_TYPE, "application/grpc")
+                .set(TE, TRAILERS)
+                .set(USER_AGENT, "servicetalk-grpc-benchmark/0.1")
+                .set("grpc-accept-encoding", "gzip")
+                .set("grpc-timeout", (100000 + id % 100000) + "u")
+                .set("x-request-id", Integer.toHexString(id))
+                .set("x-tenant-id", "tenant-42")
+                .set("x-client-version", "2.7.1");
+        final Http2Headers h2Request = h1HeadersToH2Headers(requestHeaders);
+        h2Request.method(POST.name()).scheme("https").path(PATH_VALUE).authority(AUTHORITY_VALUE);
+        final Http2Headers decodedRequest = roundTrip(clientEncoder, serverDecoder, streamId, h2Request);
+
+        // Server: bridge request headers
+        final CharSequence method = decodedRequest.getAndRemove(METHOD.value());
+        final CharSequence path = decodedRequest.getAndRemove(PATH.value());
+        final CharSequence authority = decodedRequest.getAndRemove(AUTHORITY.value());
+        if (authority != null) {
+            decodedRequest.set(HOST, authority);
+        }
+        decodedRequest.remove(SCHEME.value());
+        h2HeadersSanitizeForH1(decodedRequest);
+        final HttpHeaders serverRequestHeaders = new NettyH2HeadersToHttpHeaders(decodedRequest, true);
+
+        // Server: response headers and trailers
+        final HttpHeaders responseHeaders = factory.newHeaders()
+                .set(CONTENT_TYPE, "application/grpc")
+                .set("grpc-encoding", "identity");
+        final Http2Headers h2Response = h1HeadersToH2Headers(responseHeaders);
+        h2Response.status(OK.codeAsCharSequence());
+        final Http2Headers decodedResponse = roundTrip(serverEncoder, clientDecoder, streamId, h2Response);
+        final CharSequence status = decodedResponse.getAndRemove(STATUS.value());
+        h2HeadersSanitizeForH1(decodedResponse);
+        final HttpHeaders clientResponseHeaders = new NettyH2HeadersToHttpHeaders(decodedResponse, true);
+
+        final HttpHeaders responseTrailers = factory.newTrailers().set("grpc-status", "0");
+        final Http2Headers decodedTrailers = roundTrip(serverEncoder, clientDecoder, streamId,
+                h1HeadersToH2Headers(responseTrailers));
+        final HttpHeaders clientResponseTrailers = new NettyH2HeadersToHttpHeaders(decodedTrailers, true);
+
+        if (method == null || path == null || status == null) {
+            throw new IllegalStateException("Missing pseudo-header");
+        }
+        return serverRequestHeaders.size() + clientResponseHeaders.size() + clientResponseTrailers.size();
+    }
+
+    private Http2Headers roundTrip(final DefaultHttp2HeadersEncoder encoder, final DefaultHttp2HeadersDecoder decoder,
+                                   final int streamId, final Http2Headers headers) throws Exception {
+        headerBlock.clear();
+        encoder.encodeHeaders(streamId, headers, headerBlock);
+        return decoder.decodeHeaders(streamId, headerBlock);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static io.netty.buffer.Unpooled.directBuffer;
+import static io.netty.buffer.Unpooled.unreleasableBuffer;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/*
+ * This benchmark complements HttpResponseDecoderBenchmark and measures decoding of HTTP requests with realistic header
+ * sets, which is dominated by finding line and header name delimiters and by materializing header names:
+ * - browser: a navigation request of a browser, with capitalized header names.
+ * - grpc: the headers of a gRPC call, with lower case header names.
+ *
+ * Run with "-prof gc" to also report the allocation rate per decoded request.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class HttpRequestDecoderBenchmark {
+
+    private static final String BROWSER_REQUEST = "GET /products/list?page=2&sort=price HTTP/1.1\r\n" +
+            "Host: www.example.com\r\n" +
+            "Connection: keep-alive\r\n" +
+            "Cache-Control: max-age=0\r\n" +
+            "Upgrade-Insecure-Requests: 1\r\n" +
+            "User-Agent: Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_3) AppleWebKit/537.36 (KHTML, like Gecko) " +
+            "Chrome/80.0.3987.132 Safari/537.36\r\n" +
+            "Accept: text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8," +
+            "application/signed-exchange;v=b3;q=0.9\r\n" +
+            "Sec-Fetch-Site: same-origin\r\n" +
+            "Sec-Fetch-Mode: navigate\r\n" +
+            "Sec-Fetch-User: ?1\r\n" +
+            "Sec-Fetch-Dest: document\r\n" +
+            "Referer: https://www.example.com/products/list?page=1&sort=price\r\n" +
+            "Accept-Encoding: gzip, deflate, br\r\n" +
+            "Accept-Language: en-US,en;q=0.9\r\n" +
+            "Cookie: session=4f3c2a1b9e8d7c6b5a4f3e2d1c0b9a8f; theme=dark; _ga=GA1.2.1234567890.1583000000\r\n" +
+            "\r\n";
+
+    private static final String GRPC_REQUEST = "POST /routeguide.RouteGuide/GetFeature HTTP/1.1\r\n" +
+            "host: routeguide.example.com:8980\r\n" +
+            "content-type: application/grpc\r\n" +
+            "te: trailers\r\n" +
+            "user-agent: grpc-java-netty/1.26.0\r\n" +
+            "grpc-accept-encoding: gzip\r\n" +
+            "grpc-encoding: identity\r\n" +
+            "grpc-timeout: 999980u\r\n" +
+            "x-request-id: 1b4e28ba-2fa1-11d2-883f-0016d3cca427\r\n" +
+            "content-length: 0\r\n" +
+            "\r\n";
+
+    @Param({"browser", "grpc"})
+    public String headerSet;
+
+    private final Queue<HttpRequestMethod> methodQueue = new ArrayDeque<>();
+    private ByteBuf requestByteBuf;
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final byte[] request;
+        switch (headerSet) {
+            case "browser":
+                request = BROWSER_REQUEST.getBytes(US_ASCII);
+                break;
+            case "grpc":
+                request = GRPC_REQUEST.getBytes(US_ASCII);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown header set: " + headerSet);
+        }
+        requestByteBuf = unreleasableBuffer(directBuffer(request.length).writeBytes(request));
+        channel = new EmbeddedChannel(new HttpRequestDecoder(methodQueue,
+                DefaultHttpHeadersFactory.INSTANCE, 8192, 8192));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int decode() {
+        channel.writeInbound(requestByteBuf.duplicate());
+
+        final HttpRequestMetaData request = channel.readInbound();
+        final HttpHeaders trailers = channel.readInbound();
+        // The decoder records the method of every request for the response encoder, drain it to keep the queue small.
+        methodQueue.poll();
+        return request.headers().size() + trailers.size();
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpProtocolConfig;
+import io.servicetalk.http.api.HttpRequester;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.HttpServerBuilder;
+import io.servicetalk.http.api.ReservedHttpConnection;
+import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.test.resources.DefaultTestCerts;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.IoThreadFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h1;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createEventLoopGroup;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoopGroup;
+import static java.lang.Runtime.getRuntime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/*
+ * This benchmark measures full request/response round trips between a client built by
+ * DefaultSingleAddressHttpClientBuilder and a server built by DefaultHttpServerBuilder over loopback. The server
+ * echoes the request payload.
+ *
+ * Parameters:
+ * - protocol: "h1" (one request per connection at a time, the client opens a connection per thread), "h1-pipelined"
+ *   (requests of all threads are pipelined on a single reserved connection), "h2" (requests of all threads are
+ *   multiplexed on a single reserved connection). Without the reservation the load balancer may open more connections
+ *   whenever requests race for one, so the number of connections would vary between runs.
+ * - tls: whether the connection is secured. H2 with TLS negotiates the protocol via ALPN, which requires a JDK with
+ *   ALPN support.
+ * - offload: whether the client and the server offload from the I/O threads (default strategy) or not.
+ * - api: "aggregated" uses HttpClient and an aggregated service, "streaming" uses StreamingHttpClient and a streaming
+ *   service.
+ * - transport: the Netty transport shared by the client and the server, "nio" or "native". "native" uses the transport
+ *   NettyIoExecutors picks by default (epoll or kqueue) and fails the trial if none is available rather than silently
+ *   measuring NIO.
+ *
+ * To keep the default run short only protocol, tls and transport are varied, offloading is enabled and the aggregated
+ * API is used. Select other values with e.g. "-p offload=false -p api=streaming".
+ *
+ * Throughput and latency percentiles are reported by the Throughput and SampleTime modes. To also report the
+ * allocation rate run with the gc profiler, e.g.:
+ *   java -jar servicetalk-benchmarks-jmh.jar HttpRoundTripBenchmark -prof gc
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Threads(4)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(MICROSECONDS)
+public class HttpRoundTripBenchmark {
+
+    private static final int PIPELINED_REQUESTS = 4;
+
+    @Param({"h1", "h1-pipelined", "h2"})
+    public String protocol;
+
+    @Param({"false", "true"})
+    public boolean tls;
+
+    @Param({"true"})
+    public boolean offload;
+
+    @Param({"aggregated"})
+    public String api;
+
+    @Param({"256"})
+    public int payloadSize;
+
+    @Param({"nio", "native"})
+    public String transport;
+
+    private IoExecutor ioExecutor;
+    private ServerContext serverContext;
+    private HttpClient client;
+    @Nullable
+    private ReservedHttpConnection connection;
+    private HttpRequester requester;
+    private HttpExecutionStrategy strategy;
+    private StreamingHttpRequester streamingRequester;
+    private Buffer payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        final HttpProtocolConfig protocolConfig;
+        switch (protocol) {
+            case "h1":
+                protocolConfig = h1Default();
+                break;
+            case "h1-pipelined":
+                protocolConfig = h1().maxPipelinedRequests(PIPELINED_REQUESTS).build();
+                break;
+            case "h2":
+                protocolConfig = h2Default();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown protocol: " + protocol);
+        }
+        strategy = offload ? defaultStrategy() : noOffloadsStrategy();
+        ioExecutor = newIoExecutor(transport);
+        payload = DEFAULT_ALLOCATOR.fromAscii(new String(new char[payloadSize]).replace('\0', 'a'));
+
+        HttpServerBuilder serverBuilder = HttpServers.forAddress(new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), 0))
+                .protocols(protocolConfig)
+                .ioExecutor(ioExecutor)
+                .executionStrategy(strategy);
+        if (tls) {
+            serverBuilder = serverBuilder.secure()
+                    .commit(DefaultTestCerts::loadServerPem, DefaultTestCerts::loadServerKey);
+        }
+        if ("streaming".equals(api)) {
+            serverContext = serverBuilder.listenStreamingAndAwait((ctx, request, responseFactory) ->
+                    succeeded(responseFactory.ok().payloadBody(request.payloadBody())));
+        } else {
+            serverContext = serverBuilder.listenAndAwait((ctx, request, responseFactory) ->
+                    succeeded(responseFactory.ok().payloadBody(request.payloadBody())));
+        }
+
+        SingleAddressHttpClientBuilder<InetSocketAddress, InetSocketAddress> clientBuilder =
+                HttpClients.forResolvedAddress((InetSocketAddress) serverContext.listenAddress())
+                        .protocols(protocolConfig)
+                        .ioExecutor(ioExecutor)
+                        .executionStrategy(strategy);
+        if (tls) {
+            clientBuilder = clientBuilder.secure().disableHostnameVerification()
+                    .trustManager(DefaultTestCerts::loadMutualAuthCaPem).commit();
+        }
+        client = clientBuilder.build();
+        if ("h1".equals(protocol)) {
+            requester = client;
+            streamingRequester = client.asStreamingClient();
+        } else {
+            // Pipelining and multiplexing share a single connection between all threads.
+            connection = client.reserveConnection(client.get("/")).toFuture().get();
+            requester = connection;
+            streamingRequester = connection.asStreamingConnection();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.releaseAsync().toFuture().get();
+        }
+        client.close();
+        serverContext.close();
+        ioExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        if ("streaming".equals(api)) {
+            return streamingRequester.request(strategy, streamingRequester.post("/")
+                    .payloadBody(from(payload.duplicate())))
+                    .flatMapPublisher(response -> response.payloadBody())
+                    .ignoreElements()
+                    .toFuture().get();
+        }
+        final HttpResponse response = requester.request(strategy, requester.post("/")
+                .payloadBody(payload.duplicate())).toFuture().get();
+        return response.payloadBody();
+    }
+
+    private static IoExecutor newIoExecutor(final String transport) {
+        final int ioThreads = getRuntime().availableProcessors();
+        final IoThreadFactory threadFactory = new IoThreadFactory("benchmark-io-" + transport);
+        switch (transport) {
+            case "nio":
+                return fromNettyEventLoopGroup(new NioEventLoopGroup(ioThreads, threadFactory));
+            case "native":
+                final EventLoopGroup group = createEventLoopGroup(ioThreads, threadFactory);
+                if (group instanceof NioEventLoopGroup) {
+                    group.shutdownGracefully();
+                    throw new IllegalStateException("No native transport is available");
+                }
+                return fromNettyEventLoopGroup(group);
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + transport);
+        }
+    }
+}
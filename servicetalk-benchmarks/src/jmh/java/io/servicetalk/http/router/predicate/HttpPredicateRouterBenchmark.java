@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.router.predicate;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.api.ReadOnlyBufferAllocators.DEFAULT_RO_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.router.predicate.Predicates.pathEquals;
+import static io.servicetalk.http.router.predicate.Predicates.pathStartsWith;
+import static java.util.Collections.singletonList;
+
+/*
+ * This benchmark compares route selection of InOrderRouter and PathTrieRouter for the same routes. Half of the routes
+ * match an exact path, the other half a path prefix. Requests target the last route of each kind, which is the worst
+ * case for InOrderRouter.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class HttpPredicateRouterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int routes;
+
+    private StreamingHttpService inOrderRouter;
+    private StreamingHttpService pathTrieRouter;
+    private StreamingHttpRequest exactPathRequest;
+    private StreamingHttpRequest pathPrefixRequest;
+    private StreamingHttpResponseFactory responseFactory;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final StreamingHttpRequestResponseFactory reqRespFactory =
+                new DefaultStreamingHttpRequestResponseFactory(DEFAULT_RO_ALLOCATOR, INSTANCE, HTTP_1_1);
+        responseFactory = reqRespFactory;
+        final Single<StreamingHttpResponse> response = succeeded(reqRespFactory.ok());
+        final StreamingHttpService service = (ctx, request, factory) -> response;
+
+        final List<Route> routeList = new ArrayList<>(routes);
+        for (int i = 0; i < routes; ++i) {
+            if ((i & 1) == 0) {
+                final String path = "/exact/" + i;
+                routeList.add(new Route(pathEquals(path), service, null, singletonList(path), null));
+                exactPathRequest = reqRespFactory.get(path);
+            } else {
+                final String prefix = "/prefix/" + i + '/';
+                routeList.add(new Route(pathStartsWith(prefix), service, null, null, prefix));
+                pathPrefixRequest = reqRespFactory.get(prefix + "resource");
+            }
+        }
+        inOrderRouter = new InOrderRouter(DefaultFallbackServiceStreaming.instance(), routeList);
+        pathTrieRouter = new PathTrieRouter(DefaultFallbackServiceStreaming.instance(), routeList);
+    }
+
+    @Benchmark
+    public Single<StreamingHttpResponse> inOrderExactPath() {
+        return inOrderRouter.handle(null, exactPathRequest, responseFactory);
+    }
+
+    @Benchmark
+    public Single<StreamingHttpResponse> pathTrieExactPath() {
+        return pathTrieRouter.handle(null, exactPathRequest, responseFactory);
+    }
+
+    @Benchmark
+    public Single<StreamingHttpResponse> inOrderPathPrefix() {
+        return inOrderRouter.handle(null, pathPrefixRequest, responseFactory);
+    }
+
+    @Benchmark
+    public Single<StreamingHttpResponse> pathTriePathPrefix() {
+        return pathTrieRouter.handle(null, pathPrefixRequest, responseFactory);
+    }
+}
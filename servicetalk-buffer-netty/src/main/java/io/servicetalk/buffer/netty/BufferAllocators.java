@@ -39,6 +39,25 @@ public final class BufferAllocators {
      */
     public static final BufferAllocator PREFER_HEAP_ALLOCATOR = BufferUtils.PREFER_HEAP_ALLOCATOR;
 
+    /**
+     * {@link BufferAllocator} whose {@link Buffer}s are backed by pooled and reference counted Netty buffers and
+     * prefers direct memory allocation when otherwise not specified.
+     * <p>
+     * A {@link Buffer} allocated by this {@link BufferAllocator} stays owned by the caller when it is written: the
+     * transport retains it for the duration of the write, so the same {@link Buffer} can be written again, e.g. by a
+     * retried or hedged request. Its memory is returned to the pool once the caller releases it via
+     * {@link BufferUtils#release(Buffer)}. {@link Buffer}s that are read from the transport are never pooled.
+     */
+    public static final BufferAllocator PREFER_DIRECT_POOLED_ALLOCATOR = BufferUtils.PREFER_DIRECT_POOLED_ALLOCATOR;
+
+    /**
+     * {@link BufferAllocator} whose {@link Buffer}s are backed by pooled and reference counted Netty buffers and
+     * prefers heap memory allocation when otherwise not specified.
+     * <p>
+     * See {@link #PREFER_DIRECT_POOLED_ALLOCATOR} for the ownership rules of the allocated {@link Buffer}s.
+     */
+    public static final BufferAllocator PREFER_HEAP_POOLED_ALLOCATOR = BufferUtils.PREFER_HEAP_POOLED_ALLOCATOR;
+
     private BufferAllocators() {
         // no instances
     }
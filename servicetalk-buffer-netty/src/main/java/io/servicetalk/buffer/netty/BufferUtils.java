@@ -37,6 +37,8 @@ public final class BufferUtils {
     static final BufferAllocator PREFER_HEAP_ALLOCATOR = new ServiceTalkBufferAllocator(false, false);
     static final BufferAllocator PREFER_DIRECT_ALLOCATOR = new ServiceTalkBufferAllocator(true, false);
     static final BufferAllocator PREFER_DIRECT_ALLOCATOR_WITHOUT_ZEROING = new ServiceTalkBufferAllocator(true, true);
+    static final BufferAllocator PREFER_DIRECT_POOLED_ALLOCATOR = new PooledServiceTalkBufferAllocator(true);
+    static final BufferAllocator PREFER_HEAP_POOLED_ALLOCATOR = new PooledServiceTalkBufferAllocator(false);
 
     private BufferUtils() {
         // no instances
@@ -120,6 +122,56 @@ public final class BufferUtils {
         return new NettyBuffer<>(buffer);
     }
 
+    /**
+     * Return a {@link Buffer} for the given {@link ByteBuf} which does not require to be released.
+     * <p>
+     * If the passed {@link ByteBuf} {@link #isPooled(ByteBuf) is pooled}, its readable bytes are copied to an
+     * unreleasable {@link ByteBuf} and the passed {@link ByteBuf} is released. Otherwise, this is equivalent to
+     * {@link #newBufferFrom(ByteBuf)}.
+     *
+     * @param buffer the buffer to wrap or copy. Ownership of this buffer is transferred to this method.
+     * @return the created buffer.
+     */
+    public static Buffer newUnreleasableBufferFrom(ByteBuf buffer) {
+        if (!isPooled(buffer)) {
+            return new NettyBuffer<>(buffer);
+        }
+        try {
+            return new NettyBuffer<>(((ByteBufAllocator) PREFER_HEAP_ALLOCATOR)
+                    .heapBuffer(buffer.readableBytes()).writeBytes(buffer, buffer.readerIndex(),
+                            buffer.readableBytes()));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * Determine if the passed {@link ByteBuf} is allocated from a pooled allocator and therefore must be released
+     * after use.
+     *
+     * @param buffer the {@link ByteBuf} to check.
+     * @return {@code true} if the passed {@link ByteBuf} is allocated from a pooled allocator.
+     */
+    public static boolean isPooled(ByteBuf buffer) {
+        return buffer.alloc().isDirectBufferPooled();
+    }
+
+    /**
+     * Release the passed {@link Buffer} if it was allocated from a pooled {@link BufferAllocator} like
+     * {@link BufferAllocators#PREFER_DIRECT_POOLED_ALLOCATOR}.
+     * <p>
+     * {@link Buffer}s allocated from a pooled {@link BufferAllocator} stay owned by the caller when they are written,
+     * the transport only holds its own reference for the duration of the write. The caller has to release them once
+     * they are no longer needed, e.g. after the response of a request whose payload may be retried has completed.
+     *
+     * @param buffer the {@link Buffer} to release.
+     * @return {@code true} if the underlying memory was released.
+     */
+    public static boolean release(Buffer buffer) {
+        final ByteBuf byteBuf = toByteBufNoThrow(buffer);
+        return byteBuf != null && isPooled(byteBuf) && byteBuf.release();
+    }
+
     /**
      * Calculate the max bytes length of UTF8 character sequence.
      * @param data the data to be encoded in UTF8.
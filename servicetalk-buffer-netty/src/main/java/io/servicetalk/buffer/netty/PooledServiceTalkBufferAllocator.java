@@ -0,0 +1,114 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link ServiceTalkBufferAllocator} which allocates from a {@link PooledByteBufAllocator}.
+ * <p>
+ * Unlike {@link ServiceTalkBufferAllocator} all allocated {@link ByteBuf}s are reference counted and subject to leak
+ * detection. A {@link Buffer} created by this allocator is owned by whoever writes it to the transport, the transport
+ * releases it once the write completes. A {@link Buffer} which is never written must be released via
+ * {@link BufferUtils#release(Buffer)}. Buffers that wrap existing memory (e.g. {@link #wrap(byte[])}) are not pooled
+ * and remain unreleasable.
+ */
+final class PooledServiceTalkBufferAllocator extends ServiceTalkBufferAllocator {
+    private final PooledByteBufAllocator pooled;
+
+    PooledServiceTalkBufferAllocator(boolean preferDirect) {
+        this(preferDirect, PooledByteBufAllocator.DEFAULT);
+    }
+
+    PooledServiceTalkBufferAllocator(boolean preferDirect, PooledByteBufAllocator pooled) {
+        super(preferDirect, false);
+        this.pooled = requireNonNull(pooled);
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        // The PooledByteBufAllocator already takes care of wrapping the buffer for leak detection.
+        return pooled.heapBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        // The PooledByteBufAllocator already takes care of wrapping the buffer for leak detection.
+        return pooled.directBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    public CompositeByteBuf compositeHeapBuffer(int maxNumComponents) {
+        return toLeakAwareBuffer(new CompositeByteBuf(this, false, maxNumComponents));
+    }
+
+    @Override
+    public CompositeByteBuf compositeDirectBuffer(int maxNumComponents) {
+        return toLeakAwareBuffer(new CompositeByteBuf(this, true, maxNumComponents));
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return true;
+    }
+
+    /**
+     * Get the number of buffers that are currently allocated from the underlying pool and not yet released.
+     * <p>
+     * Released buffers which are retained by thread local caches of the underlying {@link PooledByteBufAllocator} are
+     * still counted as active.
+     *
+     * @return the number of buffers that are currently allocated from the underlying pool and not yet released.
+     */
+    long numActiveAllocations() {
+        return numActiveAllocations(pooled.metric().heapArenas()) +
+                numActiveAllocations(pooled.metric().directArenas());
+    }
+
+    /**
+     * Get the number of buffers that have been allocated from the underlying pool so far, including released ones.
+     *
+     * @return the number of buffers that have been allocated from the underlying pool so far.
+     */
+    long numAllocations() {
+        return numAllocations(pooled.metric().heapArenas()) + numAllocations(pooled.metric().directArenas());
+    }
+
+    private static long numActiveAllocations(List<PoolArenaMetric> arenas) {
+        long active = 0;
+        for (PoolArenaMetric arena : arenas) {
+            active += arena.numActiveAllocations();
+        }
+        return active;
+    }
+
+    private static long numAllocations(List<PoolArenaMetric> arenas) {
+        long allocations = 0;
+        for (PoolArenaMetric arena : arenas) {
+            allocations += arena.numAllocations();
+        }
+        return allocations;
+    }
+}
@@ -37,8 +37,10 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 /**
  * Our own {@link AbstractByteBufAllocator} implementation which will not use leak-detection and depends on the GC
  * to handle the de-allocation of direct memory. All the returned {@link ByteBuf} are also unreleasable.
+ * <p>
+ * See {@link PooledServiceTalkBufferAllocator} for a variant which returns pooled and reference counted buffers.
  */
-final class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implements BufferAllocator {
+class ServiceTalkBufferAllocator extends AbstractByteBufAllocator implements BufferAllocator {
     private final ByteBufAllocator forceHeapAllocator = new ForceTypeByteBufAllocator(this, false);
     private final ByteBufAllocator forceDirectAllocator = new ForceTypeByteBufAllocator(this, true);
 
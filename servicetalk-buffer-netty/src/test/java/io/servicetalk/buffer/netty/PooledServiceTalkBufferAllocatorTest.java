@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_DIRECT_POOLED_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_HEAP_POOLED_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtils.isPooled;
+import static io.servicetalk.buffer.netty.BufferUtils.newUnreleasableBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtils.release;
+import static io.servicetalk.buffer.netty.BufferUtils.toByteBuf;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PooledServiceTalkBufferAllocatorTest {
+
+    @Rule
+    public final PooledBufferAllocatorRule allocatorRule = PooledBufferAllocatorRule.preferDirect();
+
+    @Test
+    public void preferredMemoryType() {
+        Buffer direct = PREFER_DIRECT_POOLED_ALLOCATOR.newBuffer();
+        Buffer heap = PREFER_HEAP_POOLED_ALLOCATOR.newBuffer();
+        try {
+            assertTrue(direct.isDirect());
+            assertFalse(heap.isDirect());
+        } finally {
+            assertTrue(release(direct));
+            assertTrue(release(heap));
+        }
+    }
+
+    @Test
+    public void allocatedBuffersArePooled() {
+        Buffer buffer = allocatorRule.allocator().fromAscii("hello");
+        assertTrue(isPooled(toByteBuf(buffer)));
+        assertEquals(1, allocatorRule.numActiveAllocations());
+        assertTrue(release(buffer));
+        assertEquals(0, allocatorRule.numActiveAllocations());
+    }
+
+    @Test
+    public void wrappedBuffersAreNotPooled() {
+        Buffer buffer = allocatorRule.allocator().wrap(new byte[] {1, 2, 3});
+        assertFalse(isPooled(toByteBuf(buffer)));
+        assertFalse(release(buffer));
+        assertEquals(0, allocatorRule.numActiveAllocations());
+    }
+
+    @Test
+    public void newUnreleasableBufferFromCopiesAndReleases() {
+        ByteBuf pooled = toByteBuf(allocatorRule.allocator().fromAscii("hello"));
+        Buffer copy = newUnreleasableBufferFrom(pooled.retainedSlice(1, 3));
+        assertEquals("ell", copy.toString(US_ASCII));
+        assertFalse(isPooled(toByteBuf(copy)));
+        assertEquals(1, pooled.refCnt());
+        pooled.release();
+    }
+
+    @Test
+    public void newUnreleasableBufferFromDoesNotCopyUnpooled() {
+        ByteBuf unpooled = toByteBuf(BufferAllocators.DEFAULT_ALLOCATOR.fromAscii("hello"));
+        assertSame(unpooled, toByteBuf(newUnreleasableBufferFrom(unpooled)));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.buffer.netty;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
+import org.junit.rules.ExternalResource;
+
+import static io.netty.buffer.PooledByteBufAllocator.defaultMaxOrder;
+import static io.netty.buffer.PooledByteBufAllocator.defaultPageSize;
+
+/**
+ * An {@link ExternalResource} which provides a dedicated pooled {@link BufferAllocator} and fails the test if any
+ * buffer allocated from it has not been released when the test finishes.
+ */
+public final class PooledBufferAllocatorRule extends ExternalResource {
+
+    private final boolean preferDirect;
+    private PooledServiceTalkBufferAllocator allocator;
+    private Level previousLevel;
+
+    private PooledBufferAllocatorRule(final boolean preferDirect) {
+        this.preferDirect = preferDirect;
+    }
+
+    /**
+     * Create a {@link PooledBufferAllocatorRule} which prefers direct memory.
+     *
+     * @return a new {@link PooledBufferAllocatorRule}.
+     */
+    public static PooledBufferAllocatorRule preferDirect() {
+        return new PooledBufferAllocatorRule(true);
+    }
+
+    /**
+     * Create a {@link PooledBufferAllocatorRule} which prefers heap memory.
+     *
+     * @return a new {@link PooledBufferAllocatorRule}.
+     */
+    public static PooledBufferAllocatorRule preferHeap() {
+        return new PooledBufferAllocatorRule(false);
+    }
+
+    @Override
+    protected void before() {
+        previousLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(Level.PARANOID);
+        // Disable thread local caches so that released buffers are immediately accounted for.
+        allocator = new PooledServiceTalkBufferAllocator(preferDirect, new PooledByteBufAllocator(preferDirect,
+                1, 1, defaultPageSize(), defaultMaxOrder(), 0, 0, 0, false));
+    }
+
+    @Override
+    protected void after() {
+        ResourceLeakDetector.setLevel(previousLevel);
+        final long active = allocator.numActiveAllocations();
+        if (active != 0) {
+            throw new AssertionError("Leaked " + active + " pooled buffer(s).");
+        }
+    }
+
+    /**
+     * Returns the pooled {@link BufferAllocator} to use in the test.
+     *
+     * @return the pooled {@link BufferAllocator} to use in the test.
+     */
+    public BufferAllocator allocator() {
+        return allocator;
+    }
+
+    /**
+     * Returns the number of buffers allocated from {@link #allocator()} which have not yet been released.
+     *
+     * @return the number of buffers allocated from {@link #allocator()} which have not yet been released.
+     */
+    public long numActiveAllocations() {
+        return allocator.numActiveAllocations();
+    }
+
+    /**
+     * Returns the number of buffers allocated from {@link #allocator()} so far, including released ones.
+     *
+     * @return the number of buffers allocated from {@link #allocator()} so far.
+     */
+    public long numAllocations() {
+        return allocator.numAllocations();
+    }
+}
@@ -259,6 +259,15 @@ public abstract class AbstractRetryingFilterBuilder<Builder
             this.jitter = jitter;
         }
 
+        /**
+         * Returns the maximum number of allowed retry operations before giving up.
+         *
+         * @return the maximum number of allowed retry operations before giving up
+         */
+        public int maxRetries() {
+            return maxRetries;
+        }
+
         /**
          * Checks the provided pair of {@link Meta} and {@link Throwable} that the case is retryable.
          *
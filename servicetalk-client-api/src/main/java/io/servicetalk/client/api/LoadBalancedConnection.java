@@ -24,4 +24,28 @@ import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
  * highest. {@link LoadBalancer}s prefer connections with a higher score.
  */
 public interface LoadBalancedConnection extends ListenableAsyncCloseable, ScoreSupplier {
+
+    /**
+     * Determine if this connection is serviced by the calling thread.
+     * <p>
+     * {@link LoadBalancer}s that prefer thread affinity may use this to select a connection that avoids a handoff
+     * between threads for the request/response exchange.
+     *
+     * @return {@code true} if this connection is serviced by the calling thread.
+     */
+    default boolean isAffineToCurrentThread() {
+        return false;
+    }
+
+    /**
+     * Sets the {@link InFlightRequestListener} which is notified when this connection starts and finishes processing a
+     * request.
+     * <p>
+     * {@link LoadBalancer}s may use this to track the number of in-flight requests per host without iterating over its
+     * connections. The default implementation does not track requests and never notifies the listener.
+     *
+     * @param listener the {@link InFlightRequestListener} to notify.
+     */
+    default void inFlightRequestListener(InFlightRequestListener listener) {
+    }
 }
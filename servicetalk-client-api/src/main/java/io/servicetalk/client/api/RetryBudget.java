@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+/**
+ * A budget which bounds the additional load that retries may add on top of the original requests.
+ * <p>
+ * The budget is a token bucket: every request deposits a fraction of a retry as defined by the retry ratio, and every
+ * retry withdraws a full retry. Once the budget is exhausted retries are rejected until more requests deposit into it.
+ * For example, with a retry ratio of {@code 0.1} retries add at most {@code 10%} to the base traffic. To allow
+ * clients with little traffic to retry, the bucket starts full and accumulates up to
+ * {@link Builder#maxRetryBurst(int) max retry burst} retries.
+ * <p>
+ * A {@link RetryBudget} is thread-safe and lock-free. It can be shared across clients to bound the retries of all of
+ * them together.
+ */
+public final class RetryBudget {
+    private static final long TOKENS_PER_RETRY = 1000;
+    private static final AtomicLongFieldUpdater<RetryBudget> tokensUpdater =
+            AtomicLongFieldUpdater.newUpdater(RetryBudget.class, "tokens");
+    private static final AtomicLongFieldUpdater<RetryBudget> requestsUpdater =
+            AtomicLongFieldUpdater.newUpdater(RetryBudget.class, "requests");
+    private static final AtomicLongFieldUpdater<RetryBudget> retriesUpdater =
+            AtomicLongFieldUpdater.newUpdater(RetryBudget.class, "retries");
+    private static final AtomicLongFieldUpdater<RetryBudget> rejectedRetriesUpdater =
+            AtomicLongFieldUpdater.newUpdater(RetryBudget.class, "rejectedRetries");
+
+    private final long depositPerRequest;
+    private final long maxTokens;
+    private volatile long tokens;
+    private volatile long requests;
+    private volatile long retries;
+    private volatile long rejectedRetries;
+
+    private RetryBudget(final double retryRatio, final int maxRetryBurst) {
+        depositPerRequest = round(retryRatio * TOKENS_PER_RETRY);
+        maxTokens = maxRetryBurst * TOKENS_PER_RETRY;
+        tokens = maxTokens;
+    }
+
+    /**
+     * Records a request, which deposits into the budget.
+     */
+    public void onRequest() {
+        requestsUpdater.incrementAndGet(this);
+        for (;;) {
+            final long current = tokens;
+            final long next = min(maxTokens, current + depositPerRequest);
+            if (next == current || tokensUpdater.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Attempts to withdraw a retry from the budget.
+     *
+     * @return {@code true} if a retry is allowed, {@code false} if the budget is exhausted and the failure should be
+     * propagated instead.
+     */
+    public boolean tryRetry() {
+        for (;;) {
+            final long current = tokens;
+            if (current < TOKENS_PER_RETRY) {
+                rejectedRetriesUpdater.incrementAndGet(this);
+                return false;
+            }
+            if (tokensUpdater.compareAndSet(this, current, current - TOKENS_PER_RETRY)) {
+                retriesUpdater.incrementAndGet(this);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of retries currently available in this budget.
+     *
+     * @return the number of retries currently available in this budget.
+     */
+    public int availableRetries() {
+        return (int) (tokens / TOKENS_PER_RETRY);
+    }
+
+    /**
+     * Returns the total number of requests recorded by {@link #onRequest()}.
+     *
+     * @return the total number of requests recorded by {@link #onRequest()}.
+     */
+    public long requests() {
+        return requests;
+    }
+
+    /**
+     * Returns the total number of retries allowed by {@link #tryRetry()}.
+     *
+     * @return the total number of retries allowed by {@link #tryRetry()}.
+     */
+    public long retries() {
+        return retries;
+    }
+
+    /**
+     * Returns the total number of retries rejected by {@link #tryRetry()} because the budget was exhausted.
+     *
+     * @return the total number of retries rejected by {@link #tryRetry()}.
+     */
+    public long rejectedRetries() {
+        return rejectedRetries;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "{availableRetries=" + availableRetries() +
+                ", requests=" + requests +
+                ", retries=" + retries +
+                ", rejectedRetries=" + rejectedRetries +
+                '}';
+    }
+
+    /**
+     * A builder for {@link RetryBudget}.
+     */
+    public static final class Builder {
+        private static final double DEFAULT_RETRY_RATIO = 0.1;
+        private static final int DEFAULT_MAX_RETRY_BURST = 10;
+
+        private double retryRatio = DEFAULT_RETRY_RATIO;
+        private int maxRetryBurst = DEFAULT_MAX_RETRY_BURST;
+
+        /**
+         * Sets the ratio of retries to requests which the budget allows, e.g. {@code 0.1} allows retries to add at
+         * most {@code 10%} to the base traffic.
+         *
+         * @param retryRatio the ratio of retries to requests, in the range {@code [0, 1]}.
+         * @return {@code this}.
+         */
+        public Builder retryRatio(final double retryRatio) {
+            if (!(retryRatio >= 0 && retryRatio <= 1)) {
+                throw new IllegalArgumentException("retryRatio: " + retryRatio + " (expected [0, 1])");
+            }
+            this.retryRatio = retryRatio;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of retries which the budget accumulates, and initially holds.
+         *
+         * @param maxRetryBurst the maximum number of retries which the budget accumulates.
+         * @return {@code this}.
+         */
+        public Builder maxRetryBurst(final int maxRetryBurst) {
+            if (maxRetryBurst <= 0) {
+                throw new IllegalArgumentException("maxRetryBurst: " + maxRetryBurst + " (expected >0)");
+            }
+            this.maxRetryBurst = maxRetryBurst;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link RetryBudget}.
+         *
+         * @return A new {@link RetryBudget}.
+         */
+        public RetryBudget build() {
+            return new RetryBudget(retryRatio, maxRetryBurst);
+        }
+    }
+}
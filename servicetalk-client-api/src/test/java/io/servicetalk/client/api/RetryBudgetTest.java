@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RetryBudgetTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void startsWithBurst() {
+        RetryBudget budget = new RetryBudget.Builder().maxRetryBurst(2).build();
+        assertThat(budget.availableRetries(), is(2));
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+        assertThat(budget.retries(), is(2L));
+        assertThat(budget.rejectedRetries(), is(1L));
+    }
+
+    @Test
+    public void requestsDepositRetryRatio() {
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(0.1).maxRetryBurst(1).build();
+        assertThat(budget.tryRetry(), is(true));
+        for (int i = 0; i < 9; i++) {
+            budget.onRequest();
+        }
+        assertThat(budget.tryRetry(), is(false));
+        budget.onRequest();
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.requests(), is(10L));
+    }
+
+    @Test
+    public void depositsAreCappedByBurst() {
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(1).maxRetryBurst(3).build();
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertThat(budget.availableRetries(), is(3));
+    }
+
+    @Test
+    public void zeroRatioOnlyAllowsBurst() {
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(0).maxRetryBurst(1).build();
+        assertThat(budget.tryRetry(), is(true));
+        budget.onRequest();
+        assertThat(budget.tryRetry(), is(false));
+    }
+}
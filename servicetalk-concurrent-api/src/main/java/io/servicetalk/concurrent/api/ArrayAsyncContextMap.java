@@ -0,0 +1,273 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.BiPredicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncContextMapUtils.contextMapToString;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An {@link AsyncContextMap} which stores values in an array addressed by {@link Key#id}.
+ * <p>
+ * {@link #copy()} does not copy any entries, the copy shares the arrays with this map and both are marked as shared.
+ * The first modification of a shared map clones the arrays, all following modifications until the next
+ * {@link #copy()} are done in place without allocating. Modifications and {@link #copy()} are synchronized, reads do
+ * not acquire a lock. A key's value is only ever stored at the slot of that key, so a concurrent read never observes
+ * the value of another key. Keys are assigned increasing ids when created, so keys that are created early (usually as
+ * constants) are stored at their index and lookups do not require any comparison. Keys with an id larger than
+ * {@link #MAX_INDEXED_ID} are stored in a small overflow array which is searched linearly, to avoid growing the array
+ * of every map for applications which create many keys.
+ */
+final class ArrayAsyncContextMap implements AsyncContextMap {
+    static final int MAX_INDEXED_ID = 63;
+
+    private static final AtomicIntegerFieldUpdater<ArrayAsyncContextMap> sizeUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ArrayAsyncContextMap.class, "size");
+    private static final Object[] EMPTY = new Object[0];
+    private static final int MIN_INDEXED_LENGTH = 16;
+    private static final int MAX_INDEXED_LENGTH = (MAX_INDEXED_ID + 1) << 1;
+
+    /**
+     * Key/value pairs at index {@code 2 * id} and {@code 2 * id + 1}, a {@code null} key denotes an absent entry.
+     * Written again after every in place modification, so readers of this field observe the modification.
+     */
+    private volatile Object[] indexed;
+    /**
+     * Compact key/value pairs for keys with an id larger than {@link #MAX_INDEXED_ID}.
+     */
+    private volatile Object[] overflow;
+    private volatile int size;
+    /**
+     * {@code true} if the arrays may be referenced by another map, guarded by {@code this}.
+     */
+    private boolean shared;
+
+    ArrayAsyncContextMap() {
+        // The empty arrays are never modified in place, a modification always allocates new arrays.
+        this(EMPTY, EMPTY, 0, false);
+    }
+
+    private ArrayAsyncContextMap(final Object[] indexed, final Object[] overflow, final int size,
+                                 final boolean shared) {
+        this.indexed = indexed;
+        this.overflow = overflow;
+        this.size = size;
+        this.shared = shared;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public <T> T get(final Key<T> key) {
+        final int id = key.id;
+        if (id <= MAX_INDEXED_ID) {
+            final Object[] indexed = this.indexed;
+            final int i = id << 1;
+            return i < indexed.length ? (T) indexed[i + 1] : null;
+        }
+        final Object[] overflow = this.overflow;
+        final int i = indexOf(overflow, key);
+        return i < 0 ? null : (T) overflow[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(final Key<?> key) {
+        final int id = key.id;
+        if (id <= MAX_INDEXED_ID) {
+            final Object[] indexed = this.indexed;
+            final int i = id << 1;
+            return i < indexed.length && indexed[i] != null;
+        }
+        return indexOf(overflow, key) >= 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public synchronized <T> T put(final Key<T> key, final T value) {
+        requireNonNull(key);
+        ensureNotShared();
+        return (T) put0(key, value);
+    }
+
+    @Override
+    public synchronized void putAll(final Map<Key<?>, Object> map) {
+        ensureNotShared();
+        for (Entry<Key<?>, Object> entry : map.entrySet()) {
+            put0(requireNonNull(entry.getKey()), entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    @Override
+    public synchronized <T> T remove(final Key<T> key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        ensureNotShared();
+        return (T) remove0(key);
+    }
+
+    @Override
+    public synchronized boolean removeAll(final Iterable<Key<?>> keys) {
+        boolean removed = false;
+        for (Key<?> key : keys) {
+            if (containsKey(key)) {
+                ensureNotShared();
+                remove0(key);
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void clear() {
+        indexed = EMPTY;
+        overflow = EMPTY;
+        size = 0;
+        shared = false;
+    }
+
+    @Nullable
+    @Override
+    public Key<?> forEach(final BiPredicate<Key<?>, Object> consumer) {
+        final Object[] indexed = this.indexed;
+        for (int i = 0; i < indexed.length; i += 2) {
+            final Key<?> key = (Key<?>) indexed[i];
+            if (key != null && !consumer.test(key, indexed[i + 1])) {
+                return key;
+            }
+        }
+        final Object[] overflow = this.overflow;
+        for (int i = 0; i < overflow.length; i += 2) {
+            final Key<?> key = (Key<?>) overflow[i];
+            if (!consumer.test(key, overflow[i + 1])) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized AsyncContextMap copy() {
+        shared = true;
+        return new ArrayAsyncContextMap(indexed, overflow, size, true);
+    }
+
+    @Override
+    public String toString() {
+        return contextMapToString(this);
+    }
+
+    private void ensureNotShared() {
+        assert Thread.holdsLock(this);
+        if (shared) {
+            indexed = indexed.clone();
+            overflow = overflow.clone();
+            shared = false;
+        }
+    }
+
+    @Nullable
+    private Object put0(final Key<?> key, @Nullable final Object value) {
+        final int id = key.id;
+        if (id <= MAX_INDEXED_ID) {
+            final int i = id << 1;
+            Object[] indexed = this.indexed;
+            if (i >= indexed.length) {
+                indexed = Arrays.copyOf(indexed, max(i + 2, min(max(indexed.length << 1, MIN_INDEXED_LENGTH),
+                        MAX_INDEXED_LENGTH)));
+            }
+            final Object prev = indexed[i + 1];
+            if (indexed[i] == null) {
+                sizeUpdater.incrementAndGet(this);
+            }
+            indexed[i + 1] = value;
+            indexed[i] = key;
+            this.indexed = indexed;
+            return prev;
+        }
+
+        final Object[] overflow = this.overflow;
+        final int i = indexOf(overflow, key);
+        if (i >= 0) {
+            final Object prev = overflow[i + 1];
+            overflow[i + 1] = value;
+            this.overflow = overflow;
+            return prev;
+        }
+        final Object[] newOverflow = Arrays.copyOf(overflow, overflow.length + 2);
+        newOverflow[overflow.length] = key;
+        newOverflow[overflow.length + 1] = value;
+        this.overflow = newOverflow;
+        sizeUpdater.incrementAndGet(this);
+        return null;
+    }
+
+    @Nullable
+    private Object remove0(final Key<?> key) {
+        final int id = key.id;
+        final Object prev;
+        if (id <= MAX_INDEXED_ID) {
+            final Object[] indexed = this.indexed;
+            final int i = id << 1;
+            prev = indexed[i + 1];
+            indexed[i] = null;
+            indexed[i + 1] = null;
+            this.indexed = indexed;
+        } else {
+            // Removal compacts the array, so readers of the old array never observe shifted entries.
+            final Object[] overflow = this.overflow;
+            final int i = indexOf(overflow, key);
+            prev = overflow[i + 1];
+            final Object[] newOverflow = new Object[overflow.length - 2];
+            System.arraycopy(overflow, 0, newOverflow, 0, i);
+            System.arraycopy(overflow, i + 2, newOverflow, i, newOverflow.length - i);
+            this.overflow = newOverflow;
+        }
+        sizeUpdater.decrementAndGet(this);
+        return prev;
+    }
+
+    private static int indexOf(final Object[] overflow, final Key<?> key) {
+        for (int i = 0; i < overflow.length; i += 2) {
+            if (overflow[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -17,6 +17,7 @@ package io.servicetalk.concurrent.api;
 
 import java.util.ConcurrentModificationException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
@@ -31,13 +32,22 @@ public interface AsyncContextMap {
      * @param <T> The type of value associated with a {@link AsyncContextMap.Key}.
      */
     final class Key<T> {
+        private static final AtomicInteger nextId = new AtomicInteger();
+
+        /**
+         * Dense index of this key, assigned at creation. Used by {@link AsyncContextMap} implementations that store
+         * values in an array.
+         */
+        final int id;
         private final String stringRepresentation;
 
         private Key() {
+            this.id = nextId.getAndIncrement();
             this.stringRepresentation = super.toString();
         }
 
         private Key(String stringRepresentation) {
+            this.id = nextId.getAndIncrement();
             // Append the hashCode so it is clear that two instances created with the same stringRepresentation value
             // are different.
             this.stringRepresentation = requireNonNull(stringRepresentation) + '-' + hashCode();
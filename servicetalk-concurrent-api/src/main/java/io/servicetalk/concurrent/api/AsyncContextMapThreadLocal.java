@@ -18,11 +18,23 @@ package io.servicetalk.concurrent.api;
 import static java.lang.ThreadLocal.withInitial;
 
 final class AsyncContextMapThreadLocal {
+    /**
+     * Name of the system property which selects the {@link AsyncContextMap} implementation used to store context:
+     * <ul>
+     *     <li>{@code copyOnWrite} (default) - {@link CopyOnWriteAsyncContextMap}, every modification creates a new
+     *     immutable map.</li>
+     *     <li>{@code array} - {@link ArrayAsyncContextMap}, values are stored in an array addressed by key which is
+     *     only copied on the first modification after the map was copied, lookups do not compare keys.</li>
+     * </ul>
+     */
+    static final String STORAGE_PROPERTY = "io.servicetalk.concurrent.api.asyncContextStorage";
     static final ThreadLocal<AsyncContextMap> contextThreadLocal =
             withInitial(AsyncContextMapThreadLocal::newContextMap);
 
+    private static final boolean ARRAY_STORAGE = "array".equalsIgnoreCase(System.getProperty(STORAGE_PROPERTY));
+
     private static AsyncContextMap newContextMap() {
-        return new CopyOnWriteAsyncContextMap();
+        return ARRAY_STORAGE ? new ArrayAsyncContextMap() : new CopyOnWriteAsyncContextMap();
     }
 
     AsyncContextMap get() {
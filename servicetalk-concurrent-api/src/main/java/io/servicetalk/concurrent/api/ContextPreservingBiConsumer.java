@@ -49,7 +49,9 @@ final class ContextPreservingBiConsumer<T, U> implements BiConsumer<T, U> {
     private void slowPath(T t, U u) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             delegate.accept(t, u);
         } finally {
             contextThreadLocal.set(prev);
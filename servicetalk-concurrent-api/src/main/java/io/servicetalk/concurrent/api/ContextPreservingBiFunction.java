@@ -49,7 +49,9 @@ final class ContextPreservingBiFunction<T, U, V> implements BiFunction<T, U, V>
     private V slowPath(T t, U u) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             return delegate.apply(t, u);
         } finally {
             contextThreadLocal.set(prev);
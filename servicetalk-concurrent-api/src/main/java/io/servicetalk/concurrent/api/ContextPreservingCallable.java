@@ -54,7 +54,9 @@ final class ContextPreservingCallable<V> implements Callable<V> {
     private V slowPath() throws Exception {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             return delegate.call();
         } finally {
             contextThreadLocal.set(prev);
@@ -57,7 +57,9 @@ final class ContextPreservingCancellable implements Cancellable {
     private void slowPath() {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             delegate.cancel();
         } finally {
             contextThreadLocal.set(prev);
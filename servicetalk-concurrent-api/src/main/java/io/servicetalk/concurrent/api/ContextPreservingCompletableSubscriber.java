@@ -54,7 +54,9 @@ class ContextPreservingCompletableSubscriber implements Subscriber {
     private void onSubscribeSlowPath(Cancellable cancellable) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             invokeOnSubscribe(cancellable);
         } finally {
             contextThreadLocal.set(prev);
@@ -81,7 +83,9 @@ class ContextPreservingCompletableSubscriber implements Subscriber {
     private void onCompleteSlowPath() {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onComplete();
         } finally {
             contextThreadLocal.set(prev);
@@ -108,7 +112,9 @@ class ContextPreservingCompletableSubscriber implements Subscriber {
     private void onErrorSlowPath(Throwable t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onError(t);
         } finally {
             contextThreadLocal.set(prev);
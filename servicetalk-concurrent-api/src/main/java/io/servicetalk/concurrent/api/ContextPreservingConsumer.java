@@ -49,7 +49,9 @@ final class ContextPreservingConsumer<T> implements Consumer<T> {
     private void slowPath(T t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             delegate.accept(t);
         } finally {
             contextThreadLocal.set(prev);
@@ -49,7 +49,9 @@ final class ContextPreservingFunction<T, U> implements Function<T, U> {
     private U slowPath(T t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             return delegate.apply(t);
         } finally {
             contextThreadLocal.set(prev);
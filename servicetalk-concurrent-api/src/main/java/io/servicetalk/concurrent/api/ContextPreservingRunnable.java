@@ -52,7 +52,9 @@ final class ContextPreservingRunnable implements Runnable {
     private void slowPath() {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             delegate.run();
         } finally {
             contextThreadLocal.set(prev);
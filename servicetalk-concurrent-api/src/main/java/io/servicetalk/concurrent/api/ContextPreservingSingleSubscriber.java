@@ -57,7 +57,9 @@ class ContextPreservingSingleSubscriber<T> implements Subscriber<T> {
     private void onSubscribeSlowPath(Cancellable cancellable) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             invokeOnSubscribe(cancellable);
         } finally {
             contextThreadLocal.set(prev);
@@ -84,7 +86,9 @@ class ContextPreservingSingleSubscriber<T> implements Subscriber<T> {
     private void onSuccessSlowPath(@Nullable T result) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onSuccess(result);
         } finally {
             contextThreadLocal.set(prev);
@@ -111,7 +115,9 @@ class ContextPreservingSingleSubscriber<T> implements Subscriber<T> {
     private void onErrorSlowPath(Throwable t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onError(t);
         } finally {
             contextThreadLocal.set(prev);
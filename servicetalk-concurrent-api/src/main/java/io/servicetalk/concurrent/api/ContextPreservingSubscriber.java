@@ -54,7 +54,9 @@ class ContextPreservingSubscriber<T> implements Subscriber<T> {
     private void onSubscribeSlowPath(Subscription s) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             invokeOnSubscribe(s);
         } finally {
             contextThreadLocal.set(prev);
@@ -81,7 +83,9 @@ class ContextPreservingSubscriber<T> implements Subscriber<T> {
     private void onNextSlowPath(T t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onNext(t);
         } finally {
             contextThreadLocal.set(prev);
@@ -108,7 +112,9 @@ class ContextPreservingSubscriber<T> implements Subscriber<T> {
     private void onErrorSlowPath(Throwable t) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onError(t);
         } finally {
             contextThreadLocal.set(prev);
@@ -135,7 +141,9 @@ class ContextPreservingSubscriber<T> implements Subscriber<T> {
     private void onCompleteSlowPath() {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscriber.onComplete();
         } finally {
             contextThreadLocal.set(prev);
@@ -55,7 +55,9 @@ final class ContextPreservingSubscription implements Subscription {
     private void requestSlowPath(long l) {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscription.request(l);
         } finally {
             contextThreadLocal.set(prev);
@@ -82,7 +84,9 @@ final class ContextPreservingSubscription implements Subscription {
     private void cancelSlowPath() {
         AsyncContextMap prev = contextThreadLocal.get();
         try {
-            contextThreadLocal.set(saved);
+            if (prev != saved) {
+                contextThreadLocal.set(saved);
+            }
             subscription.cancel();
         } finally {
             contextThreadLocal.set(prev);
@@ -85,6 +85,11 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
         this(jdkExecutor, newScheduler(scheduler, interruptOnCancel), interruptOnCancel);
     }
 
+    DefaultExecutor(java.util.concurrent.Executor jdkExecutor, TimingWheelScheduler scheduler) {
+        // Since we run blocking task, we should try interrupt when cancelled.
+        this(jdkExecutor, newScheduler(jdkExecutor, scheduler), true);
+    }
+
     private DefaultExecutor(@Nullable java.util.concurrent.Executor jdkExecutor, @Nullable InternalScheduler scheduler,
                             boolean interruptOnCancel) {
         if (jdkExecutor == null) {
@@ -208,6 +213,23 @@ final class DefaultExecutor extends AbstractOffloaderAwareExecutor implements Co
         };
     }
 
+    private static InternalScheduler newScheduler(java.util.concurrent.Executor offloadExecutor,
+                                                  TimingWheelScheduler wheel) {
+        return new InternalScheduler() {
+            @Override
+            public void run() {
+                wheel.shutdown();
+            }
+
+            @Override
+            public Cancellable apply(final Runnable task, final long delay, final TimeUnit unit) {
+                // The wheel runs all expired tasks on a single thread, offload timer ticks to the user specified
+                // Executor since user code executed on the timer tick can block.
+                return wheel.schedule(() -> offloadExecutor.execute(task), delay, unit);
+            }
+        };
+    }
+
     private static final class SingleThreadedScheduler implements InternalScheduler {
 
         private final java.util.concurrent.Executor offloadExecutor;
@@ -21,12 +21,15 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 import static io.servicetalk.concurrent.api.ImmediateExecutor.IMMEDIATE_EXECUTOR;
+import static java.lang.Thread.NORM_PRIORITY;
 
 /**
  * Utility methods to create various {@link Executor}s.
  */
 public final class Executors {
     static final CopyOnWriteExecutorPluginSet EXECUTOR_PLUGINS = new CopyOnWriteExecutorPluginSet();
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+    private static final String VIRTUAL_THREAD_NAME_PREFIX = "servicetalk-virtual";
 
     static {
         AsyncContext.autoEnable();
@@ -88,6 +91,50 @@ public final class Executors {
         return EXECUTOR_PLUGINS.wrapExecutor(new DefaultExecutor(1, Integer.MAX_VALUE, threadFactory));
     }
 
+    /**
+     * Determines if the runtime supports virtual threads, and {@link #newVirtualThreadExecutor()} will use them.
+     *
+     * @return {@code true} if the runtime supports virtual threads.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
+    /**
+     * Creates a new {@link Executor} that runs each task on a new virtual thread, if supported by the runtime.
+     * <p>
+     * Virtual threads are cheap to create and to block, which makes this {@link Executor} a good fit for offloading
+     * blocking user code, e.g. blocking HTTP or gRPC services. If the runtime does not support virtual threads, this
+     * method behaves like {@link #newCachedThreadExecutor()}. Delayed task execution will be delegated to a global
+     * scheduler.
+     *
+     * @return A new {@link Executor}.
+     * @see #isVirtualThreadSupported()
+     */
+    public static Executor newVirtualThreadExecutor() {
+        return newVirtualThreadExecutor(VIRTUAL_THREAD_NAME_PREFIX);
+    }
+
+    /**
+     * Creates a new {@link Executor} that runs each task on a new virtual thread, if supported by the runtime.
+     * <p>
+     * Virtual threads are cheap to create and to block, which makes this {@link Executor} a good fit for offloading
+     * blocking user code, e.g. blocking HTTP or gRPC services. If the runtime does not support virtual threads, this
+     * method behaves like {@link #newCachedThreadExecutor(ThreadFactory)}. Delayed task execution will be delegated to
+     * a global scheduler.
+     *
+     * @param namePrefix prefix for the names of the created threads.
+     * @return A new {@link Executor}.
+     * @see #isVirtualThreadSupported()
+     */
+    public static Executor newVirtualThreadExecutor(String namePrefix) {
+        if (!VirtualThreads.isSupported()) {
+            return newCachedThreadExecutor(new DefaultThreadFactory(namePrefix));
+        }
+        return EXECUTOR_PLUGINS.wrapExecutor(
+                new DefaultExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor(namePrefix)));
+    }
+
     /**
      * Creates a new {@link Executor} from the provided {@code jdkExecutor}. <p>
      * Delayed task execution will be delegated to a global scheduler, unless passed
@@ -242,4 +289,33 @@ public final class Executors {
         return EXECUTOR_PLUGINS.wrapExecutor(
                 new DefaultExecutor(jdkExecutor, scheduledExecutorService, mayInterruptOnCancel));
     }
+
+    /**
+     * Creates a new {@link Executor} from the provided {@code jdkExecutor} which schedules delayed tasks on a
+     * dedicated hashed timing wheel with a {@code tickDuration} precision, instead of a global scheduler.
+     * <p>
+     * Scheduling and cancelling a task on a timing wheel takes constant time and does not contend on a lock, which
+     * makes it a good fit for timeouts that are started and cancelled for every request. Delayed tasks are offloaded
+     * to the passed {@code jdkExecutor} when they expire.
+     * Task execution will not honor cancellations unless passed {@link java.util.concurrent.Executor}
+     * is an instance of {@link ExecutorService}.
+     * <h2>Long running tasks</h2>
+     * {@link java.util.concurrent.Executor} implementations are expected to run long running (blocking) tasks which may
+     * depend on other tasks submitted to the same {@link java.util.concurrent.Executor} instance.
+     * In order to avoid deadlocks, it is generally a good idea to not allow task queuing in the
+     * {@link java.util.concurrent.Executor}.
+     *
+     * @param jdkExecutor {@link java.util.concurrent.Executor} to use for executing tasks.
+     * The lifetime of this object is transferred to the return value. In other words {@link Executor#closeAsync()} will
+     * call {@link ExecutorService#shutdown()} (if possible) and stop the timing wheel.
+     * @param tickDuration the duration of a single tick of the timing wheel, delayed tasks expire with this precision.
+     * @param tickUnit the {@link TimeUnit} of {@code tickDuration}.
+     * @return A new {@link Executor}.
+     */
+    public static Executor withTimingWheel(java.util.concurrent.Executor jdkExecutor, long tickDuration,
+                                           TimeUnit tickUnit) {
+        return EXECUTOR_PLUGINS.wrapExecutor(new DefaultExecutor(jdkExecutor,
+                new TimingWheelScheduler(tickDuration, tickUnit, DEFAULT_TICKS_PER_WHEEL,
+                        new DefaultThreadFactory("servicetalk-timing-wheel", true, NORM_PRIORITY))));
+    }
 }
@@ -0,0 +1,278 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.utils.internal.MathUtils.safeFindNextPositivePowerOfTwo;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+/**
+ * A hashed timing wheel which schedules tasks on a single worker thread.
+ * <p>
+ * The wheel is an array of buckets, each covering one tick. A task is put in the bucket of the tick it expires in,
+ * tasks with a delay longer than one revolution of the wheel also keep track of the number of remaining revolutions.
+ * Scheduling and cancellation only enqueue the task in a lock-free queue, the worker thread moves tasks in and out of
+ * buckets once per tick. Compared to a heap based {@link java.util.concurrent.ScheduledExecutorService} this makes
+ * scheduling and cancellation {@code O(1)} and contention free, and cancelled tasks are removed from the wheel on the
+ * next tick instead of when they would have expired. Tasks expire with a precision of one tick.
+ * <p>
+ * Expired tasks are run on the worker thread, callers are expected to offload potentially blocking work.
+ */
+final class TimingWheelScheduler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimingWheelScheduler.class);
+    private static final int MAX_PENDING_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean shutdown;
+
+    /**
+     * Create a new instance and start its worker thread.
+     *
+     * @param tickDuration the duration of a single tick, which is the precision of scheduled tasks.
+     * @param unit the {@link TimeUnit} of {@code tickDuration}.
+     * @param ticksPerWheel the number of ticks of one revolution of the wheel, rounded up to a power of two.
+     * @param threadFactory the {@link ThreadFactory} used to create the worker thread.
+     */
+    TimingWheelScheduler(long tickDuration, TimeUnit unit, int ticksPerWheel, ThreadFactory threadFactory) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration + " (expected >0)");
+        }
+        if (ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("ticksPerWheel: " + ticksPerWheel + " (expected >0)");
+        }
+        tickNanos = unit.toNanos(tickDuration);
+        wheel = new Bucket[safeFindNextPositivePowerOfTwo(ticksPerWheel)];
+        for (int i = 0; i < wheel.length; ++i) {
+            wheel[i] = new Bucket();
+        }
+        mask = wheel.length - 1;
+        startTime = nanoTime();
+        worker = threadFactory.newThread(this::runWorker);
+        worker.start();
+    }
+
+    /**
+     * Schedule {@code task} to run on the worker thread after {@code delay}.
+     *
+     * @param task the task to run.
+     * @param delay the delay after which the task is run.
+     * @param unit the {@link TimeUnit} of {@code delay}.
+     * @return {@link Cancellable} which removes the task from the wheel.
+     */
+    Cancellable schedule(Runnable task, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler is shut down");
+        }
+        // Saturate to avoid overflow of very long delays.
+        final long delayNanos = unit.toNanos(delay);
+        final long elapsed = nanoTime() - startTime;
+        final long deadline = delayNanos > Long.MAX_VALUE - elapsed ? Long.MAX_VALUE : elapsed + max(0, delayNanos);
+        final Timeout timeout = new Timeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stop the worker thread. Tasks which have not expired yet are discarded.
+     */
+    void shutdown() {
+        shutdown = true;
+        if (Thread.currentThread() != worker) {
+            worker.interrupt();
+        }
+    }
+
+    private void runWorker() {
+        long tick = 0;
+        while (!shutdown) {
+            final long deadline = waitForNextTick(tick);
+            if (deadline < 0) {
+                break;
+            }
+            removeCancelledTimeouts();
+            transferPendingTimeouts(tick);
+            wheel[(int) (tick & mask)].expire(deadline);
+            ++tick;
+        }
+    }
+
+    /**
+     * Wait until the end of {@code tick}.
+     *
+     * @return the current time relative to {@link #startTime}, or {@code -1} if the wheel was shutdown while waiting.
+     */
+    private long waitForNextTick(final long tick) {
+        final long deadline = tickNanos * (tick + 1);
+        for (;;) {
+            final long current = nanoTime() - startTime;
+            if (current >= deadline) {
+                return current;
+            }
+            parkNanos(this, deadline - current);
+            if (shutdown) {
+                return -1;
+            }
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        for (;;) {
+            final Timeout timeout = cancelledTimeouts.poll();
+            if (timeout == null) {
+                break;
+            }
+            final Bucket bucket = timeout.bucket;
+            if (bucket != null) {
+                bucket.remove(timeout);
+            }
+        }
+    }
+
+    private void transferPendingTimeouts(final long tick) {
+        for (int i = 0; i < MAX_PENDING_TRANSFERS_PER_TICK; ++i) {
+            final Timeout timeout = pendingTimeouts.poll();
+            if (timeout == null) {
+                break;
+            }
+            if (timeout.state != Timeout.STATE_INIT) {
+                continue;
+            }
+            final long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+            // Tasks which should have expired already go in the current bucket.
+            wheel[(int) (max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private static final class Bucket {
+        @Nullable
+        private Timeout head;
+        @Nullable
+        private Timeout tail;
+
+        void add(final Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = timeout;
+                tail = timeout;
+            } else {
+                assert tail != null;
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire(final long deadline) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    if (timeout.deadline <= deadline) {
+                        remove(timeout);
+                        timeout.expire();
+                    }
+                } else {
+                    --timeout.remainingRounds;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(final Timeout timeout) {
+            final Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+
+    private static final class Timeout implements Cancellable {
+        static final int STATE_INIT = 0;
+        static final int STATE_CANCELLED = 1;
+        static final int STATE_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> stateUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final TimingWheelScheduler scheduler;
+        private final Runnable task;
+        private final long deadline;
+        volatile int state;
+        // Only accessed from the worker thread.
+        long remainingRounds;
+        @Nullable
+        Bucket bucket;
+        @Nullable
+        Timeout next;
+        @Nullable
+        Timeout prev;
+
+        Timeout(final TimingWheelScheduler scheduler, final Runnable task, final long deadline) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void cancel() {
+            if (stateUpdater.compareAndSet(this, STATE_INIT, STATE_CANCELLED)) {
+                scheduler.cancelledTimeouts.add(this);
+            }
+        }
+
+        void expire() {
+            if (stateUpdater.compareAndSet(this, STATE_INIT, STATE_EXPIRED)) {
+                try {
+                    task.run();
+                } catch (Throwable cause) {
+                    LOGGER.warn("Unexpected exception from scheduled task {}", task, cause);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.Nullable;
+
+/**
+ * Access to virtual threads (JDK 21+) without requiring them at compile time.
+ */
+final class VirtualThreads {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+    @Nullable
+    private static final Method OF_VIRTUAL;
+    @Nullable
+    private static final Method BUILDER_NAME;
+    @Nullable
+    private static final Method BUILDER_FACTORY;
+    @Nullable
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTaskExecutor = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builderName = builderClass.getMethod("name", String.class, long.class);
+            builderFactory = builderClass.getMethod("factory");
+            newThreadPerTaskExecutor = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor",
+                    ThreadFactory.class);
+            // Virtual threads are a preview feature on some JDKs, and throw when preview features are not enabled.
+            builderFactory.invoke(ofVirtual.invoke(null));
+        } catch (Throwable cause) {
+            LOGGER.debug("Virtual threads are not supported by the runtime, falling back to platform threads.", cause);
+            ofVirtual = null;
+            builderName = null;
+            builderFactory = null;
+            newThreadPerTaskExecutor = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTaskExecutor;
+    }
+
+    private VirtualThreads() {
+        // no instances
+    }
+
+    /**
+     * Determines if the runtime supports virtual threads.
+     *
+     * @return {@code true} if the runtime supports virtual threads.
+     */
+    static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a new {@link ExecutorService} which starts a new virtual thread for each task.
+     *
+     * @param namePrefix prefix for the names of the created threads, followed by a counter.
+     * @return a new {@link ExecutorService} which starts a new virtual thread for each task.
+     * @throws UnsupportedOperationException if the runtime does not support virtual threads.
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor(final String namePrefix) {
+        if (OF_VIRTUAL == null || BUILDER_NAME == null || BUILDER_FACTORY == null ||
+                NEW_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the runtime");
+        }
+        try {
+            final Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), namePrefix + '-', 0L);
+            final ThreadFactory threadFactory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by the runtime", e);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.api.AsyncContextMap.Key;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.servicetalk.concurrent.api.ArrayAsyncContextMap.MAX_INDEXED_ID;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ArrayAsyncContextMapTest {
+    private static final Key<String> K1 = Key.newKey("k1");
+    private static final Key<String> K2 = Key.newKey("k2");
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void putGetRemove() {
+        AsyncContextMap map = new ArrayAsyncContextMap();
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.put(K1, "v1"), is(nullValue()));
+        assertThat(map.put(K1, "v1'"), is("v1"));
+        assertThat(map.put(K2, "v2"), is(nullValue()));
+        assertThat(map.size(), is(2));
+        assertThat(map.get(K1), is("v1'"));
+        assertThat(map.containsKey(K2), is(true));
+
+        assertThat(map.remove(K1), is("v1'"));
+        assertThat(map.remove(K1), is(nullValue()));
+        assertThat(map.containsKey(K1), is(false));
+        assertThat(map.size(), is(1));
+
+        map.clear();
+        assertThat(map.isEmpty(), is(true));
+        assertThat(map.get(K2), is(nullValue()));
+    }
+
+    @Test
+    public void copyIsIsolated() {
+        AsyncContextMap map = new ArrayAsyncContextMap();
+        map.put(K1, "v1");
+        AsyncContextMap copy = map.copy();
+        AsyncContextMap copyOfCopy = copy.copy();
+
+        copy.put(K1, "copy");
+        copy.put(K2, "copy");
+        map.remove(K1);
+
+        assertThat(map.get(K1), is(nullValue()));
+        assertThat(map.get(K2), is(nullValue()));
+        assertThat(copy.get(K1), is("copy"));
+        assertThat(copy.get(K2), is("copy"));
+        assertThat(copyOfCopy.get(K1), is("v1"));
+        assertThat(copyOfCopy.size(), is(1));
+    }
+
+    @Test
+    public void copyIsIsolatedAfterInPlaceModification() {
+        AsyncContextMap map = new ArrayAsyncContextMap();
+        map.put(K1, "v1");
+        AsyncContextMap copy = map.copy();
+        // The first put clones the shared arrays, the second one modifies them in place.
+        map.put(K2, "v2");
+        map.put(K1, "v1'");
+        copy.put(K2, "copy");
+        AsyncContextMap copyOfMap = map.copy();
+        map.remove(K2);
+
+        assertThat(map.get(K1), is("v1'"));
+        assertThat(map.size(), is(1));
+        assertThat(copy.get(K1), is("v1"));
+        assertThat(copy.get(K2), is("copy"));
+        assertThat(copyOfMap.get(K1), is("v1'"));
+        assertThat(copyOfMap.get(K2), is("v2"));
+        assertThat(copyOfMap.size(), is(2));
+    }
+
+    @Test
+    public void overflowKeys() {
+        List<Key<Integer>> keys = new ArrayList<>();
+        Key<Integer> key;
+        do {
+            key = Key.newKey();
+            keys.add(key);
+        } while (key.id <= MAX_INDEXED_ID + 3);
+
+        AsyncContextMap map = new ArrayAsyncContextMap();
+        for (int i = 0; i < keys.size(); ++i) {
+            map.put(keys.get(i), i);
+        }
+        AsyncContextMap copy = map.copy();
+        for (int i = 0; i < keys.size(); ++i) {
+            assertThat(map.get(keys.get(i)), is(i));
+        }
+        assertThat(map.size(), is(keys.size()));
+
+        Key<Integer> removed = keys.get(keys.size() - 3);
+        assertThat(map.removeAll(asList(removed, K1)), is(true));
+        assertThat(map.containsKey(removed), is(false));
+        assertThat(map.get(keys.get(keys.size() - 1)), is(keys.size() - 1));
+        assertThat(map.size(), is(keys.size() - 1));
+        assertThat(copy.get(removed), is(keys.size() - 3));
+        assertThat(copy.size(), is(keys.size()));
+    }
+
+    @Test
+    public void putAllAndForEach() {
+        Map<Key<?>, Object> entries = new HashMap<>();
+        entries.put(K1, "v1");
+        entries.put(K2, "v2");
+        AsyncContextMap map = new ArrayAsyncContextMap();
+        map.putAll(entries);
+
+        List<Object> values = new ArrayList<>();
+        assertThat(map.forEach((k, v) -> values.add(v)), is(nullValue()));
+        assertThat(values, containsInAnyOrder((Object) "v1", "v2"));
+
+        List<Key<?>> visited = new ArrayList<>();
+        Key<?> stoppedAt = map.forEach((k, v) -> !visited.add(k));
+        assertThat(visited, contains((Object) stoppedAt));
+    }
+
+    @Test
+    public void concurrentReadersObserveConsistentEntries() throws Exception {
+        // Each key is mapped to its own index, a reader must never observe the value of another key.
+        final List<Key<Integer>> keys = new ArrayList<>();
+        Key<Integer> key;
+        do {
+            key = Key.newKey();
+            keys.add(key);
+        } while (key.id <= MAX_INDEXED_ID + 8);
+        final AsyncContextMap map = new ArrayAsyncContextMap();
+        final int writers = 2;
+        final int readers = 2;
+        final int iterations = 20000;
+        final CyclicBarrier barrier = new CyclicBarrier(writers + readers);
+        final ExecutorService executor = newFixedThreadPool(writers + readers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; ++w) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    final ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < iterations; ++i) {
+                        final int index = random.nextInt(keys.size());
+                        if (random.nextBoolean()) {
+                            map.put(keys.get(index), index);
+                        } else {
+                            map.remove(keys.get(index));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (int r = 0; r < readers; ++r) {
+                futures.add(executor.submit(() -> {
+                    barrier.await();
+                    for (int i = 0; i < iterations; ++i) {
+                        for (int index = 0; index < keys.size(); ++index) {
+                            final Integer value = map.get(keys.get(index));
+                            if (value != null) {
+                                assertThat(value, is(index));
+                            }
+                        }
+                        map.forEach((k, v) -> {
+                            // Entries are modified in place, a concurrently removed entry may be visited without
+                            // its value.
+                            if (v != null) {
+                                assertThat(v, is(keys.indexOf(k)));
+                            }
+                            return true;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        int size = 0;
+        for (Key<Integer> k : keys) {
+            if (map.containsKey(k)) {
+                ++size;
+            }
+        }
+        assertThat(map.size(), is(size));
+    }
+}
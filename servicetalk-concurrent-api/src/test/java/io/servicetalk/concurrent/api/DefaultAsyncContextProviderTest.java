@@ -52,6 +52,7 @@ import java.util.function.Function;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
+import static io.servicetalk.concurrent.api.AsyncContextMapThreadLocal.contextThreadLocal;
 import static io.servicetalk.concurrent.api.DefaultAsyncContextProvider.INSTANCE;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
@@ -63,6 +64,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class DefaultAsyncContextProviderTest {
@@ -111,6 +113,15 @@ public class DefaultAsyncContextProviderTest {
         });
     }
 
+    @Test
+    public void wrappedRunnableRestoresContextIfAlreadyCurrent() {
+        AsyncContextMap current = AsyncContext.current();
+        // The runnable runs with the context it captured, which is already current. A context replaced by the
+        // delegate must still be restored.
+        AsyncContext.wrapRunnable(() -> contextThreadLocal.set(new CopyOnWriteAsyncContextMap())).run();
+        assertSame(current, AsyncContext.current());
+    }
+
     @Test
     public void testContextInCompletableListener() throws Exception {
         Completable completable = new Completable() {
@@ -51,6 +51,7 @@ import javax.annotation.Nullable;
 import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitelyNonNull;
 import static io.servicetalk.concurrent.api.Executors.from;
 import static io.servicetalk.concurrent.api.Executors.newFixedSizeExecutor;
+import static io.servicetalk.concurrent.api.Executors.withTimingWheel;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
 import static io.servicetalk.concurrent.internal.TerminalNotification.complete;
@@ -106,6 +107,10 @@ public final class DefaultExecutorTest {
                 UNBOUNDED /*Size defines core size, else is unbounded*/));
         nameAndExecutorPairs.add(newParams(() -> from(new ThreadPoolExecutor(2, 2, 60, SECONDS,
                 new SynchronousQueue<>()), newScheduledThreadPool(2)), "different-executors", true, 2));
+        nameAndExecutorPairs.add(newParams(() -> withTimingWheel(new ThreadPoolExecutor(2, 2, 60, SECONDS,
+                new SynchronousQueue<>()), 1, MILLISECONDS), "timing-wheel", true, 2));
+        nameAndExecutorPairs.add(newParams(io.servicetalk.concurrent.api.Executors::newVirtualThreadExecutor,
+                "virtual-thread", true, UNBOUNDED));
         return nameAndExecutorPairs;
     }
 
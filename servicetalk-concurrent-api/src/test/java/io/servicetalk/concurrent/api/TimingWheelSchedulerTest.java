@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.api;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.lang.Thread.NORM_PRIORITY;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TimingWheelSchedulerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TimingWheelScheduler scheduler = new TimingWheelScheduler(1, MILLISECONDS, 8,
+            new DefaultThreadFactory("timing-wheel-test", true, NORM_PRIORITY));
+
+    @After
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void expiresAfterDelay() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        scheduler.schedule(latch::countDown, 20, MILLISECONDS);
+        latch.await();
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+    }
+
+    @Test
+    public void expiresAfterMultipleRevolutions() throws Exception {
+        // The wheel has 8 ticks of 1ms, so this delay requires multiple revolutions.
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        scheduler.schedule(latch::countDown, 50, MILLISECONDS);
+        latch.await();
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(MILLISECONDS.toNanos(50)));
+    }
+
+    @Test
+    public void expiresInOrder() throws Exception {
+        final List<Integer> expired = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(3);
+        scheduler.schedule(() -> {
+            expired.add(3);
+            latch.countDown();
+        }, 30, MILLISECONDS);
+        scheduler.schedule(() -> {
+            expired.add(1);
+            latch.countDown();
+        }, 0, NANOSECONDS);
+        scheduler.schedule(() -> {
+            expired.add(2);
+            latch.countDown();
+        }, 15, MILLISECONDS);
+        latch.await();
+        assertThat(expired, contains(1, 2, 3));
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws Exception {
+        final AtomicBoolean cancelledRan = new AtomicBoolean();
+        final Cancellable cancellable = scheduler.schedule(() -> cancelledRan.set(true), 10, MILLISECONDS);
+        cancellable.cancel();
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(latch::countDown, 30, MILLISECONDS);
+        latch.await();
+        assertThat(cancelledRan.get(), is(false));
+    }
+
+    @Test
+    public void exceptionFromTaskDoesNotStopTheWheel() throws Exception {
+        scheduler.schedule(() -> {
+            throw new IllegalStateException("deliberate");
+        }, 0, MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(latch::countDown, 5, MILLISECONDS);
+        latch.await();
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void rejectsAfterShutdown() {
+        scheduler.shutdown();
+        scheduler.schedule(() -> { }, 1, MILLISECONDS);
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.internal;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.Executor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
+import static io.servicetalk.utils.internal.PlatformDependent.newUnboundedMpscQueue;
+import static io.servicetalk.utils.internal.PlatformDependent.throwException;
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.Thread.currentThread;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * An {@link Executor} that enqueues tasks to one of a fixed set of lanes, each backed by an MPSC queue, and submits a
+ * single task per lane to the delegate {@link Executor} to drain all tasks enqueued to that lane. Producers are
+ * assigned a lane based on their thread, so tasks submitted from the same thread are drained together.
+ * <p>
+ * A delegate task takes at most {@code maxBatchSize} tasks from its lane and, if more are pending, submits a new
+ * delegate task for the remainder <strong>before</strong> running them. Hence a busy lane does not starve other work
+ * submitted to the delegate, and a task that blocks only delays the other tasks of its own batch (at most
+ * {@code maxBatchSize - 1}) while later tasks of the same lane are run by other delegate threads. As a consequence,
+ * tasks of the same lane may run concurrently and are not ordered with respect to each other; callers that need
+ * ordering (like {@link TaskBasedSignalOffloader}) must provide it themselves.
+ * <p>
+ * Tasks can not be cancelled once enqueued, hence {@link #execute(Runnable)} always returns
+ * {@link Cancellable#IGNORE_CANCEL}.
+ */
+final class BatchingExecutor implements Executor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchingExecutor.class);
+
+    private final Executor delegate;
+    private final Lane[] lanes;
+    private final int laneMask;
+
+    /**
+     * New instance.
+     *
+     * @param delegate {@link Executor} to run the lanes.
+     * @param lanes Number of lanes, rounded up to the next power of two.
+     * @param maxBatchSize Maximum number of tasks to run from a lane per task submitted to {@code delegate}.
+     */
+    BatchingExecutor(final Executor delegate, final int lanes, final int maxBatchSize) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes: " + lanes + " (expected >0)");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize: " + maxBatchSize + " (expected >0)");
+        }
+        this.delegate = requireNonNull(delegate);
+        final int laneCount = lanes == 1 ? 1 : 1 << (32 - numberOfLeadingZeros(lanes - 1));
+        this.lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            this.lanes[i] = new Lane(delegate, maxBatchSize);
+        }
+        laneMask = laneCount - 1;
+    }
+
+    @Override
+    public Cancellable execute(final Runnable task) throws RejectedExecutionException {
+        lanes[(int) currentThread().getId() & laneMask].execute(requireNonNull(task));
+        return IGNORE_CANCEL;
+    }
+
+    /**
+     * Returns the {@link Executor} which runs the lanes.
+     *
+     * @return the {@link Executor} which runs the lanes.
+     */
+    Executor delegate() {
+        return delegate;
+    }
+
+    @Override
+    public Cancellable schedule(final Runnable task, final long delay, final TimeUnit unit)
+            throws RejectedExecutionException {
+        return delegate.schedule(task, delay, unit);
+    }
+
+    private static final class Lane implements Runnable {
+        private static final int STATE_IDLE = 0;
+        private static final int STATE_SCHEDULED = 1;
+        private static final AtomicIntegerFieldUpdater<Lane> stateUpdater = newUpdater(Lane.class, "state");
+        private static final AtomicReferenceFieldUpdater<Lane, Runnable[]> batchUpdater =
+                AtomicReferenceFieldUpdater.newUpdater(Lane.class, Runnable[].class, "batch");
+
+        private final Executor delegate;
+        private final int maxBatchSize;
+        private final Queue<Runnable> tasks;
+        private volatile int state = STATE_IDLE;
+        // Array to take a batch into, reused across delegate tasks. null while a delegate task runs its batch.
+        @Nullable
+        private volatile Runnable[] batch;
+
+        Lane(final Executor delegate, final int maxBatchSize) {
+            this.delegate = delegate;
+            this.maxBatchSize = maxBatchSize;
+            tasks = newUnboundedMpscQueue(16);
+            batch = new Runnable[maxBatchSize];
+        }
+
+        void execute(final Runnable task) {
+            if (!tasks.offer(task)) {
+                throw new QueueFullException("tasks");
+            }
+            if (stateUpdater.compareAndSet(this, STATE_IDLE, STATE_SCHEDULED)) {
+                try {
+                    delegate.execute(this);
+                } catch (Throwable t) {
+                    drainOnRejection(task);
+                    throwException(t);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            Runnable[] batch = batchUpdater.getAndSet(this, null);
+            if (batch == null) {
+                // The previous delegate task of this lane is still running its batch, e.g. because a task blocks.
+                batch = new Runnable[maxBatchSize];
+            }
+            try {
+                drain(batch);
+            } finally {
+                this.batch = batch;
+            }
+        }
+
+        private void drain(final Runnable[] batch) {
+            for (;;) {
+                int size = 0;
+                Runnable task;
+                while (size < maxBatchSize && (task = tasks.poll()) != null) {
+                    batch[size++] = task;
+                }
+                // Hand the remaining tasks to a new delegate task before running this batch, so a task that blocks
+                // only delays the rest of its own batch and never the tasks enqueued after it.
+                final boolean stillOwner = handOffOrRelease();
+                for (int i = 0; i < size; ++i) {
+                    safeRun(batch[i]);
+                    batch[i] = null;
+                }
+                if (!stillOwner) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Either submits this lane to the delegate to drain the remaining tasks or marks the lane as idle.
+         *
+         * @return {@code true} if the calling thread is still the only consumer of the queue and must continue
+         * draining.
+         */
+        private boolean handOffOrRelease() {
+            for (;;) {
+                if (!tasks.isEmpty()) {
+                    try {
+                        delegate.execute(this);
+                        return false;
+                    } catch (Throwable t) {
+                        LOGGER.debug("Failed to resubmit a batch to the executor {}, continue draining in the " +
+                                "current thread.", delegate, t);
+                        return true;
+                    }
+                }
+                state = STATE_IDLE;
+                // A producer may have enqueued after the last poll() but before it observed STATE_IDLE, in which case
+                // it did not schedule the lane.
+                if (tasks.isEmpty() || !stateUpdater.compareAndSet(this, STATE_IDLE, STATE_SCHEDULED)) {
+                    return false;
+                }
+            }
+        }
+
+        private void drainOnRejection(final Runnable rejected) {
+            // The delegate will not run this lane, hence this thread is the only consumer of the queue. The rejected
+            // task is dropped as the caller is notified via an exception, tasks accepted from other producers are run
+            // in the calling thread, as offloaders do when the executor is inadequately provisioned.
+            boolean rejectedSeen = false;
+            for (;;) {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    if (!rejectedSeen && task == rejected) {
+                        rejectedSeen = true;
+                    } else {
+                        safeRun(task);
+                    }
+                }
+                state = STATE_IDLE;
+                if (tasks.isEmpty() || !stateUpdater.compareAndSet(this, STATE_IDLE, STATE_SCHEDULED)) {
+                    return;
+                }
+            }
+        }
+
+        private static void safeRun(final Runnable task) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOGGER.error("Ignored unexpected exception from task {}.", task, t);
+            }
+        }
+    }
+}
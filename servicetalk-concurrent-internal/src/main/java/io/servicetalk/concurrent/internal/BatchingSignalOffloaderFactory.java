@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.internal;
+
+import io.servicetalk.concurrent.Executor;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A {@link SignalOffloaderFactory} that creates {@link TaskBasedSignalOffloader}s which submit their tasks to a
+ * {@link BatchingExecutor}. All offloaders created for the same {@link Executor} share the {@link BatchingExecutor},
+ * so signals for many subscribers are drained by a single task submitted to the {@link Executor}.
+ * <p>
+ * A {@link BatchingExecutor} is kept per {@link Executor} as long as any offloader uses it, so alternating between
+ * executors does not discard the lanes of either. The factory only references executors and their
+ * {@link BatchingExecutor}s weakly, hence it does not keep an {@link Executor} alive after it is no longer used.
+ * <p>
+ * The data signals of a {@link io.servicetalk.concurrent.PublisherSource.Subscriber} and the terminal signals of
+ * single value subscribers are enqueued without allocating a task per signal, as for {@link TaskBasedSignalOffloader}.
+ * Offloading a subscribe, a cancellation or a signal via
+ * {@link SignalOffloader#offloadSignal(Object, java.util.function.Consumer)} still allocates a task, and an error is
+ * enqueued wrapped in a {@link TerminalNotification}.
+ */
+final class BatchingSignalOffloaderFactory implements SignalOffloaderFactory {
+
+    private final int lanes;
+    private final int maxBatchSize;
+    // A BatchingExecutor strongly references its Executor, hence it must only be weakly referenced by the values of a
+    // WeakHashMap keyed by the Executor. Guarded by batchingExecutors.
+    private final Map<Executor, WeakReference<BatchingExecutor>> batchingExecutors = new WeakHashMap<>(4);
+    // The most recently used BatchingExecutor, to avoid locking while the same Executor is used.
+    private volatile WeakReference<BatchingExecutor> lastUsed = new WeakReference<>(null);
+
+    BatchingSignalOffloaderFactory(final int lanes, final int maxBatchSize) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("lanes: " + lanes + " (expected >0)");
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize: " + maxBatchSize + " (expected >0)");
+        }
+        this.lanes = lanes;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public SignalOffloader newSignalOffloader(final Executor executor) {
+        BatchingExecutor batchingExecutor = lastUsed.get();
+        if (batchingExecutor == null || batchingExecutor.delegate() != executor) {
+            batchingExecutor = batchingExecutor(executor);
+        }
+        return new TaskBasedSignalOffloader(batchingExecutor);
+    }
+
+    private BatchingExecutor batchingExecutor(final Executor executor) {
+        synchronized (batchingExecutors) {
+            final WeakReference<BatchingExecutor> ref = batchingExecutors.get(executor);
+            BatchingExecutor batchingExecutor = ref == null ? null : ref.get();
+            if (batchingExecutor == null) {
+                batchingExecutor = new BatchingExecutor(executor, lanes, maxBatchSize);
+                final WeakReference<BatchingExecutor> newRef = new WeakReference<>(batchingExecutor);
+                batchingExecutors.put(executor, newRef);
+                lastUsed = newRef;
+            } else {
+                lastUsed = ref;
+            }
+            return batchingExecutor;
+        }
+    }
+
+    @Override
+    public boolean hasThreadAffinity() {
+        return false;
+    }
+}
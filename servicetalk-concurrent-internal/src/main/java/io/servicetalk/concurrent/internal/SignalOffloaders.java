@@ -17,11 +17,15 @@ package io.servicetalk.concurrent.internal;
 
 import io.servicetalk.concurrent.Executor;
 
+import static java.lang.Runtime.getRuntime;
+
 /**
  * A factory for creating different {@link SignalOffloader}s.
  */
 public final class SignalOffloaders {
 
+    private static final int DEFAULT_MAX_BATCH_SIZE = 64;
+
     private static final SignalOffloaderFactory TASK_BASED_OFFLOADER_FACTORY = new SignalOffloaderFactory() {
         @Override
         public SignalOffloader newSignalOffloader(final Executor executor) {
@@ -79,6 +83,36 @@ public final class SignalOffloaders {
         return TASK_BASED_OFFLOADER_FACTORY;
     }
 
+    /**
+     * Create a new {@link SignalOffloaderFactory} that batches signals for many subscribers into a single task
+     * submitted to the {@link Executor}, with one lane per available processor and a default maximum batch size.
+     *
+     * @return A new {@link SignalOffloaderFactory} that batches signals.
+     * @see #newBatchingOffloaderFactory(int, int)
+     */
+    public static SignalOffloaderFactory newBatchingOffloaderFactory() {
+        return newBatchingOffloaderFactory(getRuntime().availableProcessors(), DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Create a new {@link SignalOffloaderFactory} that batches signals for many subscribers into a single task
+     * submitted to the {@link Executor}.
+     * <p>
+     * Signals are enqueued to one of {@code lanes} multi-producer single-consumer queues, selected by the calling
+     * thread. At most one task per lane is pending on the {@link Executor} at any time, it takes up to
+     * {@code maxBatchSize} tasks and submits a new task for the remainder before running them. Hence a blocking signal
+     * delays at most {@code maxBatchSize - 1} other signals, but the {@link Executor} should still be able to run
+     * tasks concurrently. The returned factory keeps one set of lanes per {@link Executor} it is used with, shared by
+     * all {@link SignalOffloader}s it creates for that {@link Executor} while any of them is in use.
+     *
+     * @param lanes Number of queues to spread signals over, rounded up to the next power of two.
+     * @param maxBatchSize Maximum number of tasks to run per task submitted to the {@link Executor}.
+     * @return A new {@link SignalOffloaderFactory} that batches signals.
+     */
+    public static SignalOffloaderFactory newBatchingOffloaderFactory(final int lanes, final int maxBatchSize) {
+        return new BatchingSignalOffloaderFactory(lanes, maxBatchSize);
+    }
+
     /**
      * Create a new instance of {@link SignalOffloader} using the passed {@code executor}.
      *
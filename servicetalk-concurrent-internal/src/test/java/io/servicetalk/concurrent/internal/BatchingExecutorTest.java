@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.internal;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.Executor;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.internal.ServiceTalkTestTimeout.DEFAULT_TIMEOUT_SECONDS;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class BatchingExecutorTest {
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout();
+
+    private final ExecutorService pool = newCachedThreadPool();
+    private final Executor delegate = new Executor() {
+        @Override
+        public Cancellable execute(final Runnable task) {
+            Future<?> future = pool.submit(task);
+            return () -> future.cancel(false);
+        }
+
+        @Override
+        public Cancellable schedule(final Runnable task, final long delay, final TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    };
+
+    @After
+    public void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(DEFAULT_TIMEOUT_SECONDS, SECONDS);
+    }
+
+    @Test
+    public void blockingTaskDoesNotStallLaterTasksOfItsLane() throws Exception {
+        BatchingExecutor executor = new BatchingExecutor(delegate, 1, 4);
+        CountDownLatch unblock = new CountDownLatch(1);
+        CountDownLatch blockedDone = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        executor.execute(() -> {
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            blockedDone.countDown();
+        });
+        final int followers = 16;
+        for (int i = 0; i < followers; i++) {
+            executor.execute(ran::incrementAndGet);
+        }
+        // Only runs if the tasks enqueued after the blocking one are drained by another delegate task.
+        executor.execute(unblock::countDown);
+
+        blockedDone.await();
+        assertThat("Unexpected tasks run.", ran.get(), is(followers));
+    }
+
+    @Test
+    public void allTasksRunWithConcurrentProducers() throws Exception {
+        BatchingExecutor executor = new BatchingExecutor(delegate, 2, 8);
+        final int producers = 4;
+        final int tasksPerProducer = 10000;
+        CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+        for (int p = 0; p < producers; p++) {
+            pool.execute(() -> {
+                for (int i = 0; i < tasksPerProducer; i++) {
+                    executor.execute(done::countDown);
+                }
+            });
+        }
+        done.await();
+    }
+}
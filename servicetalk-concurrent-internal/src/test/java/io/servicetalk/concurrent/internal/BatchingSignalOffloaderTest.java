@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.concurrent.internal;
+
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.Executor;
+import io.servicetalk.concurrent.SingleSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.servicetalk.concurrent.Cancellable.IGNORE_CANCEL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BatchingSignalOffloaderTest extends AbstractSignalOffloaderTest<SignalOffloader> {
+
+    private Cancellable cancellable;
+
+    @Before
+    public void setUp() throws Exception {
+        doSetup();
+        cancellable = mock(Cancellable.class);
+    }
+
+    @Override
+    protected SignalOffloader newOffloader(MockExecutor executor) {
+        return new BatchingSignalOffloaderFactory(1, 64).newSignalOffloader(executor);
+    }
+
+    @Test
+    public void signalsForManySubscribersShareOneTask() {
+        SignalOffloaderFactory factory = new BatchingSignalOffloaderFactory(1, 64);
+        SingleSource.Subscriber<Integer> sub1 = uncheckedMock(SingleSource.Subscriber.class);
+        SingleSource.Subscriber<Integer> sub2 = uncheckedMock(SingleSource.Subscriber.class);
+        factory.newSignalOffloader(executor).offloadSubscriber(sub1).onSubscribe(cancellable);
+        factory.newSignalOffloader(executor).offloadSubscriber(sub2).onSubscribe(cancellable);
+        factory.newSignalOffloader(executor).offloadSubscriber(singleSub).onSubscribe(cancellable);
+
+        verify(executor.mock).execute(any());
+        assertThat("Unexpected tasks executed.", executor.executeAllTasks(), is(1));
+        verify(sub1).onSubscribe(cancellable);
+        verify(sub2).onSubscribe(cancellable);
+        verify(singleSub).onSubscribe(cancellable);
+    }
+
+    @Test
+    public void batchSizeIsBounded() {
+        SignalOffloaderFactory factory = new BatchingSignalOffloaderFactory(1, 2);
+        SingleSource.Subscriber<Integer> sub1 = uncheckedMock(SingleSource.Subscriber.class);
+        SingleSource.Subscriber<Integer> sub2 = uncheckedMock(SingleSource.Subscriber.class);
+        factory.newSignalOffloader(executor).offloadSubscriber(sub1).onSubscribe(cancellable);
+        factory.newSignalOffloader(executor).offloadSubscriber(sub2).onSubscribe(cancellable);
+        factory.newSignalOffloader(executor).offloadSubscriber(singleSub).onSubscribe(cancellable);
+
+        assertThat("Unexpected tasks executed.", executor.executeAllTasks(), is(2));
+        verify(executor.mock, times(2)).execute(any());
+        verify(sub1).onSubscribe(cancellable);
+        verify(sub2).onSubscribe(cancellable);
+        verify(singleSub).onSubscribe(cancellable);
+    }
+
+    @Test
+    public void lanesAreRetainedPerExecutor() {
+        SignalOffloaderFactory factory = new BatchingSignalOffloaderFactory(1, 64);
+        MockExecutor other = new MockExecutor();
+        SingleSource.Subscriber<Integer> sub1 = uncheckedMock(SingleSource.Subscriber.class);
+        SingleSource.Subscriber<Integer> sub2 = uncheckedMock(SingleSource.Subscriber.class);
+        factory.newSignalOffloader(executor).offloadSubscriber(sub1).onSubscribe(cancellable);
+        factory.newSignalOffloader(other).offloadSubscriber(sub2).onSubscribe(cancellable);
+        factory.newSignalOffloader(executor).offloadSubscriber(singleSub).onSubscribe(cancellable);
+
+        verify(executor.mock).execute(any());
+        verify(other.mock).execute(any());
+        assertThat("Unexpected tasks executed.", executor.executeAllTasks(), is(1));
+        assertThat("Unexpected tasks executed.", other.executeAllTasks(), is(1));
+        verify(sub1).onSubscribe(cancellable);
+        verify(sub2).onSubscribe(cancellable);
+        verify(singleSub).onSubscribe(cancellable);
+    }
+
+    @Test
+    public void rejectedTaskIsNotRun() {
+        Executor rejecting = mock(Executor.class);
+        when(rejecting.execute(any())).thenThrow(new RejectedExecutionException());
+        SignalOffloader rejectingOffloader = new BatchingSignalOffloaderFactory(1, 64).newSignalOffloader(rejecting);
+        rejectingOffloader.offloadSubscriber(singleSub).onSubscribe(cancellable);
+
+        verify(singleSub).onSubscribe(IGNORE_CANCEL);
+        verify(singleSub).onError(any(RejectedExecutionException.class));
+        verify(singleSub, times(0)).onSubscribe(cancellable);
+    }
+}
@@ -25,6 +25,8 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.BooleanNode;
+import com.fasterxml.jackson.databind.node.DoubleNode;
+import com.fasterxml.jackson.databind.node.LongNode;
 import com.fasterxml.jackson.databind.node.NullNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.node.TextNode;
@@ -44,13 +46,16 @@ abstract class AbstractJacksonDeserializer<T> implements StreamingDeserializer<T
     private final Deque<JsonNode> nodeStack = new ArrayDeque<>();
     private final ObjectReader reader;
     private final JsonParser parser;
+    private final boolean unwrapArrays;
+    private boolean inTopLevelArray;
 
     @Nullable
     private String fieldName;
 
-    AbstractJacksonDeserializer(ObjectReader reader, JsonParser parser) {
+    AbstractJacksonDeserializer(ObjectReader reader, JsonParser parser, boolean unwrapArrays) {
         this.reader = reader;
         this.parser = parser;
+        this.unwrapArrays = unwrapArrays;
     }
 
     @Override
@@ -85,7 +90,7 @@ abstract class AbstractJacksonDeserializer<T> implements StreamingDeserializer<T
         // This makes it such that if a standalone primitive type is split across buffers, then we do not know, whether
         // we have started parsing a primitive or there is no data to parse. In such cases, we err on the side of
         // caution and assume there is no left over data.
-        return !nodeStack.isEmpty();
+        return !nodeStack.isEmpty() || inTopLevelArray;
     }
 
     @Override
@@ -120,10 +125,19 @@ abstract class AbstractJacksonDeserializer<T> implements StreamingDeserializer<T
                 nodeStack.push(createObject(nodeStack.peek()));
                 return null;
             case START_ARRAY:
+                if (unwrapArrays && nodeStack.isEmpty() && !inTopLevelArray) {
+                    // Elements of a top-level array are emitted one by one, as if they were top-level values.
+                    inTopLevelArray = true;
+                    return null;
+                }
                 nodeStack.push(createArray(nodeStack.peek()));
                 return null;
             case END_OBJECT:
             case END_ARRAY:
+                if (inTopLevelArray && nodeStack.isEmpty()) {
+                    inTopLevelArray = false;
+                    return null;
+                }
                 JsonNode top = nodeStack.pop();
                 return nodeStack.isEmpty() ? top : null;
             case FIELD_NAME:
@@ -141,10 +155,17 @@ abstract class AbstractJacksonDeserializer<T> implements StreamingDeserializer<T
                 // that this deserializer deserializes, i.e. any subsequent deserialization attempts MUST throw.
                 // However, to achieve that we need to maintain state between two deserialize calls. Jackson does not
                 // support deserializing a single primitive number as yet when used with non-blocking parser. Hence,
-                // we avoid doing that state management yet.
+                // we avoid doing that state management yet. Numbers which are elements of a top-level array are
+                // delimited, hence they are supported.
+                if (inTopLevelArray && nodeStack.isEmpty()) {
+                    return LongNode.valueOf(parser.getLongValue());
+                }
                 addValue(peekNonNull(), parser.getLongValue());
                 return null;
             case VALUE_NUMBER_FLOAT:
+                if (inTopLevelArray && nodeStack.isEmpty()) {
+                    return DoubleNode.valueOf(parser.getDoubleValue());
+                }
                 addValue(peekNonNull(), parser.getDoubleValue());
                 return null;
             case VALUE_TRUE:
@@ -29,25 +29,39 @@ import javax.annotation.Nullable;
 import static java.util.Collections.emptyList;
 
 final class ByteArrayJacksonDeserializer<T> extends AbstractJacksonDeserializer<T> {
+    private static final byte[] EMPTY_BYTES = new byte[0];
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024;
+
     private final ByteArrayFeeder feeder;
+    /**
+     * Reused to copy the content of {@link Buffer}s without an accessible array. The parser consumes all fed input
+     * before {@link #consumeParserTokens(List)} returns, so the array can be reused for the next {@link Buffer}.
+     */
+    private byte[] scratch = EMPTY_BYTES;
 
-    ByteArrayJacksonDeserializer(ObjectReader reader, JsonParser parser, ByteArrayFeeder feeder) {
-        super(reader, parser);
+    ByteArrayJacksonDeserializer(ObjectReader reader, JsonParser parser, ByteArrayFeeder feeder,
+                                 boolean unwrapArrays) {
+        super(reader, parser, unwrapArrays);
         this.feeder = feeder;
     }
 
     @Nonnull
     Iterable<T> doDeserialize(final Buffer buffer, @Nullable List<T> resultHolder) throws IOException {
+        final int readableBytes = buffer.readableBytes();
         if (buffer.hasArray()) {
-            feeder.feedInput(buffer.array(), buffer.arrayOffset(),
-                    buffer.arrayOffset() + buffer.readableBytes());
-        } else {
-            int readableBytes = buffer.readableBytes();
-            if (readableBytes != 0) {
-                byte[] copy = new byte[readableBytes];
-                buffer.readBytes(copy);
-                feeder.feedInput(copy, 0, copy.length);
+            final int start = buffer.arrayOffset() + buffer.readerIndex();
+            feeder.feedInput(buffer.array(), start, start + readableBytes);
+            buffer.skipBytes(readableBytes);
+        } else if (readableBytes != 0) {
+            byte[] copy = scratch;
+            if (copy.length < readableBytes) {
+                copy = new byte[readableBytes];
+                if (readableBytes <= MAX_SCRATCH_SIZE) {
+                    scratch = copy;
+                }
             }
+            buffer.readBytes(copy, 0, readableBytes);
+            feeder.feedInput(copy, 0, readableBytes);
         }
 
         return !feeder.needMoreInput() ? consumeParserTokens(resultHolder) : emptyList();
@@ -30,8 +30,9 @@ import static java.util.Collections.emptyList;
 final class ByteBufferJacksonDeserializer<T> extends AbstractJacksonDeserializer<T> {
     private final ByteBufferFeeder feeder;
 
-    ByteBufferJacksonDeserializer(ObjectReader reader, JsonParser parser, ByteBufferFeeder feeder) {
-        super(reader, parser);
+    ByteBufferJacksonDeserializer(ObjectReader reader, JsonParser parser, ByteBufferFeeder feeder,
+                                  boolean unwrapArrays) {
+        super(reader, parser, unwrapArrays);
         this.feeder = feeder;
     }
 
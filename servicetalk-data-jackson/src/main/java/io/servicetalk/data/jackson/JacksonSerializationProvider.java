@@ -16,6 +16,7 @@
 package io.servicetalk.data.jackson;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.serialization.api.SerializationProvider;
 import io.servicetalk.serialization.api.StreamingDeserializer;
 import io.servicetalk.serialization.api.StreamingSerializer;
@@ -31,17 +32,26 @@ import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static io.servicetalk.buffer.api.Buffer.asOutputStream;
+import static io.servicetalk.concurrent.api.Publisher.defer;
 import static io.servicetalk.utils.internal.PlatformDependent.throwException;
 import static java.util.Objects.requireNonNull;
 
 /**
  * {@link SerializationProvider} implementation using jackson.
+ * <p>
+ * {@link ObjectReader}s and {@link ObjectWriter}s are cached per type, hence the configuration of the
+ * {@link ObjectMapper} must not change after it is passed to this provider.
  */
 public final class JacksonSerializationProvider implements SerializationProvider {
 
     private final ObjectMapper mapper;
+    private final ConcurrentMap<Type, CachedWriter> writers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
 
     /**
      * New instances which will use the default {@link ObjectMapper}.
@@ -61,40 +71,105 @@ public final class JacksonSerializationProvider implements SerializationProvider
 
     @Override
     public <T> StreamingSerializer getSerializer(final Class<T> classToSerialize) {
-        final ObjectWriter writer = mapper.writerFor(classToSerialize);
-        return (toSerialize, destination) -> serialize0(writer, toSerialize, destination);
+        return writer(classToSerialize);
     }
 
     @Override
     public <T> StreamingSerializer getSerializer(final TypeHolder<T> typeToSerialize) {
-        final ObjectWriter writer = mapper.writerFor(mapper.constructType(typeToSerialize.type()));
-        return (toSerialize, destination) -> serialize0(writer, toSerialize, destination);
+        return writer(typeToSerialize.type());
     }
 
     @Override
     public <T> StreamingDeserializer<T> getDeserializer(final Class<T> classToDeSerialize) {
-        return newDeserializer(mapper.readerFor(classToDeSerialize));
+        return newDeserializer(reader(classToDeSerialize), false);
     }
 
     @Override
     public <T> StreamingDeserializer<T> getDeserializer(final TypeHolder<T> typeToDeserialize) {
-        return newDeserializer(mapper.readerFor(mapper.constructType(typeToDeserialize.type())));
+        return newDeserializer(reader(typeToDeserialize.type()), false);
+    }
+
+    /**
+     * Get a {@link StreamingDeserializer} which emits the elements of top-level JSON arrays one by one, as soon as
+     * each element has been received, instead of the arrays as a whole. Top-level values which are not arrays are
+     * emitted as is.
+     *
+     * @param elementType The type of the array elements to deserialize.
+     * @param <T> The type of the array elements to deserialize.
+     * @return {@link StreamingDeserializer} which emits the elements of top-level JSON arrays.
+     */
+    public <T> StreamingDeserializer<T> getArrayElementsDeserializer(final Class<T> elementType) {
+        return newDeserializer(reader(elementType), true);
+    }
+
+    /**
+     * Get a {@link StreamingDeserializer} which emits the elements of top-level JSON arrays one by one, as soon as
+     * each element has been received, instead of the arrays as a whole. Top-level values which are not arrays are
+     * emitted as is.
+     *
+     * @param elementType {@link TypeHolder} of the array elements to deserialize.
+     * @param <T> The type of the array elements to deserialize.
+     * @return {@link StreamingDeserializer} which emits the elements of top-level JSON arrays.
+     */
+    public <T> StreamingDeserializer<T> getArrayElementsDeserializer(final TypeHolder<T> elementType) {
+        return newDeserializer(reader(elementType.type()), true);
+    }
+
+    /**
+     * Deserializes the elements of top-level JSON arrays in the passed {@link Publisher} of {@link Buffer}s, each
+     * element is emitted as soon as it has been received.
+     *
+     * @param source {@link Publisher} of {@link Buffer}s containing JSON arrays.
+     * @param elementType The type of the array elements to deserialize.
+     * @param <T> The type of the array elements to deserialize.
+     * @return {@link Publisher} of the deserialized array elements.
+     * @see #getArrayElementsDeserializer(Class)
+     */
+    public <T> Publisher<T> deserializeArrayElements(final Publisher<Buffer> source, final Class<T> elementType) {
+        return deserializeArrayElements(source, reader(elementType));
+    }
+
+    /**
+     * Deserializes the elements of top-level JSON arrays in the passed {@link Publisher} of {@link Buffer}s, each
+     * element is emitted as soon as it has been received.
+     *
+     * @param source {@link Publisher} of {@link Buffer}s containing JSON arrays.
+     * @param elementType {@link TypeHolder} of the array elements to deserialize.
+     * @param <T> The type of the array elements to deserialize.
+     * @return {@link Publisher} of the deserialized array elements.
+     * @see #getArrayElementsDeserializer(TypeHolder)
+     */
+    public <T> Publisher<T> deserializeArrayElements(final Publisher<Buffer> source,
+                                                     final TypeHolder<T> elementType) {
+        return deserializeArrayElements(source, reader(elementType.type()));
     }
 
     @Override
     public <T> void serialize(final T toSerialize, final Buffer destination) {
-        serialize0(mapper.writerFor(toSerialize.getClass()), toSerialize, destination);
+        writer(toSerialize.getClass()).serialize(toSerialize, destination);
     }
 
-    private static void serialize0(final ObjectWriter writer, final Object toSerialize, final Buffer destination) {
-        try {
-            writer.writeValue(asOutputStream(destination), toSerialize);
-        } catch (IOException e) {
-            throwException(e);
-        }
+    private CachedWriter writer(final Type type) {
+        return writers.computeIfAbsent(type, t -> new CachedWriter(mapper.writerFor(mapper.constructType(t))));
+    }
+
+    private ObjectReader reader(final Type type) {
+        return readers.computeIfAbsent(type, t -> mapper.readerFor(mapper.constructType(t)));
+    }
+
+    private static <T> Publisher<T> deserializeArrayElements(final Publisher<Buffer> source,
+                                                             final ObjectReader reader) {
+        return defer(() -> {
+            // The StreamingDeserializer is not thread safe, but flatMapConcatIterable ensures there is no concurrency.
+            final StreamingDeserializer<T> deserializer = newDeserializer(reader, true);
+            return source.flatMapConcatIterable(deserializer::deserialize)
+                    .beforeOnComplete(deserializer::close)
+                    .subscribeShareContext();
+        });
     }
 
-    private static <T> StreamingDeserializer<T> newDeserializer(ObjectReader reader) {
+    private static <T> StreamingDeserializer<T> newDeserializer(final ObjectReader reader,
+                                                                final boolean unwrapArrays) {
         final JsonFactory factory = reader.getFactory();
         final JsonParser parser;
         try {
@@ -108,11 +183,40 @@ public final class JacksonSerializationProvider implements SerializationProvider
         }
         NonBlockingInputFeeder rawFeeder = parser.getNonBlockingInputFeeder();
         if (rawFeeder instanceof ByteBufferFeeder) {
-            return new ByteBufferJacksonDeserializer<>(reader, parser, (ByteBufferFeeder) rawFeeder);
+            return new ByteBufferJacksonDeserializer<>(reader, parser, (ByteBufferFeeder) rawFeeder, unwrapArrays);
         }
         if (rawFeeder instanceof ByteArrayFeeder) {
-            return new ByteArrayJacksonDeserializer<>(reader, parser, (ByteArrayFeeder) rawFeeder);
+            return new ByteArrayJacksonDeserializer<>(reader, parser, (ByteArrayFeeder) rawFeeder, unwrapArrays);
         }
         throw new IllegalArgumentException("unsupported feeder type: " + rawFeeder);
     }
+
+    /**
+     * An {@link ObjectWriter} which serializes directly into the destination {@link Buffer}. It remembers the size of
+     * the last serialized value, so the destination can be sized once upfront instead of growing in steps.
+     */
+    private static final class CachedWriter implements StreamingSerializer {
+        private final ObjectWriter writer;
+        // Benign race, this is only a hint.
+        private int sizeEstimate;
+
+        CachedWriter(final ObjectWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void serialize(final Object toSerialize, final Buffer destination) {
+            final int estimate = sizeEstimate;
+            if (estimate > 0) {
+                destination.ensureWritable(estimate);
+            }
+            final int startIndex = destination.writerIndex();
+            try {
+                writer.writeValue(asOutputStream(destination), toSerialize);
+            } catch (IOException e) {
+                throwException(e);
+            }
+            sizeEstimate = destination.writerIndex() - startIndex;
+        }
+    }
 }
@@ -17,6 +17,7 @@ package io.servicetalk.data.jackson;
 
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.EmptyBuffer;
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
 import io.servicetalk.serialization.api.SerializationException;
 import io.servicetalk.serialization.api.StreamingDeserializer;
@@ -28,13 +29,17 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import javax.annotation.Nonnull;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.from;
 import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -243,6 +248,72 @@ public class JacksonSerializationProviderTest {
         deSerializer.close();
     }
 
+    @Test
+    public void deserializeArrayElementsOneByOne() {
+        TestPojo expected1 = new TestPojo(true, (byte) -2, (short) -3, 'a', 2, 5, 3.2f, -8.5, null,
+                new String[] {"bar", "baz"}, null);
+        TestPojo expected2 = new TestPojo(false, (byte) 500, (short) 353, 'r', 100, 534, 33.25f, 888.5, null,
+                new String[] {"foo"}, expected1);
+        final Buffer serialized1 = serializePojo(expected1);
+        // Index of the closing brace of the first element.
+        final int firstElementEnd = serialized1.readableBytes();
+        final Buffer array = DEFAULT_ALLOCATOR.newBuffer().writeAscii("[");
+        array.writeBytes(serialized1).writeAscii(",").writeBytes(serializePojo(expected2)).writeAscii("]");
+
+        final StreamingDeserializer<TestPojo> deserializer =
+                serializationProvider.getArrayElementsDeserializer(TestPojo.class);
+        final List<TestPojo> deserialized = new ArrayList<>();
+        for (int i = array.readerIndex(); i < array.writerIndex(); ++i) {
+            Buffer buffer = DEFAULT_ALLOCATOR.newBuffer(1).writeByte(array.getByte(i));
+            deserializer.deserialize(buffer).forEach(deserialized::add);
+            if (i == firstElementEnd) {
+                assertThat("First element not emitted before the array completed.", deserialized,
+                        contains(expected1));
+            }
+        }
+        assertThat(deserialized, contains(expected1, expected2));
+        assertThat("Unexpected data remaining in deserializer", deserializer.hasData(), is(false));
+        deserializer.close();
+    }
+
+    @Test
+    public void deserializeArrayElementsFromPublisher() throws Exception {
+        final Publisher<Buffer> source = from(DEFAULT_ALLOCATOR.fromAscii("[1, 2"),
+                DEFAULT_ALLOCATOR.fromAscii("2, 3.5]"));
+        assertThat(serializationProvider.deserializeArrayElements(source, Double.class).toFuture().get(),
+                contains(1d, 22d, 3.5d));
+    }
+
+    @Test
+    public void deserializeArrayElementsIncomplete() {
+        final StreamingDeserializer<Integer> deserializer =
+                serializationProvider.getArrayElementsDeserializer(Integer.class);
+        assertThat(deserializer.deserialize(DEFAULT_ALLOCATOR.fromAscii("[1, 2,")), contains(1, 2));
+        assertThat("No data remaining in deserializer", deserializer.hasData(), is(true));
+        try {
+            deserializer.close();
+            fail();
+        } catch (SerializationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void deserializeRespectsReaderIndex() {
+        final Buffer buffer = DEFAULT_ALLOCATOR.fromAscii("xx\"y\"");
+        buffer.skipBytes(2);
+        final StreamingDeserializer<String> deserializer = serializationProvider.getDeserializer(String.class);
+        assertThat(deserializer.deserialize(buffer), contains("y"));
+        assertThat(buffer.readableBytes(), is(0));
+        deserializer.close();
+    }
+
+    @Test
+    public void serializersAreCachedPerType() {
+        assertThat(serializationProvider.getSerializer(TestPojo.class),
+                is(sameInstance(serializationProvider.getSerializer(TestPojo.class))));
+    }
+
     private void deserializeChunks(final TestPojo expected1, final Buffer req1Buffer,
                                    final StreamingDeserializer<TestPojo> deSerializer) {
         for (int i = req1Buffer.readerIndex(); i < req1Buffer.writerIndex(); ++i) {
@@ -32,8 +32,8 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.internal.BlockingIterables.singletonBlockingIterable;
-import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.grpc.api.GrpcUtils.initRequest;
+import static io.servicetalk.grpc.api.GrpcUtils.readGrpcMessageEncoding;
 import static io.servicetalk.grpc.api.GrpcUtils.uncheckedCast;
 import static io.servicetalk.grpc.api.GrpcUtils.validateResponseAndGetPayload;
 import static java.util.Objects.requireNonNull;
@@ -62,7 +62,7 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
             final GrpcExecutionStrategy strategy = metadata.strategy();
             return (strategy == null ? client.request(httpRequest) : client.request(strategy, httpRequest))
                     .map(response -> validateResponseAndGetPayload(response,
-                            serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass)));
+                            serializationProvider.deserializerFor(readGrpcMessageEncoding(response), responseClass)));
         };
     }
 
@@ -83,7 +83,7 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
             return (strategy == null ? streamingHttpClient.request(httpRequest) :
                     streamingHttpClient.request(strategy, httpRequest))
                     .flatMapPublisher(response -> validateResponseAndGetPayload(response,
-                            serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass)));
+                            serializationProvider.deserializerFor(readGrpcMessageEncoding(response), responseClass)));
         };
     }
 
@@ -121,7 +121,7 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
             final HttpResponse response = strategy == null ? client.request(httpRequest) :
                     client.request(strategy, httpRequest);
             return validateResponseAndGetPayload(response,
-                    serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass));
+                    serializationProvider.deserializerFor(readGrpcMessageEncoding(response), responseClass));
         };
     }
 
@@ -142,7 +142,7 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
             final BlockingStreamingHttpResponse response = strategy == null ? client.request(httpRequest) :
                     client.request(strategy, httpRequest);
             return validateResponseAndGetPayload(response.toStreamingResponse(),
-                    serializationProvider.deserializerFor(getMessageEncoding(metadata), responseClass))
+                    serializationProvider.deserializerFor(readGrpcMessageEncoding(response), responseClass))
                     .toIterable();
         };
     }
@@ -193,11 +193,6 @@ final class DefaultGrpcClientCallFactory implements GrpcClientCallFactory {
         return streamingHttpClient.onClose();
     }
 
-    private GrpcMessageEncoding getMessageEncoding(final GrpcClientMetadata metadata) {
-        // compression not yet supported.
-        return None;
-    }
-
     private <Req> HttpRequest newAggregatedRequest(final GrpcClientMetadata metadata, final Req rawReq,
                                                    final HttpRequestFactory requestFactory,
                                                    final GrpcSerializationProvider serializationProvider,
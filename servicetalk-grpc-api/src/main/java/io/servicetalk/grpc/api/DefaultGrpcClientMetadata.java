@@ -50,6 +50,33 @@ public class DefaultGrpcClientMetadata extends DefaultGrpcMetadata implements Gr
         this.strategy = requireNonNull(strategy);
     }
 
+    /**
+     * Creates a new instance.
+     *
+     * @param path for the associated <a href="https://www.grpc.io">gRPC</a> method.
+     * @param messageEncoding {@link GrpcMessageEncoding} to use for messages sent to the associated
+     * <a href="https://www.grpc.io">gRPC</a> method.
+     */
+    protected DefaultGrpcClientMetadata(final String path, final GrpcMessageEncoding messageEncoding) {
+        super(path, messageEncoding);
+        strategy = null;
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param path for the associated <a href="https://www.grpc.io">gRPC</a> method.
+     * @param strategy {@link GrpcExecutionStrategy} to use for the associated <a href="https://www.grpc.io">gRPC</a>
+     * method.
+     * @param messageEncoding {@link GrpcMessageEncoding} to use for messages sent to the associated
+     * <a href="https://www.grpc.io">gRPC</a> method.
+     */
+    protected DefaultGrpcClientMetadata(final String path, final GrpcExecutionStrategy strategy,
+                                        final GrpcMessageEncoding messageEncoding) {
+        super(path, messageEncoding);
+        this.strategy = requireNonNull(strategy);
+    }
+
     @Override
     public final GrpcExecutionStrategy strategy() {
         return strategy;
@@ -15,18 +15,30 @@
  */
 package io.servicetalk.grpc.api;
 
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static java.util.Objects.requireNonNull;
 
 class DefaultGrpcMetadata implements GrpcMetadata {
 
     private final String path;
+    private final GrpcMessageEncoding messageEncoding;
 
     DefaultGrpcMetadata(final String path) {
+        this(path, None);
+    }
+
+    DefaultGrpcMetadata(final String path, final GrpcMessageEncoding messageEncoding) {
         this.path = requireNonNull(path);
+        this.messageEncoding = requireNonNull(messageEncoding);
     }
 
     @Override
     public String path() {
         return path;
     }
+
+    @Override
+    public GrpcMessageEncoding messageEncoding() {
+        return messageEncoding;
+    }
 }
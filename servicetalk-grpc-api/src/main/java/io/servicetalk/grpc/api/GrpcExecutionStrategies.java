@@ -50,6 +50,20 @@ public final class GrpcExecutionStrategies {
         return new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.defaultStrategy(executor));
     }
 
+    /**
+     * The default {@link GrpcExecutionStrategy} using a shared {@link Executor} which runs each offloaded task on a
+     * new virtual thread, if supported by the runtime.
+     * <p>
+     * This is a good fit for blocking services where requests may block for a long time, because blocked virtual
+     * threads do not hold on to a platform thread.
+     *
+     * @return {@link GrpcExecutionStrategy} which offloads to virtual threads.
+     * @see HttpExecutionStrategies#virtualThreadStrategy()
+     */
+    public static GrpcExecutionStrategy virtualThreadStrategy() {
+        return VirtualThreadStrategyHolder.VIRTUAL_THREAD_STRATEGY;
+    }
+
     /**
      * A {@link GrpcExecutionStrategy} that disables all offloads.
      *
@@ -68,6 +82,15 @@ public final class GrpcExecutionStrategies {
         return new Builder();
     }
 
+    private static final class VirtualThreadStrategyHolder {
+        static final GrpcExecutionStrategy VIRTUAL_THREAD_STRATEGY =
+                new DefaultGrpcExecutionStrategy(HttpExecutionStrategies.virtualThreadStrategy());
+
+        private VirtualThreadStrategyHolder() {
+            // no instances
+        }
+    }
+
     /**
      * A builder to build an {@link HttpExecutionStrategy}.
      */
@@ -21,7 +21,18 @@ package io.servicetalk.grpc.api;
  */
 public enum GrpcMessageEncoding {
 
-    None("identity");
+    /**
+     * No compression.
+     */
+    None("identity"),
+    /**
+     * <a href="https://tools.ietf.org/html/rfc1952">gzip</a> compression.
+     */
+    Gzip("gzip"),
+    /**
+     * <a href="https://tools.ietf.org/html/rfc1950">zlib</a> compression.
+     */
+    Deflate("deflate");
 
     private final String encoding;
 
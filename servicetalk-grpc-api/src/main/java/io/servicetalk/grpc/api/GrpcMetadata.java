@@ -15,6 +15,8 @@
  */
 package io.servicetalk.grpc.api;
 
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+
 /**
  * Metadata for a <a href="https://www.grpc.io">gRPC</a> call.
  */
@@ -26,4 +28,16 @@ public interface GrpcMetadata {
      * @return The path for the associated <a href="https://www.grpc.io">gRPC</a> method.
      */
     String path();
+
+    /**
+     * Returns the {@link GrpcMessageEncoding} used to compress messages sent with this metadata.
+     * <p>
+     * Messages smaller than the compression threshold of the {@link GrpcSerializationProvider} may still be sent
+     * uncompressed.
+     *
+     * @return The {@link GrpcMessageEncoding} used to compress messages sent with this metadata.
+     */
+    default GrpcMessageEncoding messageEncoding() {
+        return None;
+    }
 }
@@ -56,6 +56,7 @@ import io.servicetalk.transport.api.ServerContext;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -67,6 +68,7 @@ import static io.servicetalk.grpc.api.GrpcRouteConversions.toRequestStreamingRou
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toResponseStreamingRoute;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toRoute;
 import static io.servicetalk.grpc.api.GrpcRouteConversions.toStreaming;
+import static io.servicetalk.grpc.api.GrpcUtils.negotiateResponseEncoding;
 import static io.servicetalk.grpc.api.GrpcUtils.newErrorResponse;
 import static io.servicetalk.grpc.api.GrpcUtils.newResponse;
 import static io.servicetalk.grpc.api.GrpcUtils.readGrpcMessageEncoding;
@@ -74,6 +76,7 @@ import static io.servicetalk.grpc.api.GrpcUtils.setStatus;
 import static io.servicetalk.http.api.HttpApiConversions.toStreamingHttpService;
 import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
 import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.requireNonNull;
 
@@ -161,6 +164,7 @@ final class GrpcRouter {
         private final Map<String, RouteProvider> streamingRoutes;
         private final Map<String, RouteProvider> blockingRoutes;
         private final Map<String, RouteProvider> blockingStreamingRoutes;
+        private List<GrpcMessageEncoding> supportedMessageEncodings = emptyList();
 
         Builder() {
             routes = new HashMap<>();
@@ -179,6 +183,18 @@ final class GrpcRouter {
             this.blockingStreamingRoutes = blockingStreamingRoutes;
         }
 
+        /**
+         * Sets the {@link GrpcMessageEncoding}s that routes registered with this builder use to compress responses.
+         *
+         * @param supportedMessageEncodings {@link GrpcMessageEncoding}s in the order of preference. The first one that
+         * the client accepts is used, responses are not compressed if there is none.
+         * @return {@code this}
+         */
+        Builder supportedMessageEncodings(final List<GrpcMessageEncoding> supportedMessageEncodings) {
+            this.supportedMessageEncodings = requireNonNull(supportedMessageEncodings);
+            return this;
+        }
+
         RouteProviders drainRoutes() {
             final Map<String, RouteProvider> allRoutes = new HashMap<>();
             allRoutes.putAll(routes);
@@ -217,7 +233,8 @@ final class GrpcRouter {
                                                            final HttpResponseFactory responseFactory) {
                             try {
                                 final GrpcServiceContext serviceContext =
-                                        new DefaultGrpcServiceContext(request.path(), ctx);
+                                        new DefaultGrpcServiceContext(request.path(), ctx,
+                                                negotiateResponseEncoding(request, supportedMessageEncodings));
                                 final HttpDeserializer<Req> deserializer =
                                         serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
                                                 requestClass);
@@ -262,7 +279,8 @@ final class GrpcRouter {
                                                                 final StreamingHttpResponseFactory responseFactory) {
                         try {
                             final GrpcServiceContext serviceContext =
-                                    new DefaultGrpcServiceContext(request.path(), ctx);
+                                    new DefaultGrpcServiceContext(request.path(), ctx,
+                                            negotiateResponseEncoding(request, supportedMessageEncodings));
                             final HttpDeserializer<Req> deserializer =
                                     serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
                                             requestClass);
@@ -385,7 +403,8 @@ final class GrpcRouter {
                                                    final HttpResponseFactory responseFactory) {
                             try {
                                 final GrpcServiceContext serviceContext =
-                                        new DefaultGrpcServiceContext(request.path(), ctx);
+                                        new DefaultGrpcServiceContext(request.path(), ctx,
+                                                negotiateResponseEncoding(request, supportedMessageEncodings));
                                 final HttpDeserializer<Req> deserializer =
                                         serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
                                                 requestClass);
@@ -435,7 +454,8 @@ final class GrpcRouter {
                         public void handle(final HttpServiceContext ctx, final BlockingStreamingHttpRequest request,
                                            final BlockingStreamingHttpServerResponse response) throws Exception {
                             final GrpcServiceContext serviceContext =
-                                    new DefaultGrpcServiceContext(request.path(), ctx);
+                                    new DefaultGrpcServiceContext(request.path(), ctx,
+                                            negotiateResponseEncoding(request, supportedMessageEncodings));
                             final HttpDeserializer<Req> deserializer =
                                     serializationProvider.deserializerFor(readGrpcMessageEncoding(request),
                                             requestClass);
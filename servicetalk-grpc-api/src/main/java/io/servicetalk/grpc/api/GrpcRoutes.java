@@ -29,6 +29,7 @@ import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 
 import java.lang.reflect.Method;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 import javax.annotation.Nullable;
@@ -93,6 +94,15 @@ public abstract class GrpcRoutes<Service extends GrpcService> {
         return routeBuilder.build().bind(binder, executionContext);
     }
 
+    /**
+     * Sets the {@link GrpcMessageEncoding}s that routes of this service use to compress responses.
+     *
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s in the order of preference.
+     */
+    final void supportedMessageEncodings(final List<GrpcMessageEncoding> supportedMessageEncodings) {
+        routeBuilder.supportedMessageEncodings(supportedMessageEncodings);
+    }
+
     /**
      * Register all routes contained in the passed {@link Service}.
      *
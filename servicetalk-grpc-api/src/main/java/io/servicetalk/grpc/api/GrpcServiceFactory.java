@@ -24,8 +24,11 @@ import io.servicetalk.http.api.StreamingHttpService;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.ServerContext;
 
+import java.util.ArrayList;
 import javax.annotation.Nullable;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -105,6 +108,22 @@ public abstract class GrpcServiceFactory<Filter extends Service, Service extends
         return this;
     }
 
+    /**
+     * Sets the {@link GrpcMessageEncoding}s that this service may use to compress responses.
+     * <p>
+     * For every request the first of the passed {@link GrpcMessageEncoding}s that the client lists in its
+     * {@code grpc-accept-encoding} header is used. Responses are not compressed if the client does not accept any of
+     * them. By default responses are not compressed.
+     *
+     * @param supportedMessageEncodings {@link GrpcMessageEncoding}s in the order of preference.
+     * @return {@code this}
+     */
+    public GrpcServiceFactory<Filter, Service, FilterFactory> supportedMessageEncodings(
+            final GrpcMessageEncoding... supportedMessageEncodings) {
+        routes.supportedMessageEncodings(unmodifiableList(new ArrayList<>(asList(supportedMessageEncodings))));
+        return this;
+    }
+
     /**
      * Appends the passed {@link FilterFactory} to this service factory.
      *
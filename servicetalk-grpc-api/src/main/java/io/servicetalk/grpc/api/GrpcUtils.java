@@ -29,12 +29,12 @@ import io.servicetalk.http.api.HttpSerializer;
 import io.servicetalk.http.api.StatelessTrailersTransformer;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
-import io.servicetalk.serialization.api.SerializationException;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.rpc.Status;
 
 import java.util.Base64;
+import java.util.List;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
@@ -58,6 +58,8 @@ final class GrpcUtils {
     private static final CharSequence GRPC_USER_AGENT = newAsciiString("grpc-service-talk/");
     private static final CharSequence IDENTITY = newAsciiString(None.encoding());
     private static final CharSequence GRPC_MESSAGE_ENCODING_KEY = newAsciiString("grpc-encoding");
+    private static final CharSequence GRPC_MESSAGE_ACCEPT_ENCODING_KEY = newAsciiString("grpc-accept-encoding");
+    private static final CharSequence GRPC_MESSAGE_ACCEPT_ENCODING_VALUE = newAsciiString(acceptEncodingValue());
     private static final GrpcStatus STATUS_OK = GrpcStatus.fromCodeValue(GrpcStatusCode.OK.value());
 
     private GrpcUtils() {
@@ -70,6 +72,7 @@ final class GrpcUtils {
         headers.set(USER_AGENT, GRPC_USER_AGENT);
         headers.set(TE, TRAILERS);
         headers.set(CONTENT_TYPE, GRPC_CONTENT_TYPE);
+        headers.set(GRPC_MESSAGE_ACCEPT_ENCODING_KEY, GRPC_MESSAGE_ACCEPT_ENCODING_VALUE);
     }
 
     static <T> StreamingHttpResponse newResponse(final StreamingHttpResponseFactory responseFactory,
@@ -180,12 +183,80 @@ final class GrpcUtils {
     static GrpcMessageEncoding readGrpcMessageEncoding(final HttpMetaData httpMetaData) {
         final CharSequence encoding = httpMetaData.headers().get(GRPC_MESSAGE_ENCODING_KEY);
         // identity is a special header for no compression
-        if (encoding != null && !contentEqualsIgnoreCase(encoding, IDENTITY)) {
+        if (encoding == null || contentEqualsIgnoreCase(encoding, IDENTITY)) {
+            return None;
+        }
+        final GrpcMessageEncoding messageEncoding = encodingFor(encoding);
+        if (messageEncoding == null) {
             final String lowercaseEncoding = encoding.toString().toLowerCase();
-            throw new SerializationException("Compression " + lowercaseEncoding + " not supported");
-        } else {
+            throw new GrpcStatus(GrpcStatusCode.UNIMPLEMENTED, null,
+                    "Compression " + lowercaseEncoding + " not supported").asException();
+        }
+        return messageEncoding;
+    }
+
+    static GrpcMessageEncoding negotiateResponseEncoding(final HttpRequestMetaData request,
+                                                         final List<GrpcMessageEncoding> supportedEncodings) {
+        if (supportedEncodings.isEmpty()) {
+            return None;
+        }
+        final CharSequence acceptEncoding = request.headers().get(GRPC_MESSAGE_ACCEPT_ENCODING_KEY);
+        if (acceptEncoding == null) {
             return None;
         }
+        // supportedEncodings are in the order of the service's preference, pick the first one the peer can decode.
+        for (GrpcMessageEncoding supported : supportedEncodings) {
+            if (supported != None && containsEncoding(acceptEncoding, supported.encoding())) {
+                return supported;
+            }
+        }
+        return None;
+    }
+
+    @Nullable
+    private static GrpcMessageEncoding encodingFor(final CharSequence encoding) {
+        for (GrpcMessageEncoding messageEncoding : GrpcMessageEncoding.values()) {
+            if (contentEqualsIgnoreCase(encoding, messageEncoding.encoding())) {
+                return messageEncoding;
+            }
+        }
+        return null;
+    }
+
+    private static boolean containsEncoding(final CharSequence acceptEncoding, final String encoding) {
+        // grpc-accept-encoding is a comma separated list, e.g. "gzip, deflate" so we look for a complete token.
+        int start = 0;
+        final int length = acceptEncoding.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && acceptEncoding.charAt(end) != ',') {
+                ++end;
+            }
+            int tokenStart = start;
+            int tokenEnd = end;
+            while (tokenStart < tokenEnd && acceptEncoding.charAt(tokenStart) == ' ') {
+                ++tokenStart;
+            }
+            while (tokenEnd > tokenStart && acceptEncoding.charAt(tokenEnd - 1) == ' ') {
+                --tokenEnd;
+            }
+            if (contentEqualsIgnoreCase(acceptEncoding.subSequence(tokenStart, tokenEnd), encoding)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static String acceptEncodingValue() {
+        final StringBuilder sb = new StringBuilder();
+        for (GrpcMessageEncoding messageEncoding : GrpcMessageEncoding.values()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(messageEncoding.encoding());
+        }
+        return sb.toString();
     }
 
     private static void initResponse(final HttpResponseMetaData response) {
@@ -193,6 +264,7 @@ final class GrpcUtils {
         final HttpHeaders headers = response.headers();
         headers.set(SERVER, GRPC_USER_AGENT);
         headers.set(CONTENT_TYPE, GRPC_CONTENT_TYPE);
+        headers.set(GRPC_MESSAGE_ACCEPT_ENCODING_KEY, GRPC_MESSAGE_ACCEPT_ENCODING_VALUE);
     }
 
     @Nullable
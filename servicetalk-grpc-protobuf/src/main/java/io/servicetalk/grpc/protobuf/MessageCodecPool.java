@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.protobuf;
+
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static java.lang.Math.max;
+import static java.lang.Runtime.getRuntime;
+
+/**
+ * A bounded pool of {@link MessageCompressor}s and {@link MessageDecompressor}s.
+ * <p>
+ * {@link Deflater} and {@link Inflater} hold native memory which is only reclaimed by {@link Deflater#end()},
+ * {@link Inflater#end()} or finalization, so creating them for every message is expensive. Released instances are
+ * {@code reset()} and kept for reuse; instances released while the pool is full are {@code end()}ed right away.
+ */
+final class MessageCodecPool {
+    static final MessageCodecPool SHARED = new MessageCodecPool(max(4, 2 * getRuntime().availableProcessors()));
+
+    private final Map<GrpcMessageEncoding, BlockingQueue<MessageCompressor>> compressors =
+            new EnumMap<>(GrpcMessageEncoding.class);
+    private final Map<GrpcMessageEncoding, BlockingQueue<MessageDecompressor>> decompressors =
+            new EnumMap<>(GrpcMessageEncoding.class);
+
+    MessageCodecPool(final int maxPooledPerEncoding) {
+        if (maxPooledPerEncoding <= 0) {
+            throw new IllegalArgumentException("maxPooledPerEncoding: " + maxPooledPerEncoding + " (expected >0)");
+        }
+        for (GrpcMessageEncoding encoding : new GrpcMessageEncoding[] {Gzip, Deflate}) {
+            compressors.put(encoding, new ArrayBlockingQueue<>(maxPooledPerEncoding));
+            decompressors.put(encoding, new ArrayBlockingQueue<>(maxPooledPerEncoding));
+        }
+    }
+
+    MessageCompressor acquireCompressor(final GrpcMessageEncoding encoding) {
+        final BlockingQueue<MessageCompressor> pool = compressors.get(encoding);
+        final MessageCompressor compressor = pool == null ? null : pool.poll();
+        return compressor == null ? new MessageCompressor(encoding) : compressor;
+    }
+
+    void release(final MessageCompressor compressor) {
+        compressor.reset();
+        if (!compressors.get(compressor.encoding).offer(compressor)) {
+            compressor.end();
+        }
+    }
+
+    MessageDecompressor acquireDecompressor(final GrpcMessageEncoding encoding) {
+        final BlockingQueue<MessageDecompressor> pool = decompressors.get(encoding);
+        final MessageDecompressor decompressor = pool == null ? null : pool.poll();
+        return decompressor == null ? new MessageDecompressor(encoding) : decompressor;
+    }
+
+    void release(final MessageDecompressor decompressor) {
+        decompressor.reset();
+        if (!decompressors.get(decompressor.encoding).offer(decompressor)) {
+            decompressor.end();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.protobuf;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
+import io.servicetalk.serialization.api.SerializationException;
+
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
+
+/**
+ * An {@link OutputStream} which compresses a single gRPC message for a {@link GrpcMessageEncoding} into a
+ * {@link Buffer}.
+ * <p>
+ * Instances are not thread safe and are reused across messages via {@link MessageCodecPool}, which avoids allocating a
+ * new native {@link Deflater} per message.
+ */
+final class MessageCompressor extends OutputStream {
+    static final int CODEC_BUFFER_SIZE = 8192;
+    // https://tools.ietf.org/html/rfc1952#section-2.3, no flags, no modification time, unknown OS.
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    final GrpcMessageEncoding encoding;
+    private final boolean gzip;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] out = new byte[CODEC_BUFFER_SIZE];
+    private final byte[] single = new byte[1];
+    @Nullable
+    private Buffer destination;
+
+    MessageCompressor(final GrpcMessageEncoding encoding) {
+        if (encoding != Gzip && encoding != Deflate) {
+            throw new SerializationException("Compression " + encoding.encoding() + " not supported");
+        }
+        this.encoding = encoding;
+        gzip = encoding == Gzip;
+        // gzip wraps a raw deflate stream, while the deflate encoding is the zlib format.
+        deflater = new Deflater(DEFAULT_COMPRESSION, gzip);
+    }
+
+    /**
+     * Start compressing a message into {@code destination}.
+     *
+     * @param destination the {@link Buffer} to write the compressed message to.
+     */
+    void start(final Buffer destination) {
+        this.destination = destination;
+        if (gzip) {
+            destination.writeBytes(GZIP_HEADER);
+        }
+    }
+
+    @Override
+    public void write(final int b) {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+        if (len == 0) {
+            return;
+        }
+        if (gzip) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * Complete the compressed message, including the trailer of the encoding if any.
+     */
+    void finish() {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+        if (gzip) {
+            final Buffer destination = destination();
+            destination.writeIntLE((int) crc.getValue());
+            destination.writeIntLE((int) deflater.getBytesRead());
+        }
+    }
+
+    void reset() {
+        deflater.reset();
+        crc.reset();
+        destination = null;
+    }
+
+    void end() {
+        deflater.end();
+    }
+
+    private void deflate() {
+        final int written = deflater.deflate(out);
+        destination().writeBytes(out, 0, written);
+    }
+
+    private Buffer destination() {
+        final Buffer destination = this.destination;
+        if (destination == null) {
+            throw new IllegalStateException("Compression not started");
+        }
+        return destination;
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.protobuf;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
+import io.servicetalk.serialization.api.SerializationException;
+import io.servicetalk.utils.internal.GzipUtils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static io.servicetalk.grpc.protobuf.MessageCompressor.CODEC_BUFFER_SIZE;
+import static io.servicetalk.utils.internal.GzipUtils.GZIP_TRAILER_LENGTH;
+import static java.lang.Math.min;
+
+/**
+ * An {@link InputStream} which decompresses a single gRPC message for a {@link GrpcMessageEncoding} from a
+ * {@link Buffer}.
+ * <p>
+ * Instances are not thread safe and are reused across messages via {@link MessageCodecPool}, which avoids allocating a
+ * new native {@link Inflater} per message.
+ */
+final class MessageDecompressor extends InputStream {
+    final GrpcMessageEncoding encoding;
+    private final boolean gzip;
+    private final Inflater inflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] in = new byte[CODEC_BUFFER_SIZE];
+    private final byte[] single = new byte[1];
+    /**
+     * Compressed bytes which have not been passed to the {@link Inflater} yet.
+     */
+    @Nullable
+    private Buffer compressed;
+    private int expectedCrc;
+    private int expectedSize;
+    private int maxSize;
+
+    MessageDecompressor(final GrpcMessageEncoding encoding) {
+        if (encoding != Gzip && encoding != Deflate) {
+            throw new SerializationException("Compression " + encoding.encoding() + " not supported");
+        }
+        this.encoding = encoding;
+        gzip = encoding == Gzip;
+        inflater = new Inflater(gzip);
+    }
+
+    /**
+     * Start decompressing a message.
+     *
+     * @param message the complete compressed message. Its reader index is not modified.
+     * @param maxSize the maximum size of the decompressed message, in bytes.
+     */
+    void start(final Buffer message, final int maxSize) {
+        this.maxSize = maxSize;
+        if (!gzip) {
+            compressed = message.slice();
+            return;
+        }
+        final int headerLength = gzipHeaderLength(message);
+        final int trailerIndex = message.writerIndex() - GZIP_TRAILER_LENGTH;
+        if (trailerIndex < message.readerIndex() + headerLength) {
+            throw new SerializationException("Truncated " + encoding.encoding() + " message");
+        }
+        expectedCrc = message.getIntLE(trailerIndex);
+        expectedSize = message.getIntLE(trailerIndex + Integer.BYTES);
+        compressed = message.slice(message.readerIndex() + headerLength,
+                trailerIndex - message.readerIndex() - headerLength);
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        try {
+            for (;;) {
+                if (inflater.finished()) {
+                    return -1;
+                }
+                if (inflater.needsInput() && !feed()) {
+                    throw new EOFException("Truncated " + encoding.encoding() + " message");
+                }
+                // Inflate at most one byte more than allowed, which is enough to detect an oversized message without
+                // materializing more of it.
+                final int read = inflater.inflate(b, off,
+                        (int) min(len, maxSize - inflater.getBytesWritten() + 1));
+                if (inflater.getBytesWritten() > maxSize) {
+                    throw new SerializationException("Decompressed " + encoding.encoding() +
+                            " message exceeds the maximum size of " + maxSize + " bytes");
+                }
+                if (read > 0) {
+                    if (gzip) {
+                        crc.update(b, off, read);
+                    }
+                    return read;
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IOException("Preset dictionaries are not supported for " + encoding.encoding() +
+                            " messages");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Invalid " + encoding.encoding() + " message", e);
+        }
+    }
+
+    /**
+     * Verify that the message was decompressed completely and, for gzip, matches its trailer.
+     */
+    void finish() {
+        if (!inflater.finished()) {
+            throw new SerializationException("Truncated " + encoding.encoding() + " message");
+        }
+        if (gzip && (expectedCrc != (int) crc.getValue() || expectedSize != (int) inflater.getBytesWritten())) {
+            throw new SerializationException("Invalid " + encoding.encoding() + " trailer");
+        }
+    }
+
+    void reset() {
+        inflater.reset();
+        crc.reset();
+        compressed = null;
+    }
+
+    void end() {
+        inflater.end();
+    }
+
+    private boolean feed() {
+        final Buffer compressed = this.compressed;
+        if (compressed == null) {
+            throw new IllegalStateException("Decompression not started");
+        }
+        final int readable = compressed.readableBytes();
+        if (readable == 0) {
+            return false;
+        }
+        if (compressed.hasArray()) {
+            inflater.setInput(compressed.array(), compressed.arrayOffset() + compressed.readerIndex(), readable);
+            compressed.skipBytes(readable);
+        } else {
+            final int length = min(in.length, readable);
+            compressed.readBytes(in, 0, length);
+            inflater.setInput(in, 0, length);
+        }
+        return true;
+    }
+
+    private int gzipHeaderLength(final Buffer message) {
+        final int headerLength;
+        try {
+            headerLength = GzipUtils.gzipHeaderLength(message);
+        } catch (IllegalArgumentException e) {
+            throw new SerializationException("Invalid " + encoding.encoding() + " header", e);
+        }
+        if (headerLength < 0) {
+            throw new SerializationException("Truncated " + encoding.encoding() + " header");
+        }
+        return headerLength;
+    }
+}
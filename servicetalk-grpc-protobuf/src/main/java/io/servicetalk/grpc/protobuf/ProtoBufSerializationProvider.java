@@ -35,6 +35,8 @@ import java.util.List;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static io.servicetalk.grpc.protobuf.MessageCodecPool.SHARED;
 import static java.lang.Math.max;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
@@ -45,13 +47,16 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
     private final GrpcMessageEncoding messageEncoding;
     private final ProtoSerializer serializer;
     private final Parser<T> parser;
+    private final int maxInboundMessageSize;
 
     ProtoBufSerializationProvider(final Class<T> targetClass, final GrpcMessageEncoding messageEncoding,
-                                  final Parser<T> parser) {
+                                  final Parser<T> parser, final int compressionThreshold,
+                                  final int maxInboundMessageSize) {
         this.targetClass = targetClass;
         this.messageEncoding = messageEncoding;
-        this.serializer = new ProtoSerializer(messageEncoding);
+        this.serializer = new ProtoSerializer(messageEncoding, compressionThreshold);
         this.parser = parser;
+        this.maxInboundMessageSize = maxInboundMessageSize;
     }
 
     @Override
@@ -75,7 +80,7 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
         }
         @SuppressWarnings("unchecked")
         Parser<X> parser = (Parser<X>) this.parser;
-        return new ProtoDeserializer<>(parser, messageEncoding);
+        return new ProtoDeserializer<>(parser, messageEncoding, maxInboundMessageSize);
     }
 
     @Override
@@ -96,7 +101,9 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
 
     private static final class ProtoDeserializer<T> implements StreamingDeserializer<T> {
         private final Parser<T> parser;
+        private final GrpcMessageEncoding encoding;
         private final CompositeBuffer accumulate;
+        private final int maxMessageSize;
         /**
          * <ul>
          *     <li>{@code < 0} - read Length-Prefixed-Message header</li>
@@ -106,9 +113,11 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
         private int lengthOfData = -1;
         private boolean compressed;
 
-        ProtoDeserializer(final Parser<T> parser,
-                          @SuppressWarnings("unused") final GrpcMessageEncoding grpcMessageEncoding) {
+        ProtoDeserializer(final Parser<T> parser, final GrpcMessageEncoding grpcMessageEncoding,
+                          final int maxMessageSize) {
             this.parser = parser;
+            this.encoding = grpcMessageEncoding;
+            this.maxMessageSize = maxMessageSize;
             accumulate = DEFAULT_ALLOCATOR.newCompositeBuffer(Integer.MAX_VALUE);
         }
 
@@ -128,8 +137,9 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
                     }
 
                     compressed = isCompressed(toDeserialize);
-                    // TODO (nkant) : handle compression
-                    assert !compressed;
+                    if (compressed && encoding == None) {
+                        throw new SerializationException("Compressed message received without grpc-encoding");
+                    }
 
                     // https://github.com/grpc/grpc/blob/master/doc/PROTOCOL-HTTP2.md specifies size as 4 bytes
                     // unsigned int However netty buffers only support up to Integer.MAX_VALUE, and even
@@ -139,17 +149,17 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
                     if (lengthOfData < 0) {
                         throw new SerializationException("Message-Length invalid: " + lengthOfData);
                     }
+                    if (lengthOfData > maxMessageSize) {
+                        throw new SerializationException("Message-Length " + lengthOfData +
+                                " exceeds the maximum size of " + maxMessageSize + " bytes");
+                    }
                 } else {
                     if (toDeserialize.readableBytes() < lengthOfData) {
                         return addToAccumulateIfRequiredAndReturn(toDeserialize, parsedData);
                     }
 
-                    final T t;
-                    try {
-                        t = parser.parseFrom(toDeserialize.toNioBuffer(toDeserialize.readerIndex(), lengthOfData));
-                    } catch (InvalidProtocolBufferException e) {
-                        throw new SerializationException(e);
-                    }
+                    final T t = compressed ? parseCompressed(toDeserialize) :
+                            parseUncompressed(toDeserialize);
 
                     // The NIO buffer indexes are not connected to the Buffer indexes, so we need to update
                     // our indexes and discard any bytes if necessary.
@@ -191,6 +201,31 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
             return accumulate.readableBytes() > 0;
         }
 
+        private T parseUncompressed(final Buffer toDeserialize) {
+            try {
+                return parser.parseFrom(toDeserialize.toNioBuffer(toDeserialize.readerIndex(), lengthOfData));
+            } catch (InvalidProtocolBufferException e) {
+                throw new SerializationException(e);
+            }
+        }
+
+        private T parseCompressed(final Buffer toDeserialize) {
+            // Inflate straight from the (possibly composite) buffer, the decompressed message is never materialized
+            // as a whole, the parser pulls from the inflater as it goes. The decompressed size is bounded by the same
+            // limit as the size on the wire, so a small message can not inflate into an arbitrarily large one.
+            final MessageDecompressor decompressor = SHARED.acquireDecompressor(encoding);
+            try {
+                decompressor.start(toDeserialize.slice(toDeserialize.readerIndex(), lengthOfData), maxMessageSize);
+                final T t = parser.parseFrom(decompressor);
+                decompressor.finish();
+                return t;
+            } catch (IOException e) {
+                throw new SerializationException(e);
+            } finally {
+                SHARED.release(decompressor);
+            }
+        }
+
         @Override
         public void close() {
             if (hasData()) {
@@ -216,8 +251,12 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
     }
 
     private static final class ProtoSerializer implements StreamingSerializer {
+        private final GrpcMessageEncoding encoding;
+        private final int compressionThreshold;
 
-        ProtoSerializer(@SuppressWarnings("unused") final GrpcMessageEncoding encoding) {
+        ProtoSerializer(final GrpcMessageEncoding encoding, final int compressionThreshold) {
+            this.encoding = encoding;
+            this.compressionThreshold = compressionThreshold;
         }
 
         @Override
@@ -228,14 +267,34 @@ final class ProtoBufSerializationProvider<T extends MessageLite> implements Seri
             }
             MessageLite msg = (MessageLite) toSerialize;
             int size = msg.getSerializedSize();
-            // TODO (nkant) : handle compression
-            destination.writeByte(0);
-            destination.writeInt(size);
-            try (OutputStream out = Buffer.asOutputStream(destination)) {
-                msg.writeTo(out);
+            if (encoding == None || size < compressionThreshold) {
+                // The compressed flag is per message, so small messages are sent uncompressed even if the stream
+                // has a grpc-encoding.
+                destination.writeByte(0);
+                destination.writeInt(size);
+                try (OutputStream out = Buffer.asOutputStream(destination)) {
+                    msg.writeTo(out);
+                } catch (IOException e) {
+                    throw new SerializationException(e);
+                }
+                return;
+            }
+
+            destination.writeByte(1);
+            // The compressed size is not known upfront, reserve space for it and fill it in after compressing.
+            final int lengthIndex = destination.writerIndex();
+            destination.writeInt(0);
+            final MessageCompressor compressor = SHARED.acquireCompressor(encoding);
+            try {
+                compressor.start(destination);
+                msg.writeTo(compressor);
+                compressor.finish();
             } catch (IOException e) {
                 throw new SerializationException(e);
+            } finally {
+                SHARED.release(compressor);
             }
+            destination.setInt(lengthIndex, destination.writerIndex() - lengthIndex - Integer.BYTES);
         }
     }
 }
@@ -38,7 +38,6 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
-import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
 import static java.util.Collections.unmodifiableMap;
@@ -52,9 +51,47 @@ import static java.util.Collections.unmodifiableMap;
 public final class ProtoBufSerializationProviderBuilder {
     private static final CharSequence GRPC_MESSAGE_ENCODING_KEY = newAsciiString("grpc-encoding");
     private static final CharSequence APPLICATION_GRPC_PROTO = newAsciiString("application/grpc+proto");
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+    private static final int DEFAULT_MAX_INBOUND_MESSAGE_SIZE = 4 * 1024 * 1024;
 
     private final Map<Class, EnumMap<GrpcMessageEncoding, HttpSerializer>> serializers = new HashMap<>();
     private final Map<Class, EnumMap<GrpcMessageEncoding, HttpDeserializer>> deserializers = new HashMap<>();
+    private int compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+    private int maxInboundMessageSize = DEFAULT_MAX_INBOUND_MESSAGE_SIZE;
+
+    /**
+     * Sets the minimum serialized size of a message, in bytes, for it to be compressed. Smaller messages are sent
+     * uncompressed even if a {@link GrpcMessageEncoding} other than {@link GrpcMessageEncoding#None} is used.
+     * <p>
+     * This only affects message types registered after this method is called.
+     *
+     * @param compressionThreshold the minimum serialized size of a message, in bytes, for it to be compressed.
+     * @return {@code this}
+     */
+    public ProtoBufSerializationProviderBuilder compressionThreshold(final int compressionThreshold) {
+        if (compressionThreshold < 0) {
+            throw new IllegalArgumentException("compressionThreshold: " + compressionThreshold + " (expected >=0)");
+        }
+        this.compressionThreshold = compressionThreshold;
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of a received message, in bytes. Messages whose Message-Length exceeds it, or which
+     * decompress to more bytes than it, fail to deserialize with a {@link SerializationException}. Defaults to 4 MiB.
+     * <p>
+     * This only affects message types registered after this method is called.
+     *
+     * @param maxInboundMessageSize the maximum size of a received message, in bytes.
+     * @return {@code this}
+     */
+    public ProtoBufSerializationProviderBuilder maxInboundMessageSize(final int maxInboundMessageSize) {
+        if (maxInboundMessageSize <= 0) {
+            throw new IllegalArgumentException("maxInboundMessageSize: " + maxInboundMessageSize + " (expected >0)");
+        }
+        this.maxInboundMessageSize = maxInboundMessageSize;
+        return this;
+    }
 
     /**
      * Register the passed {@code messageType} with the provided {@link Parser}.
@@ -70,7 +107,8 @@ public final class ProtoBufSerializationProviderBuilder {
         EnumMap<GrpcMessageEncoding, HttpDeserializer> deserializersForType = new EnumMap<>(GrpcMessageEncoding.class);
         for (GrpcMessageEncoding grpcMessageEncoding : GrpcMessageEncoding.values()) {
             DefaultSerializer serializer = new DefaultSerializer(
-                    new ProtoBufSerializationProvider<>(messageType, grpcMessageEncoding, parser));
+                    new ProtoBufSerializationProvider<>(messageType, grpcMessageEncoding, parser,
+                            compressionThreshold, maxInboundMessageSize));
             HttpSerializer<T> httpSerializer = new ProtoHttpSerializer<>(serializer, grpcMessageEncoding, messageType);
             serializersForType.put(grpcMessageEncoding, httpSerializer);
             deserializersForType.put(grpcMessageEncoding, new HttpDeserializer<T>() {
@@ -124,7 +162,7 @@ public final class ProtoBufSerializationProviderBuilder {
                 throw new SerializationException("Unknown class to serialize: " + type.getName());
             }
             @SuppressWarnings("unchecked")
-            HttpSerializer<T> httpSerializer = serializersForType.get(None); // compression not yet supported.
+            HttpSerializer<T> httpSerializer = serializersForType.get(metadata.messageEncoding());
             return httpSerializer;
         }
 
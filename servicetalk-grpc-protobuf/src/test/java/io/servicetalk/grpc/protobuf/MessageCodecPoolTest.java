@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.protobuf;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
+import io.servicetalk.serialization.api.SerializationException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MessageCodecPoolTest {
+
+    private static final byte[] CONTENT = "servicetalk-servicetalk-servicetalk-servicetalk".getBytes(US_ASCII);
+
+    private final MessageCodecPool pool = new MessageCodecPool(1);
+
+    @Test
+    public void compressorIsReused() throws IOException {
+        MessageCompressor compressor = pool.acquireCompressor(Gzip);
+        compress(compressor);
+        pool.release(compressor);
+        assertThat("Compressor not reused.", pool.acquireCompressor(Gzip), is(sameInstance(compressor)));
+        assertThat("Compressor reused across encodings.", pool.acquireCompressor(Deflate),
+                is(not(sameInstance(compressor))));
+    }
+
+    @Test
+    public void decompressorIsReused() {
+        MessageDecompressor decompressor = pool.acquireDecompressor(Deflate);
+        pool.release(decompressor);
+        assertThat("Decompressor not reused.", pool.acquireDecompressor(Deflate), is(sameInstance(decompressor)));
+    }
+
+    @Test
+    public void releaseWhenFullDiscards() {
+        MessageCompressor first = pool.acquireCompressor(Gzip);
+        MessageCompressor second = pool.acquireCompressor(Gzip);
+        pool.release(first);
+        pool.release(second);
+        assertThat("Unexpected pooled compressor.", pool.acquireCompressor(Gzip), is(sameInstance(first)));
+        assertThat("Discarded compressor pooled.", pool.acquireCompressor(Gzip),
+                is(not(sameInstance(second))));
+    }
+
+    @Test
+    public void reusedCodecsRoundTrip() throws IOException {
+        for (GrpcMessageEncoding encoding : new GrpcMessageEncoding[] {Gzip, Deflate}) {
+            for (int i = 0; i < 100; i++) {
+                MessageCompressor compressor = pool.acquireCompressor(encoding);
+                Buffer compressed = compress(compressor);
+                pool.release(compressor);
+                MessageDecompressor decompressor = pool.acquireDecompressor(encoding);
+                assertThat("Unexpected content.", decompress(decompressor, compressed), is(CONTENT));
+                pool.release(decompressor);
+            }
+        }
+    }
+
+    @Test
+    public void gzipIsCompatibleWithJdk() throws IOException {
+        MessageCompressor compressor = pool.acquireCompressor(Gzip);
+        Buffer compressed = compress(compressor);
+        pool.release(compressor);
+        byte[] bytes = new byte[compressed.readableBytes()];
+        compressed.readBytes(bytes);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            assertThat("Unexpected content.", readAll(in), is(CONTENT));
+        }
+
+        ByteArrayOutputStream jdkCompressed = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(jdkCompressed)) {
+            out.write(CONTENT);
+        }
+        MessageDecompressor decompressor = pool.acquireDecompressor(Gzip);
+        assertThat("Unexpected content.",
+                decompress(decompressor, DEFAULT_ALLOCATOR.wrap(jdkCompressed.toByteArray())), is(CONTENT));
+        pool.release(decompressor);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void corruptGzipTrailer() throws IOException {
+        Buffer compressed = compress(pool.acquireCompressor(Gzip));
+        int crcIndex = compressed.writerIndex() - 8;
+        compressed.setByte(crcIndex, compressed.getByte(crcIndex) + 1);
+        decompress(pool.acquireDecompressor(Gzip), compressed);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void noneIsNotSupported() {
+        pool.acquireCompressor(None);
+    }
+
+    private static Buffer compress(final MessageCompressor compressor) throws IOException {
+        Buffer buffer = DEFAULT_ALLOCATOR.newBuffer();
+        compressor.start(buffer);
+        compressor.write(CONTENT);
+        compressor.finish();
+        return buffer;
+    }
+
+    private static byte[] decompress(final MessageDecompressor decompressor, final Buffer compressed)
+            throws IOException {
+        decompressor.start(compressed, Integer.MAX_VALUE);
+        byte[] content = readAll(decompressor);
+        decompressor.finish();
+        return content;
+    }
+
+    private static byte[] readAll(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] chunk = new byte[16];
+        int read;
+        while ((read = in.read(chunk)) >= 0) {
+            out.write(chunk, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.protobuf;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.grpc.api.GrpcMessageEncoding;
+import io.servicetalk.serialization.api.SerializationException;
+import io.servicetalk.serialization.api.StreamingDeserializer;
+import io.servicetalk.serialization.api.StreamingSerializer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Deflate;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.Gzip;
+import static io.servicetalk.grpc.api.GrpcMessageEncoding.None;
+import static io.servicetalk.grpc.protobuf.test.TestProtos.DummyMessage;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.StreamSupport.stream;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class ProtoCompressionTest {
+
+    private static final String LARGE_MESSAGE = newLargeMessage();
+
+    @Test
+    public void gzipRoundTrip() {
+        assertRoundTrip(Gzip);
+    }
+
+    @Test
+    public void deflateRoundTrip() {
+        assertRoundTrip(Deflate);
+    }
+
+    @Test
+    public void compressedMessageIsSmaller() {
+        Buffer buffer = serialize(provider(Gzip, 0), LARGE_MESSAGE);
+        assertThat("Unexpected compressed flag.", buffer.getByte(buffer.readerIndex()), is((byte) 1));
+        assertThat("Message not compressed.", buffer.readableBytes(), lessThan(LARGE_MESSAGE.length()));
+    }
+
+    @Test
+    public void messageBelowThresholdIsNotCompressed() {
+        Buffer buffer = serialize(provider(Gzip, 1024), "Hello");
+        assertThat("Unexpected compressed flag.", buffer.getByte(buffer.readerIndex()), is((byte) 0));
+        assertThat("Unexpected messages deserialized.", deserialize(provider(Gzip, 1024), buffer),
+                contains("Hello"));
+    }
+
+    @Test
+    public void compressedMessageSplitInBuffers() {
+        ProtoBufSerializationProvider<DummyMessage> provider = provider(Gzip, 0);
+        Buffer buffer = serialize(provider, LARGE_MESSAGE);
+        buffer.writeBytes(serialize(provider, "Hello"));
+        StreamingDeserializer<DummyMessage> deserializer = provider.getDeserializer(DummyMessage.class);
+        List<String> deserialized = new ArrayList<>();
+        while (buffer.readableBytes() > 0) {
+            for (DummyMessage msg : deserializer.deserialize(buffer.readSlice(Math.min(7, buffer.readableBytes())))) {
+                deserialized.add(msg.getMessage());
+            }
+        }
+        deserializer.close();
+        assertThat("Unexpected messages deserialized.", deserialized, contains(LARGE_MESSAGE, "Hello"));
+    }
+
+    @Test
+    public void manyGzipMessagesRoundTrip() {
+        assertManyRoundTrip(Gzip);
+    }
+
+    @Test
+    public void manyDeflateMessagesRoundTrip() {
+        assertManyRoundTrip(Deflate);
+    }
+
+    @Test(expected = SerializationException.class)
+    public void compressedMessageWithoutEncoding() {
+        Buffer buffer = serialize(provider(Gzip, 0), LARGE_MESSAGE);
+        deserialize(provider(None, 0), buffer);
+    }
+
+    @Test
+    public void decompressedMessageAboveMaxSizeIsRejected() {
+        Buffer buffer = serialize(provider(Gzip, 0), LARGE_MESSAGE);
+        // The compressed message is within the limit, only its decompressed size exceeds it.
+        int maxSize = LARGE_MESSAGE.length() / 2;
+        assertThat("Compressed message too large.", buffer.readableBytes(), lessThan(maxSize));
+        try {
+            deserialize(provider(Gzip, 0, maxSize), buffer);
+            fail();
+        } catch (SerializationException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum size"));
+        }
+    }
+
+    @Test
+    public void decompressedMessageAtMaxSizeIsAccepted() {
+        Buffer buffer = serialize(provider(Deflate, 0), LARGE_MESSAGE);
+        int size = DummyMessage.newBuilder().setMessage(LARGE_MESSAGE).build().getSerializedSize();
+        assertThat("Unexpected messages deserialized.", deserialize(provider(Deflate, 0, size), buffer),
+                contains(LARGE_MESSAGE));
+    }
+
+    @Test
+    public void messageLengthAboveMaxSizeIsRejected() {
+        Buffer buffer = serialize(provider(None, 0), LARGE_MESSAGE);
+        try {
+            deserialize(provider(None, 0, LARGE_MESSAGE.length() / 2), buffer);
+            fail();
+        } catch (SerializationException e) {
+            assertThat(e.getMessage(), containsString("exceeds the maximum size"));
+        }
+    }
+
+    private static void assertRoundTrip(final GrpcMessageEncoding encoding) {
+        ProtoBufSerializationProvider<DummyMessage> provider = provider(encoding, 0);
+        Buffer buffer = serialize(provider, LARGE_MESSAGE);
+        buffer.writeBytes(serialize(provider, "Hello"));
+        assertThat("Unexpected messages deserialized.", deserialize(provider, buffer),
+                contains(LARGE_MESSAGE, "Hello"));
+    }
+
+    private static void assertManyRoundTrip(final GrpcMessageEncoding encoding) {
+        // More messages than the pool holds, so codecs are reused as well as discarded when the pool is full.
+        ProtoBufSerializationProvider<DummyMessage> provider = provider(encoding, 0);
+        List<String> messages = new ArrayList<>();
+        Buffer buffer = DEFAULT_ALLOCATOR.newBuffer();
+        for (int i = 0; i < 1000; i++) {
+            String message = i % 3 == 0 ? LARGE_MESSAGE.substring(i) : "Hello" + i;
+            messages.add(message);
+            buffer.writeBytes(serialize(provider, message));
+        }
+        assertThat("Unexpected messages deserialized.", deserialize(provider, buffer), is(messages));
+    }
+
+    private static ProtoBufSerializationProvider<DummyMessage> provider(final GrpcMessageEncoding encoding,
+                                                                        final int compressionThreshold) {
+        return provider(encoding, compressionThreshold, Integer.MAX_VALUE);
+    }
+
+    private static ProtoBufSerializationProvider<DummyMessage> provider(final GrpcMessageEncoding encoding,
+                                                                        final int compressionThreshold,
+                                                                        final int maxInboundMessageSize) {
+        return new ProtoBufSerializationProvider<>(DummyMessage.class, encoding, DummyMessage.parser(),
+                compressionThreshold, maxInboundMessageSize);
+    }
+
+    private static Buffer serialize(final ProtoBufSerializationProvider<DummyMessage> provider,
+                                    final String message) {
+        StreamingSerializer serializer = provider.getSerializer(DummyMessage.class);
+        Buffer buffer = DEFAULT_ALLOCATOR.newBuffer();
+        serializer.serialize(DummyMessage.newBuilder().setMessage(message).build(), buffer);
+        return buffer;
+    }
+
+    private static List<String> deserialize(final ProtoBufSerializationProvider<DummyMessage> provider,
+                                            final Buffer buffer) {
+        StreamingDeserializer<DummyMessage> deserializer = provider.getDeserializer(DummyMessage.class);
+        return stream(deserializer.deserialize(buffer).spliterator(), false)
+                .map(DummyMessage::getMessage).collect(toList());
+    }
+
+    private static String newLargeMessage() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("servicetalk-").append(i % 10);
+        }
+        return sb.toString();
+    }
+}
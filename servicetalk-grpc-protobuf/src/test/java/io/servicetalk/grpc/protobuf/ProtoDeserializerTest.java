@@ -40,7 +40,7 @@ public class ProtoDeserializerTest {
 
     private final Parser<DummyMessage> parser = DummyMessage.parser();
     private final ProtoBufSerializationProvider<DummyMessage> serializationProvider =
-            new ProtoBufSerializationProvider<>(DummyMessage.class, None, parser);
+            new ProtoBufSerializationProvider<>(DummyMessage.class, None, parser, 0, Integer.MAX_VALUE);
 
     @Test
     public void zeroLengthMessageAligned() throws IOException {
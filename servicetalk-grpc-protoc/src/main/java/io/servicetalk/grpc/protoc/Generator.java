@@ -63,6 +63,7 @@ import static io.servicetalk.grpc.protoc.Types.GrpcClientFactory;
 import static io.servicetalk.grpc.protoc.Types.GrpcClientFilterFactory;
 import static io.servicetalk.grpc.protoc.Types.GrpcExecutionContext;
 import static io.servicetalk.grpc.protoc.Types.GrpcExecutionStrategy;
+import static io.servicetalk.grpc.protoc.Types.GrpcMessageEncoding;
 import static io.servicetalk.grpc.protoc.Types.GrpcPayloadWriter;
 import static io.servicetalk.grpc.protoc.Types.GrpcRouteExecutionStrategyFactory;
 import static io.servicetalk.grpc.protoc.Types.GrpcRoutes;
@@ -106,6 +107,7 @@ import static io.servicetalk.grpc.protoc.Words.delegate;
 import static io.servicetalk.grpc.protoc.Words.executionContext;
 import static io.servicetalk.grpc.protoc.Words.existing;
 import static io.servicetalk.grpc.protoc.Words.factory;
+import static io.servicetalk.grpc.protoc.Words.messageEncoding;
 import static io.servicetalk.grpc.protoc.Words.metadata;
 import static io.servicetalk.grpc.protoc.Words.onClose;
 import static io.servicetalk.grpc.protoc.Words.request;
@@ -464,6 +466,18 @@ final class Generator {
                             .addParameter(GrpcExecutionStrategy, strategy, FINAL)
                             .addStatement("super($T.$L, $L)", rpcInterface.className, RPC_PATH, strategy)
                             .build())
+                    .addMethod(constructorBuilder()
+                            .addModifiers(PUBLIC)
+                            .addParameter(GrpcMessageEncoding, messageEncoding, FINAL)
+                            .addStatement("super($T.$L, $L)", rpcInterface.className, RPC_PATH, messageEncoding)
+                            .build())
+                    .addMethod(constructorBuilder()
+                            .addModifiers(PUBLIC)
+                            .addParameter(GrpcExecutionStrategy, strategy, FINAL)
+                            .addParameter(GrpcMessageEncoding, messageEncoding, FINAL)
+                            .addStatement("super($T.$L, $L, $L)", rpcInterface.className, RPC_PATH, strategy,
+                                    messageEncoding)
+                            .build())
                     .build();
 
             state.clientMetaDatas.add(new ClientMetaData(methodProto, metaDataClassName));
@@ -228,22 +228,24 @@ final class HttpDataSourceTransformations {
     }
 
     static final class HttpTransportBufferFilterOperator implements PublisherOperator<Object, Buffer> {
-        static final PublisherOperator<Object, Buffer> INSTANCE = new HttpTransportBufferFilterOperator();
+        private final BufferAllocator allocator;
 
-        private HttpTransportBufferFilterOperator() {
-            // singleton
+        HttpTransportBufferFilterOperator(final BufferAllocator allocator) {
+            this.allocator = requireNonNull(allocator);
         }
 
         @Override
         public Subscriber<? super Object> apply(final Subscriber<? super Buffer> subscriber) {
-            return new JustBufferSubscriber(subscriber);
+            return new JustBufferSubscriber(subscriber, allocator);
         }
 
         private static final class JustBufferSubscriber implements Subscriber<Object> {
             private final Subscriber<? super Buffer> subscriber;
+            private final BufferAllocator allocator;
 
-            JustBufferSubscriber(final Subscriber<? super Buffer> target) {
+            JustBufferSubscriber(final Subscriber<? super Buffer> target, final BufferAllocator allocator) {
                 this.subscriber = target;
+                this.allocator = allocator;
             }
 
             @Override
@@ -255,6 +257,9 @@ final class HttpDataSourceTransformations {
             public void onNext(final Object o) {
                 if (o instanceof Buffer) {
                     subscriber.onNext((Buffer) o);
+                } else if (o instanceof HttpFileRegion) {
+                    // Someone needs the bytes, so the region can not be sent directly by the transport.
+                    subscriber.onNext(((HttpFileRegion) o).toBuffer(allocator));
                 } else if (!(o instanceof HttpHeaders)) {
                     throw new UnsupportedHttpChunkException(o);
                 }
@@ -411,8 +416,9 @@ final class HttpDataSourceTransformations {
     static Single<PayloadAndTrailers> aggregatePayloadAndTrailers(Publisher<Object> payloadAndTrailers,
                                                                   BufferAllocator allocator) {
         return payloadAndTrailers.collect(PayloadAndTrailers::new, (pair, nextItem) -> {
-            if (nextItem instanceof Buffer) {
-                Buffer buffer = (Buffer) nextItem;
+            if (nextItem instanceof Buffer || nextItem instanceof HttpFileRegion) {
+                Buffer buffer = nextItem instanceof Buffer ? (Buffer) nextItem :
+                        ((HttpFileRegion) nextItem).toBuffer(allocator);
                 if (pair.payload == null) {
                     pair.payload = buffer;
                 } else if (pair.payload instanceof CompositeBuffer) {
@@ -16,6 +16,7 @@
 package io.servicetalk.http.api;
 
 import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Executors;
 
 import javax.annotation.Nullable;
 
@@ -69,6 +70,21 @@ public final class HttpExecutionStrategies {
         return customStrategyBuilder().offloadAll().executor(executor).mergeStrategy(ReturnOther).build();
     }
 
+    /**
+     * The default {@link HttpExecutionStrategy} using a shared {@link Executor} which runs each offloaded task on a
+     * new virtual thread, if supported by the runtime.
+     * <p>
+     * This is a good fit for blocking programming models (e.g. {@link BlockingHttpService} and
+     * {@link BlockingStreamingHttpService}) where requests may block for a long time, because blocked virtual threads
+     * do not hold on to a platform thread. The shared {@link Executor} lives as long as the JVM and must not be closed.
+     *
+     * @return {@link HttpExecutionStrategy} which offloads to virtual threads.
+     * @see Executors#newVirtualThreadExecutor()
+     */
+    public static HttpExecutionStrategy virtualThreadStrategy() {
+        return VirtualThreadStrategyHolder.VIRTUAL_THREAD_STRATEGY;
+    }
+
     /**
      * A {@link HttpExecutionStrategy} that disables all offloads.
      *
@@ -150,6 +166,16 @@ public final class HttpExecutionStrategies {
         return !es.isMetadataReceiveOffloaded() && !es.isDataReceiveOffloaded() && !es.isSendOffloaded();
     }
 
+    private static final class VirtualThreadStrategyHolder {
+        // Lazily created on first use, so the Executor is only created by applications that use it.
+        static final HttpExecutionStrategy VIRTUAL_THREAD_STRATEGY =
+                defaultStrategy(Executors.newVirtualThreadExecutor());
+
+        private VirtualThreadStrategyHolder() {
+            // no instances
+        }
+    }
+
     /**
      * A builder to build an {@link HttpExecutionStrategy}.
      */
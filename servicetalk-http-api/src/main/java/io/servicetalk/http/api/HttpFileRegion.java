@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.buffer.api.CompositeBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.lang.Math.min;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A region of a file to be used as (part of) an HTTP payload body.
+ * <p>
+ * When written by a transport which can send the file contents directly (e.g. plaintext HTTP/1.x connections) the
+ * contents will not be copied into user space. When TLS is used or the protocol is HTTP/2 the transport reads the
+ * region in small bounded chunks, only as fast as the connection can write them. If a filter accesses the payload
+ * body as {@link Buffer}s the region is memory-mapped in chunks of at most {@link #MAPPED_CHUNK_SIZE} bytes and exposed
+ * as a {@link Buffer}, which holds at most {@link Integer#MAX_VALUE} bytes.
+ * <p>
+ * The file is opened on the IO thread when the region is written. With TLS or HTTP/2 the chunks are also read from
+ * disk on the IO thread. This is cheap for files on local storage which are likely in the page cache, but files on
+ * slow or network storage may stall all connections of the IO thread; read such files into {@link Buffer}s on an
+ * offloaded {@link io.servicetalk.concurrent.api.Executor} instead.
+ */
+public final class HttpFileRegion {
+    /**
+     * The maximum number of bytes which are mapped into a single {@link Buffer} component when the region can not be
+     * written directly.
+     */
+    public static final int MAPPED_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private final Path path;
+    private final long position;
+    private final long count;
+
+    private HttpFileRegion(final Path path, final long position, final long count) {
+        this.path = requireNonNull(path);
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >=0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected >=0)");
+        }
+        this.position = position;
+        this.count = count;
+    }
+
+    /**
+     * Creates a new {@link HttpFileRegion} spanning the entire contents of a file.
+     *
+     * @param path {@link Path} of the file.
+     * @return a new {@link HttpFileRegion} spanning the entire contents of the file at {@code path}.
+     * @throws IOException if the size of the file can not be determined.
+     */
+    public static HttpFileRegion of(final Path path) throws IOException {
+        return new HttpFileRegion(path, 0, Files.size(path));
+    }
+
+    /**
+     * Creates a new {@link HttpFileRegion}.
+     *
+     * @param path {@link Path} of the file.
+     * @param position offset in the file from which the region starts.
+     * @param count number of bytes in the region.
+     * @return a new {@link HttpFileRegion}.
+     */
+    public static HttpFileRegion of(final Path path, final long position, final long count) {
+        return new HttpFileRegion(path, position, count);
+    }
+
+    /**
+     * Returns the {@link Path} of the file.
+     *
+     * @return the {@link Path} of the file.
+     */
+    public Path path() {
+        return path;
+    }
+
+    /**
+     * Returns the offset in the file from which this region starts.
+     *
+     * @return the offset in the file from which this region starts.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes in this region.
+     *
+     * @return the number of bytes in this region.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns a region of the same file which spans {@code length} bytes of this region, starting at {@code offset}.
+     *
+     * @param offset offset in this region from which the slice starts.
+     * @param length number of bytes in the slice.
+     * @return a region of the same file which spans {@code length} bytes of this region, starting at {@code offset}.
+     */
+    public HttpFileRegion slice(final long offset, final long length) {
+        if (offset < 0 || length < 0 || offset > count - length) {
+            throw new IndexOutOfBoundsException("offset: " + offset + ", length: " + length + " (expected: range(0, " +
+                    count + "))");
+        }
+        return offset == 0 && length == count ? this : new HttpFileRegion(path, position + offset, length);
+    }
+
+    /**
+     * Opens a new read-only {@link FileChannel} to the file. The caller is responsible for closing it.
+     *
+     * @return a new read-only {@link FileChannel} to the file.
+     * @throws IOException if the file can not be opened.
+     */
+    public FileChannel open() throws IOException {
+        return FileChannel.open(path, READ);
+    }
+
+    /**
+     * Memory-maps the contents of this region and exposes them as a read-only {@link Buffer}.
+     * <p>
+     * The contents are not read eagerly, pages are loaded by the operating system as the returned {@link Buffer} is
+     * accessed.
+     *
+     * @param allocator {@link BufferAllocator} used to wrap the mapped memory.
+     * @return a {@link Buffer} with the contents of this region.
+     * @throws IllegalStateException if this region is larger than {@link Integer#MAX_VALUE} bytes, which a single
+     * {@link Buffer} can not hold. Use {@link #slice(long, long)} to map it in parts.
+     * @throws UncheckedIOException if the file can not be mapped.
+     */
+    public Buffer toBuffer(final BufferAllocator allocator) {
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalStateException(this + " is too large for a single Buffer (max " + Integer.MAX_VALUE +
+                    " bytes), use slice(long, long) to map it in parts");
+        }
+        if (count == 0) {
+            return allocator.newBuffer(0, false);
+        }
+        try (FileChannel channel = open()) {
+            if (count <= MAPPED_CHUNK_SIZE) {
+                return allocator.wrap(channel.map(READ_ONLY, position, count));
+            }
+            final CompositeBuffer composite = allocator.newCompositeBuffer(
+                    (int) ((count + MAPPED_CHUNK_SIZE - 1) / MAPPED_CHUNK_SIZE));
+            for (long offset = 0; offset < count; offset += MAPPED_CHUNK_SIZE) {
+                composite.addBuffer(allocator.wrap(channel.map(READ_ONLY, position + offset,
+                        min(MAPPED_CHUNK_SIZE, count - offset))));
+            }
+            return composite;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{path=" + path + ", position=" + position + ", count=" + count + '}';
+    }
+}
@@ -46,6 +46,7 @@ import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
 import static io.servicetalk.http.api.HeaderUtils.addChunkedEncoding;
 import static io.servicetalk.http.api.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.api.HttpDataSourceTransformations.aggregatePayloadAndTrailers;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_0;
 import static java.util.Objects.requireNonNull;
 
@@ -86,7 +87,7 @@ final class StreamingHttpPayloadHolder implements PayloadInfo {
         }
         splitTrailersIfRequired();
         return payloadInfo.onlyEmitsBuffer() ? bufferPayload() :
-                rawPayload().liftSync(HttpTransportBufferFilterOperator.INSTANCE);
+                rawPayload().liftSync(new HttpTransportBufferFilterOperator(allocator));
     }
 
     Publisher<Object> payloadBodyAndTrailers() {
@@ -107,6 +108,18 @@ final class StreamingHttpPayloadHolder implements PayloadInfo {
         updatePayloadBody(payloadBody, false);
     }
 
+    public void payloadBody(final HttpFileRegion fileRegion) {
+        final Publisher<Object> newPayload = from(fileRegion);
+        // The region is a single item, so there is no flow control to bridge. Drain the existing payload first,
+        // payloadBody() splits its trailers if not yet split, so payloadBodyAndTrailers() still emits them.
+        this.payloadBody = this.payloadBody == null ? newPayload :
+                payloadBody().ignoreElements().concat(newPayload);
+        payloadInfo.setOnlyEmitsBuffer(false);
+        if (!payloadInfo.mayHaveTrailers() && !isTransferEncodingChunked(headers)) {
+            headers.set(CONTENT_LENGTH, Long.toString(fileRegion.count()));
+        }
+    }
+
     public <T> void payloadBody(final Publisher<T> payloadBody, final HttpSerializer<T> serializer) {
         payloadBody(serializer.serialize(headers, payloadBody, allocator));
     }
@@ -63,6 +63,23 @@ public interface StreamingHttpResponse extends HttpResponseMetaData {
      */
     StreamingHttpResponse payloadBody(Publisher<Buffer> payloadBody);
 
+    /**
+     * Returns a {@link StreamingHttpResponse} with its underlying payload set to the contents of {@code fileRegion}.
+     * <p>
+     * If possible the transport will send the file contents without copying them into user space, otherwise the
+     * contents are read in bounded chunks. Unless the response uses {@code transfer-encoding: chunked} or may have
+     * trailers, the {@code content-length} header is set to the {@link HttpFileRegion#count() size of the region}.
+     * Trailers which are already set, e.g. via {@link #transform(TrailersTransformer)}, are kept and sent after the
+     * contents of {@code fileRegion}. The file is accessed on the IO thread, see {@link HttpFileRegion} for when this
+     * may be costly.
+     * <p>
+     * This method reserves the right to delay completion/consumption of the existing {@link Publisher} payload body,
+     * which is drained before the contents of {@code fileRegion} are emitted.
+     * @param fileRegion The {@link HttpFileRegion} to use as the new payload body.
+     * @return {@code this}
+     */
+    StreamingHttpResponse payloadBody(HttpFileRegion fileRegion);
+
     /**
      * Returns a {@link StreamingHttpResponse} with its underlying payload set to the result of serialization.
      * <p>
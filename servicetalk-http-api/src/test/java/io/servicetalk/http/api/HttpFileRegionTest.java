@@ -0,0 +1,148 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.api.DefaultHttpHeadersFactory.INSTANCE;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class HttpFileRegionTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final StreamingHttpResponseFactory responseFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, INSTANCE, HTTP_1_1);
+    private final byte[] content = new byte[1024];
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        ThreadLocalRandom.current().nextBytes(content);
+        file = Files.createTempFile("servicetalk", ".bin");
+        Files.write(file, content);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void toBufferMapsRegion() {
+        Buffer buffer = HttpFileRegion.of(file, 10, 100).toBuffer(DEFAULT_ALLOCATOR);
+        assertThat(buffer.readableBytes(), is(100));
+        assertThat(buffer, is(DEFAULT_ALLOCATOR.wrap(content, 10, 100)));
+    }
+
+    @Test
+    public void emptyRegion() {
+        assertThat(HttpFileRegion.of(file, 0, 0).toBuffer(DEFAULT_ALLOCATOR).readableBytes(), is(0));
+    }
+
+    @Test
+    public void sliceMapsPartOfRegion() {
+        HttpFileRegion region = HttpFileRegion.of(file, 10, 100);
+        assertThat(region.slice(0, 100), is(sameInstance(region)));
+        HttpFileRegion slice = region.slice(20, 30);
+        assertThat(slice.position(), is(30L));
+        assertThat(slice.count(), is(30L));
+        assertThat(slice.toBuffer(DEFAULT_ALLOCATOR), is(DEFAULT_ALLOCATOR.wrap(content, 30, 30)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void sliceBeyondRegion() {
+        HttpFileRegion.of(file, 10, 100).slice(50, 51);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void toBufferRejectsRegionLargerThanMaxBuffer() {
+        HttpFileRegion.of(file, 0, Integer.MAX_VALUE + 1L).toBuffer(DEFAULT_ALLOCATOR);
+    }
+
+    @Test
+    public void sliceOfLargeRegionMaps() {
+        HttpFileRegion region = HttpFileRegion.of(file, 0, 3L * Integer.MAX_VALUE);
+        assertThat(region.slice(0, content.length).toBuffer(DEFAULT_ALLOCATOR), is(DEFAULT_ALLOCATOR.wrap(content)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativePosition() {
+        HttpFileRegion.of(file, -1, 10);
+    }
+
+    @Test
+    public void responseSetsContentLength() throws Exception {
+        StreamingHttpResponse response = responseFactory.ok().payloadBody(HttpFileRegion.of(file));
+        assertThat(String.valueOf(response.headers().get(CONTENT_LENGTH)), is(Integer.toString(content.length)));
+        assertThat(((PayloadInfo) response).onlyEmitsBuffer(), is(false));
+    }
+
+    @Test
+    public void payloadBodyFallsBackToMappedBuffers() throws Exception {
+        Buffer payload = responseFactory.ok().payloadBody(HttpFileRegion.of(file)).payloadBody()
+                .collect(DEFAULT_ALLOCATOR::newCompositeBuffer, (composite, buffer) -> composite.addBuffer(buffer))
+                .toFuture().get();
+        assertThat(payload, is(DEFAULT_ALLOCATOR.wrap(content)));
+    }
+
+    @Test
+    public void aggregatedResponseContainsFileContents() throws Exception {
+        HttpResponse response = responseFactory.ok().payloadBody(HttpFileRegion.of(file)).toResponse()
+                .toFuture().get();
+        assertThat(response.payloadBody(), is(DEFAULT_ALLOCATOR.wrap(content)));
+    }
+
+    @Test
+    public void existingTrailersAreKept() throws Exception {
+        StreamingHttpResponse response = responseFactory.ok()
+                .transform(new StatelessTrailersTransformer<Buffer>() {
+                    @Override
+                    protected HttpHeaders payloadComplete(final HttpHeaders trailers) {
+                        return trailers.set("trailer", "value");
+                    }
+                })
+                .payloadBody(HttpFileRegion.of(file));
+        assertThat(response.headers().get(CONTENT_LENGTH), is(nullValue()));
+        List<Object> payloadAndTrailers = new ArrayList<>(response.payloadBodyAndTrailers().toFuture().get());
+        assertThat(payloadAndTrailers.size(), is(2));
+        assertThat(payloadAndTrailers.get(0), instanceOf(HttpFileRegion.class));
+        assertThat(payloadAndTrailers.get(1), instanceOf(HttpHeaders.class));
+        assertThat(String.valueOf(((HttpHeaders) payloadAndTrailers.get(1)).get("trailer")), is("value"));
+    }
+}
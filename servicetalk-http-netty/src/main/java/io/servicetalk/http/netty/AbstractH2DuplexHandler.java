@@ -34,7 +34,7 @@ import io.netty.handler.codec.http2.Http2ResetFrame;
 
 import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.handler.codec.http2.Http2Error.REFUSED_STREAM;
-import static io.servicetalk.buffer.netty.BufferUtils.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtils.newUnreleasableBufferFrom;
 import static io.servicetalk.buffer.netty.BufferUtils.toByteBufNoThrow;
 import static io.servicetalk.http.netty.H2ToStH1Utils.h1HeadersToH2Headers;
 
@@ -68,6 +68,7 @@ abstract class AbstractH2DuplexHandler extends ChannelDuplexHandler {
             promise.setFailure(new IllegalArgumentException("unsupported Buffer type:" + msg));
             ctx.close();
         } else {
+            // Pooled buffers stay owned by the caller and may be written again, e.g. when a request is retried.
             ctx.write(new DefaultHttp2DataFrame(byteBuf.retain(), false), promise);
         }
     }
@@ -87,7 +88,7 @@ abstract class AbstractH2DuplexHandler extends ChannelDuplexHandler {
     final void readDataFrame(ChannelHandlerContext ctx, Object msg) {
         Http2DataFrame dataFrame = (Http2DataFrame) msg;
         if (dataFrame.content().isReadable()) {
-            ctx.fireChannelRead(newBufferFrom(dataFrame.content()));
+            ctx.fireChannelRead(newUnreleasableBufferFrom(dataFrame.content()));
         } else {
             dataFrame.release();
         }
@@ -21,6 +21,8 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2FrameLogger;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
@@ -29,6 +31,8 @@ import java.util.function.BiPredicate;
 
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forClient;
 import static io.netty.handler.logging.LogLevel.TRACE;
+import static io.servicetalk.http.netty.H2ToStH1Utils.newInitialSettings;
+import static io.servicetalk.transport.netty.internal.PooledRecvByteBufAllocatorInitializers.UNPOOLED_MERGE_CUMULATOR;
 
 final class H2ClientParentChannelInitializer implements ChannelInitializer {
     private final H2ProtocolConfig config;
@@ -56,10 +60,19 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
             multiplexCodecBuilder.frameLogger(new Http2FrameLogger(TRACE, frameLoggerName));
         }
 
+        multiplexCodecBuilder.initialSettings(newInitialSettings(config));
+
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(),
-                new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
+        final ChannelPipeline pipeline = channel.pipeline();
+        final Http2FrameCodec frameCodec = multiplexCodecBuilder.build();
+        // DATA frames are retained slices of the cumulation and are passed to the user without a copy.
+        frameCodec.setCumulator(UNPOOLED_MERGE_CUMULATOR);
+        pipeline.addLast(frameCodec);
+        if (H2ConnectionWindowHandler.isRequired(config)) {
+            pipeline.addLast(new H2ConnectionWindowHandler(config));
+        }
+        pipeline.addLast(new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
     }
 
     @ChannelHandler.Sharable
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static java.lang.Math.min;
+
+/**
+ * Manages the connection-level flow-control window of an HTTP/2 parent channel. Must be added after the
+ * {@link io.netty.handler.codec.http2.Http2FrameCodec} and before the
+ * {@link io.netty.handler.codec.http2.Http2MultiplexHandler}.
+ * <p>
+ * The initial window is grown to the configured size once the connection is active. If auto-tuning is enabled the
+ * bandwidth-delay product (BDP) is sampled by counting the bytes of {@code DATA} frames received while a {@code PING}
+ * is outstanding, and the window is grown to twice the sample whenever the sample approaches the current window.
+ */
+final class H2ConnectionWindowHandler extends ChannelDuplexHandler {
+    // "ST-BDP" in ASCII, used to distinguish our PING acks from the ones of user initiated PINGs.
+    private static final long BDP_PING_CONTENT = 0x53542d424450L;
+
+    private final int initialConnectionWindowSize;
+    private final int maxConnectionWindowSize;
+    private final boolean autoTuning;
+    private int connectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private boolean initialized;
+    private boolean pingOutstanding;
+    private long bytesSincePing;
+
+    H2ConnectionWindowHandler(final H2ProtocolConfig config) {
+        initialConnectionWindowSize = config.connectionWindowSize();
+        maxConnectionWindowSize = config.maxConnectionWindowSize();
+        autoTuning = config.connectionWindowAutoTuning();
+    }
+
+    static boolean isRequired(final H2ProtocolConfig config) {
+        return config.connectionWindowAutoTuning() || config.connectionWindowSize() != DEFAULT_WINDOW_SIZE;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        if (ctx.channel().isActive()) {
+            initConnectionWindow(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        initConnectionWindow(ctx);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (autoTuning) {
+            if (msg instanceof Http2DataFrame) {
+                bytesSincePing += ((Http2DataFrame) msg).initialFlowControlledBytes();
+                if (!pingOutstanding && connectionWindowSize < maxConnectionWindowSize) {
+                    pingOutstanding = true;
+                    bytesSincePing = ((Http2DataFrame) msg).initialFlowControlledBytes();
+                    ctx.writeAndFlush(new DefaultHttp2PingFrame(BDP_PING_CONTENT));
+                }
+            } else if (msg instanceof Http2PingFrame) {
+                final Http2PingFrame pingFrame = (Http2PingFrame) msg;
+                if (pingFrame.ack() && pingFrame.content() == BDP_PING_CONTENT) {
+                    pingOutstanding = false;
+                    onBdpSample(ctx, bytesSincePing);
+                    return;
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void initConnectionWindow(final ChannelHandlerContext ctx) {
+        if (initialized) {
+            return;
+        }
+        initialized = true;
+        growConnectionWindow(ctx, initialConnectionWindowSize);
+    }
+
+    private void onBdpSample(final ChannelHandlerContext ctx, final long bdp) {
+        // Same heuristic as other HTTP/2 stacks: if the peer managed to fill 2/3 of the window in a round trip, the
+        // window is likely the bottleneck.
+        if (bdp * 3 >= (long) connectionWindowSize * 2) {
+            growConnectionWindow(ctx, (int) min(bdp << 1, maxConnectionWindowSize));
+        }
+    }
+
+    private void growConnectionWindow(final ChannelHandlerContext ctx, final int newWindowSize) {
+        if (newWindowSize > connectionWindowSize) {
+            // A WINDOW_UPDATE frame without a stream increments the connection window of the Http2FrameCodec.
+            ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(newWindowSize - connectionWindowSize));
+            connectionWindowSize = newWindowSize;
+        }
+    }
+}
@@ -53,4 +53,59 @@ public interface H2ProtocolConfig extends HttpProtocolConfig {
      */
     @Nullable
     String frameLoggerName();
+
+    /**
+     * Initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for new streams,
+     * advertised to the peer via {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+     *
+     * @return initial flow-control window size for new streams in bytes
+     */
+    int initialWindowSize();
+
+    /**
+     * Initial size of the <a href="https://tools.ietf.org/html/rfc7540#section-6.9">connection-level</a> flow-control
+     * window used to receive data from the peer.
+     *
+     * @return initial size of the connection-level flow-control window in bytes
+     */
+    int connectionWindowSize();
+
+    /**
+     * Determines if the connection-level flow-control window is adjusted based on an estimate of the
+     * bandwidth-delay product, measured using {@code PING} frames.
+     *
+     * @return {@code true} if the connection-level flow-control window is automatically grown up to
+     * {@link #maxConnectionWindowSize()}
+     */
+    boolean connectionWindowAutoTuning();
+
+    /**
+     * Upper bound for the connection-level flow-control window when {@link #connectionWindowAutoTuning()} is enabled.
+     *
+     * @return upper bound for the connection-level flow-control window in bytes
+     */
+    int maxConnectionWindowSize();
+
+    /**
+     * Maximum number of concurrent streams the peer is allowed to open, advertised via
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS}.
+     *
+     * @return maximum number of concurrent streams the peer is allowed to open
+     */
+    long maxConcurrentStreams();
+
+    /**
+     * Largest frame payload the peer is allowed to send, advertised via {@code SETTINGS_MAX_FRAME_SIZE}.
+     *
+     * @return largest frame payload the peer is allowed to send in bytes
+     */
+    int maxFrameSize();
+
+    /**
+     * Size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to decode
+     * headers, advertised via {@code SETTINGS_HEADER_TABLE_SIZE}.
+     *
+     * @return size of the HPACK dynamic table in bytes
+     */
+    long headerTableSize();
 }
@@ -23,7 +23,17 @@ import org.slf4j.event.Level;
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE;
+import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
 import static io.servicetalk.http.netty.H2HeadersFactory.DEFAULT_SENSITIVITY_DETECTOR;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -35,8 +45,16 @@ public final class H2ProtocolConfigBuilder {
 
     private HttpHeadersFactory headersFactory = H2HeadersFactory.INSTANCE;
     private BiPredicate<CharSequence, CharSequence> headersSensitivityDetector = DEFAULT_SENSITIVITY_DETECTOR;
+    private CharSequence[] neverIndexedHeaders = new CharSequence[0];
     @Nullable
     private String frameLoggerName;
+    private int initialWindowSize = DEFAULT_WINDOW_SIZE;
+    private int connectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private int maxConnectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private boolean connectionWindowAutoTuning;
+    private long maxConcurrentStreams = MAX_CONCURRENT_STREAMS;
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private long headerTableSize = DEFAULT_HEADER_TABLE_SIZE;
 
     H2ProtocolConfigBuilder() {
     }
@@ -68,6 +86,28 @@ public final class H2ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets names of headers whose values are expected to change with (almost) every message, like
+     * {@code grpc-timeout} or a request id, and therefore should not be added to the
+     * <a href="https://tools.ietf.org/html/rfc7541#section-2.3.2">HPACK dynamic table</a>.
+     * <p>
+     * By default every header field that fits is added to the dynamic table. Values that are never repeated evict the
+     * entries which are, like custom metadata sent with every request, which then can not be encoded as a single table
+     * index anymore. The names of these headers are still encoded as a reference to the static or dynamic table, only
+     * their values are sent as <a href="https://tools.ietf.org/html/rfc7541#section-6.2.3">never indexed</a>
+     * literals, in addition to the pairs selected by {@link #headersSensitivityDetector(BiPredicate)}.
+     *
+     * @param names case-insensitive names of headers whose values should not be added to the HPACK dynamic table
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder neverIndexedHeaders(final CharSequence... names) {
+        for (CharSequence name : names) {
+            requireNonNull(name);
+        }
+        this.neverIndexedHeaders = names.clone();
+        return this;
+    }
+
     /**
      * Enables a logger for HTTP/2 frames.
      * <p>
@@ -81,13 +121,138 @@ public final class H2ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for
+     * new streams.
+     * <p>
+     * Larger values allow a single stream to use more of the available bandwidth on links with a large
+     * bandwidth-delay product, at the cost of more memory buffered per stream.
+     *
+     * @param initialWindowSize initial flow-control window size for new streams in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder initialWindowSize(final int initialWindowSize) {
+        if (initialWindowSize < 0 || initialWindowSize > MAX_INITIAL_WINDOW_SIZE) {
+            throw new IllegalArgumentException("initialWindowSize: " + initialWindowSize +
+                    " (expected 0-" + MAX_INITIAL_WINDOW_SIZE + ')');
+        }
+        this.initialWindowSize = initialWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the initial size of the <a href="https://tools.ietf.org/html/rfc7540#section-6.9">connection-level</a>
+     * flow-control window used to receive data from the peer.
+     * <p>
+     * This window is shared by all streams of a connection, a value smaller than
+     * {@link #initialWindowSize(int)} multiplied by the expected number of concurrent streams will limit throughput.
+     *
+     * @param connectionWindowSize initial size of the connection-level flow-control window in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder connectionWindowSize(final int connectionWindowSize) {
+        this.connectionWindowSize = checkConnectionWindowSize(connectionWindowSize, "connectionWindowSize");
+        return this;
+    }
+
+    /**
+     * Enables automatic tuning of the connection-level flow-control window.
+     * <p>
+     * The bandwidth-delay product of the connection is estimated by counting the bytes received while a
+     * {@code PING} frame is in flight. If the estimate approaches the current window, the window is grown to twice
+     * the estimate, up to {@code maxConnectionWindowSize}. The window is never shrunk.
+     *
+     * @param maxConnectionWindowSize upper bound for the connection-level flow-control window in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder connectionWindowAutoTuning(final int maxConnectionWindowSize) {
+        this.maxConnectionWindowSize = checkConnectionWindowSize(maxConnectionWindowSize, "maxConnectionWindowSize");
+        this.connectionWindowAutoTuning = true;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams the peer is allowed to open.
+     *
+     * @param maxConcurrentStreams maximum number of concurrent streams the peer is allowed to open
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxConcurrentStreams(final long maxConcurrentStreams) {
+        if (maxConcurrentStreams < 0 || maxConcurrentStreams > MAX_CONCURRENT_STREAMS) {
+            throw new IllegalArgumentException("maxConcurrentStreams: " + maxConcurrentStreams +
+                    " (expected 0-" + MAX_CONCURRENT_STREAMS + ')');
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Sets the largest frame payload the peer is allowed to send.
+     * <p>
+     * Larger frames reduce the per-frame overhead for large payloads, smaller frames allow finer interleaving of
+     * concurrent streams.
+     *
+     * @param maxFrameSize largest frame payload the peer is allowed to send in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder maxFrameSize(final int maxFrameSize) {
+        if (maxFrameSize < MAX_FRAME_SIZE_LOWER_BOUND || maxFrameSize > MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException("maxFrameSize: " + maxFrameSize +
+                    " (expected " + MAX_FRAME_SIZE_LOWER_BOUND + '-' + MAX_FRAME_SIZE_UPPER_BOUND + ')');
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * Sets the size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to
+     * decode headers.
+     *
+     * @param headerTableSize size of the HPACK dynamic table in bytes
+     * @return {@code this}
+     */
+    public H2ProtocolConfigBuilder headerTableSize(final long headerTableSize) {
+        if (headerTableSize < 0 || headerTableSize > MAX_HEADER_TABLE_SIZE) {
+            throw new IllegalArgumentException("headerTableSize: " + headerTableSize +
+                    " (expected 0-" + MAX_HEADER_TABLE_SIZE + ')');
+        }
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
     /**
      * Builds {@link H2ProtocolConfig}.
      *
      * @return {@link H2ProtocolConfig}
      */
     public H2ProtocolConfig build() {
-        return new DefaultH2ProtocolConfig(headersFactory, headersSensitivityDetector, frameLoggerName);
+        return new DefaultH2ProtocolConfig(headersFactory, neverIndexedHeaders.length == 0 ?
+                headersSensitivityDetector : neverIndexed(neverIndexedHeaders, headersSensitivityDetector),
+                frameLoggerName, initialWindowSize, connectionWindowSize, connectionWindowAutoTuning,
+                connectionWindowAutoTuning ? max(maxConnectionWindowSize, connectionWindowSize) :
+                        connectionWindowSize,
+                maxConcurrentStreams, maxFrameSize, headerTableSize);
+    }
+
+    private static BiPredicate<CharSequence, CharSequence> neverIndexed(
+            final CharSequence[] names, final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector) {
+        return (name, value) -> {
+            for (CharSequence neverIndexedName : names) {
+                if (contentEqualsIgnoreCase(neverIndexedName, name)) {
+                    return true;
+                }
+            }
+            return headersSensitivityDetector.test(name, value);
+        };
+    }
+
+    private static int checkConnectionWindowSize(final int windowSize, final String name) {
+        // The connection window can only be grown from its initial size using WINDOW_UPDATE frames.
+        if (windowSize < DEFAULT_WINDOW_SIZE || windowSize > MAX_INITIAL_WINDOW_SIZE) {
+            throw new IllegalArgumentException(name + ": " + windowSize +
+                    " (expected " + DEFAULT_WINDOW_SIZE + '-' + MAX_INITIAL_WINDOW_SIZE + ')');
+        }
+        return windowSize;
     }
 
     private static final class DefaultH2ProtocolConfig implements H2ProtocolConfig {
@@ -96,13 +261,30 @@ public final class H2ProtocolConfigBuilder {
         private final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector;
         @Nullable
         private final String frameLoggerName;
+        private final int initialWindowSize;
+        private final int connectionWindowSize;
+        private final boolean connectionWindowAutoTuning;
+        private final int maxConnectionWindowSize;
+        private final long maxConcurrentStreams;
+        private final int maxFrameSize;
+        private final long headerTableSize;
 
         DefaultH2ProtocolConfig(final HttpHeadersFactory headersFactory,
                                 final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector,
-                                @Nullable final String frameLogger) {
+                                @Nullable final String frameLogger, final int initialWindowSize,
+                                final int connectionWindowSize, final boolean connectionWindowAutoTuning,
+                                final int maxConnectionWindowSize, final long maxConcurrentStreams,
+                                final int maxFrameSize, final long headerTableSize) {
             this.headersFactory = headersFactory;
             this.headersSensitivityDetector = headersSensitivityDetector;
             this.frameLoggerName = frameLogger;
+            this.initialWindowSize = initialWindowSize;
+            this.connectionWindowSize = connectionWindowSize;
+            this.connectionWindowAutoTuning = connectionWindowAutoTuning;
+            this.maxConnectionWindowSize = maxConnectionWindowSize;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.maxFrameSize = maxFrameSize;
+            this.headerTableSize = headerTableSize;
         }
 
         @Override
@@ -120,5 +302,40 @@ public final class H2ProtocolConfigBuilder {
         public String frameLoggerName() {
             return frameLoggerName;
         }
+
+        @Override
+        public int initialWindowSize() {
+            return initialWindowSize;
+        }
+
+        @Override
+        public int connectionWindowSize() {
+            return connectionWindowSize;
+        }
+
+        @Override
+        public boolean connectionWindowAutoTuning() {
+            return connectionWindowAutoTuning;
+        }
+
+        @Override
+        public int maxConnectionWindowSize() {
+            return maxConnectionWindowSize;
+        }
+
+        @Override
+        public long maxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        @Override
+        public int maxFrameSize() {
+            return maxFrameSize;
+        }
+
+        @Override
+        public long headerTableSize() {
+            return headerTableSize;
+        }
     }
 }
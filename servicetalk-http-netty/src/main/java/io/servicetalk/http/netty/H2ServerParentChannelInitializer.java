@@ -18,6 +18,8 @@ package io.servicetalk.http.netty;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2FrameLogger;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
@@ -26,6 +28,8 @@ import java.util.function.BiPredicate;
 
 import static io.netty.handler.codec.http2.Http2FrameCodecBuilder.forServer;
 import static io.netty.handler.logging.LogLevel.TRACE;
+import static io.servicetalk.http.netty.H2ToStH1Utils.newInitialSettings;
+import static io.servicetalk.transport.netty.internal.PooledRecvByteBufAllocatorInitializers.UNPOOLED_MERGE_CUMULATOR;
 
 final class H2ServerParentChannelInitializer implements ChannelInitializer {
     private final H2ProtocolConfig config;
@@ -53,8 +57,18 @@ final class H2ServerParentChannelInitializer implements ChannelInitializer {
             multiplexCodecBuilder.frameLogger(new Http2FrameLogger(TRACE, frameLoggerName));
         }
 
+        multiplexCodecBuilder.initialSettings(newInitialSettings(config));
+
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(), new Http2MultiplexHandler(streamChannelInitializer));
+        final ChannelPipeline pipeline = channel.pipeline();
+        final Http2FrameCodec frameCodec = multiplexCodecBuilder.build();
+        // DATA frames are retained slices of the cumulation and are passed to the user without a copy.
+        frameCodec.setCumulator(UNPOOLED_MERGE_CUMULATOR);
+        pipeline.addLast(frameCodec);
+        if (H2ConnectionWindowHandler.isRequired(config)) {
+            pipeline.addLast(new H2ConnectionWindowHandler(config));
+        }
+        pipeline.addLast(new Http2MultiplexHandler(streamChannelInitializer));
     }
 }
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.http.api.HttpFileRegion;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpHeadersFactory;
 import io.servicetalk.http.api.HttpRequestMethod;
@@ -28,6 +29,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
 import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
 import io.netty.handler.codec.http2.Http2DataFrame;
 import io.netty.handler.codec.http2.Http2Headers;
@@ -35,6 +37,7 @@ import io.netty.handler.codec.http2.Http2HeadersFrame;
 
 import javax.annotation.Nullable;
 
+import static io.netty.buffer.Unpooled.EMPTY_BUFFER;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.AUTHORITY;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.METHOD;
 import static io.netty.handler.codec.http2.Http2Headers.PseudoHeaderName.PATH;
@@ -48,6 +51,9 @@ import static io.servicetalk.http.netty.H2ToStH1Utils.h1HeadersToH2Headers;
 import static io.servicetalk.http.netty.H2ToStH1Utils.h2HeadersSanitizeForH1;
 import static io.servicetalk.http.netty.HeaderUtils.clientMaySendPayloadBodyFor;
 import static io.servicetalk.http.netty.HeaderUtils.shouldAddZeroContentLength;
+import static io.servicetalk.http.netty.HttpFileRegions.chunkedInput;
+import static io.servicetalk.http.netty.HttpFileRegions.http2DataFrames;
+import static io.servicetalk.http.netty.HttpFileRegions.open;
 
 final class H2ToStH1ServerDuplexHandler extends AbstractH2DuplexHandler {
     private boolean readHeaders;
@@ -69,6 +75,8 @@ final class H2ToStH1ServerDuplexHandler extends AbstractH2DuplexHandler {
             ctx.write(new DefaultHttp2HeadersFrame(h2Headers, false), promise);
         } else if (msg instanceof Buffer) {
             writeBuffer(ctx, msg, promise);
+        } else if (msg instanceof HttpFileRegion) {
+            writeFileRegion(ctx, (HttpFileRegion) msg, promise);
         } else if (msg instanceof HttpHeaders) {
             writeTrailers(ctx, msg, promise);
         } else {
@@ -76,6 +84,17 @@ final class H2ToStH1ServerDuplexHandler extends AbstractH2DuplexHandler {
         }
     }
 
+    private static void writeFileRegion(ChannelHandlerContext ctx, HttpFileRegion fileRegion,
+                                        ChannelPromise promise) {
+        // DATA frames need the bytes in memory, read bounded chunks as the stream becomes writable rather than the
+        // whole region at once.
+        if (fileRegion.count() == 0) {
+            ctx.write(new DefaultHttp2DataFrame(EMPTY_BUFFER, false), promise);
+            return;
+        }
+        ctx.write(http2DataFrames(chunkedInput(ctx, fileRegion, open(fileRegion))), promise);
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof Http2HeadersFrame) {
@@ -22,6 +22,7 @@ import io.servicetalk.transport.api.RetryableException;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http2.DefaultHttp2Headers;
 import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2Settings;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -30,6 +31,10 @@ import java.util.Map;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.TE;
 import static io.netty.handler.codec.http.HttpHeaderValues.TRAILERS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
 import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
 import static io.servicetalk.http.api.HttpHeaderNames.COOKIE;
 import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
@@ -48,8 +53,34 @@ final class H2ToStH1Utils {
         // no instances.
     }
 
+    /**
+     * Creates the local {@link Http2Settings} to advertise for a connection. Settings that are left at their protocol
+     * default are not sent.
+     *
+     * @param config the {@link H2ProtocolConfig} for the connection.
+     * @return the local {@link Http2Settings} to advertise for a connection.
+     */
+    static Http2Settings newInitialSettings(final H2ProtocolConfig config) {
+        final Http2Settings settings = Http2Settings.defaultSettings();
+        if (config.initialWindowSize() != DEFAULT_WINDOW_SIZE) {
+            settings.initialWindowSize(config.initialWindowSize());
+        }
+        if (config.maxConcurrentStreams() != MAX_CONCURRENT_STREAMS) {
+            settings.maxConcurrentStreams(config.maxConcurrentStreams());
+        }
+        if (config.maxFrameSize() != DEFAULT_MAX_FRAME_SIZE) {
+            settings.maxFrameSize(config.maxFrameSize());
+        }
+        if (config.headerTableSize() != DEFAULT_HEADER_TABLE_SIZE) {
+            settings.headerTableSize(config.headerTableSize());
+        }
+        return settings;
+    }
+
     static void h2HeadersSanitizeForH1(Http2Headers h2Headers) {
-        h2HeadersCompressCookieCrumbs(h2Headers);
+        if (h2Headers.contains(HttpHeaderNames.COOKIE)) {
+            h2HeadersCompressCookieCrumbs(h2Headers);
+        }
     }
 
     /**
@@ -118,8 +149,10 @@ final class H2ToStH1Utils {
         // H2 doesn't support connection headers, so remove each one, and the headers corresponding to the
         // connection value.
         // https://tools.ietf.org/html/rfc7540#section-8.1.2.2
-        Iterator<? extends CharSequence> connectionItr = h1Headers.valuesIterator(CONNECTION);
-        if (connectionItr.hasNext()) {
+        // This runs for every HEADERS frame, check for presence first to avoid allocating iterators for headers
+        // that are rarely present.
+        if (h1Headers.contains(CONNECTION)) {
+            Iterator<? extends CharSequence> connectionItr = h1Headers.valuesIterator(CONNECTION);
             do {
                 String connectionHeader = connectionItr.next().toString();
                 connectionItr.remove();
@@ -127,10 +160,10 @@ final class H2ToStH1Utils {
                 if (i != -1) {
                     int start = 0;
                     do {
-                        h1Headers.remove(connectionHeader.substring(start, i));
+                        h1Headers.remove(connectionHeader.substring(start, i).trim());
                         start = i + 1;
                     } while (start < connectionHeader.length() && (i = connectionHeader.indexOf(',', start)) != -1);
-                    h1Headers.remove(connectionHeader.substring(start));
+                    h1Headers.remove(connectionHeader.substring(start).trim());
                 } else {
                     h1Headers.remove(connectionHeader);
                 }
@@ -144,29 +177,26 @@ final class H2ToStH1Utils {
 
         // TE header is treated specially https://tools.ietf.org/html/rfc7540#section-8.1.2.2
         // (only value of "trailers" is allowed).
-        Iterator<? extends CharSequence> teItr = h1Headers.valuesIterator(TE);
-        boolean addTrailers = false;
-        while (teItr.hasNext()) {
-            String teValue = teItr.next().toString();
-            int i = teValue.indexOf(',');
-            if (i != -1) {
-                int start = 0;
-                do {
-                    if (teValue.substring(start, i).compareToIgnoreCase(TRAILERS.toString()) == 0) {
-                        addTrailers = true;
-                        break;
-                    }
-                } while (start < teValue.length() && (i = teValue.indexOf(',', start)) != -1);
-                teItr.remove();
-            } else if (teValue.compareToIgnoreCase(TRAILERS.toString()) != 0) {
-                teItr.remove();
+        if (h1Headers.contains(TE)) {
+            Iterator<? extends CharSequence> teItr = h1Headers.valuesIterator(TE);
+            boolean addTrailers = false;
+            while (teItr.hasNext()) {
+                String teValue = teItr.next().toString();
+                if (teValue.indexOf(',') != -1) {
+                    addTrailers |= containsTrailers(teValue);
+                    teItr.remove();
+                } else if (teValue.trim().compareToIgnoreCase(TRAILERS.toString()) != 0) {
+                    teItr.remove();
+                }
+            }
+            if (addTrailers && !h1Headers.contains(TE)) { // add after iteration to avoid concurrent modification.
+                h1Headers.add(TE, TRAILERS);
             }
-        }
-        if (addTrailers) { // add after iteration to avoid concurrent modification.
-            h1Headers.add(TE, TRAILERS);
         }
 
-        h1HeadersSplitCookieCrumbs(h1Headers);
+        if (h1Headers.contains(COOKIE)) {
+            h1HeadersSplitCookieCrumbs(h1Headers);
+        }
 
         if (h1Headers instanceof NettyH2HeadersToHttpHeaders) {
             // Assume header field names are already lowercase if they reside in the Http2Headers. We may want to be
@@ -174,15 +204,46 @@ final class H2ToStH1Utils {
             return ((NettyH2HeadersToHttpHeaders) h1Headers).nettyHeaders();
         }
 
-        DefaultHttp2Headers http2Headers = new DefaultHttp2Headers(false);
+        DefaultHttp2Headers http2Headers = new DefaultHttp2Headers(false, h1Headers.size());
         for (Map.Entry<CharSequence, CharSequence> h1Entry : h1Headers) {
             // header field names MUST be converted to lowercase prior to their encoding in HTTP/2
             // https://tools.ietf.org/html/rfc7540#section-8.1.2
-            http2Headers.add(h1Entry.getKey().toString().toLowerCase(), h1Entry.getValue());
+            http2Headers.add(toLowerCaseName(h1Entry.getKey()), h1Entry.getValue());
         }
         return http2Headers;
     }
 
+    /**
+     * Returns a lower case version of a header name, or the {@code name} itself if it is already lower case, which is
+     * the common case for names that are defined as constants.
+     *
+     * @param name the header name.
+     * @return a lower case version of {@code name}.
+     */
+    static CharSequence toLowerCaseName(final CharSequence name) {
+        for (int i = 0; i < name.length(); ++i) {
+            final char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                return name.toString().toLowerCase();
+            }
+        }
+        return name;
+    }
+
+    private static boolean containsTrailers(final String teValue) {
+        int start = 0;
+        int i;
+        do {
+            i = teValue.indexOf(',', start);
+            final String token = (i == -1 ? teValue.substring(start) : teValue.substring(start, i)).trim();
+            if (token.compareToIgnoreCase(TRAILERS.toString()) == 0) {
+                return true;
+            }
+            start = i + 1;
+        } while (i != -1);
+        return false;
+    }
+
     /**
      * <a href="https://tools.ietf.org/html/rfc7540#section-8.1.4">REFUSED_STREAM</a> is always retryable.
      */
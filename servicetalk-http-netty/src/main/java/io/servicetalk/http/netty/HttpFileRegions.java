@@ -0,0 +1,153 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpFileRegion;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import javax.annotation.Nullable;
+
+/**
+ * Writes {@link HttpFileRegion}s whose contents can not be sent directly from the file, e.g. with TLS or HTTP/2.
+ * <p>
+ * The region is read in chunks of at most {@link #FILE_CHUNK_SIZE} bytes by a {@link ChunkedWriteHandler}, which reads
+ * the next chunk only while the channel is writable and resumes when it becomes writable again. The file is never
+ * mapped or read into memory at once.
+ */
+final class HttpFileRegions {
+    /**
+     * The size of a chunk, which matches the maximum TLS record size and the default HTTP/2 maximum frame size.
+     */
+    static final int FILE_CHUNK_SIZE = 16 * 1024;
+
+    private HttpFileRegions() {
+        // no instances
+    }
+
+    /**
+     * Opens the file of {@code fileRegion}. This happens on the IO thread, see {@link HttpFileRegion} for the cost.
+     *
+     * @param fileRegion the {@link HttpFileRegion} to open.
+     * @return a new {@link FileChannel}, the caller is responsible for closing it.
+     * @throws UncheckedIOException if the file can not be opened.
+     */
+    static FileChannel open(final HttpFileRegion fileRegion) {
+        try {
+            return fileRegion.open();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a {@link ChunkedInput} which reads {@code fileRegion} from {@code fileChannel} in bounded chunks, and
+     * makes sure a {@link ChunkedWriteHandler} is in the pipeline in front of {@code ctx} to write it.
+     *
+     * @param ctx the {@link ChannelHandlerContext} which writes the returned {@link ChunkedInput}.
+     * @param fileRegion the {@link HttpFileRegion} to read.
+     * @param fileChannel the {@link FileChannel} opened for {@code fileRegion}, which is closed once the returned
+     * {@link ChunkedInput} is closed, or by this method if it fails.
+     * @return a {@link ChunkedInput} of {@link ByteBuf}s.
+     */
+    static ChunkedInput<ByteBuf> chunkedInput(final ChannelHandlerContext ctx, final HttpFileRegion fileRegion,
+                                              final FileChannel fileChannel) {
+        final ChunkedNioFile input;
+        try {
+            input = new ChunkedNioFile(fileChannel, fileRegion.position(), fileRegion.count(), FILE_CHUNK_SIZE);
+        } catch (IOException e) {
+            closeQuietly(fileChannel, e);
+            throw new UncheckedIOException(e);
+        }
+        final ChannelPipeline pipeline = ctx.pipeline();
+        if (pipeline.get(ChunkedWriteHandler.class) == null) {
+            // Only connections which write such regions pay for the write queue of the ChunkedWriteHandler.
+            pipeline.addBefore(ctx.name(), null, new ChunkedWriteHandler());
+        }
+        return input;
+    }
+
+    /**
+     * Adapts a {@link ChunkedInput} of {@link ByteBuf}s to HTTP/2 DATA frames, which never end the stream.
+     *
+     * @param input the {@link ChunkedInput} to adapt.
+     * @return a {@link ChunkedInput} of {@link Http2DataFrame}s.
+     */
+    static ChunkedInput<Http2DataFrame> http2DataFrames(final ChunkedInput<ByteBuf> input) {
+        return new Http2DataFrameChunkedInput(input);
+    }
+
+    private static void closeQuietly(final FileChannel fileChannel, final Throwable cause) {
+        try {
+            fileChannel.close();
+        } catch (Throwable t) {
+            cause.addSuppressed(t);
+        }
+    }
+
+    private static final class Http2DataFrameChunkedInput implements ChunkedInput<Http2DataFrame> {
+        private final ChunkedInput<ByteBuf> input;
+
+        Http2DataFrameChunkedInput(final ChunkedInput<ByteBuf> input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean isEndOfInput() throws Exception {
+            return input.isEndOfInput();
+        }
+
+        @Override
+        public void close() throws Exception {
+            input.close();
+        }
+
+        @Deprecated
+        @Nullable
+        @Override
+        public Http2DataFrame readChunk(final ChannelHandlerContext ctx) throws Exception {
+            return readChunk(ctx.alloc());
+        }
+
+        @Nullable
+        @Override
+        public Http2DataFrame readChunk(final ByteBufAllocator allocator) throws Exception {
+            final ByteBuf chunk = input.readChunk(allocator);
+            return chunk == null ? null : new DefaultHttp2DataFrame(chunk, false);
+        }
+
+        @Override
+        public long length() {
+            return input.length();
+        }
+
+        @Override
+        public long progress() {
+            return input.progress();
+        }
+    }
+}
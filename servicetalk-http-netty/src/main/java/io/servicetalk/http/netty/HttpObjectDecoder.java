@@ -54,10 +54,10 @@ import io.netty.util.ByteProcessor;
 import javax.annotation.Nullable;
 
 import static io.netty.handler.codec.http.HttpConstants.CR;
-import static io.netty.util.ByteProcessor.FIND_LF;
+import static io.netty.handler.codec.http.HttpConstants.LF;
 import static io.netty.util.ByteProcessor.FIND_LINEAR_WHITESPACE;
 import static io.netty.util.ByteProcessor.FIND_NON_LINEAR_WHITESPACE;
-import static io.servicetalk.buffer.netty.BufferUtils.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtils.newUnreleasableBufferFrom;
 import static io.servicetalk.http.api.CharSequences.emptyAsciiString;
 import static io.servicetalk.http.api.CharSequences.newAsciiString;
 import static io.servicetalk.http.api.HeaderUtils.isTransferEncodingChunked;
@@ -73,6 +73,9 @@ import static io.servicetalk.http.api.HttpRequestMethod.GET;
 import static io.servicetalk.http.api.HttpResponseStatus.SWITCHING_PROTOCOLS;
 import static io.servicetalk.http.netty.HeaderUtils.removeTransferEncodingChunked;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
+import static io.servicetalk.http.netty.SwarByteSearch.indexOf;
+import static io.servicetalk.http.netty.SwarByteSearch.indexOfColonOrLinearWhitespace;
+import static io.servicetalk.transport.netty.internal.PooledRecvByteBufAllocatorInitializers.UNPOOLED_MERGE_CUMULATOR;
 import static java.lang.Character.isISOControl;
 import static java.lang.Character.isWhitespace;
 import static java.lang.Math.min;
@@ -83,8 +86,6 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
     private static final byte COLON_BYTE = (byte) ':';
     private static final byte SPACE_BYTE = (byte) ' ';
     private static final byte HTAB_BYTE = (byte) '\t';
-    private static final ByteProcessor FIND_COLON_OR_WHITE_SPACE =
-            value -> value != COLON_BYTE && value != SPACE_BYTE && value != HTAB_BYTE;
     private static final ByteProcessor SKIP_CONTROL_CHARS_PROCESSOR = value ->
         value == SPACE_BYTE || value == HTAB_BYTE || isISOControl((char) (value & 0xff));
     private static final int MAX_HEX_CHARS_FOR_LONG = 16; // 0x7FFFFFFFFFFFFFFF == Long.MAX_INT
@@ -136,6 +137,8 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         this.headersFactory = requireNonNull(headersFactory);
         this.maxStartLineLength = maxStartLineLength;
         this.maxHeaderFieldLength = maxHeaderFieldLength;
+        // Content and headers are retained slices of the cumulation, keep it out of pooled memory.
+        setCumulator(UNPOOLED_MERGE_CUMULATOR);
     }
 
     final HttpHeadersFactory headersFactory() {
@@ -295,7 +298,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                 if (toRead > 0) {
                     ByteBuf content = buffer.readRetainedSlice(toRead);
                     cumulationIndex = buffer.readerIndex();
-                    ctx.fireChannelRead(newBufferFrom(content));
+                    ctx.fireChannelRead(newUnreleasableBufferFrom(content));
                 }
                 return;
             }
@@ -323,12 +326,12 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                     // Read all content.
                     // https://tools.ietf.org/html/rfc7230.html#section-4.1
                     // This is not chunked encoding so there will not be any trailers.
-                    ctx.fireChannelRead(newBufferFrom(content));
+                    ctx.fireChannelRead(newUnreleasableBufferFrom(content));
                     ctx.fireChannelRead(EmptyHttpHeaders.INSTANCE);
                     closeHandler.protocolPayloadEndInbound(ctx);
                     resetNow();
                 } else {
-                    ctx.fireChannelRead(newBufferFrom(content));
+                    ctx.fireChannelRead(newUnreleasableBufferFrom(content));
                 }
                 return;
             }
@@ -355,7 +358,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                 if (toRead == 0) {
                     return;
                 }
-                Buffer chunk = newBufferFrom(buffer.readRetainedSlice(toRead));
+                Buffer chunk = newUnreleasableBufferFrom(buffer.readRetainedSlice(toRead));
                 chunkSize -= toRead;
                 cumulationIndex = buffer.readerIndex();
 
@@ -556,8 +559,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
             throw new IllegalArgumentException("unable to find start of header name");
         }
 
-        int headerEnd = buffer.forEachByte(headerStart + 1, nonControlIndex - headerStart,
-                FIND_COLON_OR_WHITE_SPACE);
+        int headerEnd = indexOfColonOrLinearWhitespace(buffer, headerStart + 1, nonControlIndex + 1);
         if (headerEnd < 0) {
             throw new IllegalArgumentException("unable to find end of header name");
         }
@@ -567,8 +569,14 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         }
 
         int valueStart = headerEnd + 1;
-        // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-        CharSequence name = newAsciiString(newBufferFrom(buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        // Well-known names map to shared constants, which avoids the slice and caches the hash code across messages.
+        CharSequence name = KnownHeaderNames.find(buffer, headerStart, headerEnd - headerStart);
+        if (name == null) {
+            // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data. The
+            // cumulation is never pooled (see UNPOOLED_MERGE_CUMULATOR), so the slice is wrapped without a copy.
+            name = newAsciiString(newUnreleasableBufferFrom(
+                    buffer.retainedSlice(headerStart, headerEnd - headerStart)));
+        }
         if (nonControlIndex < valueStart) {
             headers.add(name, emptyAsciiString());
         } else {
@@ -580,7 +588,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
                 headers.add(name, emptyAsciiString());
             } else {
                 // We assume the allocator will not leak memory, and so we retain + slice to avoid copying data.
-                headers.add(name, newAsciiString(newBufferFrom(
+                headers.add(name, newAsciiString(newUnreleasableBufferFrom(
                         buffer.retainedSlice(valueStart, valueEnd - valueStart + 1))));
             }
         }
@@ -731,7 +739,7 @@ abstract class HttpObjectDecoder<T extends HttpMetaData> extends ByteToMessageDe
         if (fromIndex >= toIndex) {
             return -1;
         }
-        return buffer.forEachByte(fromIndex, toIndex - fromIndex, FIND_LF);
+        return indexOf(buffer, fromIndex, toIndex, LF);
     }
 
     static void splitInitialLineError() {
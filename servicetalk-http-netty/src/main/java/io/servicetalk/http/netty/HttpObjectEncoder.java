@@ -31,6 +31,7 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.http.api.HttpFileRegion;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpMetaData;
 import io.servicetalk.transport.netty.internal.CloseHandler;
@@ -40,8 +41,11 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.PromiseCombiner;
 
+import java.nio.channels.FileChannel;
 import java.util.Map;
 
 import static io.netty.buffer.ByteBufUtil.writeMediumBE;
@@ -60,6 +64,8 @@ import static io.servicetalk.buffer.netty.BufferUtils.toByteBufNoThrow;
 import static io.servicetalk.http.api.CharSequences.unwrapBuffer;
 import static io.servicetalk.http.api.HeaderUtils.isTransferEncodingChunked;
 import static io.servicetalk.http.netty.HeaderUtils.calculateContentLength;
+import static io.servicetalk.http.netty.HttpFileRegions.chunkedInput;
+import static io.servicetalk.http.netty.HttpFileRegions.open;
 import static io.servicetalk.http.netty.HttpKeepAlive.shouldClose;
 import static io.servicetalk.transport.netty.internal.PooledRecvByteBufAllocatorInitializers.POOLED_ALLOCATOR;
 import static java.lang.Long.toHexString;
@@ -184,6 +190,37 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                         throw new Error();
                 }
             }
+        } else if (msg instanceof HttpFileRegion) {
+            final HttpFileRegion fileRegion = (HttpFileRegion) msg;
+            switch (state) {
+                case ST_INIT:
+                    throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
+                case ST_CONTENT_NON_CHUNK:
+                    if (fileRegion.count() > 0) {
+                        ctx.write(encodeFileRegion(ctx, fileRegion), promise);
+                        break;
+                    }
+
+                    // fall-through!
+                case ST_CONTENT_ALWAYS_EMPTY:
+                    ctx.write(EMPTY_BUFFER, promise);
+                    break;
+                case ST_CONTENT_CHUNK:
+                    if (fileRegion.count() > 0) {
+                        // Open the file before writing the chunk header, so a failure leaves no partial chunk behind.
+                        final Object content = encodeFileRegion(ctx, fileRegion);
+                        PromiseCombiner promiseCombiner = new PromiseCombiner();
+                        encodeChunkLength(ctx, fileRegion.count(), promiseCombiner);
+                        promiseCombiner.add(ctx.write(content));
+                        promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
+                        promiseCombiner.finish(promise);
+                    } else {
+                        ctx.write(EMPTY_BUFFER, promise);
+                    }
+                    break;
+                default:
+                    throw new Error();
+            }
         } else if (msg instanceof HttpHeaders) {
             closeHandler.protocolPayloadEndOutbound(ctx);
             promise.addListener(f -> {
@@ -255,11 +292,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     private static void encodeChunkedContent(ChannelHandlerContext ctx, Buffer msg, long contentLength,
                                              PromiseCombiner promiseCombiner) {
         if (contentLength > 0) {
-            String lengthHex = toHexString(contentLength);
-            ByteBuf buf = POOLED_ALLOCATOR.buffer(lengthHex.length() + 2);
-            buf.writeCharSequence(lengthHex, US_ASCII);
-            writeShortBE(buf, CRLF_SHORT);
-            promiseCombiner.add(ctx.write(buf));
+            encodeChunkLength(ctx, contentLength, promiseCombiner);
             promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
             promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
         } else {
@@ -270,6 +303,26 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         }
     }
 
+    private static void encodeChunkLength(ChannelHandlerContext ctx, long contentLength,
+                                          PromiseCombiner promiseCombiner) {
+        String lengthHex = toHexString(contentLength);
+        ByteBuf buf = POOLED_ALLOCATOR.buffer(lengthHex.length() + 2);
+        buf.writeCharSequence(lengthHex, US_ASCII);
+        writeShortBE(buf, CRLF_SHORT);
+        promiseCombiner.add(ctx.write(buf));
+    }
+
+    private static Object encodeFileRegion(ChannelHandlerContext ctx, HttpFileRegion fileRegion) {
+        final FileChannel fileChannel = open(fileRegion);
+        if (ctx.pipeline().get(SslHandler.class) != null) {
+            // The bytes have to pass through the SslHandler, so we can't use sendfile. Read bounded chunks as the
+            // channel becomes writable instead.
+            return chunkedInput(ctx, fileRegion, fileChannel);
+        }
+        // The transport uses sendfile/transferTo and closes the FileChannel when the FileRegion is released.
+        return new DefaultFileRegion(fileChannel, fileRegion.position(), fileRegion.count());
+    }
+
     private void encodeAndWriteTrailers(ChannelHandlerContext ctx, HttpHeaders headers, ChannelPromise promise) {
         if (headers.isEmpty()) {
             ctx.write(ZERO_CRLF_CRLF_BUF.duplicate(), promise);
@@ -336,8 +389,8 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
 
     private static ByteBuf encodeAndRetain(Buffer msg) {
         // We still want to retain the objects we encode because otherwise folks may hold on to references of objects
-        // with a 0 reference count and get an IllegalReferenceCountException.
-        // TODO(scott): add support for file region
+        // with a 0 reference count and get an IllegalReferenceCountException. This also applies to pooled buffers,
+        // which stay owned by the caller and may be written again, e.g. when a request is retried.
         return toByteBuf(msg).retain();
     }
 
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.HttpHeaderNames;
+
+import io.netty.buffer.ByteBuf;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static java.lang.Character.toUpperCase;
+import static java.lang.Math.max;
+
+/**
+ * Maps header names read from the wire to shared constants, so that decoding a well-known header name neither
+ * allocates nor requires hashing the name again when it is added to the headers.
+ * <p>
+ * The names of {@link HttpHeaderNames} and a few other common names are known in lower case, as sent by HTTP/2
+ * bridges, gRPC and most programmatic clients, and in capitalized form (e.g. {@code Content-Type}), as sent by
+ * browsers. Only exact matches are mapped to preserve the case seen on the wire, any other name is decoded as before.
+ */
+final class KnownHeaderNames {
+    private static final String[] ADDITIONAL_NAMES = {
+            "grpc-accept-encoding", "grpc-encoding", "grpc-message", "grpc-status", "grpc-timeout",
+            "sec-fetch-dest", "sec-fetch-mode", "sec-fetch-site", "sec-fetch-user", "upgrade-insecure-requests",
+            "x-request-id",
+    };
+    // Power of 2 which keeps the load factor of the open addressing table below 0.5.
+    private static final int TABLE_SIZE = 512;
+    private static final CharSequence[] TABLE = new CharSequence[TABLE_SIZE];
+    private static final int MAX_NAME_LENGTH;
+
+    static {
+        int maxNameLength = 0;
+        for (Field field : HttpHeaderNames.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == CharSequence.class) {
+                try {
+                    maxNameLength = max(maxNameLength, addWithCapitalized((CharSequence) field.get(null)));
+                } catch (IllegalAccessException e) {
+                    throw new ExceptionInInitializerError(e);
+                }
+            }
+        }
+        for (String name : ADDITIONAL_NAMES) {
+            maxNameLength = max(maxNameLength, addWithCapitalized(newAsciiString(name)));
+        }
+        MAX_NAME_LENGTH = maxNameLength;
+    }
+
+    private KnownHeaderNames() {
+        // No instances
+    }
+
+    /**
+     * Find the shared constant for the header name in {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuf} which contains the header name.
+     * @param start the index of the first byte of the header name.
+     * @param length the length of the header name.
+     * @return the shared constant with the same content as the header name, or {@code null} if the name is not known.
+     */
+    @Nullable
+    static CharSequence find(final ByteBuf buffer, final int start, final int length) {
+        if (length > MAX_NAME_LENGTH) {
+            return null;
+        }
+        int hash = 0;
+        for (int i = start; i < start + length; ++i) {
+            hash = 31 * hash + buffer.getByte(i);
+        }
+        for (int i = hash & (TABLE_SIZE - 1);; i = (i + 1) & (TABLE_SIZE - 1)) {
+            final CharSequence name = TABLE[i];
+            if (name == null) {
+                return null;
+            }
+            if (contentEquals(name, buffer, start, length)) {
+                return name;
+            }
+        }
+    }
+
+    private static int addWithCapitalized(final CharSequence name) {
+        add(name);
+        add(newAsciiString(capitalize(name)));
+        return name.length();
+    }
+
+    private static void add(final CharSequence name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); ++i) {
+            hash = 31 * hash + (byte) name.charAt(i);
+        }
+        for (int i = hash & (TABLE_SIZE - 1);; i = (i + 1) & (TABLE_SIZE - 1)) {
+            final CharSequence existing = TABLE[i];
+            if (existing == null) {
+                // The constants of HttpHeaderNames are stored as is, so decoded names are identical to them.
+                TABLE[i] = name;
+                return;
+            }
+            if (existing.toString().contentEquals(name)) {
+                return;
+            }
+        }
+    }
+
+    private static String capitalize(final CharSequence name) {
+        final StringBuilder sb = new StringBuilder(name.length());
+        boolean upper = true;
+        for (int i = 0; i < name.length(); ++i) {
+            final char c = name.charAt(i);
+            sb.append(upper ? toUpperCase(c) : c);
+            upper = c == '-';
+        }
+        return sb.toString();
+    }
+
+    private static boolean contentEquals(final CharSequence name, final ByteBuf buffer, final int start,
+                                         final int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; ++i) {
+            if (name.charAt(i) != (char) (buffer.getByte(start + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -15,6 +15,7 @@
  */
 package io.servicetalk.http.netty;
 
+import io.servicetalk.client.api.InFlightRequestListener;
 import io.servicetalk.client.api.LoadBalancer;
 import io.servicetalk.client.api.internal.ReservableRequestConcurrencyController;
 import io.servicetalk.concurrent.api.Completable;
@@ -35,7 +36,12 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
 import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
 
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.internal.RequestConcurrencyController.Result.Accepted;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingStreamingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedConnection;
@@ -43,6 +49,13 @@ import static java.util.Objects.requireNonNull;
 
 /**
  * Makes the wrapped {@link StreamingHttpConnection} aware of the {@link LoadBalancer}.
+ * <p>
+ * Requests accepted by {@link #tryRequest()} are reported to the
+ * {@link #inFlightRequestListener(InFlightRequestListener) InFlightRequestListener}, if any, which allows load aware
+ * {@link LoadBalancer}s to prefer less loaded hosts and connections.
+ * <p>
+ * {@link #isAffineToCurrentThread()} reports if the calling thread is the event loop servicing this connection, which
+ * allows event loop affine {@link LoadBalancer}s to avoid handing off requests between I/O threads.
  */
 final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHttpLoadBalancedConnection,
                    ReservedStreamingHttpConnection, ReservableRequestConcurrencyController,
@@ -55,6 +68,10 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
     private final FilterableStreamingHttpLoadBalancedConnection filteredConnection;
     private final HttpExecutionStrategy streamingStrategy;
     private final HttpExecutionStrategyInfluencer strategyInfluencer;
+    @Nullable
+    private final EventLoopAwareNettyIoExecutor eventLoop;
+    @Nullable
+    private volatile InFlightRequestListener inFlightListener;
 
     LoadBalancedStreamingHttpConnection(FilterableStreamingHttpLoadBalancedConnection filteredConnection,
                                         ReservableRequestConcurrencyController limiter,
@@ -64,6 +81,9 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
         this.limiter = requireNonNull(limiter);
         this.streamingStrategy = streamingStrategy;
         this.strategyInfluencer = strategyInfluencer;
+        final IoExecutor ioExecutor = filteredConnection.executionContext().ioExecutor();
+        eventLoop = ioExecutor instanceof EventLoopAwareNettyIoExecutor ?
+                (EventLoopAwareNettyIoExecutor) ioExecutor : null;
     }
 
     @Override
@@ -73,11 +93,22 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
 
     @Override
     public Result tryRequest() {
-        return limiter.tryRequest();
+        final Result result = limiter.tryRequest();
+        if (result == Accepted) {
+            final InFlightRequestListener inFlightListener = this.inFlightListener;
+            if (inFlightListener != null) {
+                inFlightListener.requestStarted();
+            }
+        }
+        return result;
     }
 
     @Override
     public void requestFinished() {
+        final InFlightRequestListener inFlightListener = this.inFlightListener;
+        if (inFlightListener != null) {
+            inFlightListener.requestFinished();
+        }
         limiter.requestFinished();
     }
 
@@ -161,4 +192,14 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
     public float score() {
         return filteredConnection.score();
     }
+
+    @Override
+    public void inFlightRequestListener(final InFlightRequestListener listener) {
+        inFlightListener = requireNonNull(listener);
+    }
+
+    @Override
+    public boolean isAffineToCurrentThread() {
+        return eventLoop != null && eventLoop.isCurrentThreadEventLoop();
+    }
 }
@@ -74,6 +74,11 @@ final class NettyH2HeadersToHttpHeaders implements HttpHeaders {
         return nettyHeaders.valueIterator(name);
     }
 
+    @Override
+    public boolean contains(final CharSequence name) {
+        return nettyHeaders.contains(name);
+    }
+
     @Override
     public boolean contains(final CharSequence name, final CharSequence value) {
         return nettyHeaders.contains(name, value);
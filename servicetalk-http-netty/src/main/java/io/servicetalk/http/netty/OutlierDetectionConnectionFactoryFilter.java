@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionFactoryFilter;
+import io.servicetalk.client.api.DelegatingConnectionFactory;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpResponseMetaData;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.loadbalancer.OutlierDetector;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
+
+import java.util.function.Predicate;
+
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link ConnectionFactoryFilter} which reports the outcome of every request to an {@link OutlierDetector}, so
+ * that a load balancer created by {@link RoundRobinLoadBalancer#newRoundRobinFactory(OutlierDetector)} skips
+ * unhealthy hosts.
+ * <p>
+ * A request fails if it terminates with an error or if its response is classified as a failure, by default responses
+ * with a {@link io.servicetalk.http.api.HttpResponseStatus.StatusClass#SERVER_ERROR_5XX 5xx} status. A request which
+ * is cancelled before its response arrives is not reported, as the cancellation is not necessarily caused by the
+ * host, e.g. a hedged request is cancelled if another host responds first.
+ *
+ * @param <ResolvedAddress> The type of a resolved address that can be used for connecting.
+ */
+public final class OutlierDetectionConnectionFactoryFilter<ResolvedAddress>
+        implements ConnectionFactoryFilter<ResolvedAddress, FilterableStreamingHttpConnection>,
+                   HttpExecutionStrategyInfluencer {
+
+    private final OutlierDetector<ResolvedAddress> outlierDetector;
+    private final Predicate<HttpResponseMetaData> isFailure;
+
+    /**
+     * Creates a new instance which classifies responses with a 5xx status as failures.
+     *
+     * @param outlierDetector {@link OutlierDetector} to report the outcome of requests to.
+     */
+    public OutlierDetectionConnectionFactoryFilter(final OutlierDetector<ResolvedAddress> outlierDetector) {
+        this(outlierDetector, response -> SERVER_ERROR_5XX.contains(response.status()));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param outlierDetector {@link OutlierDetector} to report the outcome of requests to.
+     * @param isFailure {@link Predicate} which returns {@code true} for responses that should be reported as
+     * failures.
+     */
+    public OutlierDetectionConnectionFactoryFilter(final OutlierDetector<ResolvedAddress> outlierDetector,
+                                                   final Predicate<HttpResponseMetaData> isFailure) {
+        this.outlierDetector = requireNonNull(outlierDetector);
+        this.isFailure = requireNonNull(isFailure);
+    }
+
+    @Override
+    public ConnectionFactory<ResolvedAddress, FilterableStreamingHttpConnection> create(
+            final ConnectionFactory<ResolvedAddress, FilterableStreamingHttpConnection> original) {
+        return new DelegatingConnectionFactory<ResolvedAddress, FilterableStreamingHttpConnection>(original) {
+            @Override
+            public Single<FilterableStreamingHttpConnection> newConnection(final ResolvedAddress resolvedAddress) {
+                return delegate().newConnection(resolvedAddress)
+                        .map(connection -> new OutlierDetectionConnection(connection, resolvedAddress));
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private final class OutlierDetectionConnection extends StreamingHttpConnectionFilter {
+        private final ResolvedAddress address;
+
+        OutlierDetectionConnection(final FilterableStreamingHttpConnection delegate, final ResolvedAddress address) {
+            super(delegate);
+            this.address = address;
+        }
+
+        @Override
+        public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                     final StreamingHttpRequest request) {
+            return delegate().request(strategy, request)
+                    .beforeOnSuccess(this::onResponse)
+                    .beforeOnError(__ -> outlierDetector.onFailure(address));
+        }
+
+        private void onResponse(final HttpResponseMetaData response) {
+            if (isFailure.test(response)) {
+                outlierDetector.onFailure(address);
+            } else {
+                outlierDetector.onSuccess(address);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.buffer.ByteBuf;
+
+import static java.lang.Long.numberOfLeadingZeros;
+
+/**
+ * Searches {@link ByteBuf}s for bytes eight at a time, using SIMD within a register (SWAR).
+ * <p>
+ * Each {@code long} read from the buffer is compared against a pattern which repeats the searched byte in every
+ * position. The comparison yields the high bit of each matching byte and is exact, so the first match is located
+ * with a single {@link Long#numberOfLeadingZeros(long)} on the big endian word. The remaining bytes which do not fill
+ * a {@code long} are compared one by one.
+ */
+final class SwarByteSearch {
+    private static final long LOW_7_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long COLON_PATTERN = pattern((byte) ':');
+    private static final long SPACE_PATTERN = pattern((byte) ' ');
+    private static final long HTAB_PATTERN = pattern((byte) '\t');
+
+    private SwarByteSearch() {
+        // No instances
+    }
+
+    /**
+     * Find the first occurrence of {@code value} in {@code buffer}.
+     *
+     * @param buffer the {@link ByteBuf} to search.
+     * @param fromIndex the index to start searching at (inclusive).
+     * @param toIndex the index to stop searching at (exclusive), must not exceed the {@link ByteBuf#writerIndex()}.
+     * @param value the byte to find.
+     * @return the index of the first occurrence of {@code value}, or {@code -1} if there is none.
+     */
+    static int indexOf(final ByteBuf buffer, int fromIndex, final int toIndex, final byte value) {
+        final long pattern = pattern(value);
+        for (final int lastLongIndex = toIndex - Long.BYTES; fromIndex <= lastLongIndex; fromIndex += Long.BYTES) {
+            final long matches = matches(buffer.getLong(fromIndex), pattern);
+            if (matches != 0) {
+                return fromIndex + firstMatch(matches);
+            }
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            if (buffer.getByte(fromIndex) == value) {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Find the first colon, space or horizontal tab in {@code buffer}, which terminates an HTTP header name.
+     *
+     * @param buffer the {@link ByteBuf} to search.
+     * @param fromIndex the index to start searching at (inclusive).
+     * @param toIndex the index to stop searching at (exclusive), must not exceed the {@link ByteBuf#writerIndex()}.
+     * @return the index of the first colon, space or horizontal tab, or {@code -1} if there is none.
+     */
+    static int indexOfColonOrLinearWhitespace(final ByteBuf buffer, int fromIndex, final int toIndex) {
+        for (final int lastLongIndex = toIndex - Long.BYTES; fromIndex <= lastLongIndex; fromIndex += Long.BYTES) {
+            final long word = buffer.getLong(fromIndex);
+            final long matches = matches(word, COLON_PATTERN) | matches(word, SPACE_PATTERN) |
+                    matches(word, HTAB_PATTERN);
+            if (matches != 0) {
+                return fromIndex + firstMatch(matches);
+            }
+        }
+        for (; fromIndex < toIndex; ++fromIndex) {
+            final byte b = buffer.getByte(fromIndex);
+            if (b == ':' || b == ' ' || b == '\t') {
+                return fromIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static long pattern(final byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * Returns a {@code long} which has the high bit of each byte set where {@code word} equals {@code pattern}, and
+     * all other bits cleared.
+     */
+    private static long matches(final long word, final long pattern) {
+        final long input = word ^ pattern;
+        // Adding 0x7F to the low 7 bits of a byte sets its high bit unless they are all 0, and never carries into the
+        // next byte. A byte therefore matches if neither the sum nor the input has its high bit set.
+        final long tmp = (input & LOW_7_BITS) + LOW_7_BITS;
+        return ~(tmp | input | LOW_7_BITS);
+    }
+
+    private static int firstMatch(final long matches) {
+        // ByteBuf.getLong() is big endian, so the byte at the lowest index is the most significant one.
+        return numberOfLeadingZeros(matches) >>> 3;
+    }
+}
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.HttpFileRegion;
 import io.servicetalk.http.api.HttpMetaData;
 import io.servicetalk.http.api.HttpRequest;
 import io.servicetalk.http.api.HttpResponse;
@@ -27,6 +28,7 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 import org.hamcrest.Matcher;
 import org.junit.Test;
 
+import java.nio.file.Paths;
 import java.util.Collection;
 
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
@@ -49,6 +51,7 @@ import static org.junit.Assert.assertThat;
 public class ContentLengthTest extends AbstractNettyHttpServerTest {
 
     private static final DefaultHttpHeadersFactory headersFactory = new DefaultHttpHeadersFactory(false, false);
+    private static final long LARGE_REGION_SIZE = 3L * Integer.MAX_VALUE;
 
     public ContentLengthTest() {
         super(CACHED, CACHED);
@@ -110,6 +113,23 @@ public class ContentLengthTest extends AbstractNettyHttpServerTest {
         setResponseContentLengthAndVerify(response, is("12"));
     }
 
+    @Test
+    public void shouldCalculateResponseContentLengthFromFileRegionLargerThanMaxInt() throws Exception {
+        // The file is never opened to compute the content length.
+        HttpFileRegion region = HttpFileRegion.of(Paths.get("large.bin"), 0, LARGE_REGION_SIZE);
+        StreamingHttpResponse response = newAggregatedResponse().toStreamingResponse()
+                .transformRawPayloadBody(payload -> Publisher.from(region));
+        setResponseContentLengthAndVerify(response, is(Long.toString(LARGE_REGION_SIZE)));
+    }
+
+    @Test
+    public void shouldCalculateResponseContentLengthFromBufferAndFileRegionLargerThanMaxInt() throws Exception {
+        HttpFileRegion region = HttpFileRegion.of(Paths.get("large.bin"), 0, LARGE_REGION_SIZE);
+        StreamingHttpResponse response = newAggregatedResponse().toStreamingResponse()
+                .transformRawPayloadBody(payload -> Publisher.from(DEFAULT_ALLOCATOR.fromAscii("Hello"), region));
+        setResponseContentLengthAndVerify(response, is(Long.toString(LARGE_REGION_SIZE + 5)));
+    }
+
     private static HttpRequest newAggregatedRequest() {
         return awaitSingleIndefinitelyNonNull(StreamingHttpRequests.newRequest(GET, "/", HTTP_1_1,
                 headersFactory.newHeaders(), DEFAULT_ALLOCATOR, headersFactory).toRequest());
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2WindowUpdateFrame;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class H2ConnectionWindowHandlerTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void notRequiredByDefault() {
+        assertThat(H2ConnectionWindowHandler.isRequired(h2Default()), is(false));
+    }
+
+    @Test
+    public void initialConnectionWindow() {
+        EmbeddedChannel channel = new EmbeddedChannel(new H2ConnectionWindowHandler(h2()
+                .connectionWindowSize(1 << 20).build()));
+        Http2WindowUpdateFrame windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement(), is((1 << 20) - DEFAULT_WINDOW_SIZE));
+        assertThat(channel.readOutbound(), is(nullValue()));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void autoTuningGrowsWindowUpToMax() {
+        final int max = 4 * DEFAULT_WINDOW_SIZE;
+        EmbeddedChannel channel = new EmbeddedChannel(new H2ConnectionWindowHandler(h2()
+                .connectionWindowAutoTuning(max).build()));
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        // The whole window is received within one round trip, the window is doubled.
+        sampleBdp(channel, DEFAULT_WINDOW_SIZE);
+        Http2WindowUpdateFrame windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement(), is(DEFAULT_WINDOW_SIZE));
+        assertThat(channel.readInbound(), is(nullValue()));
+
+        // A small sample does not change the window.
+        sampleBdp(channel, 1024);
+        assertThat(channel.readOutbound(), is(nullValue()));
+
+        // The window never grows beyond the configured max.
+        sampleBdp(channel, 3 * DEFAULT_WINDOW_SIZE);
+        windowUpdate = channel.readOutbound();
+        assertThat(windowUpdate.windowSizeIncrement(), is(max - 2 * DEFAULT_WINDOW_SIZE));
+
+        // No more pings once the max has been reached.
+        channel.writeInbound(new DefaultHttp2DataFrame(wrappedBuffer(new byte[16])));
+        assertThat(channel.readOutbound(), is(nullValue()));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void userPingAcksArePropagated() {
+        EmbeddedChannel channel = new EmbeddedChannel(new H2ConnectionWindowHandler(h2()
+                .connectionWindowAutoTuning(1 << 20).build()));
+        channel.writeInbound(new DefaultHttp2PingFrame(42, true));
+        Object msg = channel.readInbound();
+        assertThat(msg, instanceOf(Http2PingFrame.class));
+        assertThat(((Http2PingFrame) msg).content(), is(42L));
+        channel.finishAndReleaseAll();
+    }
+
+    private static void sampleBdp(EmbeddedChannel channel, int bytes) {
+        channel.writeInbound(new DefaultHttp2DataFrame(wrappedBuffer(new byte[bytes])));
+        Http2PingFrame ping = channel.readOutbound();
+        assertThat(ping.ack(), is(false));
+        Http2DataFrame data = channel.readInbound();
+        data.release();
+        channel.writeInbound(new DefaultHttp2PingFrame(ping.content(), true));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.HttpHeaders;
+
+import io.netty.handler.codec.http2.Http2Headers;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.servicetalk.http.api.HttpHeaderNames.CONNECTION;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.TE;
+import static io.servicetalk.http.api.HttpHeaderNames.TRANSFER_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderValues.CHUNKED;
+import static io.servicetalk.http.netty.H2ToStH1Utils.h1HeadersToH2Headers;
+import static io.servicetalk.http.netty.H2ToStH1Utils.toLowerCaseName;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class H2ToStH1UtilsTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void h2HeadersArePassedThrough() {
+        HttpHeaders h1Headers = H2HeadersFactory.INSTANCE.newHeaders().set(CONTENT_TYPE, "application/grpc");
+        Http2Headers h2Headers = h1HeadersToH2Headers(h1Headers);
+        assertThat(h2Headers, is(sameInstance(((NettyH2HeadersToHttpHeaders) h1Headers).nettyHeaders())));
+    }
+
+    @Test
+    public void namesAreConvertedToLowerCase() {
+        HttpHeaders h1Headers = DefaultHttpHeadersFactory.INSTANCE.newHeaders()
+                .set("Content-Type", "application/grpc")
+                .set("x-custom", "value");
+        Http2Headers h2Headers = h1HeadersToH2Headers(h1Headers);
+        assertThat(h2Headers.size(), is(2));
+        assertThat(h2Headers.get("content-type").toString(), is("application/grpc"));
+        assertThat(h2Headers.get("x-custom").toString(), is("value"));
+    }
+
+    @Test
+    public void lowerCaseNameIsNotCopied() {
+        CharSequence name = "x-custom";
+        assertThat(toLowerCaseName(name), is(sameInstance(name)));
+        assertThat(toLowerCaseName("X-Custom").toString(), is("x-custom"));
+    }
+
+    @Test
+    public void connectionSpecificHeadersAreRemoved() {
+        HttpHeaders h1Headers = DefaultHttpHeadersFactory.INSTANCE.newHeaders()
+                .set(CONNECTION, "x-hop, x-other-hop")
+                .set("x-hop", "value")
+                .set("x-other-hop", "value")
+                .set(TRANSFER_ENCODING, CHUNKED)
+                .set(CONTENT_TYPE, "application/grpc");
+        Http2Headers h2Headers = h1HeadersToH2Headers(h1Headers);
+        assertThat(h2Headers.size(), is(1));
+        assertThat(h2Headers.get("x-hop"), is(nullValue()));
+        assertThat(h2Headers.get("x-other-hop"), is(nullValue()));
+    }
+
+    @Test
+    public void teWithMultipleValuesKeepsTrailers() {
+        HttpHeaders h1Headers = DefaultHttpHeadersFactory.INSTANCE.newHeaders().set(TE, "gzip, trailers");
+        Http2Headers h2Headers = h1HeadersToH2Headers(h1Headers);
+        assertThat(h2Headers.getAll("te").size(), is(1));
+        assertThat(h2Headers.get("te").toString(), is("trailers"));
+    }
+
+    @Test
+    public void teWithoutTrailersIsRemoved() {
+        HttpHeaders h1Headers = DefaultHttpHeadersFactory.INSTANCE.newHeaders().set(TE, "gzip, deflate");
+        Http2Headers h2Headers = h1HeadersToH2Headers(h1Headers);
+        assertThat(h2Headers.isEmpty(), is(true));
+    }
+}
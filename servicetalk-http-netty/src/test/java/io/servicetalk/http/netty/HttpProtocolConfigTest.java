@@ -29,10 +29,14 @@ import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
 
 import java.net.InetSocketAddress;
+import java.util.function.BiPredicate;
 
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
 import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.rules.ExpectedException.none;
 
@@ -170,4 +174,17 @@ public class HttpProtocolConfigTest {
         expectedException.expectMessage(startsWith("Duplicated configuration"));
         builder.protocols(h2Default(), h2Default());
     }
+
+    @Test
+    public void h2NeverIndexedHeadersAreCombinedWithSensitivityDetector() {
+        BiPredicate<CharSequence, CharSequence> detector = h2()
+                .headersSensitivityDetector((name, value) -> "authorization".contentEquals(name))
+                .neverIndexedHeaders("grpc-timeout", "X-Request-Id")
+                .build().headersSensitivityDetector();
+
+        assertThat(detector.test("grpc-timeout", "100m"), is(true));
+        assertThat(detector.test("x-request-id", "1"), is(true));
+        assertThat(detector.test("authorization", "secret"), is(true));
+        assertThat(detector.test("x-tenant-id", "tenant-42"), is(false));
+    }
 }
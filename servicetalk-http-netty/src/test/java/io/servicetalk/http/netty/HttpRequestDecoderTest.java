@@ -16,6 +16,7 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.netty.PooledBufferAllocatorRule;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpRequestMetaData;
@@ -31,11 +32,13 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.netty.util.AsciiString.contentEquals;
 import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtils.getByteBufAllocator;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
 import static io.servicetalk.http.api.HttpHeaderNames.USER_AGENT;
 import static io.servicetalk.http.api.HttpHeaderValues.KEEP_ALIVE;
@@ -43,14 +46,19 @@ import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
 import static io.servicetalk.http.api.HttpRequestMethod.GET;
 import static java.lang.Integer.toHexString;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.core.IsInstanceOf.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class HttpRequestDecoderTest {
     @Rule
     public final ExpectedException expectedException = ExpectedException.none();
+    @Rule
+    public final PooledBufferAllocatorRule pooledAllocator = PooledBufferAllocatorRule.preferHeap();
 
     @Test
     public void noVersion() {
@@ -79,6 +87,29 @@ public class HttpRequestDecoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void pooledChannelAllocatorIsNotUsedForReads() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.config().setAllocator(getByteBufAllocator(pooledAllocator.allocator()));
+        channel.pipeline().addLast(new HttpRequestDecoder(new ArrayDeque<>(),
+                DefaultHttpHeadersFactory.INSTANCE, 8192, 8192));
+        byte[] content = new byte[128];
+        ThreadLocalRandom.current().nextBytes(content);
+        // Split the headers so that the cumulation has to grow, which allocates from the channel allocator.
+        byte[] startLineAndHeaders = ("GET /some/path?foo=bar&baz=yyy HTTP/1.1" + "\r\n" +
+                "Connection: keep-alive" + "\r\n").getBytes(US_ASCII);
+        byte[] moreHeaders = ("User-Agent: unit-test" + "\r\n" +
+                "Content-Length: " + content.length + "\r\n" + "\r\n").getBytes(US_ASCII);
+        assertFalse(channel.writeInbound(wrappedBuffer(startLineAndHeaders)));
+        assertTrue(channel.writeInbound(wrappedBuffer(moreHeaders)));
+        assertTrue(channel.writeInbound(wrappedBuffer(content)));
+
+        validateHttpRequest(channel, content.length);
+        assertFalse(channel.finishAndReleaseAll());
+        // Decoded headers and content are slices of unpooled memory handed to the user without a copy.
+        assertEquals(0, pooledAllocator.numAllocations());
+    }
+
     @Test
     public void contentLengthNoTrailers() {
         EmbeddedChannel channel = newEmbeddedChannel();
@@ -424,6 +455,29 @@ public class HttpRequestDecoderTest {
         }
     }
 
+    @Test
+    public void knownHeaderNamesPreserveCase() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        byte[] beforeContentBytes = ("GET /some/path?foo=bar&baz=yyy HTTP/1.1" + "\r\n" +
+                "content-length: 0" + "\r\n" +
+                "User-Agent: unit-test" + "\r\n" +
+                "X-Unknown-Header: value" + "\r\n" + "\r\n").getBytes(US_ASCII);
+        assertTrue(channel.writeInbound(wrappedBuffer(beforeContentBytes)));
+
+        HttpRequestMetaData request = channel.readInbound();
+        List<String> names = new ArrayList<>();
+        for (Entry<CharSequence, CharSequence> header : request.headers()) {
+            if (contentEquals(CONTENT_LENGTH, header.getKey())) {
+                assertSame(CONTENT_LENGTH, header.getKey());
+            }
+            names.add(header.getKey().toString());
+        }
+        assertThat(names, containsInAnyOrder("content-length", "User-Agent", "X-Unknown-Header"));
+        HttpHeaders trailers = channel.readInbound();
+        assertTrue(trailers.isEmpty());
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     private static EmbeddedChannel newEmbeddedChannel() {
         return new EmbeddedChannel(new HttpRequestDecoder(new ArrayDeque<>(),
                 DefaultHttpHeadersFactory.INSTANCE, 8192, 8192));
@@ -18,13 +18,23 @@ package io.servicetalk.http.netty;
 import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.http.api.DefaultHttpHeadersFactory;
 import io.servicetalk.http.api.EmptyHttpHeaders;
+import io.servicetalk.http.api.HttpFileRegion;
 import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpResponseMetaData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.FileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayDeque;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -43,9 +53,15 @@ import static io.servicetalk.http.api.HttpResponseStatus.OK;
 import static java.lang.Integer.toHexString;
 import static java.lang.String.valueOf;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.Arrays.copyOfRange;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class HttpResponseEncoderTest {
     private enum TransferEncoding {
@@ -246,6 +262,107 @@ public class HttpResponseEncoderTest {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    public void contentLengthFileRegion() throws Exception {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        byte[] content = new byte[128];
+        ThreadLocalRandom.current().nextBytes(content);
+        Path file = Files.createTempFile("servicetalk", ".bin");
+        try {
+            Files.write(file, content);
+            HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+            response.headers()
+                    .add(CONNECTION, KEEP_ALIVE)
+                    .add(SERVER, "unit-test")
+                    .add(CONTENT_LENGTH, valueOf(content.length));
+            channel.writeOutbound(response);
+            channel.writeOutbound(HttpFileRegion.of(file));
+            channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+
+            ByteBuf byteBuf = channel.readOutbound();
+            String actualMetaData = byteBuf.toString(US_ASCII);
+            byteBuf.release();
+            assertTrue("unexpected metadata: " + actualMetaData,
+                    actualMetaData.contains(CONTENT_LENGTH + ": " + valueOf(content.length) + "\r\n"));
+            verifyFileRegion(channel.readOutbound(), content);
+            consumeEmptyBufferFromTrailers(channel);
+            assertFalse(channel.finishAndReleaseAll());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void chunkedFileRegion() throws Exception {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        byte[] content = new byte[128];
+        ThreadLocalRandom.current().nextBytes(content);
+        Path file = Files.createTempFile("servicetalk", ".bin");
+        try {
+            Files.write(file, content);
+            HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+            response.headers()
+                    .add(CONNECTION, KEEP_ALIVE)
+                    .add(SERVER, "unit-test")
+                    .add(TRANSFER_ENCODING, CHUNKED);
+            channel.writeOutbound(response);
+            channel.writeOutbound(HttpFileRegion.of(file, 16, 64));
+            channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+
+            ByteBuf byteBuf = channel.readOutbound();
+            byteBuf.release();
+            byteBuf = channel.readOutbound();
+            assertEquals(toHexString(64) + "\r\n", byteBuf.toString(US_ASCII));
+            byteBuf.release();
+            verifyFileRegion(channel.readOutbound(), copyOfRange(content, 16, 80));
+            byteBuf = channel.readOutbound();
+            assertEquals("\r\n", byteBuf.toString(US_ASCII));
+            byteBuf.release();
+            byteBuf = channel.readOutbound();
+            assertEquals("0\r\n\r\n", byteBuf.toString(US_ASCII));
+            byteBuf.release();
+            assertFalse(channel.finishAndReleaseAll());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void chunkedFileRegionWritesNoChunkHeaderIfFileCanNotBeOpened() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.headers()
+                .add(SERVER, "unit-test")
+                .add(TRANSFER_ENCODING, CHUNKED);
+        channel.writeOutbound(response);
+        ByteBuf byteBuf = channel.readOutbound();
+        byteBuf.release();
+        try {
+            channel.writeOutbound(HttpFileRegion.of(Paths.get("does-not-exist.bin"), 0, 64));
+            fail();
+        } catch (UncheckedIOException expected) {
+            // expected
+        }
+        assertNull("Unexpected chunk header.", channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    private static void verifyFileRegion(Object msg, byte[] expected) throws IOException {
+        assertThat(msg, instanceOf(FileRegion.class));
+        FileRegion region = (FileRegion) msg;
+        try {
+            assertEquals(expected.length, region.count());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            while (region.transferred() < region.count()) {
+                region.transferTo(target, region.transferred());
+            }
+            assertArrayEquals(expected, out.toByteArray());
+        } finally {
+            region.release();
+        }
+    }
+
     private static void verifyHttpResponse(EmbeddedChannel channel, Buffer buffer, TransferEncoding encoding,
                                           boolean trailers) {
         ByteBuf byteBuf = channel.readOutbound();
@@ -0,0 +1,133 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.loadbalancer.OutlierDetector;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Publisher.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OutlierDetectionConnectionFactoryFilterTest {
+    private static final String ADDRESS = "address";
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final OutlierDetector<String> detector = new OutlierDetector.Builder<String>()
+            .consecutiveFailures(1)
+            .ejectionTime(Duration.ofHours(1), Duration.ofHours(1))
+            .build();
+    private final TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+    private final TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+    private RoundRobinLoadBalancer<String, LoadBalancedConnection> loadBalancer;
+    private FilterableStreamingHttpConnection connection;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        // Hosts are tracked by the detector while a load balancer uses them.
+        ConnectionFactory<String, LoadBalancedConnection> lbConnectionFactory = mock(ConnectionFactory.class);
+        when(lbConnectionFactory.closeAsync()).thenReturn(completed());
+        when(lbConnectionFactory.closeAsyncGracefully()).thenReturn(completed());
+        loadBalancer = new RoundRobinLoadBalancer<>(
+                from((ServiceDiscovererEvent<String>) new DefaultServiceDiscovererEvent<>(ADDRESS, true))
+                        .concat(never()), lbConnectionFactory, String::compareTo, false, detector);
+
+        FilterableStreamingHttpConnection delegate = mock(FilterableStreamingHttpConnection.class);
+        when(delegate.request(any(), any())).thenReturn(response);
+        ConnectionFactory<String, FilterableStreamingHttpConnection> original = mock(ConnectionFactory.class);
+        when(original.newConnection(ADDRESS)).thenReturn(succeeded(delegate));
+        connection = awaitIndefinitely(new OutlierDetectionConnectionFactoryFilter<>(detector).create(original)
+                .newConnection(ADDRESS));
+        toSource(connection.request(defaultStrategy(), reqRespFactory.get("/"))).subscribe(subscriber);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        awaitIndefinitely(loadBalancer.closeAsync());
+    }
+
+    @Test
+    public void successfulResponse() {
+        response.onSuccess(reqRespFactory.ok());
+        assertThat(subscriber.isSuccess(), is(true));
+        assertThat(detector.isEjected(ADDRESS), is(false));
+    }
+
+    @Test
+    public void serverErrorResponseIsAFailure() {
+        response.onSuccess(reqRespFactory.internalServerError());
+        assertThat(subscriber.isSuccess(), is(true));
+        assertThat(detector.isEjected(ADDRESS), is(true));
+    }
+
+    @Test
+    public void errorIsAFailure() {
+        response.onError(DELIBERATE_EXCEPTION);
+        assertThat(subscriber.isErrored(), is(true));
+        assertThat(detector.isEjected(ADDRESS), is(true));
+    }
+
+    @Test
+    public void cancelIsNotAFailure() {
+        subscriber.cancellable().cancel();
+        assertThat(detector.isEjected(ADDRESS), is(false));
+    }
+
+    @Test
+    public void cancelAfterResponseIsNotAFailure() {
+        response.onSuccess(reqRespFactory.ok());
+        subscriber.cancellable().cancel();
+        assertThat(detector.isEjected(ADDRESS), is(false));
+    }
+}
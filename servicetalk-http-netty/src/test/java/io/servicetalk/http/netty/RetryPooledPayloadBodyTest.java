@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.netty.PooledBufferAllocatorRule;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.utils.RetryingHttpRequesterFilter;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.buffer.netty.BufferUtils.release;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RetryPooledPayloadBodyTest {
+
+    @Rule
+    public final PooledBufferAllocatorRule pooledAllocator = PooledBufferAllocatorRule.preferDirect();
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final ServerContext serverContext;
+    private final BlockingHttpClient client;
+
+    public RetryPooledPayloadBodyTest() throws Exception {
+        serverContext = HttpServers.forAddress(localAddress(0))
+                .listenBlockingAndAwait((ctx, request, responseFactory) ->
+                        responseFactory.ok().payloadBody(request.payloadBody()));
+        client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                .appendClientFilter(new RetryingHttpRequesterFilter.Builder()
+                        .maxRetries(1)
+                        .retryFor((md, t) -> t == DELIBERATE_EXCEPTION)
+                        .buildWithImmediateRetries())
+                // Fails the first attempt after its payload body was written, which makes the filter above write the
+                // same payload body again.
+                .appendClientFilter(next -> new StreamingHttpClientFilter(next) {
+                    @Override
+                    protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                                    final HttpExecutionStrategy strategy,
+                                                                    final StreamingHttpRequest request) {
+                        return delegate.request(strategy, request).flatMap(response -> {
+                            if (attempts.incrementAndGet() == 1) {
+                                return response.payloadBody().ignoreElements()
+                                        .<StreamingHttpResponse>concat(failed(DELIBERATE_EXCEPTION));
+                            }
+                            return succeeded(response);
+                        });
+                    }
+                })
+                .buildBlocking();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            client.close();
+        } finally {
+            serverContext.close();
+        }
+    }
+
+    @Test
+    public void retryWritesPooledPayloadBodyAgain() throws Exception {
+        final Buffer payload = pooledAllocator.allocator().fromAscii("pooled payload body");
+        try {
+            final HttpResponse response = client.request(client.post("/").payloadBody(payload));
+            assertThat("Unexpected number of attempts.", attempts.get(), is(2));
+            assertThat(response.status(), is(OK));
+            assertThat(response.payloadBody().toString(US_ASCII), is("pooled payload body"));
+            // The transport only holds its own reference while writing, the caller still owns the payload body.
+            assertThat(payload.toString(US_ASCII), is("pooled payload body"));
+        } finally {
+            assertThat("Pooled payload body released by the transport.", release(payload), is(true));
+        }
+    }
+}
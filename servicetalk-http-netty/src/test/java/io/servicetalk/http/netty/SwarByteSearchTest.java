@@ -0,0 +1,65 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Test;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
+import static io.servicetalk.http.netty.SwarByteSearch.indexOf;
+import static io.servicetalk.http.netty.SwarByteSearch.indexOfColonOrLinearWhitespace;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+
+public class SwarByteSearchTest {
+
+    @Test
+    public void findsEveryPosition() {
+        for (int length = 1; length <= 20; ++length) {
+            for (int position = 0; position < length; ++position) {
+                byte[] bytes = new byte[length];
+                // Bytes with the high bit set and bytes differing only in the high bit must not match.
+                for (int i = 0; i < length; ++i) {
+                    bytes[i] = (byte) (i % 2 == 0 ? 0x8A : 0x0B);
+                }
+                bytes[position] = '\n';
+                ByteBuf buffer = wrappedBuffer(bytes);
+                assertEquals(position, indexOf(buffer, 0, length, (byte) '\n'));
+                assertEquals(-1, indexOf(buffer, position + 1, length, (byte) '\n'));
+            }
+        }
+    }
+
+    @Test
+    public void findsFirstOfMultipleMatches() {
+        ByteBuf buffer = wrappedBuffer("abcdefg\nhij\nk\n".getBytes(US_ASCII));
+        assertEquals(7, indexOf(buffer, 0, buffer.writerIndex(), (byte) '\n'));
+        assertEquals(11, indexOf(buffer, 8, buffer.writerIndex(), (byte) '\n'));
+        assertEquals(-1, indexOf(buffer, 0, 7, (byte) '\n'));
+    }
+
+    @Test
+    public void findsColonOrLinearWhitespace() {
+        ByteBuf buffer = wrappedBuffer("content-type: text/plain".getBytes(US_ASCII));
+        assertEquals(12, indexOfColonOrLinearWhitespace(buffer, 0, buffer.writerIndex()));
+        buffer = wrappedBuffer("x-very-long-header-name\t: value".getBytes(US_ASCII));
+        assertEquals(23, indexOfColonOrLinearWhitespace(buffer, 0, buffer.writerIndex()));
+        buffer = wrappedBuffer("x-very-long-header-name".getBytes(US_ASCII));
+        assertEquals(-1, indexOfColonOrLinearWhitespace(buffer, 0, buffer.writerIndex()));
+        buffer = wrappedBuffer("host:".getBytes(US_ASCII));
+        assertEquals(4, indexOfColonOrLinearWhitespace(buffer, 1, buffer.writerIndex()));
+    }
+}
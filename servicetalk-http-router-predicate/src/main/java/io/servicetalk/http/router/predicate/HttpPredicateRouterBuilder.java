@@ -50,6 +50,9 @@ import static io.servicetalk.http.router.predicate.Predicates.pathIsOneOf;
 import static io.servicetalk.http.router.predicate.Predicates.pathRegex;
 import static io.servicetalk.http.router.predicate.Predicates.pathStartsWith;
 import static io.servicetalk.http.router.predicate.Predicates.regex;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -66,12 +69,21 @@ import static java.util.Objects.requireNonNull;
  * }</pre>
  * <p>
  * If no routes match, a default service is used, which returns a 404 response.
+ * <p>
+ * Routes which are constrained by {@link #whenPathEquals(String)}, {@link #whenPathIsOneOf(String...)} or
+ * {@link #whenPathStartsWith(String)} are indexed by path, so only the predicates of routes which can match the request
+ * path are evaluated. Routes are always selected in the order they were added.
  */
 public final class HttpPredicateRouterBuilder implements RouteStarter {
     private final List<Route> routes = new ArrayList<>();
     private final RouteContinuationImpl continuation = new RouteContinuationImpl();
     @Nullable
     private BiPredicate<ConnectionContext, StreamingHttpRequest> predicate;
+    // The first path constraint of the current route, used to index the route by path.
+    @Nullable
+    private List<String> exactPaths;
+    @Nullable
+    private String pathPrefix;
 
     @Override
     public RouteContinuation whenMethod(final HttpRequestMethod method) {
@@ -88,18 +100,27 @@ public final class HttpPredicateRouterBuilder implements RouteStarter {
     @Override
     public RouteContinuation whenPathEquals(final String path) {
         andPredicate(pathEquals(path));
+        if (isPathUnconstrained()) {
+            exactPaths = singletonList(path);
+        }
         return continuation;
     }
 
     @Override
     public RouteContinuation whenPathIsOneOf(final String... paths) {
         andPredicate(pathIsOneOf(paths));
+        if (paths.length > 0 && isPathUnconstrained()) {
+            exactPaths = unmodifiableList(asList(paths.clone()));
+        }
         return continuation;
     }
 
     @Override
     public RouteContinuation whenPathStartsWith(final String pathPrefix) {
         andPredicate(pathStartsWith(pathPrefix));
+        if (isPathUnconstrained()) {
+            this.pathPrefix = pathPrefix;
+        }
         return continuation;
     }
 
@@ -160,9 +181,18 @@ public final class HttpPredicateRouterBuilder implements RouteStarter {
 
     @Override
     public StreamingHttpService buildStreaming() {
+        for (Route route : routes) {
+            if (route.isPathIndexed()) {
+                return new PathTrieRouter(DefaultFallbackServiceStreaming.instance(), routes);
+            }
+        }
         return new InOrderRouter(DefaultFallbackServiceStreaming.instance(), routes);
     }
 
+    private boolean isPathUnconstrained() {
+        return exactPaths == null && pathPrefix == null;
+    }
+
     private void andPredicate(final BiPredicate<ConnectionContext, StreamingHttpRequest> newPredicate) {
         if (predicate == null) {
             predicate = newPredicate;
@@ -290,9 +320,11 @@ public final class HttpPredicateRouterBuilder implements RouteStarter {
         private RouteStarter thenRouteTo0(final StreamingHttpService route,
                                           @Nullable final HttpExecutionStrategy routeStrategy) {
             assert predicate != null;
-            routes.add(new Route(predicate, route, routeStrategy));
+            routes.add(new Route(predicate, route, routeStrategy, exactPaths, pathPrefix));
             // Reset shared state since we have finished current route construction
             predicate = null;
+            exactPaths = null;
+            pathPrefix = null;
             influencerChainBuilder = new StrategyInfluencerChainBuilder();
             strategy = null;
             return HttpPredicateRouterBuilder.this;
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.router.predicate;
+
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * An {@link StreamingHttpService} implementation which routes requests to a number of other
+ * {@link StreamingHttpService}s based on predicates, using the path constraints of {@link Route}s to narrow down
+ * the routes whose predicates need to be evaluated.
+ * <p>
+ * Routes with {@link Route#exactPaths() exact paths} are indexed in a hash table, routes with a
+ * {@link Route#pathPrefix() path prefix} are indexed in a prefix trie. Every entry holds the indices of all routes
+ * which can match the corresponding paths, including routes without path constraints, in the order the routes were
+ * specified. For each request only the predicates of these candidates are evaluated, in order, and the service from the
+ * first one which returns {@code true} is used to handle the request. This selects the same route as
+ * {@link InOrderRouter}, but the number of evaluated predicates depends on the length of the path rather than on the
+ * total number of routes. If no predicates match, the fallback service specified is used.
+ */
+final class PathTrieRouter implements StreamingHttpService {
+
+    private final StreamingHttpService fallbackService;
+    private final Route[] routes;
+    private final Map<String, int[]> exactPathCandidates;
+    private final Node root;
+    private final AsyncCloseable closeable;
+
+    /**
+     * Constructs a router service with the specified fallback service, and predicate-service pairs to evaluate.
+     * @param fallbackService the service to use to handle requests if no predicates match.
+     * @param routes the list of predicate-service pairs to use for handling requests.
+     */
+    PathTrieRouter(final StreamingHttpService fallbackService, final List<Route> routes) {
+        this.fallbackService = requireNonNull(fallbackService);
+        this.routes = routes.toArray(new Route[0]);
+        this.closeable = newCompositeCloseable()
+                .mergeAll(fallbackService)
+                .mergeAll(routes.stream().map(Route::service).collect(toList()));
+
+        final NodeBuilder rootBuilder = new NodeBuilder();
+        final Map<String, SortedSet<Integer>> exactPaths = new HashMap<>();
+        for (int i = 0; i < this.routes.length; ++i) {
+            final Route route = this.routes[i];
+            final List<String> routeExactPaths = route.exactPaths();
+            final String pathPrefix = route.pathPrefix();
+            if (routeExactPaths != null) {
+                for (String path : routeExactPaths) {
+                    exactPaths.computeIfAbsent(path, __ -> new TreeSet<>()).add(i);
+                }
+            } else if (pathPrefix != null) {
+                rootBuilder.descendant(pathPrefix).routes.add(i);
+            } else {
+                // Routes without path constraints may match any path, they are candidates of every trie node.
+                rootBuilder.routes.add(i);
+            }
+        }
+        root = rootBuilder.build(new TreeSet<>());
+
+        exactPathCandidates = new HashMap<>(exactPaths.size() * 4 / 3 + 1);
+        for (Map.Entry<String, SortedSet<Integer>> entry : exactPaths.entrySet()) {
+            final SortedSet<Integer> candidates = new TreeSet<>(entry.getValue());
+            for (int i : root.find(entry.getKey())) {
+                candidates.add(i);
+            }
+            exactPathCandidates.put(entry.getKey(), toArray(candidates));
+        }
+    }
+
+    @Override
+    public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                final StreamingHttpRequest request,
+                                                final StreamingHttpResponseFactory factory) {
+        final String path = request.path();
+        int[] candidates = exactPathCandidates.get(path);
+        if (candidates == null) {
+            candidates = root.find(path);
+        }
+        for (final int i : candidates) {
+            final Route pair = routes[i];
+            if (pair.predicate().test(ctx, request)) {
+                StreamingHttpService service = pair.service();
+                final HttpExecutionStrategy strategy = pair.routeStrategy();
+                if (strategy != null) {
+                    service = strategy.offloadService(ctx.executionContext().executor(), service);
+                }
+                return service.handle(ctx, request, factory);
+            }
+        }
+        return fallbackService.handle(ctx, request, factory);
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return closeable.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return closeable.closeAsyncGracefully();
+    }
+
+    private static int[] toArray(final SortedSet<Integer> set) {
+        final int[] array = new int[set.size()];
+        int i = 0;
+        for (int value : set) {
+            array[i++] = value;
+        }
+        return array;
+    }
+
+    /**
+     * A node of the immutable prefix trie.
+     */
+    private static final class Node {
+        private final char[] keys;
+        private final Node[] children;
+        /**
+         * The indices of all routes which can match a path that has this node as its deepest match in the trie.
+         */
+        private final int[] candidates;
+
+        Node(final char[] keys, final Node[] children, final int[] candidates) {
+            this.keys = keys;
+            this.children = children;
+            this.candidates = candidates;
+        }
+
+        int[] find(final String path) {
+            Node node = this;
+            for (int i = 0; i < path.length(); ++i) {
+                final int index = Arrays.binarySearch(node.keys, path.charAt(i));
+                if (index < 0) {
+                    break;
+                }
+                node = node.children[index];
+            }
+            return node.candidates;
+        }
+    }
+
+    /**
+     * A mutable node of the prefix trie, used while the router is constructed.
+     */
+    private static final class NodeBuilder {
+        private final TreeMap<Character, NodeBuilder> children = new TreeMap<>();
+        private final SortedSet<Integer> routes = new TreeSet<>();
+
+        NodeBuilder descendant(final String path) {
+            NodeBuilder node = this;
+            for (int i = 0; i < path.length(); ++i) {
+                node = node.children.computeIfAbsent(path.charAt(i), __ -> new NodeBuilder());
+            }
+            return node;
+        }
+
+        Node build(final SortedSet<Integer> ancestorRoutes) {
+            final SortedSet<Integer> candidates = new TreeSet<>(ancestorRoutes);
+            candidates.addAll(routes);
+            final char[] keys = new char[children.size()];
+            final Node[] nodes = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, NodeBuilder> entry : children.entrySet()) {
+                keys[i] = entry.getKey();
+                nodes[i] = entry.getValue().build(candidates);
+                ++i;
+            }
+            return new Node(keys, nodes, toArray(candidates));
+        }
+    }
+}
@@ -20,6 +20,7 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpService;
 import io.servicetalk.transport.api.ConnectionContext;
 
+import java.util.List;
 import java.util.function.BiPredicate;
 import javax.annotation.Nullable;
 
@@ -31,12 +32,35 @@ final class Route {
     private final StreamingHttpService service;
     @Nullable
     private final HttpExecutionStrategy routeStrategy;
+    @Nullable
+    private final List<String> exactPaths;
+    @Nullable
+    private final String pathPrefix;
 
     Route(final BiPredicate<ConnectionContext, StreamingHttpRequest> predicate,
           final StreamingHttpService service, @Nullable final HttpExecutionStrategy strategy) {
+        this(predicate, service, strategy, null, null);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param predicate the predicate which must match for the route to be selected.
+     * @param service the service which handles requests for this route.
+     * @param strategy the {@link HttpExecutionStrategy} for the route or {@code null} if the service does not need
+     * offloading.
+     * @param exactPaths if not {@code null}, {@code predicate} can only match requests with one of these paths.
+     * @param pathPrefix if not {@code null}, {@code predicate} can only match requests with paths starting with this
+     * prefix. Ignored if {@code exactPaths} is not {@code null}.
+     */
+    Route(final BiPredicate<ConnectionContext, StreamingHttpRequest> predicate,
+          final StreamingHttpService service, @Nullable final HttpExecutionStrategy strategy,
+          @Nullable final List<String> exactPaths, @Nullable final String pathPrefix) {
         this.predicate = requireNonNull(predicate);
         this.service = requireNonNull(service);
         routeStrategy = strategy;
+        this.exactPaths = exactPaths;
+        this.pathPrefix = exactPaths == null ? pathPrefix : null;
     }
 
     BiPredicate<ConnectionContext, StreamingHttpRequest> predicate() {
@@ -51,4 +75,18 @@ final class Route {
     HttpExecutionStrategy routeStrategy() {
         return routeStrategy;
     }
+
+    @Nullable
+    List<String> exactPaths() {
+        return exactPaths;
+    }
+
+    @Nullable
+    String pathPrefix() {
+        return pathPrefix;
+    }
+
+    boolean isPathIndexed() {
+        return exactPaths != null || pathPrefix != null;
+    }
 }
@@ -149,6 +149,51 @@ public class HttpPredicateRouterBuilderTest extends BaseHttpPredicateRouterBuild
         assertSame(fallbackResponse, service.handle(ctx, request, reqRespFactory));
     }
 
+    @Test
+    public void testPathRoutesAreSelectedInOrder() {
+        final StreamingHttpService service = new HttpPredicateRouterBuilder()
+                .whenPathStartsWith("/a").andMethod(POST).thenRouteTo(serviceA)
+                .whenPathEquals("/abc").thenRouteTo(serviceB)
+                .when((ctx, req) -> req.method() == PUT).thenRouteTo(serviceC)
+                .whenPathStartsWith("/ab").thenRouteTo(serviceD)
+                .whenPathIsOneOf("/abc", "/x").thenRouteTo(serviceE)
+                .when((ctx, req) -> true).thenRouteTo(fallbackService)
+                .buildStreaming();
+
+        when(request.method()).thenReturn(POST);
+        when(request.path()).thenReturn("/abc");
+        assertSame(responseA, service.handle(ctx, request, reqRespFactory));
+
+        when(request.method()).thenReturn(PUT);
+        assertSame(responseB, service.handle(ctx, request, reqRespFactory));
+
+        when(request.path()).thenReturn("/abd");
+        assertSame(responseC, service.handle(ctx, request, reqRespFactory));
+
+        when(request.method()).thenReturn(GET);
+        assertSame(responseD, service.handle(ctx, request, reqRespFactory));
+
+        when(request.path()).thenReturn("/x");
+        assertSame(responseE, service.handle(ctx, request, reqRespFactory));
+
+        when(request.path()).thenReturn("/b");
+        assertSame(fallbackResponse, service.handle(ctx, request, reqRespFactory));
+    }
+
+    @Test
+    public void testPathPrefixIsNotIndexedWhenPathEqualsIsPresent() {
+        final StreamingHttpService service = new HttpPredicateRouterBuilder()
+                .whenPathEquals("/abc").andPathStartsWith("/xyz").thenRouteTo(serviceA)
+                .whenPathStartsWith("/").thenRouteTo(serviceB)
+                .buildStreaming();
+
+        when(request.path()).thenReturn("/abc");
+        assertSame(responseB, service.handle(ctx, request, reqRespFactory));
+
+        when(request.path()).thenReturn("/xyz");
+        assertSame(responseB, service.handle(ctx, request, reqRespFactory));
+    }
+
     @Test
     public void testWhenPathMatches() {
         final StreamingHttpService service = new HttpPredicateRouterBuilder()
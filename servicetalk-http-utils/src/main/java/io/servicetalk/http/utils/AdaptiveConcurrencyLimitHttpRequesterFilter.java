@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter that limits the number of concurrent requests with an {@link AdaptiveConcurrencyLimiter}. Requests over
+ * the limit fail with a {@link ConcurrencyLimitExceededException} before they are sent.
+ * <p>
+ * The round trip time of a request is measured until its response payload body terminates. Failed requests and
+ * responses with status {@code 503 Service Unavailable} or {@code 429 Too Many Requests} reduce the limit, cancelled
+ * requests do not affect it. All clients and connections created with the same instance share its limiter.
+ */
+public final class AdaptiveConcurrencyLimitHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                                          StreamingHttpConnectionFilterFactory,
+                                                                          HttpExecutionStrategyInfluencer {
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new instance with a default {@link AdaptiveConcurrencyLimiter}.
+     */
+    public AdaptiveConcurrencyLimitHttpRequesterFilter() {
+        this(new AdaptiveConcurrencyLimiter.Builder().build());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param limiter the {@link AdaptiveConcurrencyLimiter} to use.
+     */
+    public AdaptiveConcurrencyLimitHttpRequesterFilter(final AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = requireNonNull(limiter);
+    }
+
+    /**
+     * Returns the {@link AdaptiveConcurrencyLimiter} used by this filter, e.g. to export its limit as a metric.
+     *
+     * @return the {@link AdaptiveConcurrencyLimiter} used by this filter.
+     */
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                  final HttpExecutionStrategy strategy,
+                                                  final StreamingHttpRequest request) {
+        return defer(() -> {
+            if (!limiter.tryAcquire()) {
+                return failed(new ConcurrencyLimitExceededException("Concurrency limit " + limiter.limit() +
+                        " reached, request rejected."));
+            }
+            final ConcurrencyLimitSignalConsumer signalConsumer = new ConcurrencyLimitSignalConsumer(limiter);
+            final Single<StreamingHttpResponse> response;
+            try {
+                response = delegate.request(strategy, request);
+            } catch (Throwable t) {
+                signalConsumer.onError(t);
+                return failed(t);
+            }
+            return response.map(signalConsumer::onResponse)
+                    .liftSync(new BeforeFinallyOnHttpResponseOperator(signalConsumer))
+                    .subscribeShareContext();
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return AdaptiveConcurrencyLimitHttpRequesterFilter.this.request(delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return AdaptiveConcurrencyLimitHttpRequesterFilter.this.request(delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
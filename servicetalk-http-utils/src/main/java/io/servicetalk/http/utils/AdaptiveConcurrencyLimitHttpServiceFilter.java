@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter that limits the number of requests handled concurrently with an {@link AdaptiveConcurrencyLimiter}.
+ * Requests over the limit are rejected with {@code 503 Service Unavailable} without invoking the service, which
+ * clients may safely retry.
+ * <p>
+ * The latency of a request is measured until its response payload body terminates. Failed requests and responses
+ * with status {@code 503 Service Unavailable} or {@code 429 Too Many Requests} reduce the limit, cancelled requests do
+ * not affect it. All services created with the same instance share its limiter.
+ */
+public final class AdaptiveConcurrencyLimitHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                                        HttpExecutionStrategyInfluencer {
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    /**
+     * Creates a new instance with a default {@link AdaptiveConcurrencyLimiter}.
+     */
+    public AdaptiveConcurrencyLimitHttpServiceFilter() {
+        this(new AdaptiveConcurrencyLimiter.Builder().build());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param limiter the {@link AdaptiveConcurrencyLimiter} to use.
+     */
+    public AdaptiveConcurrencyLimitHttpServiceFilter(final AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = requireNonNull(limiter);
+    }
+
+    /**
+     * Returns the {@link AdaptiveConcurrencyLimiter} used by this filter, e.g. to export its limit as a metric.
+     *
+     * @return the {@link AdaptiveConcurrencyLimiter} used by this filter.
+     */
+    public AdaptiveConcurrencyLimiter limiter() {
+        return limiter;
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                return defer(() -> {
+                    if (!limiter.tryAcquire()) {
+                        return succeeded(responseFactory.serviceUnavailable());
+                    }
+                    final ConcurrencyLimitSignalConsumer signalConsumer = new ConcurrencyLimitSignalConsumer(limiter);
+                    final Single<StreamingHttpResponse> response;
+                    try {
+                        response = delegate().handle(ctx, request, responseFactory);
+                    } catch (Throwable t) {
+                        signalConsumer.onError(t);
+                        return failed(t);
+                    }
+                    return response.map(signalConsumer::onResponse)
+                            .liftSync(new BeforeFinallyOnHttpResponseOperator(signalConsumer))
+                            .subscribeShareContext();
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntConsumer;
+import javax.annotation.Nullable;
+
+import static java.lang.Double.doubleToRawLongBits;
+import static java.lang.Double.longBitsToDouble;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * A concurrency limit that adapts to the observed round trip time (RTT) of requests, in the spirit of TCP Vegas and
+ * gradient based congestion control.
+ * <p>
+ * A long term RTT is tracked as an exponential moving average of all samples. Each sample is compared against it: while
+ * the RTT stays within {@link Builder#rttTolerance(double) tolerance} of the long term RTT, the limit grows by a queue
+ * allowance of {@code sqrt(limit)}; when the RTT increases, i.e. requests start queueing, the limit shrinks
+ * proportionally. Failed requests shrink the limit by the {@link Builder#backoffRatio(double) backoff ratio}. RTT
+ * samples only adjust the limit while at least half of it is in use, so a lightly loaded period does not inflate it.
+ * <p>
+ * All state is updated with lock-free atomic operations, concurrent updates may race to publish the latest
+ * {@link #limit()} which is hence approximate. An instance may be shared by multiple filters to enforce a single limit.
+ *
+ * @see AdaptiveConcurrencyLimitHttpRequesterFilter
+ * @see AdaptiveConcurrencyLimitHttpServiceFilter
+ */
+public final class AdaptiveConcurrencyLimiter {
+    private static final AtomicIntegerFieldUpdater<AdaptiveConcurrencyLimiter> inFlightUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(AdaptiveConcurrencyLimiter.class, "inFlight");
+    private static final AtomicLongFieldUpdater<AdaptiveConcurrencyLimiter> estimatedLimitUpdater =
+            AtomicLongFieldUpdater.newUpdater(AdaptiveConcurrencyLimiter.class, "estimatedLimitBits");
+    private static final AtomicLongFieldUpdater<AdaptiveConcurrencyLimiter> longRttUpdater =
+            AtomicLongFieldUpdater.newUpdater(AdaptiveConcurrencyLimiter.class, "longRttBits");
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final int longRttWindow;
+    @Nullable
+    private final IntConsumer limitListener;
+
+    private volatile int inFlight;
+    private volatile int limit;
+    private volatile long estimatedLimitBits;
+    // 0 is the bit pattern of 0.0, which means no sample has been recorded yet.
+    private volatile long longRttBits;
+
+    private AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+                                       final double rttTolerance, final double smoothing, final double backoffRatio,
+                                       final int longRttWindow, @Nullable final IntConsumer limitListener) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.longRttWindow = longRttWindow;
+        this.limitListener = limitListener;
+        limit = initialLimit;
+        estimatedLimitBits = doubleToRawLongBits(initialLimit);
+    }
+
+    /**
+     * Returns the current concurrency limit.
+     *
+     * @return the current concurrency limit.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of requests currently admitted by this limiter.
+     *
+     * @return the number of requests currently admitted by this limiter.
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Attempt to admit a new request.
+     *
+     * @return {@code true} if the request is admitted, in which case exactly one of {@link #onSuccess(long)},
+     * {@link #onDropped()} or {@link #onIgnored()} must be called when it terminates.
+     */
+    boolean tryAcquire() {
+        for (;;) {
+            final int current = inFlight;
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlightUpdater.compareAndSet(this, current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request which completed successfully.
+     *
+     * @param rttNanos the round trip time of the request in nanoseconds.
+     */
+    void onSuccess(final long rttNanos) {
+        final int inFlightAtCompletion = inFlightUpdater.getAndDecrement(this);
+        final double shortRtt = max(1, rttNanos);
+        final double longRtt = updateLongRtt(shortRtt);
+        for (;;) {
+            final long bits = estimatedLimitBits;
+            final double estimatedLimit = longBitsToDouble(bits);
+            if (inFlightAtCompletion < estimatedLimit / 2) {
+                // Not using the current limit, hence the RTT does not tell us anything about a larger limit.
+                return;
+            }
+            final double gradient = max(0.5, min(1.0, rttTolerance * longRtt / shortRtt));
+            double newLimit = estimatedLimit * gradient + sqrt(estimatedLimit);
+            newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+            if (tryUpdateLimit(bits, newLimit)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request which failed, indicating the limit may be too high.
+     */
+    void onDropped() {
+        inFlightUpdater.decrementAndGet(this);
+        for (;;) {
+            final long bits = estimatedLimitBits;
+            if (tryUpdateLimit(bits, longBitsToDouble(bits) * backoffRatio)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request without affecting the limit, e.g. because it was cancelled.
+     */
+    void onIgnored() {
+        inFlightUpdater.decrementAndGet(this);
+    }
+
+    private double updateLongRtt(final double shortRtt) {
+        for (;;) {
+            final long bits = longRttBits;
+            final double longRtt = longBitsToDouble(bits);
+            double newLongRtt;
+            if (longRtt == 0) {
+                newLongRtt = shortRtt;
+            } else if (longRtt / shortRtt > 2) {
+                // RTT dropped significantly, e.g. after the backend recovered. Converge faster than the window allows,
+                // otherwise a stale long RTT would let the limit grow unchecked.
+                newLongRtt = longRtt * 0.95;
+            } else {
+                newLongRtt = longRtt + (shortRtt - longRtt) / longRttWindow;
+            }
+            if (longRttUpdater.compareAndSet(this, bits, doubleToRawLongBits(newLongRtt))) {
+                return newLongRtt;
+            }
+        }
+    }
+
+    private boolean tryUpdateLimit(final long expectedBits, final double newLimit) {
+        final double clamped = max(minLimit, min(maxLimit, newLimit));
+        if (!estimatedLimitUpdater.compareAndSet(this, expectedBits, doubleToRawLongBits(clamped))) {
+            return false;
+        }
+        final int newIntLimit = (int) clamped;
+        if (newIntLimit != limit) {
+            limit = newIntLimit;
+            if (limitListener != null) {
+                limitListener.accept(newIntLimit);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A builder for {@link AdaptiveConcurrencyLimiter}.
+     */
+    public static final class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 1000;
+        private double rttTolerance = 1.5;
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9;
+        private int longRttWindow = 600;
+        @Nullable
+        private IntConsumer limitListener;
+
+        /**
+         * Sets the limit to start with.
+         *
+         * @param initialLimit the limit to start with.
+         * @return {@code this}
+         */
+        public Builder initialLimit(final int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Sets the lower and upper bounds for the limit.
+         *
+         * @param minLimit the minimum limit, must be positive.
+         * @param maxLimit the maximum limit, must not be smaller than {@code minLimit}.
+         * @return {@code this}
+         */
+        public Builder limitBounds(final int minLimit, final int maxLimit) {
+            if (minLimit <= 0) {
+                throw new IllegalArgumentException("minLimit: " + minLimit + " (expected >0)");
+            }
+            if (maxLimit < minLimit) {
+                throw new IllegalArgumentException("maxLimit: " + maxLimit + " (expected >=" + minLimit + ")");
+            }
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets how much a RTT sample may exceed the long term RTT before the limit is reduced, e.g. {@code 1.5} means
+         * samples up to 50% slower than the long term RTT are tolerated.
+         *
+         * @param rttTolerance the tolerance, must be at least {@code 1}.
+         * @return {@code this}
+         */
+        public Builder rttTolerance(final double rttTolerance) {
+            if (!(rttTolerance >= 1)) {
+                throw new IllegalArgumentException("rttTolerance: " + rttTolerance + " (expected >=1)");
+            }
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        /**
+         * Sets how quickly the limit moves towards a newly computed value.
+         *
+         * @param smoothing the weight of a new value, in {@code (0, 1]}.
+         * @return {@code this}
+         */
+        public Builder smoothing(final double smoothing) {
+            if (!(smoothing > 0 && smoothing <= 1)) {
+                throw new IllegalArgumentException("smoothing: " + smoothing + " (expected (0, 1])");
+            }
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the limit when a request fails.
+         *
+         * @param backoffRatio the factor, in {@code [0.5, 1)}.
+         * @return {@code this}
+         */
+        public Builder backoffRatio(final double backoffRatio) {
+            if (!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("backoffRatio: " + backoffRatio + " (expected [0.5, 1))");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets the number of samples the long term RTT is averaged over.
+         *
+         * @param longRttWindow the number of samples, must be positive.
+         * @return {@code this}
+         */
+        public Builder longRttWindow(final int longRttWindow) {
+            if (longRttWindow <= 0) {
+                throw new IllegalArgumentException("longRttWindow: " + longRttWindow + " (expected >0)");
+            }
+            this.longRttWindow = longRttWindow;
+            return this;
+        }
+
+        /**
+         * Sets a listener notified with the new value whenever the limit changes, e.g. to export it as a metric.
+         * <p>
+         * The listener is invoked from the thread that completes a request and must not block.
+         *
+         * @param limitListener the listener.
+         * @return {@code this}
+         */
+        public Builder limitListener(final IntConsumer limitListener) {
+            this.limitListener = limitListener;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link AdaptiveConcurrencyLimiter}.
+         *
+         * @return a new {@link AdaptiveConcurrencyLimiter}.
+         */
+        public AdaptiveConcurrencyLimiter build() {
+            if (initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("initialLimit: " + initialLimit + " (expected [" + minLimit +
+                        ", " + maxLimit + "])");
+            }
+            return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, rttTolerance, smoothing,
+                    backoffRatio, longRttWindow, limitListener);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.api.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static java.lang.System.nanoTime;
+
+/**
+ * Releases a request admitted by an {@link AdaptiveConcurrencyLimiter} once its response has terminated.
+ */
+final class ConcurrencyLimitSignalConsumer implements TerminalSignalConsumer {
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final long startNanos = nanoTime();
+    // Visibility: the response is emitted before the terminal signal of its payload body.
+    private boolean overloaded;
+
+    ConcurrencyLimitSignalConsumer(final AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    StreamingHttpResponse onResponse(final StreamingHttpResponse response) {
+        final int code = response.status().code();
+        overloaded = code == SERVICE_UNAVAILABLE.code() || code == TOO_MANY_REQUESTS.code();
+        return response;
+    }
+
+    @Override
+    public void onComplete() {
+        if (overloaded) {
+            limiter.onDropped();
+        } else {
+            limiter.onSuccess(nanoTime() - startNanos);
+        }
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+        limiter.onDropped();
+    }
+
+    @Override
+    public void onCancel() {
+        limiter.onIgnored();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.http.api.HttpHeaders;
+
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderValues.DEFLATE;
+import static io.servicetalk.http.api.HttpHeaderValues.GZIP;
+
+/**
+ * <a href="https://tools.ietf.org/html/rfc7231#section-3.1.2.1">Content codings</a> supported by the content coding
+ * filters.
+ */
+enum ContentCoding {
+    // The order defines the preference when negotiating a coding for a response.
+    GZIP_CODING(GZIP, true),
+    DEFLATE_CODING(DEFLATE, false);
+
+    final CharSequence headerValue;
+    final boolean gzip;
+
+    ContentCoding(final CharSequence headerValue, final boolean gzip) {
+        this.headerValue = headerValue;
+        this.gzip = gzip;
+    }
+
+    /**
+     * Get the {@link ContentCoding} for a {@code content-encoding} header value.
+     *
+     * @param contentEncoding the {@code content-encoding} header value.
+     * @return the {@link ContentCoding} or {@code null} if the coding is not supported. Multiple codings applied on
+     * top of each other are not supported.
+     */
+    @Nullable
+    static ContentCoding fromContentEncoding(final CharSequence contentEncoding) {
+        final CharSequence trimmed = trim(contentEncoding, 0, contentEncoding.length());
+        for (ContentCoding coding : values()) {
+            if (contentEqualsIgnoreCase(coding.headerValue, trimmed)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Select the preferred {@link ContentCoding} which is acceptable according to an {@code accept-encoding} header.
+     *
+     * @param acceptEncoding the {@code accept-encoding} header value.
+     * @return the preferred acceptable {@link ContentCoding} or {@code null} if none is acceptable.
+     */
+    @Nullable
+    static ContentCoding negotiate(@Nullable final CharSequence acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        for (ContentCoding coding : values()) {
+            if (isAccepted(acceptEncoding, coding.headerValue)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Determine if a message body described by {@code headers} is worth compressing.
+     *
+     * @param headers the {@link HttpHeaders} of the message.
+     * @param minimumSize messages with a known {@code content-length} smaller than this are not compressed.
+     * @param contentTypes lower case {@code content-type} prefixes of messages to compress.
+     * @return {@code true} if the body should be compressed.
+     */
+    static boolean isCompressible(final HttpHeaders headers, final int minimumSize,
+                                  final List<String> contentTypes) {
+        if (headers.contains(CONTENT_ENCODING)) {
+            return false;
+        }
+        final CharSequence contentType = headers.get(CONTENT_TYPE);
+        if (contentType == null || !startsWithAny(contentType, contentTypes)) {
+            return false;
+        }
+        final CharSequence contentLength = headers.get(CONTENT_LENGTH);
+        if (contentLength == null) {
+            // Streaming body of unknown size, compress.
+            return true;
+        }
+        try {
+            return Long.parseLong(contentLength.toString()) >= minimumSize;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean startsWithAny(final CharSequence contentType, final List<String> prefixes) {
+        final String value = contentType.toString();
+        for (String prefix : prefixes) {
+            if (value.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAccepted(final CharSequence acceptEncoding, final CharSequence coding) {
+        // accept-encoding = #( codings [ weight ] ), e.g. "gzip;q=1.0, identity; q=0.5, *;q=0"
+        boolean wildcard = false;
+        int start = 0;
+        final int length = acceptEncoding.length();
+        while (start < length) {
+            int end = start;
+            while (end < length && acceptEncoding.charAt(end) != ',') {
+                ++end;
+            }
+            int nameEnd = start;
+            while (nameEnd < end && acceptEncoding.charAt(nameEnd) != ';') {
+                ++nameEnd;
+            }
+            final CharSequence name = trim(acceptEncoding, start, nameEnd);
+            final boolean notAcceptable = nameEnd < end && isZeroWeight(trim(acceptEncoding, nameEnd + 1, end));
+            if (contentEqualsIgnoreCase(name, coding)) {
+                return !notAcceptable;
+            }
+            if (name.length() == 1 && name.charAt(0) == '*') {
+                wildcard = !notAcceptable;
+            }
+            start = end + 1;
+        }
+        return wildcard;
+    }
+
+    private static boolean isZeroWeight(final CharSequence weight) {
+        // weight = OWS ";" OWS "q=" qvalue, qvalue = ( "0" [ "." 0*3DIGIT ] ) / ( "1" [ "." 0*3("0") ] )
+        if (weight.length() < 3 || (weight.charAt(0) != 'q' && weight.charAt(0) != 'Q') || weight.charAt(1) != '=') {
+            return false;
+        }
+        for (int i = 2; i < weight.length(); ++i) {
+            final char c = weight.charAt(i);
+            if (c != '0' && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static CharSequence trim(final CharSequence value, int start, int end) {
+        while (start < end && isWhitespace(value.charAt(start))) {
+            ++start;
+        }
+        while (end > start && isWhitespace(value.charAt(end - 1))) {
+            --end;
+        }
+        return value.subSequence(start, end);
+    }
+
+    private static boolean isWhitespace(final char c) {
+        return c == ' ' || c == '\t';
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.List;
+import java.util.zip.Deflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.utils.ContentCoding.fromContentEncoding;
+import static io.servicetalk.http.utils.ContentCoding.isCompressible;
+import static io.servicetalk.http.utils.ContentCodingHttpServiceFilter.DEFAULT_COMPRESSIBLE_CONTENT_TYPES;
+import static io.servicetalk.http.utils.ContentCodingHttpServiceFilter.DEFAULT_MAX_DECOMPRESSED_SIZE;
+import static io.servicetalk.http.utils.ContentCodingHttpServiceFilter.DEFAULT_MINIMUM_SIZE;
+import static io.servicetalk.http.utils.ContentCodingHttpServiceFilter.toLowerCase;
+
+/**
+ * A filter that decompresses HTTP response payload bodies and optionally compresses request payload bodies, as
+ * defined by <a href="https://tools.ietf.org/html/rfc7231#section-3.1.2.2">content-encoding</a>.
+ * <p>
+ * The filter advertises the supported codings via {@code accept-encoding} unless the request already carries this
+ * header, in which case the caller is responsible for decoding the response. Payload bodies are transformed
+ * incrementally, they are never aggregated. A response payload body which decompresses to more than the maximum
+ * decompressed size fails with a {@link io.servicetalk.serialization.api.SerializationException}. Compression state is
+ * reused across all clients and connections the filter is applied to.
+ */
+public final class ContentCodingHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                               StreamingHttpConnectionFilterFactory,
+                                                               HttpExecutionStrategyInfluencer {
+    private static final CharSequence ACCEPT_ENCODING_VALUE = newAsciiString("gzip, deflate");
+    private static final int MAX_POOLED = 16;
+
+    @Nullable
+    private final ContentCoding requestCoding;
+    private final int minimumSize;
+    private final List<String> compressibleContentTypes;
+    private final ContentCodingPool pool;
+
+    private ContentCodingHttpRequesterFilter(@Nullable final ContentCoding requestCoding, final int minimumSize,
+                                             final List<String> compressibleContentTypes,
+                                             final int compressionLevel, final long maxDecompressedSize) {
+        this.requestCoding = requestCoding;
+        this.minimumSize = minimumSize;
+        this.compressibleContentTypes = compressibleContentTypes;
+        // Shared by all clients and connections this factory is applied to, idle codecs are freed when the last of
+        // them is closed.
+        pool = new ContentCodingPool(MAX_POOLED, compressionLevel, maxDecompressedSize);
+    }
+
+    private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                  final HttpExecutionStrategy strategy,
+                                                  final StreamingHttpRequest request) {
+        final BufferAllocator allocator = delegate.executionContext().bufferAllocator();
+        final HttpHeaders headers = request.headers();
+        final boolean decodeResponse = !headers.contains(ACCEPT_ENCODING);
+        if (decodeResponse) {
+            headers.set(ACCEPT_ENCODING, ACCEPT_ENCODING_VALUE);
+        }
+        if (requestCoding != null && isCompressible(headers, minimumSize, compressibleContentTypes)) {
+            headers.set(CONTENT_ENCODING, requestCoding.headerValue);
+            headers.remove(CONTENT_LENGTH);
+            request.transformPayloadBody(payload -> pool.compress(requestCoding, payload, allocator));
+        }
+        final Single<StreamingHttpResponse> response = delegate.request(strategy, request);
+        return !decodeResponse ? response : response.map(resp -> {
+            final CharSequence contentEncoding = resp.headers().get(CONTENT_ENCODING);
+            if (contentEncoding == null) {
+                return resp;
+            }
+            final ContentCoding coding = fromContentEncoding(contentEncoding);
+            if (coding == null) {
+                // Unknown coding, leave it to the caller.
+                return resp;
+            }
+            resp.headers().remove(CONTENT_ENCODING);
+            resp.headers().remove(CONTENT_LENGTH);
+            return resp.transformPayloadBody(payload -> pool.decompress(coding, payload, allocator));
+        });
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        client.onClose().beforeFinally(pool.retain()).subscribe();
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return ContentCodingHttpRequesterFilter.this.request(delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        connection.onClose().beforeFinally(pool.retain()).subscribe();
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return ContentCodingHttpRequesterFilter.this.request(delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * A builder for {@link ContentCodingHttpRequesterFilter}.
+     */
+    public static final class Builder {
+        @Nullable
+        private ContentCoding requestCoding;
+        private int minimumSize = DEFAULT_MINIMUM_SIZE;
+        private List<String> compressibleContentTypes = DEFAULT_COMPRESSIBLE_CONTENT_TYPES;
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        private long maxDecompressedSize = DEFAULT_MAX_DECOMPRESSED_SIZE;
+
+        /**
+         * Compress request payload bodies with {@code gzip}. Only enable this if the server is known to support it,
+         * request payload bodies are not compressed by default.
+         *
+         * @return {@code this}
+         */
+        public Builder compressRequestsWithGzip() {
+            requestCoding = ContentCoding.GZIP_CODING;
+            return this;
+        }
+
+        /**
+         * Compress request payload bodies with {@code deflate}. Only enable this if the server is known to support
+         * it, request payload bodies are not compressed by default.
+         *
+         * @return {@code this}
+         */
+        public Builder compressRequestsWithDeflate() {
+            requestCoding = ContentCoding.DEFLATE_CODING;
+            return this;
+        }
+
+        /**
+         * Sets the minimum {@code content-length} of a request payload body to be compressed. Payload bodies of
+         * unknown length are always compressed.
+         *
+         * @param minimumSize the minimum {@code content-length} in bytes.
+         * @return {@code this}
+         */
+        public Builder minimumSize(final int minimumSize) {
+            if (minimumSize < 0) {
+                throw new IllegalArgumentException("minimumSize: " + minimumSize + " (expected >=0)");
+            }
+            this.minimumSize = minimumSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@code content-type}s of request payload bodies to compress. A {@code content-type} matches if it
+         * starts with one of the passed values, ignoring case, e.g. {@code "text/"} matches all text types.
+         *
+         * @param contentTypes {@code content-type} prefixes.
+         * @return {@code this}
+         */
+        public Builder compressibleContentTypes(final CharSequence... contentTypes) {
+            this.compressibleContentTypes = toLowerCase(contentTypes);
+            return this;
+        }
+
+        /**
+         * Sets the compression level, see {@link Deflater#setLevel(int)}.
+         *
+         * @param compressionLevel the compression level between {@code 0} and {@code 9}, or
+         * {@link Deflater#DEFAULT_COMPRESSION}.
+         * @return {@code this}
+         */
+        public Builder compressionLevel(final int compressionLevel) {
+            if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+                throw new IllegalArgumentException("compressionLevel: " + compressionLevel + " (expected 0-9)");
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a decompressed response payload body. Decompression fails once it is exceeded,
+         * which protects against payloads that expand to excessive sizes.
+         *
+         * @param maxDecompressedSize the maximum size in bytes.
+         * @return {@code this}
+         */
+        public Builder maxDecompressedSize(final long maxDecompressedSize) {
+            if (maxDecompressedSize <= 0) {
+                throw new IllegalArgumentException("maxDecompressedSize: " + maxDecompressedSize + " (expected >0)");
+            }
+            this.maxDecompressedSize = maxDecompressedSize;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link ContentCodingHttpRequesterFilter}.
+         *
+         * @return a new {@link ContentCodingHttpRequesterFilter}.
+         */
+        public ContentCodingHttpRequesterFilter build() {
+            return new ContentCodingHttpRequesterFilter(requestCoding, minimumSize, compressibleContentTypes,
+                    compressionLevel, maxDecompressedSize);
+        }
+    }
+}
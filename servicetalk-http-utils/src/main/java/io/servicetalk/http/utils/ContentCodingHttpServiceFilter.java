@@ -0,0 +1,244 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpResponseStatus;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+import io.servicetalk.http.utils.ContentDecompressor.PayloadTooLargeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.CharSequences.contentEqualsIgnoreCase;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpHeaderValues.IDENTITY;
+import static io.servicetalk.http.api.HttpRequestMethod.HEAD;
+import static io.servicetalk.http.api.HttpResponseStatus.NOT_MODIFIED;
+import static io.servicetalk.http.api.HttpResponseStatus.NO_CONTENT;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.INFORMATIONAL_1XX;
+import static io.servicetalk.http.utils.ContentCoding.fromContentEncoding;
+import static io.servicetalk.http.utils.ContentCoding.isCompressible;
+import static io.servicetalk.http.utils.ContentCoding.negotiate;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * A filter that decompresses HTTP request payload bodies and compresses response payload bodies, as defined by
+ * <a href="https://tools.ietf.org/html/rfc7231#section-3.1.2.2">content-encoding</a>.
+ * <p>
+ * Responses are compressed with the first coding acceptable according to the request's {@code accept-encoding}
+ * header, if the response's {@code content-type} is compressible and its {@code content-length}, if known, is not
+ * smaller than the minimum size. Such responses carry {@code vary: accept-encoding}, whether they are compressed or
+ * not. Responses which already have a {@code content-encoding} are passed through unchanged. Requests with an
+ * unsupported {@code content-encoding} are rejected with {@code 415 Unsupported Media Type}. Payload bodies are
+ * transformed incrementally, they are never aggregated. A request payload body which decompresses to more than the
+ * maximum decompressed size fails, and if the service fails because of it the request is rejected with
+ * {@code 413 Payload Too Large}.
+ */
+public final class ContentCodingHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                             HttpExecutionStrategyInfluencer {
+    static final int DEFAULT_MINIMUM_SIZE = 1024;
+    static final List<String> DEFAULT_COMPRESSIBLE_CONTENT_TYPES = unmodifiableList(asList("text/",
+            "application/json", "application/javascript", "application/xml", "application/x-www-form-urlencoded",
+            "image/svg+xml"));
+    static final long DEFAULT_MAX_DECOMPRESSED_SIZE = 8 * 1024 * 1024;
+    private static final int MAX_POOLED = 2 * Runtime.getRuntime().availableProcessors();
+
+    private final int minimumSize;
+    private final List<String> compressibleContentTypes;
+    private final ContentCodingPool pool;
+
+    private ContentCodingHttpServiceFilter(final int minimumSize, final List<String> compressibleContentTypes,
+                                           final int compressionLevel, final long maxDecompressedSize) {
+        this.minimumSize = minimumSize;
+        this.compressibleContentTypes = compressibleContentTypes;
+        // Shared by all services this factory is applied to, idle codecs are freed when the last of them is closed.
+        pool = new ContentCodingPool(MAX_POOLED, compressionLevel, maxDecompressedSize);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        final Runnable releasePool = pool.retain();
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                final BufferAllocator allocator = ctx.executionContext().bufferAllocator();
+                final CharSequence contentEncoding = request.headers().get(CONTENT_ENCODING);
+                if (contentEncoding != null && !contentEqualsIgnoreCase(contentEncoding, IDENTITY)) {
+                    final ContentCoding coding = fromContentEncoding(contentEncoding);
+                    if (coding == null) {
+                        return succeeded(responseFactory.unsupportedMediaType());
+                    }
+                    request.headers().remove(CONTENT_ENCODING);
+                    request.headers().remove(CONTENT_LENGTH);
+                    request.transformPayloadBody(payload -> pool.decompress(coding, payload, allocator));
+                }
+
+                final ContentCoding responseCoding = HEAD.equals(request.method()) ? null :
+                        negotiate(request.headers().get(ACCEPT_ENCODING));
+                return delegate().handle(ctx, request, responseFactory).recoverWith(cause -> {
+                    if (cause instanceof PayloadTooLargeException) {
+                        return succeeded(responseFactory.payloadTooLarge());
+                    }
+                    return failed(cause);
+                }).map(resp -> {
+                    final HttpHeaders headers = resp.headers();
+                    if (!hasPayloadBody(resp.status()) ||
+                            !isCompressible(headers, minimumSize, compressibleContentTypes)) {
+                        return resp;
+                    }
+                    // The representation depends on accept-encoding even if this request did not accept any of our
+                    // codings, caches must not serve it to requests which do.
+                    if (!headers.containsIgnoreCase(VARY, ACCEPT_ENCODING)) {
+                        headers.add(VARY, ACCEPT_ENCODING);
+                    }
+                    if (responseCoding == null) {
+                        return resp;
+                    }
+                    headers.set(CONTENT_ENCODING, responseCoding.headerValue);
+                    headers.remove(CONTENT_LENGTH);
+                    return resp.transformPayloadBody(payload -> pool.compress(responseCoding, payload, allocator));
+                });
+            }
+
+            @Override
+            public Completable closeAsync() {
+                return super.closeAsync().beforeFinally(releasePool);
+            }
+
+            @Override
+            public Completable closeAsyncGracefully() {
+                return super.closeAsyncGracefully().beforeFinally(releasePool);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    static List<String> toLowerCase(final CharSequence... contentTypes) {
+        final List<String> lowerCase = new ArrayList<>(contentTypes.length);
+        for (CharSequence contentType : contentTypes) {
+            lowerCase.add(contentType.toString().toLowerCase());
+        }
+        return unmodifiableList(lowerCase);
+    }
+
+    private static boolean hasPayloadBody(final HttpResponseStatus status) {
+        return !INFORMATIONAL_1XX.contains(status) && status.code() != NO_CONTENT.code() &&
+                status.code() != NOT_MODIFIED.code();
+    }
+
+    /**
+     * A builder for {@link ContentCodingHttpServiceFilter}.
+     */
+    public static final class Builder {
+        private int minimumSize = DEFAULT_MINIMUM_SIZE;
+        private List<String> compressibleContentTypes = DEFAULT_COMPRESSIBLE_CONTENT_TYPES;
+        private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        private long maxDecompressedSize = DEFAULT_MAX_DECOMPRESSED_SIZE;
+
+        /**
+         * Sets the minimum {@code content-length} of a response payload body to be compressed. Payload bodies of
+         * unknown length are always compressed.
+         *
+         * @param minimumSize the minimum {@code content-length} in bytes.
+         * @return {@code this}
+         */
+        public Builder minimumSize(final int minimumSize) {
+            if (minimumSize < 0) {
+                throw new IllegalArgumentException("minimumSize: " + minimumSize + " (expected >=0)");
+            }
+            this.minimumSize = minimumSize;
+            return this;
+        }
+
+        /**
+         * Sets the {@code content-type}s of response payload bodies to compress. A {@code content-type} matches if
+         * it starts with one of the passed values, ignoring case, e.g. {@code "text/"} matches all text types.
+         *
+         * @param contentTypes {@code content-type} prefixes.
+         * @return {@code this}
+         */
+        public Builder compressibleContentTypes(final CharSequence... contentTypes) {
+            this.compressibleContentTypes = toLowerCase(contentTypes);
+            return this;
+        }
+
+        /**
+         * Sets the compression level, see {@link Deflater#setLevel(int)}.
+         *
+         * @param compressionLevel the compression level between {@code 0} and {@code 9}, or
+         * {@link Deflater#DEFAULT_COMPRESSION}.
+         * @return {@code this}
+         */
+        public Builder compressionLevel(final int compressionLevel) {
+            if ((compressionLevel < 0 || compressionLevel > 9) && compressionLevel != Deflater.DEFAULT_COMPRESSION) {
+                throw new IllegalArgumentException("compressionLevel: " + compressionLevel + " (expected 0-9)");
+            }
+            this.compressionLevel = compressionLevel;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a decompressed request payload body. Decompression fails once it is exceeded,
+         * which protects against payloads that expand to excessive sizes.
+         *
+         * @param maxDecompressedSize the maximum size in bytes.
+         * @return {@code this}
+         */
+        public Builder maxDecompressedSize(final long maxDecompressedSize) {
+            if (maxDecompressedSize <= 0) {
+                throw new IllegalArgumentException("maxDecompressedSize: " + maxDecompressedSize + " (expected >0)");
+            }
+            this.maxDecompressedSize = maxDecompressedSize;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link ContentCodingHttpServiceFilter}.
+         *
+         * @return a new {@link ContentCodingHttpServiceFilter}.
+         */
+        public ContentCodingHttpServiceFilter build() {
+            return new ContentCodingHttpServiceFilter(minimumSize, compressibleContentTypes, compressionLevel,
+                    maxDecompressedSize);
+        }
+    }
+}
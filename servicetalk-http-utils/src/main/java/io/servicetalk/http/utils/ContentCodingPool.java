@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.defer;
+
+/**
+ * A bounded pool of {@link ContentCompressor}s and {@link ContentDecompressor}s.
+ * <p>
+ * {@link java.util.zip.Deflater} and {@link java.util.zip.Inflater} hold native memory which is costly to allocate
+ * and only freed eagerly via {@code end()}, so they are reused across messages rather than created per message.
+ * A pool is owned by a filter factory and shared by everything the factory creates, each of which registers itself
+ * via {@link #retain()} and unregisters when it is closed. At most {@code maxPooled} idle codecs per coding are
+ * retained while the pool has users, they are freed as soon as the last user is closed.
+ */
+final class ContentCodingPool {
+    private static final AtomicIntegerFieldUpdater<ContentCodingPool> usersUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(ContentCodingPool.class, "users");
+
+    private final int compressionLevel;
+    private final long maxDecompressedSize;
+    private final Map<ContentCoding, Queue<ContentCompressor>> compressors = new EnumMap<>(ContentCoding.class);
+    private final Map<ContentCoding, Queue<ContentDecompressor>> decompressors = new EnumMap<>(ContentCoding.class);
+    private volatile int users;
+
+    ContentCodingPool(final int maxPooled, final int compressionLevel, final long maxDecompressedSize) {
+        this.compressionLevel = compressionLevel;
+        this.maxDecompressedSize = maxDecompressedSize;
+        for (ContentCoding coding : ContentCoding.values()) {
+            compressors.put(coding, new ArrayBlockingQueue<>(maxPooled));
+            decompressors.put(coding, new ArrayBlockingQueue<>(maxPooled));
+        }
+    }
+
+    /**
+     * Compress the passed {@code payload} incrementally.
+     *
+     * @param coding the {@link ContentCoding} to use.
+     * @param payload the payload to compress.
+     * @param allocator the {@link BufferAllocator} for compressed {@link Buffer}s.
+     * @return the compressed payload.
+     */
+    Publisher<Buffer> compress(final ContentCoding coding, final Publisher<Buffer> payload,
+                               final BufferAllocator allocator) {
+        return defer(() -> {
+            final CompressorLease lease = new CompressorLease(this, coding);
+            return payload.map(chunk -> lease.encode(chunk, allocator))
+                    .concat(Single.fromCallable(() -> lease.finish(allocator)))
+                    .beforeFinally(lease::release);
+        });
+    }
+
+    /**
+     * Decompress the passed {@code payload} incrementally. Each compressed chunk is emitted as bounded
+     * decompressed chunks on demand.
+     *
+     * @param coding the {@link ContentCoding} to use.
+     * @param payload the payload to decompress.
+     * @param allocator the {@link BufferAllocator} for decompressed {@link Buffer}s.
+     * @return the decompressed payload, which fails with {@link ContentDecompressor.PayloadTooLargeException} if it
+     * exceeds the maximum decompressed size.
+     */
+    Publisher<Buffer> decompress(final ContentCoding coding, final Publisher<Buffer> payload,
+                                 final BufferAllocator allocator) {
+        return defer(() -> {
+            final DecompressorLease lease = new DecompressorLease(this, coding);
+            return payload.flatMapConcatIterable(chunk -> lease.decode(chunk, allocator))
+                    .concat(Completable.fromRunnable(lease::finish))
+                    .beforeFinally(lease::release);
+        });
+    }
+
+    /**
+     * Register a user of this pool.
+     *
+     * @return a {@link Runnable} which unregisters the user, only its first invocation has an effect. Idle codecs are
+     * freed when the last user is unregistered.
+     */
+    Runnable retain() {
+        usersUpdater.incrementAndGet(this);
+        final AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true) && usersUpdater.decrementAndGet(this) == 0) {
+                close();
+            }
+        };
+    }
+
+    /**
+     * Release all pooled resources. Resources which are in use are released when they are returned to the pool.
+     */
+    void close() {
+        for (Queue<ContentCompressor> queue : compressors.values()) {
+            ContentCompressor compressor;
+            while ((compressor = queue.poll()) != null) {
+                compressor.end();
+            }
+        }
+        for (Queue<ContentDecompressor> queue : decompressors.values()) {
+            ContentDecompressor decompressor;
+            while ((decompressor = queue.poll()) != null) {
+                decompressor.end();
+            }
+        }
+    }
+
+    private ContentCompressor acquireCompressor(final ContentCoding coding) {
+        final ContentCompressor compressor = compressors.get(coding).poll();
+        return compressor != null ? compressor : new ContentCompressor(coding, compressionLevel);
+    }
+
+    private void releaseCompressor(final ContentCompressor compressor) {
+        compressor.reset();
+        final Queue<ContentCompressor> queue = compressors.get(compressor.coding);
+        // Re-check users after offer, close() may have drained the queue concurrently.
+        if (users == 0 || !queue.offer(compressor) || (users == 0 && queue.remove(compressor))) {
+            compressor.end();
+        }
+    }
+
+    private ContentDecompressor acquireDecompressor(final ContentCoding coding) {
+        final ContentDecompressor decompressor = decompressors.get(coding).poll();
+        return decompressor != null ? decompressor : new ContentDecompressor(coding, maxDecompressedSize);
+    }
+
+    private void releaseDecompressor(final ContentDecompressor decompressor) {
+        decompressor.reset();
+        final Queue<ContentDecompressor> queue = decompressors.get(decompressor.coding);
+        if (users == 0 || !queue.offer(decompressor) || (users == 0 && queue.remove(decompressor))) {
+            decompressor.end();
+        }
+    }
+
+    /**
+     * A {@link ContentCompressor} borrowed for a single payload. Cancellation may release the lease concurrently with
+     * an in progress {@link #encode(Buffer, BufferAllocator)}, so access is synchronized and a released lease never
+     * touches the {@link ContentCompressor} again, which may already be used by another payload.
+     */
+    private static final class CompressorLease {
+        private final ContentCodingPool pool;
+        @Nullable
+        private ContentCompressor compressor;
+
+        CompressorLease(final ContentCodingPool pool, final ContentCoding coding) {
+            this.pool = pool;
+            compressor = pool.acquireCompressor(coding);
+        }
+
+        synchronized Buffer encode(final Buffer chunk, final BufferAllocator allocator) {
+            return compressor().encode(chunk, allocator);
+        }
+
+        synchronized Buffer finish(final BufferAllocator allocator) {
+            return compressor().finish(allocator);
+        }
+
+        synchronized void release() {
+            if (compressor != null) {
+                pool.releaseCompressor(compressor);
+                compressor = null;
+            }
+        }
+
+        private ContentCompressor compressor() {
+            if (compressor == null) {
+                throw new IllegalStateException("Compression already terminated");
+            }
+            return compressor;
+        }
+    }
+
+    /**
+     * A {@link ContentDecompressor} borrowed for a single payload, see {@link CompressorLease}. A compressed chunk is
+     * exposed as an {@link Iterable} which decompresses lazily, one bounded {@link Buffer} per
+     * {@link Iterator#next()}.
+     */
+    private static final class DecompressorLease {
+        private final ContentCodingPool pool;
+        @Nullable
+        private ContentDecompressor decompressor;
+
+        DecompressorLease(final ContentCodingPool pool, final ContentCoding coding) {
+            this.pool = pool;
+            decompressor = pool.acquireDecompressor(coding);
+        }
+
+        synchronized Iterable<Buffer> decode(final Buffer chunk, final BufferAllocator allocator) {
+            decompressor().input(chunk);
+            return () -> new DecodedChunks(this, allocator);
+        }
+
+        @Nullable
+        synchronized Buffer next(final BufferAllocator allocator) {
+            return decompressor().next(allocator);
+        }
+
+        synchronized void finish() {
+            decompressor().finish();
+        }
+
+        synchronized void release() {
+            if (decompressor != null) {
+                pool.releaseDecompressor(decompressor);
+                decompressor = null;
+            }
+        }
+
+        private ContentDecompressor decompressor() {
+            if (decompressor == null) {
+                throw new IllegalStateException("Decompression already terminated");
+            }
+            return decompressor;
+        }
+    }
+
+    private static final class DecodedChunks implements Iterator<Buffer> {
+        private final DecompressorLease lease;
+        private final BufferAllocator allocator;
+        @Nullable
+        private Buffer next;
+        private boolean done;
+
+        DecodedChunks(final DecompressorLease lease, final BufferAllocator allocator) {
+            this.lease = lease;
+            this.allocator = allocator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                next = lease.next(allocator);
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public Buffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Buffer buffer = next;
+            assert buffer != null;
+            next = null;
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import static java.lang.Math.min;
+
+/**
+ * Incrementally compresses a stream of {@link Buffer}s for a {@link ContentCoding}.
+ * <p>
+ * Instances are not thread safe and are reused across messages via {@link #reset()}, which avoids allocating a new
+ * native {@link Deflater} per message.
+ */
+final class ContentCompressor {
+    static final int SCRATCH_SIZE = 8192;
+    // https://tools.ietf.org/html/rfc1952#section-2.3, no flags, no modification time, unknown OS.
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    final ContentCoding coding;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] in = new byte[SCRATCH_SIZE];
+    private final byte[] out = new byte[SCRATCH_SIZE];
+    private boolean headerWritten;
+
+    ContentCompressor(final ContentCoding coding, final int compressionLevel) {
+        this.coding = coding;
+        // gzip wraps a raw deflate stream, while the deflate coding is the zlib format.
+        deflater = new Deflater(compressionLevel, coding.gzip);
+    }
+
+    /**
+     * Compress the readable bytes of {@code chunk}. All compressed bytes are flushed, so the returned {@link Buffer}
+     * can be decompressed by the peer without waiting for more data.
+     *
+     * @param chunk the {@link Buffer} to compress.
+     * @param allocator the {@link BufferAllocator} for the returned {@link Buffer}.
+     * @return the compressed bytes.
+     */
+    Buffer encode(final Buffer chunk, final BufferAllocator allocator) {
+        final Buffer dst = allocator.newBuffer(min(SCRATCH_SIZE, chunk.readableBytes() + GZIP_HEADER.length));
+        writeHeaderIfNeeded(dst);
+        if (chunk.hasArray()) {
+            final int length = chunk.readableBytes();
+            deflate(chunk.array(), chunk.arrayOffset() + chunk.readerIndex(), length, dst);
+            chunk.skipBytes(length);
+        } else {
+            while (chunk.readableBytes() > 0) {
+                final int length = min(in.length, chunk.readableBytes());
+                chunk.readBytes(in, 0, length);
+                deflate(in, 0, length, dst);
+            }
+        }
+        drain(dst, Deflater.SYNC_FLUSH);
+        return dst;
+    }
+
+    /**
+     * Complete the compressed stream.
+     *
+     * @param allocator the {@link BufferAllocator} for the returned {@link Buffer}.
+     * @return the remaining compressed bytes and the trailer of the coding, if any.
+     */
+    Buffer finish(final BufferAllocator allocator) {
+        final Buffer dst = allocator.newBuffer(64);
+        writeHeaderIfNeeded(dst);
+        deflater.finish();
+        while (!deflater.finished()) {
+            final int written = deflater.deflate(out);
+            dst.writeBytes(out, 0, written);
+        }
+        if (coding.gzip) {
+            dst.writeIntLE((int) crc.getValue());
+            dst.writeIntLE((int) deflater.getBytesRead());
+        }
+        return dst;
+    }
+
+    void reset() {
+        deflater.reset();
+        crc.reset();
+        headerWritten = false;
+    }
+
+    void end() {
+        deflater.end();
+    }
+
+    private void writeHeaderIfNeeded(final Buffer dst) {
+        if (!headerWritten) {
+            headerWritten = true;
+            if (coding.gzip) {
+                dst.writeBytes(GZIP_HEADER);
+            }
+        }
+    }
+
+    private void deflate(final byte[] src, final int offset, final int length, final Buffer dst) {
+        if (coding.gzip) {
+            crc.update(src, offset, length);
+        }
+        deflater.setInput(src, offset, length);
+        drain(dst, Deflater.NO_FLUSH);
+    }
+
+    private void drain(final Buffer dst, final int flush) {
+        for (;;) {
+            final int written = deflater.deflate(out, 0, out.length, flush);
+            dst.writeBytes(out, 0, written);
+            // A partially filled output array means the deflater consumed all input and has nothing more to flush.
+            if (written < out.length) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.serialization.api.SerializationException;
+
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.utils.ContentCompressor.SCRATCH_SIZE;
+import static io.servicetalk.utils.internal.GzipUtils.GZIP_TRAILER_LENGTH;
+import static io.servicetalk.utils.internal.GzipUtils.gzipHeaderLength;
+import static java.lang.Math.min;
+
+/**
+ * Incrementally decompresses a stream of {@link Buffer}s for a {@link ContentCoding}.
+ * <p>
+ * A compressed chunk is passed via {@link #input(Buffer)} and its decompressed bytes are pulled via
+ * {@link #next(BufferAllocator)} in {@link Buffer}s of at most {@link ContentCompressor#SCRATCH_SIZE} bytes, so a
+ * highly compressed chunk never expands into a single large {@link Buffer}. Instances are not thread safe and are
+ * reused across messages via {@link #reset()}, which avoids allocating a new native {@link Inflater} per message.
+ */
+final class ContentDecompressor {
+    final ContentCoding coding;
+    private final long maxDecompressedSize;
+    private final Inflater inflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] in = new byte[SCRATCH_SIZE];
+    private final byte[] out = new byte[SCRATCH_SIZE];
+    private State state;
+    /**
+     * Holds the gzip header or trailer if it is split across multiple chunks.
+     */
+    @Nullable
+    private Buffer pending;
+    /**
+     * The chunk which is currently decompressed.
+     */
+    @Nullable
+    private Buffer input;
+    /**
+     * The number of bytes of {@link #input} passed to the {@link Inflater} which it did not consume yet.
+     */
+    private int inflaterRemaining;
+
+    ContentDecompressor(final ContentCoding coding, final long maxDecompressedSize) {
+        this.coding = coding;
+        this.maxDecompressedSize = maxDecompressedSize;
+        inflater = new Inflater(coding.gzip);
+        state = initialState();
+    }
+
+    /**
+     * Sets the next compressed chunk, which must be drained via {@link #next(BufferAllocator)} before the next
+     * chunk is passed.
+     *
+     * @param chunk the {@link Buffer} to decompress.
+     */
+    void input(final Buffer chunk) {
+        if (input != null) {
+            throw new IllegalStateException("Previous chunk not fully decompressed");
+        }
+        input = chunk;
+    }
+
+    /**
+     * Decompress the next bytes of the chunk passed to {@link #input(Buffer)}.
+     *
+     * @param allocator the {@link BufferAllocator} for the returned {@link Buffer}.
+     * @return at most {@link ContentCompressor#SCRATCH_SIZE} decompressed bytes, or {@code null} if the chunk is
+     * fully consumed.
+     * @throws PayloadTooLargeException if the decompressed content exceeds the maximum size.
+     */
+    @Nullable
+    Buffer next(final BufferAllocator allocator) {
+        Buffer chunk = input;
+        if (chunk == null) {
+            return null;
+        }
+        if (state == State.HEADER) {
+            chunk = accumulate(chunk);
+            final int headerLength = gzipHeaderLength(chunk);
+            if (headerLength < 0) {
+                keepPending(chunk, allocator);
+                input = null;
+                return null;
+            }
+            chunk.skipBytes(headerLength);
+            pending = null;
+            input = chunk;
+            state = State.BODY;
+        }
+        if (state == State.BODY) {
+            final Buffer dst = inflate(chunk, allocator);
+            if (dst != null) {
+                return dst;
+            }
+        }
+        if (state == State.TRAILER) {
+            chunk = accumulate(chunk);
+            if (chunk.readableBytes() < GZIP_TRAILER_LENGTH) {
+                keepPending(chunk, allocator);
+                input = null;
+                return null;
+            }
+            final int expectedCrc = chunk.readIntLE();
+            final int expectedSize = chunk.readIntLE();
+            if (expectedCrc != (int) crc.getValue() || expectedSize != (int) inflater.getBytesWritten()) {
+                throw new IllegalArgumentException("Invalid " + coding.headerValue + " trailer");
+            }
+            pending = null;
+            state = State.DONE;
+        }
+        // Anything after the end of the compressed stream is ignored.
+        chunk.skipBytes(chunk.readableBytes());
+        input = null;
+        return null;
+    }
+
+    /**
+     * Verify that the compressed stream was complete.
+     */
+    void finish() {
+        if (state != State.DONE) {
+            throw new IllegalArgumentException("Truncated " + coding.headerValue + " content");
+        }
+    }
+
+    void reset() {
+        inflater.reset();
+        crc.reset();
+        pending = null;
+        input = null;
+        inflaterRemaining = 0;
+        state = initialState();
+    }
+
+    void end() {
+        inflater.end();
+    }
+
+    private State initialState() {
+        return coding.gzip ? State.HEADER : State.BODY;
+    }
+
+    private Buffer accumulate(final Buffer chunk) {
+        if (pending == null) {
+            return chunk;
+        }
+        pending.writeBytes(chunk);
+        return pending;
+    }
+
+    private void keepPending(final Buffer chunk, final BufferAllocator allocator) {
+        if (pending == null) {
+            pending = allocator.newBuffer(chunk.readableBytes() + GZIP_TRAILER_LENGTH);
+            pending.writeBytes(chunk);
+        }
+    }
+
+    @Nullable
+    private Buffer inflate(final Buffer src, final BufferAllocator allocator) {
+        try {
+            while (!inflater.finished()) {
+                if (inflaterRemaining == 0) {
+                    if (src.readableBytes() == 0) {
+                        return null;
+                    }
+                    inflaterRemaining = setInput(src);
+                }
+                final int written = inflater.inflate(out);
+                final int remaining = inflater.getRemaining();
+                src.skipBytes(inflaterRemaining - remaining);
+                inflaterRemaining = remaining;
+                if (written > 0) {
+                    if (inflater.getBytesWritten() > maxDecompressedSize) {
+                        throw new PayloadTooLargeException("Decompressed " + coding.headerValue +
+                                " content exceeds the maximum size of " + maxDecompressedSize + " bytes");
+                    }
+                    if (coding.gzip) {
+                        crc.update(out, 0, written);
+                    }
+                    return allocator.newBuffer(written).writeBytes(out, 0, written);
+                }
+                if (inflater.needsDictionary()) {
+                    throw new IllegalArgumentException("Preset dictionaries are not supported for " +
+                            coding.headerValue + " content");
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid " + coding.headerValue + " content", e);
+        }
+        inflaterRemaining = 0;
+        state = coding.gzip ? State.TRAILER : State.DONE;
+        return null;
+    }
+
+    private int setInput(final Buffer src) {
+        final int length;
+        if (src.hasArray()) {
+            length = src.readableBytes();
+            inflater.setInput(src.array(), src.arrayOffset() + src.readerIndex(), length);
+        } else {
+            length = min(in.length, src.readableBytes());
+            src.getBytes(src.readerIndex(), in, 0, length);
+            inflater.setInput(in, 0, length);
+        }
+        return length;
+    }
+
+    private enum State {
+        HEADER, BODY, TRAILER, DONE
+    }
+
+    /**
+     * Thrown if decompressed content exceeds the configured maximum size.
+     */
+    static final class PayloadTooLargeException extends SerializationException {
+        private static final long serialVersionUID = -6313516423911580187L;
+
+        PayloadTooLargeException(final String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.client.api.RetryBudget;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.SingleSource;
+import io.servicetalk.concurrent.SingleSource.Processor;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpProtocolVersion;
+import io.servicetalk.http.api.HttpRequest;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Processors.newSingleProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A filter that hedges requests to reduce tail latency: if no response has been received after a delay, a duplicate
+ * of the request is sent and the first successful response is used. The load balancer selects a connection for the
+ * duplicate as for any other request, which typically is another host.
+ * <p>
+ * The delay is either fixed or a percentile of the recently observed response latencies. Hedges are withdrawn from a
+ * {@link RetryBudget}, so that an overloaded backend does not see a multiple of its load. A request
+ * fails only if all of its in flight attempts fail; a failure of the original request while the hedge is still pending
+ * fails it immediately, as retries are left to {@link RetryingHttpRequesterFilter}.
+ * <p>
+ * The losing attempt is cancelled. If its response has already arrived, its payload body is drained so that the
+ * connection is released.
+ * <p>
+ * Only requests which are safe to send more than once are hedged, by default those with an
+ * {@link io.servicetalk.http.api.HttpRequestMethod.Properties#isIdempotent() idempotent} method. The payload body of
+ * a hedged request is aggregated before it is sent, so that the original request and its duplicate can both be sent
+ * from memory. Requests with a large or long running streaming payload body should not be selected for hedging.
+ */
+public final class HedgingHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                         HttpExecutionStrategyInfluencer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(HedgingHttpRequesterFilter.class);
+
+    private final long delayNanos;
+    private final double latencyPercentile;
+    private final Supplier<RetryBudget> hedgeBudgetSupplier;
+    private final Predicate<HttpRequestMetaData> hedgeable;
+
+    private HedgingHttpRequesterFilter(final long delayNanos, final double latencyPercentile,
+                                       final Supplier<RetryBudget> hedgeBudgetSupplier,
+                                       final Predicate<HttpRequestMetaData> hedgeable) {
+        this.delayNanos = delayNanos;
+        this.latencyPercentile = latencyPercentile;
+        this.hedgeBudgetSupplier = hedgeBudgetSupplier;
+        this.hedgeable = hedgeable;
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        final Executor executor = client.executionContext().executor();
+        final RetryBudget budget = requireNonNull(hedgeBudgetSupplier.get());
+        @Nullable
+        final LatencyPercentileTracker tracker = latencyPercentile > 0 ?
+                new LatencyPercentileTracker(latencyPercentile) : null;
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                if (!hedgeable.test(request)) {
+                    return delegate.request(strategy, request);
+                }
+                // Both attempts are sent from the aggregated payload body, the original payload body is only
+                // subscribed to once.
+                return request.toRequest().flatMap(aggregated -> {
+                    budget.onRequest();
+                    final long delay = tracker == null ? delayNanos : tracker.percentileNanos();
+                    final HedgedRequest hedgedRequest = new HedgedRequest(delegate, strategy, aggregated, tracker,
+                            budget);
+                    hedgedRequest.start(executor, delay);
+                    return fromSource(hedgedRequest.result).beforeCancel(hedgedRequest::cancel);
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * Coordinates the original request and its hedge: the first successful response wins and the other attempt is
+     * cancelled, or drained if its response already arrived.
+     */
+    private static final class HedgedRequest {
+        final Processor<StreamingHttpResponse, StreamingHttpResponse> result = newSingleProcessor();
+        private final StreamingHttpRequester delegate;
+        private final HttpExecutionStrategy strategy;
+        private final StreamingHttpRequest request;
+        private final Publisher<Object> payloadBodyAndTrailers;
+        private final HttpRequestMethod method;
+        private final String requestTarget;
+        private final HttpProtocolVersion version;
+        @Nullable
+        private final LatencyPercentileTracker tracker;
+        private final RetryBudget budget;
+
+        // All fields below are guarded by "this".
+        @Nullable
+        private Cancellable primaryCancellable;
+        @Nullable
+        private Cancellable hedgeCancellable;
+        @Nullable
+        private Cancellable timerCancellable;
+        private int outstanding;
+        private boolean done;
+
+        HedgedRequest(final StreamingHttpRequester delegate, final HttpExecutionStrategy strategy,
+                      final HttpRequest aggregated, @Nullable final LatencyPercentileTracker tracker,
+                      final RetryBudget budget) {
+            this.delegate = delegate;
+            this.strategy = strategy;
+            final StreamingHttpRequest streaming = aggregated.toStreamingRequest();
+            // Every attempt writes its own view of the aggregated payload body, so that writing one does not consume
+            // the content of the other.
+            payloadBodyAndTrailers = streaming.payloadBodyAndTrailers().map(HedgedRequest::duplicateBuffer);
+            request = streaming.transformRawPayloadBody(__ -> payloadBodyAndTrailers);
+            // Filters below us may modify the metadata of the original request while it is in flight, keep what
+            // the hedge needs to be sent to the same resource.
+            method = request.method();
+            requestTarget = request.requestTarget();
+            version = request.version();
+            this.tracker = tracker;
+            this.budget = budget;
+        }
+
+        void start(final Executor executor, final long delayNanos) {
+            synchronized (this) {
+                outstanding = 1;
+            }
+            subscribe(false);
+            if (delayNanos < 0) {
+                return;
+            }
+            final Cancellable timer;
+            try {
+                timer = executor.schedule(this::sendHedge, delayNanos, NANOSECONDS);
+            } catch (Throwable t) {
+                LOGGER.debug("Failed to schedule a hedge on executor {}, request will not be hedged.", executor, t);
+                return;
+            }
+            final boolean cancelTimer;
+            synchronized (this) {
+                cancelTimer = done;
+                if (!done) {
+                    timerCancellable = timer;
+                }
+            }
+            if (cancelTimer) {
+                timer.cancel();
+            }
+        }
+
+        void cancel() {
+            final Cancellable primary;
+            final Cancellable hedge;
+            final Cancellable timer;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                primary = primaryCancellable;
+                hedge = hedgeCancellable;
+                timer = timerCancellable;
+            }
+            cancelAll(primary, hedge, timer);
+        }
+
+        private void sendHedge() {
+            synchronized (this) {
+                timerCancellable = null;
+                if (done || !budget.tryRetry()) {
+                    return;
+                }
+                ++outstanding;
+            }
+            subscribe(true);
+        }
+
+        private void subscribe(final boolean isHedge) {
+            final Attempt subscriber = new Attempt(isHedge);
+            final Single<StreamingHttpResponse> response;
+            try {
+                response = delegate.request(strategy, isHedge ? duplicate() : request);
+            } catch (Throwable t) {
+                subscriber.onError(t);
+                return;
+            }
+            toSource(response).subscribe(subscriber);
+        }
+
+        private void onSubscribe(final boolean isHedge, final Cancellable cancellable) {
+            final boolean cancel;
+            synchronized (this) {
+                cancel = done;
+                if (isHedge) {
+                    hedgeCancellable = cancellable;
+                } else {
+                    primaryCancellable = cancellable;
+                }
+            }
+            if (cancel) {
+                cancellable.cancel();
+            }
+        }
+
+        private void onSuccess(final boolean isHedge, final StreamingHttpResponse response) {
+            final boolean won;
+            Cancellable other = null;
+            Cancellable timer = null;
+            synchronized (this) {
+                won = !done;
+                if (won) {
+                    done = true;
+                    other = isHedge ? primaryCancellable : hedgeCancellable;
+                    timer = timerCancellable;
+                }
+            }
+            if (!won) {
+                // Lost the race or was cancelled, release the connection by draining the response.
+                response.payloadBodyAndTrailers().ignoreElements().subscribe();
+                return;
+            }
+            cancelAll(other, null, timer);
+            result.onSuccess(response);
+        }
+
+        private void onError(final Throwable cause) {
+            final Cancellable timer;
+            synchronized (this) {
+                if (done || --outstanding > 0) {
+                    return;
+                }
+                done = true;
+                timer = timerCancellable;
+            }
+            if (timer != null) {
+                timer.cancel();
+            }
+            result.onError(cause);
+        }
+
+        private StreamingHttpRequest duplicate() {
+            // The duplicate is only created once the hedge is sent, so requests answered within the delay do not pay
+            // for copying the headers. Headers modified in place by filters below us are copied as they are then.
+            return delegate.newRequest(method, requestTarget)
+                    .version(version)
+                    .addHeaders(request.headers())
+                    .transformRawPayloadBody(__ -> payloadBodyAndTrailers);
+        }
+
+        private static Object duplicateBuffer(final Object item) {
+            return item instanceof Buffer ? ((Buffer) item).duplicate() : item;
+        }
+
+        private static void cancelAll(@Nullable final Cancellable first, @Nullable final Cancellable second,
+                                      @Nullable final Cancellable third) {
+            if (first != null) {
+                first.cancel();
+            }
+            if (second != null) {
+                second.cancel();
+            }
+            if (third != null) {
+                third.cancel();
+            }
+        }
+
+        private final class Attempt implements SingleSource.Subscriber<StreamingHttpResponse> {
+            private final boolean isHedge;
+            private final long startNanos = nanoTime();
+
+            Attempt(final boolean isHedge) {
+                this.isHedge = isHedge;
+            }
+
+            @Override
+            public void onSubscribe(final Cancellable cancellable) {
+                HedgedRequest.this.onSubscribe(isHedge, cancellable);
+            }
+
+            @Override
+            public void onSuccess(@Nullable final StreamingHttpResponse response) {
+                if (tracker != null) {
+                    tracker.record(nanoTime() - startNanos);
+                }
+                if (response == null) {
+                    HedgedRequest.this.onError(new NullPointerException("response"));
+                } else {
+                    HedgedRequest.this.onSuccess(isHedge, response);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                HedgedRequest.this.onError(t);
+            }
+        }
+    }
+
+    /**
+     * A builder for {@link HedgingHttpRequesterFilter}.
+     */
+    public static final class Builder {
+        private static final double DEFAULT_LATENCY_PERCENTILE = 0.95;
+
+        private long delayNanos = -1;
+        private double latencyPercentile = DEFAULT_LATENCY_PERCENTILE;
+        private Supplier<RetryBudget> hedgeBudgetSupplier = () -> new RetryBudget.Builder().build();
+        private Predicate<HttpRequestMetaData> hedgeable = request -> request.method().properties().isIdempotent();
+
+        /**
+         * Sends a hedge after a fixed delay. Overrides any previously set {@link #latencyPercentile(double)}.
+         *
+         * @param delay the time to wait for a response before sending a hedge.
+         * @return {@code this}.
+         */
+        public Builder delay(final Duration delay) {
+            if (delay.isNegative()) {
+                throw new IllegalArgumentException("delay: " + delay + " (expected >= 0)");
+            }
+            this.delayNanos = delay.toNanos();
+            this.latencyPercentile = -1;
+            return this;
+        }
+
+        /**
+         * Sends a hedge after the given percentile of the recently observed response latencies. No hedges are sent
+         * until enough latencies have been observed. Overrides any previously set {@link #delay(Duration)}.
+         * <p>
+         * By default the {@code 0.95} percentile is used.
+         *
+         * @param latencyPercentile the percentile in the range {@code (0, 1)}, e.g. {@code 0.95}.
+         * @return {@code this}.
+         */
+        public Builder latencyPercentile(final double latencyPercentile) {
+            if (!(latencyPercentile > 0 && latencyPercentile < 1)) {
+                throw new IllegalArgumentException("latencyPercentile: " + latencyPercentile +
+                        " (expected (0, 1))");
+            }
+            this.latencyPercentile = latencyPercentile;
+            this.delayNanos = -1;
+            return this;
+        }
+
+        /**
+         * Bounds hedges by a {@link RetryBudget}: every hedged request deposits into the budget and every hedge
+         * withdraws a retry from it. Once the budget is exhausted, requests are not hedged.
+         * <p>
+         * The {@link Supplier} is invoked for every client this filter is applied to. Return a new
+         * {@link RetryBudget} to have a budget per client, or return the same instance to share one budget across
+         * all of them, e.g. with a {@link RetryingHttpRequesterFilter}. By default every client has a budget with the
+         * default settings of {@link RetryBudget.Builder}, which allows hedging {@code 10%} of the requests.
+         *
+         * @param hedgeBudgetSupplier {@link Supplier} of the {@link RetryBudget} for a client.
+         * @return {@code this}.
+         */
+        public Builder hedgeBudget(final Supplier<RetryBudget> hedgeBudgetSupplier) {
+            this.hedgeBudgetSupplier = requireNonNull(hedgeBudgetSupplier);
+            return this;
+        }
+
+        /**
+         * Sets the {@link Predicate} which selects the requests that may be hedged. Selected requests must be safe
+         * to send more than once. Their payload body is aggregated before they are sent.
+         * <p>
+         * By default requests with an idempotent method are hedged.
+         *
+         * @param hedgeable {@link Predicate} which returns {@code true} for requests that may be hedged.
+         * @return {@code this}.
+         */
+        public Builder hedgeable(final Predicate<HttpRequestMetaData> hedgeable) {
+            this.hedgeable = requireNonNull(hedgeable);
+            return this;
+        }
+
+        /**
+         * Builds a new {@link HedgingHttpRequesterFilter}.
+         *
+         * @return A new {@link HedgingHttpRequesterFilter}.
+         */
+        public HedgingHttpRequesterFilter build() {
+            return new HedgingHttpRequesterFilter(delayNanos, latencyPercentile, hedgeBudgetSupplier, hedgeable);
+        }
+    }
+}
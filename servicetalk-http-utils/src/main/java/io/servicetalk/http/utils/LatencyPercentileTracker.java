@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Tracks a percentile over a sliding window of the most recent latency samples.
+ * <p>
+ * Samples are recorded lock-free into a ring buffer, the percentile is recomputed from a snapshot every
+ * {@link #RECOMPUTE_INTERVAL} samples, so {@link #percentileNanos()} is a cheap volatile read.
+ */
+final class LatencyPercentileTracker {
+    static final int WINDOW_SIZE = 1024;
+    static final int RECOMPUTE_INTERVAL = 64;
+    private static final AtomicLongFieldUpdater<LatencyPercentileTracker> countUpdater =
+            AtomicLongFieldUpdater.newUpdater(LatencyPercentileTracker.class, "count");
+
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW_SIZE);
+    private final double percentile;
+    private volatile long count;
+    private volatile long percentileNanos = -1;
+
+    LatencyPercentileTracker(final double percentile) {
+        if (!(percentile > 0 && percentile < 1)) {
+            throw new IllegalArgumentException("percentile: " + percentile + " (expected (0, 1))");
+        }
+        this.percentile = percentile;
+    }
+
+    void record(final long latencyNanos) {
+        final long index = countUpdater.getAndIncrement(this);
+        samples.set((int) (index & (WINDOW_SIZE - 1)), latencyNanos);
+        final long recorded = index + 1;
+        if ((recorded & (RECOMPUTE_INTERVAL - 1)) == 0) {
+            recompute((int) min(recorded, WINDOW_SIZE));
+        }
+    }
+
+    /**
+     * Returns the latency percentile in nanoseconds.
+     *
+     * @return the latency percentile in nanoseconds, or {@code -1} until {@link #RECOMPUTE_INTERVAL} samples have
+     * been recorded.
+     */
+    long percentileNanos() {
+        return percentileNanos;
+    }
+
+    private void recompute(final int size) {
+        final long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        percentileNanos = snapshot[max(0, (int) ceil(percentile * size) - 1)];
+    }
+}
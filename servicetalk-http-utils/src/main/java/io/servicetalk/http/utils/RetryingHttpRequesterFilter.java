@@ -17,6 +17,7 @@ package io.servicetalk.http.utils;
 
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder;
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder.ReadOnlyRetryableSettings;
+import io.servicetalk.client.api.RetryBudget;
 import io.servicetalk.concurrent.api.BiIntFunction;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
@@ -37,11 +38,17 @@ import io.servicetalk.http.api.StreamingHttpResponse;
 
 import java.io.IOException;
 import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Completable.failed;
+import static java.util.Objects.requireNonNull;
 
 /**
  * A filter to enable retries for HTTP requests.
+ * <p>
+ * Retries can be bounded by a {@link RetryBudget}, see {@link Builder#retryBudget(Supplier)}. Once the budget is
+ * exhausted, failures are propagated to the caller without retrying.
  *
  * @see RetryStrategies
  */
@@ -50,21 +57,34 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
                                                           HttpExecutionStrategyInfluencer {
 
     private final ReadOnlyRetryableSettings<HttpRequestMetaData> settings;
+    @Nullable
+    private final Supplier<RetryBudget> retryBudgetSupplier;
 
-    private RetryingHttpRequesterFilter(final ReadOnlyRetryableSettings<HttpRequestMetaData> settings) {
+    private RetryingHttpRequesterFilter(final ReadOnlyRetryableSettings<HttpRequestMetaData> settings,
+                                        @Nullable final Supplier<RetryBudget> retryBudgetSupplier) {
         this.settings = settings;
+        this.retryBudgetSupplier = retryBudgetSupplier;
+    }
+
+    @Nullable
+    private RetryBudget newRetryBudget() {
+        return retryBudgetSupplier == null ? null : requireNonNull(retryBudgetSupplier.get());
     }
 
     private Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                   final HttpExecutionStrategy strategy,
                                                   final StreamingHttpRequest request,
-                                                  final BiIntFunction<Throwable, Completable> retryStrategy) {
-        return delegate.request(strategy, request).retryWhen((count, t) -> {
-            if (settings.isRetryable(request, t)) {
+                                                  final BiIntFunction<Throwable, Completable> retryStrategy,
+                                                  @Nullable final RetryBudget retryBudget) {
+        final Single<StreamingHttpResponse> response = delegate.request(strategy, request).retryWhen((count, t) -> {
+            // Only withdraw from the budget if the retry strategy may still retry.
+            if (settings.isRetryable(request, t) && (retryBudget == null ||
+                    (count <= settings.maxRetries() && retryBudget.tryRetry()))) {
                 return retryStrategy.apply(count, t);
             }
             return failed(t);
         });
+        return retryBudget == null ? response : response.beforeOnSubscribe(__ -> retryBudget.onRequest());
     }
 
     @Override
@@ -73,12 +93,15 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
 
             private final BiIntFunction<Throwable, Completable> retryStrategy =
                     settings.newStrategy(client.executionContext().executor());
+            @Nullable
+            private final RetryBudget retryBudget = newRetryBudget();
 
             @Override
             protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                             final HttpExecutionStrategy strategy,
                                                             final StreamingHttpRequest request) {
-                return RetryingHttpRequesterFilter.this.request(delegate, strategy, request, retryStrategy);
+                return RetryingHttpRequesterFilter.this.request(delegate, strategy, request, retryStrategy,
+                        retryBudget);
             }
         };
     }
@@ -89,11 +112,14 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
 
             private final BiIntFunction<Throwable, Completable> retryStrategy =
                     settings.newStrategy(connection.executionContext().executor());
+            @Nullable
+            private final RetryBudget retryBudget = newRetryBudget();
 
             @Override
             public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
                                                          final StreamingHttpRequest request) {
-                return RetryingHttpRequesterFilter.this.request(delegate(), strategy, request, retryStrategy);
+                return RetryingHttpRequesterFilter.this.request(delegate(), strategy, request, retryStrategy,
+                        retryBudget);
             }
        };
     }
@@ -111,10 +137,30 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
     public static final class Builder
             extends AbstractRetryingFilterBuilder<Builder, RetryingHttpRequesterFilter, HttpRequestMetaData> {
 
+        @Nullable
+        private Supplier<RetryBudget> retryBudgetSupplier;
+
+        /**
+         * Bounds retries by a {@link RetryBudget}. Once the budget is exhausted, failures are propagated to the caller
+         * without retrying.
+         * <p>
+         * The {@link Supplier} is invoked for every client or connection this filter is applied to. Return a new
+         * {@link RetryBudget} to have a budget per client, which for a multi-address client means a budget per host,
+         * or return the same instance to share one budget across all of them. The {@link RetryBudget} exposes its
+         * counters for observability.
+         *
+         * @param retryBudgetSupplier {@link Supplier} of the {@link RetryBudget} for a client or connection
+         * @return {@code this}
+         */
+        public Builder retryBudget(final Supplier<RetryBudget> retryBudgetSupplier) {
+            this.retryBudgetSupplier = requireNonNull(retryBudgetSupplier);
+            return this;
+        }
+
         @Override
         protected RetryingHttpRequesterFilter build(
                 final ReadOnlyRetryableSettings<HttpRequestMetaData> readOnlySettings) {
-            return new RetryingHttpRequesterFilter(readOnlySettings);
+            return new RetryingHttpRequesterFilter(readOnlySettings, retryBudgetSupplier);
         }
 
         /**
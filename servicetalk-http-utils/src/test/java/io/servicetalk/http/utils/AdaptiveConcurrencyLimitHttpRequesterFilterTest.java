@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestCancellable;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveConcurrencyLimitHttpRequesterFilterTest {
+
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout();
+
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private final List<TestSingle<StreamingHttpResponse>> responses = new ArrayList<>();
+    private final List<TestCancellable> cancellables = new ArrayList<>();
+    private final List<Integer> limits = new ArrayList<>();
+    // Completing a single request with a stable RTT grows the limit from 2 to 2 + sqrt(2).
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+            .limitBounds(1, 10).initialLimit(2).smoothing(1).backoffRatio(0.5).limitListener(limits::add).build();
+    private final AdaptiveConcurrencyLimitHttpRequesterFilter filter =
+            new AdaptiveConcurrencyLimitHttpRequesterFilter(limiter);
+
+    @Test
+    public void requestsOverLimitAreRejected() {
+        StreamingHttpClient client = newClient();
+        request(client);
+        request(client);
+        TestSingleSubscriber<StreamingHttpResponse> rejected = request(client);
+        assertThat("Unexpected error.", rejected.takeError(), is(instanceOf(ConcurrencyLimitExceededException.class)));
+        assertThat("Rejected request was sent.", requests, hasSize(2));
+        assertThat("Unexpected in flight requests.", limiter.inFlight(), is(2));
+    }
+
+    @Test
+    public void limitIsSharedByClientsOfTheSameFilter() {
+        request(newClient());
+        request(newClient());
+        TestSingleSubscriber<StreamingHttpResponse> rejected = request(newClient());
+        assertThat("Unexpected error.", rejected.takeError(), is(instanceOf(ConcurrencyLimitExceededException.class)));
+        assertThat("Rejected request was sent.", requests, hasSize(2));
+    }
+
+    @Test
+    public void successReleasesPermitWhenPayloadCompletes() throws Exception {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(newClient());
+        StreamingHttpResponse response = reqRespFactory.ok()
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.fromAscii("hello")));
+        responses.get(0).onSuccess(response);
+        response = subscriber.takeResult();
+        assertThat("Permit released before the payload body completed.", limiter.inFlight(), is(1));
+
+        response.payloadBody().toFuture().get();
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("RTT sample did not reach the limiter.", limits, contains(3));
+        assertThat("Unexpected limit.", limiter.limit(), is(3));
+    }
+
+    @Test
+    public void errorReleasesPermitAndReducesLimit() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(newClient());
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat("Unexpected error.", subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit not reduced.", limits, contains(1));
+    }
+
+    @Test
+    public void serviceUnavailableReleasesPermitAndReducesLimit() throws Exception {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(newClient());
+        responses.get(0).onSuccess(reqRespFactory.serviceUnavailable());
+        subscriber.takeResult().payloadBody().toFuture().get();
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit not reduced.", limits, contains(1));
+    }
+
+    @Test
+    public void cancelReleasesPermitWithoutChangingLimit() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(newClient());
+        subscriber.cancel();
+        assertThat("Request not cancelled.", cancellables.get(0).isCancelled(), is(true));
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit changed.", limits, is(empty()));
+        assertThat("Unexpected limit.", limiter.limit(), is(2));
+    }
+
+    @Test
+    public void releasedPermitAdmitsNewRequest() {
+        StreamingHttpClient client = newClient();
+        request(client);
+        request(client).cancel();
+        request(client);
+        assertThat("Request not admitted after release.", requests, hasSize(3));
+        assertThat("Unexpected in flight requests.", limiter.inFlight(), is(2));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.get("/"))).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private StreamingHttpClient newClient() {
+        StreamingHttpClientFilterFactory attempts = client -> new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+                TestCancellable cancellable = new TestCancellable();
+                requests.add(request);
+                responses.add(response);
+                cancellables.add(cancellable);
+                return response.whenCancel(cancellable::cancel);
+            }
+        };
+        return from(reqRespFactory, mock(HttpExecutionContext.class), filter.append(attempts));
+    }
+}
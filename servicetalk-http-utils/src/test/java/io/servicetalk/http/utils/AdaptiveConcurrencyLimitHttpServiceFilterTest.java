@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.TestCancellable;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class AdaptiveConcurrencyLimitHttpServiceFilterTest {
+
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout();
+
+    private final HttpServiceContext ctx = mock(HttpServiceContext.class);
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private final List<TestSingle<StreamingHttpResponse>> responses = new ArrayList<>();
+    private final List<TestCancellable> cancellables = new ArrayList<>();
+    private final List<Integer> limits = new ArrayList<>();
+    // Completing a single request with a stable RTT grows the limit from 2 to 2 + sqrt(2).
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+            .limitBounds(1, 10).initialLimit(2).smoothing(1).backoffRatio(0.5).limitListener(limits::add).build();
+    private StreamingHttpServiceFilter filter;
+
+    @Before
+    public void setUp() {
+        filter = new AdaptiveConcurrencyLimitHttpServiceFilter(limiter).create((serviceCtx, request, factory) -> {
+            TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+            TestCancellable cancellable = new TestCancellable();
+            requests.add(request);
+            responses.add(response);
+            cancellables.add(cancellable);
+            return response.whenCancel(cancellable::cancel);
+        });
+    }
+
+    @Test
+    public void requestsOverLimitAreRejectedWithServiceUnavailable() {
+        handle();
+        handle();
+        TestSingleSubscriber<StreamingHttpResponse> rejected = handle();
+        assertThat("Unexpected status.", rejected.takeResult().status(), is(SERVICE_UNAVAILABLE));
+        assertThat("Service invoked for a rejected request.", requests, hasSize(2));
+        assertThat("Unexpected in flight requests.", limiter.inFlight(), is(2));
+        assertThat("Rejection must not change the limit.", limits, is(empty()));
+    }
+
+    @Test
+    public void successReleasesPermitWhenPayloadCompletes() throws Exception {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = handle();
+        responses.get(0).onSuccess(reqRespFactory.ok()
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.fromAscii("hello"))));
+        StreamingHttpResponse response = subscriber.takeResult();
+        assertThat("Permit released before the payload body completed.", limiter.inFlight(), is(1));
+
+        response.payloadBody().toFuture().get();
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("RTT sample did not reach the limiter.", limits, contains(3));
+        assertThat("Unexpected limit.", limiter.limit(), is(3));
+    }
+
+    @Test
+    public void errorReleasesPermitAndReducesLimit() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = handle();
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat("Unexpected error.", subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit not reduced.", limits, contains(1));
+    }
+
+    @Test
+    public void cancelReleasesPermitWithoutChangingLimit() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = handle();
+        subscriber.cancel();
+        assertThat("Service response not cancelled.", cancellables.get(0).isCancelled(), is(true));
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit changed.", limits, is(empty()));
+
+        handle();
+        handle();
+        assertThat("Request not admitted after release.", requests, hasSize(3));
+    }
+
+    @Test
+    public void serviceThrowingReleasesPermit() {
+        filter = new AdaptiveConcurrencyLimitHttpServiceFilter(limiter).create((serviceCtx, request, factory) -> {
+            throw DELIBERATE_EXCEPTION;
+        });
+        assertThat("Unexpected error.", handle().takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        assertThat("Permit not released.", limiter.inFlight(), is(0));
+        assertThat("Limit not reduced.", limits, contains(1));
+    }
+
+    private TestSingleSubscriber<StreamingHttpResponse> handle() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(filter.handle(ctx, reqRespFactory.newRequest(GET, "/"), reqRespFactory)).subscribe(subscriber);
+        return subscriber;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private static final long RTT = MILLISECONDS.toNanos(1);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void rejectsOverLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+                .limitBounds(1, 10).initialLimit(2).build();
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(true));
+        assertThat(limiter.tryAcquire(), is(false));
+        assertThat(limiter.inFlight(), is(2));
+
+        limiter.onIgnored();
+        assertThat(limiter.inFlight(), is(1));
+        assertThat(limiter.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void limitGrowsWithStableRtt() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+                .limitBounds(1, 100).initialLimit(10).build();
+        for (int round = 0; round < 20; round++) {
+            final int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                assertThat(limiter.tryAcquire(), is(true));
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.onSuccess(RTT);
+            }
+        }
+        assertThat(limiter.limit(), greaterThan(10));
+        assertThat(limiter.inFlight(), is(0));
+    }
+
+    @Test
+    public void limitIsUnchangedWhenUnderutilized() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder().initialLimit(20).build();
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire(), is(true));
+            limiter.onSuccess(RTT);
+        }
+        assertThat(limiter.limit(), is(20));
+    }
+
+    @Test
+    public void limitShrinksWhenRttIncreases() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+                .limitBounds(1, 1000).initialLimit(100).smoothing(1).build();
+        for (int i = 0; i < 100; i++) {
+            assertThat(limiter.tryAcquire(), is(true));
+        }
+        limiter.onSuccess(RTT);
+        assertThat(limiter.limit(), is(110));
+
+        // 10x the long term RTT, the gradient is capped at 0.5: 110 * 0.5 + sqrt(110)
+        limiter.onSuccess(10 * RTT);
+        assertThat(limiter.limit(), is(65));
+    }
+
+    @Test
+    public void dropReducesLimitAndNotifiesListener() {
+        AtomicInteger reported = new AtomicInteger();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+                .initialLimit(20).backoffRatio(0.9).limitListener(reported::set).build();
+        assertThat(limiter.tryAcquire(), is(true));
+        limiter.onDropped();
+        assertThat(limiter.limit(), is(18));
+        assertThat(reported.get(), is(18));
+        assertThat(limiter.inFlight(), is(0));
+    }
+
+    @Test
+    public void limitIsBounded() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter.Builder()
+                .limitBounds(5, 10).initialLimit(5).build();
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.tryAcquire(), is(true));
+            limiter.onDropped();
+        }
+        assertThat(limiter.limit(), is(5));
+    }
+}
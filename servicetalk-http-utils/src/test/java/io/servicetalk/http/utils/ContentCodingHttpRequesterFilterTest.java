@@ -0,0 +1,255 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderValues.TEXT_PLAIN;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ContentCodingHttpRequesterFilterTest {
+    private static final String CONTENT = newContent();
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Nullable
+    private StreamingHttpRequest receivedRequest;
+    @Nullable
+    private CharSequence responseEncoding;
+    private byte[] responseBody = CONTENT.getBytes(US_ASCII);
+
+    @Test
+    public void acceptEncodingIsAdvertised() throws Exception {
+        request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()), get());
+        assertThat(header(receivedRequest.headers(), ACCEPT_ENCODING), is("gzip, deflate"));
+    }
+
+    @Test
+    public void gzipResponseIsDecompressed() throws Exception {
+        responseEncoding = "gzip";
+        responseBody = gzip(CONTENT);
+        StreamingHttpResponse response = request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()),
+                get());
+        assertThat(header(response.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat("Stale content-length.", header(response.headers(), CONTENT_LENGTH), is(nullValue()));
+        assertThat(new String(payload(response.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void deflateResponseIsDecompressed() throws Exception {
+        responseEncoding = "Deflate";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(US_ASCII));
+        }
+        responseBody = bytes.toByteArray();
+        StreamingHttpResponse response = request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()),
+                get());
+        assertThat(header(response.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(new String(payload(response.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void callerAcceptEncodingLeavesResponseEncoded() throws Exception {
+        responseEncoding = "gzip";
+        responseBody = gzip(CONTENT);
+        StreamingHttpRequest request = get();
+        request.headers().set(ACCEPT_ENCODING, "gzip");
+        StreamingHttpResponse response = request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()),
+                request);
+        assertThat(header(receivedRequest.headers(), ACCEPT_ENCODING), is("gzip"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("gzip"));
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(payload(response.payloadBody())))),
+                is(CONTENT));
+    }
+
+    @Test
+    public void unknownResponseEncodingIsPassedThrough() throws Exception {
+        responseEncoding = "br";
+        StreamingHttpResponse response = request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()),
+                get());
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("br"));
+        assertThat(header(response.headers(), CONTENT_LENGTH), is(String.valueOf(responseBody.length)));
+        assertThat(new String(payload(response.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void requestIsNotCompressedByDefault() throws Exception {
+        request(newClient(new ContentCodingHttpRequesterFilter.Builder().build()), post(CONTENT));
+        assertThat(header(receivedRequest.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(new String(payload(receivedRequest.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void requestIsCompressedWhenEnabled() throws Exception {
+        request(newClient(new ContentCodingHttpRequesterFilter.Builder().compressRequestsWithGzip().build()),
+                post(CONTENT));
+        assertThat(header(receivedRequest.headers(), CONTENT_ENCODING), is("gzip"));
+        assertThat("Stale content-length.", header(receivedRequest.headers(), CONTENT_LENGTH), is(nullValue()));
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(payload(receivedRequest.payloadBody())))),
+                is(CONTENT));
+    }
+
+    @Test
+    public void smallRequestIsNotCompressed() throws Exception {
+        request(newClient(new ContentCodingHttpRequesterFilter.Builder().compressRequestsWithGzip().build()),
+                post("small"));
+        assertThat(header(receivedRequest.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(new String(payload(receivedRequest.payloadBody()), US_ASCII), is("small"));
+    }
+
+    @Test
+    public void clientsOfOneFactoryShareCodecs() throws Exception {
+        // The pool belongs to the factory, closing one client must not affect another one.
+        ContentCodingHttpRequesterFilter filter = new ContentCodingHttpRequesterFilter.Builder().build();
+        responseEncoding = "gzip";
+        responseBody = gzip(CONTENT);
+        StreamingHttpClient first = newClient(filter);
+        StreamingHttpClient second = newClient(filter);
+        assertThat(new String(payload(request(first, get()).payloadBody()), US_ASCII), is(CONTENT));
+        first.closeAsync().toFuture().get();
+        assertThat(new String(payload(request(second, get()).payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    private StreamingHttpClient newClient(final ContentCodingHttpRequesterFilter filter) {
+        HttpExecutionContext executionContext = mock(HttpExecutionContext.class);
+        when(executionContext.bufferAllocator()).thenReturn(DEFAULT_ALLOCATOR);
+        StreamingHttpClientFilterFactory server = client -> new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                receivedRequest = request;
+                StreamingHttpResponse response = reqRespFactory.ok()
+                        .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.wrap(responseBody)));
+                response.headers().set(CONTENT_TYPE, TEXT_PLAIN)
+                        .set(CONTENT_LENGTH, String.valueOf(responseBody.length));
+                if (responseEncoding != null) {
+                    response.headers().set(CONTENT_ENCODING, responseEncoding);
+                }
+                return succeeded(response);
+            }
+        };
+        return from(reqRespFactory, executionContext, filter.append(server));
+    }
+
+    private static StreamingHttpResponse request(final StreamingHttpClient client,
+                                                 final StreamingHttpRequest request) throws Exception {
+        return client.request(defaultStrategy(), request).toFuture().get();
+    }
+
+    private static StreamingHttpRequest get() {
+        return reqRespFactory.newRequest(GET, "/");
+    }
+
+    private static StreamingHttpRequest post(final String content) {
+        StreamingHttpRequest request = reqRespFactory.newRequest(POST, "/")
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.fromAscii(content)));
+        request.headers().set(CONTENT_TYPE, TEXT_PLAIN).set(CONTENT_LENGTH, String.valueOf(content.length()));
+        return request;
+    }
+
+    @Nullable
+    private static String header(final HttpHeaders headers, final CharSequence name) {
+        CharSequence value = headers.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static byte[] gzip(final String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content.getBytes(US_ASCII));
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] payload(final Publisher<Buffer> payloadBody) throws Exception {
+        Buffer result = DEFAULT_ALLOCATOR.newBuffer();
+        for (Buffer buffer : payloadBody.toFuture().get()) {
+            result.writeBytes(buffer);
+        }
+        byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        return bytes;
+    }
+
+    private static String readFully(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), US_ASCII);
+    }
+
+    private static String newContent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("content-coding ").append(i % 17).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpHeaderNames.ACCEPT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_ENCODING;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpHeaderNames.VARY;
+import static io.servicetalk.http.api.HttpHeaderValues.TEXT_PLAIN;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.HEAD;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static io.servicetalk.http.api.HttpResponseStatus.NO_CONTENT;
+import static io.servicetalk.http.api.HttpResponseStatus.PAYLOAD_TOO_LARGE;
+import static io.servicetalk.http.api.HttpResponseStatus.UNSUPPORTED_MEDIA_TYPE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ContentCodingHttpServiceFilterTest {
+    private static final String CONTENT = newContent();
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final HttpServiceContext ctx = mock(HttpServiceContext.class);
+    @Nullable
+    private StreamingHttpRequest receivedRequest;
+    private Consumer<StreamingHttpResponse> responseCustomizer = response -> { };
+    private StreamingHttpServiceFilter filter;
+
+    @Before
+    public void setUp() {
+        HttpExecutionContext executionContext = mock(HttpExecutionContext.class);
+        when(executionContext.bufferAllocator()).thenReturn(DEFAULT_ALLOCATOR);
+        when(ctx.executionContext()).thenReturn(executionContext);
+        filter = new ContentCodingHttpServiceFilter.Builder().build().create((serviceCtx, request, responseFactory) -> {
+            receivedRequest = request;
+            StreamingHttpResponse response = responseFactory.ok()
+                    .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.fromAscii(CONTENT)));
+            response.headers().set(CONTENT_TYPE, TEXT_PLAIN);
+            responseCustomizer.accept(response);
+            return succeeded(response);
+        });
+    }
+
+    @Test
+    public void gzipIsPreferred() throws Exception {
+        StreamingHttpResponse response = handle(get("deflate, gzip"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("gzip"));
+        assertThat(header(response.headers(), CONTENT_LENGTH), is(nullValue()));
+        assertThat(response.headers().values(VARY), contains(ACCEPT_ENCODING));
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(payload(response)))), is(CONTENT));
+    }
+
+    @Test
+    public void deflateWhenGzipIsNotAcceptable() throws Exception {
+        StreamingHttpResponse response = handle(get("gzip;q=0, deflate"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("deflate"));
+        assertThat(readFully(new InflaterInputStream(new ByteArrayInputStream(payload(response)))), is(CONTENT));
+    }
+
+    @Test
+    public void knownLengthAboveMinimumIsCompressed() throws Exception {
+        responseCustomizer = response -> response.headers().set(CONTENT_LENGTH, String.valueOf(CONTENT.length()));
+        StreamingHttpResponse response = handle(get("gzip"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("gzip"));
+        assertThat("Stale content-length.", header(response.headers(), CONTENT_LENGTH), is(nullValue()));
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(payload(response)))), is(CONTENT));
+    }
+
+    @Test
+    public void notCompressedWithoutAcceptEncodingButVaries() throws Exception {
+        responseCustomizer = response -> response.headers().set(CONTENT_LENGTH, String.valueOf(CONTENT.length()));
+        StreamingHttpResponse response = handle(get(null));
+        assertUnchanged(response);
+        assertThat(header(response.headers(), CONTENT_LENGTH), is(String.valueOf(CONTENT.length())));
+        assertThat(response.headers().values(VARY), contains(ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void notCompressedWhenIdentityIsAcceptedOnlyButVaries() throws Exception {
+        StreamingHttpResponse response = handle(get("identity"));
+        assertUnchanged(response);
+        assertThat(response.headers().values(VARY), contains(ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void varyIsNotDuplicated() throws Exception {
+        responseCustomizer = response -> response.headers().set(VARY, "accept-encoding");
+        StreamingHttpResponse response = handle(get("gzip"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("gzip"));
+        assertThat(response.headers().values(VARY), contains((CharSequence) "accept-encoding"));
+        payload(response);
+    }
+
+    @Test
+    public void smallResponseIsNotCompressed() throws Exception {
+        responseCustomizer = response -> response.headers().set(CONTENT_LENGTH, "10");
+        StreamingHttpResponse response = handle(get("gzip"));
+        assertUnchanged(response);
+        assertThat("Unexpected vary.", response.headers().values(VARY), is(emptyIterable()));
+    }
+
+    @Test
+    public void incompressibleContentTypeIsNotCompressed() throws Exception {
+        responseCustomizer = response -> response.headers().set(CONTENT_TYPE, "image/png");
+        StreamingHttpResponse response = handle(get("gzip"));
+        assertUnchanged(response);
+        assertThat("Unexpected vary.", response.headers().values(VARY), is(emptyIterable()));
+    }
+
+    @Test
+    public void encodedResponseIsPassedThrough() throws Exception {
+        responseCustomizer = response -> response.headers().set(CONTENT_ENCODING, "br");
+        StreamingHttpResponse response = handle(get("gzip, br"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is("br"));
+        assertThat(new String(payload(response), US_ASCII), is(CONTENT));
+        assertThat("Unexpected vary.", response.headers().values(VARY), is(emptyIterable()));
+    }
+
+    @Test
+    public void headResponseIsNotCompressedButVaries() throws Exception {
+        StreamingHttpRequest request = reqRespFactory.newRequest(HEAD, "/");
+        request.headers().set(ACCEPT_ENCODING, "gzip");
+        StreamingHttpResponse response = handle(request);
+        assertThat(header(response.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(response.headers().values(VARY), contains(ACCEPT_ENCODING));
+    }
+
+    @Test
+    public void responseWithoutPayloadBodyIsNotTouched() throws Exception {
+        responseCustomizer = response -> response.status(NO_CONTENT);
+        StreamingHttpResponse response = handle(get("gzip"));
+        assertThat(header(response.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat("Unexpected vary.", response.headers().values(VARY), is(emptyIterable()));
+    }
+
+    @Test
+    public void gzipRequestIsDecompressed() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(US_ASCII));
+        }
+        StreamingHttpRequest request = reqRespFactory.newRequest(POST, "/")
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.wrap(bytes.toByteArray())));
+        request.headers().set(CONTENT_ENCODING, "GZIP");
+        request.headers().set(CONTENT_LENGTH, String.valueOf(bytes.size()));
+        handle(request);
+
+        StreamingHttpRequest received = receivedRequest;
+        assertThat(received, is(request));
+        assertThat(header(received.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(header(received.headers(), CONTENT_LENGTH), is(nullValue()));
+        assertThat(new String(payload(received.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void identityRequestIsNotDecompressed() throws Exception {
+        StreamingHttpRequest request = reqRespFactory.newRequest(POST, "/")
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.fromAscii(CONTENT)));
+        request.headers().set(CONTENT_ENCODING, "identity");
+        handle(request);
+        assertThat(new String(payload(receivedRequest.payloadBody()), US_ASCII), is(CONTENT));
+    }
+
+    @Test
+    public void unsupportedRequestEncodingIsRejected() throws Exception {
+        StreamingHttpRequest request = reqRespFactory.newRequest(POST, "/");
+        request.headers().set(CONTENT_ENCODING, "br");
+        StreamingHttpResponse response = handle(request);
+        assertThat(response.status(), is(UNSUPPORTED_MEDIA_TYPE));
+        assertThat("Service must not be called.", receivedRequest, is(nullValue()));
+    }
+
+    @Test
+    public void requestExceedingMaxDecompressedSizeIsRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(US_ASCII));
+        }
+        StreamingHttpRequest request = reqRespFactory.newRequest(POST, "/")
+                .payloadBody(Publisher.from(DEFAULT_ALLOCATOR.wrap(bytes.toByteArray())));
+        request.headers().set(CONTENT_ENCODING, "gzip");
+        StreamingHttpServiceFilter limited = new ContentCodingHttpServiceFilter.Builder()
+                .maxDecompressedSize(CONTENT.length() / 2).build()
+                .create((serviceCtx, req, responseFactory) ->
+                        req.payloadBody().ignoreElements().concat(succeeded(responseFactory.ok())));
+        StreamingHttpResponse response = limited.handle(ctx, request, reqRespFactory).toFuture().get();
+        assertThat(response.status(), is(PAYLOAD_TOO_LARGE));
+    }
+
+    private StreamingHttpResponse handle(final StreamingHttpRequest request) throws Exception {
+        return filter.handle(ctx, request, reqRespFactory).toFuture().get();
+    }
+
+    private static void assertUnchanged(final StreamingHttpResponse response) throws Exception {
+        assertThat(header(response.headers(), CONTENT_ENCODING), is(nullValue()));
+        assertThat(new String(payload(response), US_ASCII), is(CONTENT));
+    }
+
+    private static StreamingHttpRequest get(@Nullable final String acceptEncoding) {
+        StreamingHttpRequest request = reqRespFactory.newRequest(GET, "/");
+        if (acceptEncoding != null) {
+            request.headers().set(ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    @Nullable
+    private static String header(final HttpHeaders headers, final CharSequence name) {
+        CharSequence value = headers.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static byte[] payload(final StreamingHttpResponse response) throws Exception {
+        return payload(response.payloadBody());
+    }
+
+    private static byte[] payload(final Publisher<Buffer> payloadBody) throws Exception {
+        Buffer result = DEFAULT_ALLOCATOR.newBuffer();
+        for (Buffer buffer : payloadBody.toFuture().get()) {
+            result.writeBytes(buffer);
+        }
+        byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        return bytes;
+    }
+
+    private static String readFully(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), US_ASCII);
+    }
+
+    private static String newContent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("content-coding ").append(i % 17).append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.utils.ContentDecompressor.PayloadTooLargeException;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.utils.ContentCoding.DEFLATE_CODING;
+import static io.servicetalk.http.utils.ContentCoding.GZIP_CODING;
+import static io.servicetalk.http.utils.ContentCoding.negotiate;
+import static io.servicetalk.http.utils.ContentCompressor.SCRATCH_SIZE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+public class ContentCodingPoolTest {
+    private static final String CONTENT = newContent();
+    private static final int MAX_DECOMPRESSED_SIZE = 1024 * 1024;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final ContentCodingPool pool = new ContentCodingPool(1, Deflater.DEFAULT_COMPRESSION,
+            MAX_DECOMPRESSED_SIZE);
+    private final Runnable releasePool = pool.retain();
+
+    @After
+    public void tearDown() {
+        releasePool.run();
+    }
+
+    @Test
+    public void gzipCompressIsReadableByJdk() throws Exception {
+        byte[] compressed = compress(GZIP_CODING, split(CONTENT.getBytes(US_ASCII), 100));
+        assertThat(compressed.length, lessThan(CONTENT.length()));
+        assertThat(readFully(new GZIPInputStream(new ByteArrayInputStream(compressed))), is(CONTENT));
+    }
+
+    @Test
+    public void deflateCompressIsReadableByJdk() throws Exception {
+        byte[] compressed = compress(DEFLATE_CODING, split(CONTENT.getBytes(US_ASCII), 100));
+        assertThat(readFully(new InflaterInputStream(new ByteArrayInputStream(compressed))), is(CONTENT));
+    }
+
+    @Test
+    public void gzipDecompressSplitAtEveryByte() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(US_ASCII));
+        }
+        assertThat(decompress(GZIP_CODING, split(bytes.toByteArray(), 1)), is(CONTENT));
+    }
+
+    @Test
+    public void deflateDecompress() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(CONTENT.getBytes(US_ASCII));
+        }
+        assertThat(decompress(DEFLATE_CODING, split(bytes.toByteArray(), 7)), is(CONTENT));
+    }
+
+    @Test
+    public void roundTripReusesCodecs() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            byte[] compressed = compress(GZIP_CODING, split(CONTENT.getBytes(US_ASCII), 1000));
+            assertThat(decompress(GZIP_CODING, split(compressed, 13)), is(CONTENT));
+        }
+    }
+
+    @Test
+    public void emptyPayload() throws Exception {
+        byte[] compressed = compress(GZIP_CODING);
+        assertThat(decompress(GZIP_CODING, DEFAULT_ALLOCATOR.wrap(compressed)), is(""));
+    }
+
+    @Test
+    public void truncatedPayload() throws Exception {
+        byte[] compressed = compress(GZIP_CODING, DEFAULT_ALLOCATOR.fromAscii(CONTENT));
+        try {
+            decompress(GZIP_CODING, DEFAULT_ALLOCATOR.wrap(compressed, 0, compressed.length - 4));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(IllegalArgumentException.class));
+        }
+    }
+
+    @Test
+    public void decompressedChunksAreBounded() throws Exception {
+        byte[] compressed = compress(DEFLATE_CODING, DEFAULT_ALLOCATOR.fromAscii(CONTENT));
+        Collection<Buffer> chunks = pool.decompress(DEFLATE_CODING, Publisher.from(DEFAULT_ALLOCATOR.wrap(compressed)),
+                DEFAULT_ALLOCATOR).toFuture().get();
+        assertThat(chunks.size(), greaterThan(1));
+        int size = 0;
+        for (Buffer chunk : chunks) {
+            assertThat(chunk.readableBytes(), lessThanOrEqualTo(SCRATCH_SIZE));
+            size += chunk.readableBytes();
+        }
+        assertThat(size, is(CONTENT.length()));
+    }
+
+    @Test
+    public void decompressedSizeIsLimited() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(new byte[4 * MAX_DECOMPRESSED_SIZE]);
+        }
+        try {
+            decompress(GZIP_CODING, DEFAULT_ALLOCATOR.wrap(bytes.toByteArray()));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(PayloadTooLargeException.class));
+        }
+    }
+
+    @Test
+    public void negotiateAcceptEncoding() {
+        assertThat(negotiate(null), is(nullValue()));
+        assertThat(negotiate("identity"), is(nullValue()));
+        assertThat(negotiate("deflate, gzip"), is(GZIP_CODING));
+        assertThat(negotiate("deflate ,gzip;q=0"), is(DEFLATE_CODING));
+        assertThat(negotiate("GZIP;q=0.5"), is(GZIP_CODING));
+        assertThat(negotiate("*"), is(GZIP_CODING));
+        assertThat(negotiate("*;q=0, deflate"), is(DEFLATE_CODING));
+    }
+
+    private byte[] compress(final ContentCoding coding, final Buffer... chunks) throws Exception {
+        Buffer result = DEFAULT_ALLOCATOR.newBuffer();
+        for (Buffer buffer : pool.compress(coding, Publisher.from(chunks), DEFAULT_ALLOCATOR).toFuture().get()) {
+            result.writeBytes(buffer);
+        }
+        byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        return bytes;
+    }
+
+    private String decompress(final ContentCoding coding, final Buffer... chunks) throws Exception {
+        Buffer result = DEFAULT_ALLOCATOR.newBuffer();
+        for (Buffer buffer : pool.decompress(coding, Publisher.from(chunks), DEFAULT_ALLOCATOR).toFuture().get()) {
+            result.writeBytes(buffer);
+        }
+        return result.toString(US_ASCII);
+    }
+
+    private static Buffer[] split(final byte[] bytes, final int chunkSize) {
+        List<Buffer> chunks = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            // Use direct buffers to exercise the path for buffers which are not backed by an array.
+            Buffer chunk = DEFAULT_ALLOCATOR.newBuffer(chunkSize, true);
+            chunk.writeBytes(bytes, i, Math.min(chunkSize, bytes.length - i));
+            chunks.add(chunk);
+        }
+        return chunks.toArray(new Buffer[0]);
+    }
+
+    private static String readFully(final InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), US_ASCII);
+    }
+
+    private static String newContent() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            sb.append("content-coding ").append(i % 17).append('\n');
+        }
+        return sb.toString();
+    }
+}
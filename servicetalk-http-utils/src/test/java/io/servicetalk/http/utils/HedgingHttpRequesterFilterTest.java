@@ -0,0 +1,298 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.RetryBudget;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestCancellable;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestSingle;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class HedgingHttpRequesterFilterTest {
+
+    private static final Duration DELAY = Duration.ofSeconds(1);
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestExecutor executor = new TestExecutor();
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private final List<TestSingle<StreamingHttpResponse>> responses = new ArrayList<>();
+    private final List<TestCancellable> cancellables = new ArrayList<>();
+
+    @Test
+    public void noHedgeWhenResponseArrivesWithinDelay() {
+        StreamingHttpClient client = newClient();
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(client);
+        StreamingHttpResponse response = reqRespFactory.ok();
+        responses.get(0).onSuccess(response);
+        assertThat("Unexpected response.", subscriber.takeResult(), is(sameInstance(response)));
+        assertThat("Hedge timer not cancelled.", executor.scheduledTasksPending(), is(0));
+
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Unexpected hedge.", requests, hasSize(1));
+    }
+
+    @Test
+    public void hedgeIsSentAfterDelay() {
+        StreamingHttpClient client = newClient();
+        StreamingHttpRequest request = client.get("/path").addHeader("foo", "bar");
+        request(client, request);
+        assertThat("Unexpected hedge.", requests, hasSize(1));
+
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Hedge not sent.", requests, hasSize(2));
+        StreamingHttpRequest hedge = requests.get(1);
+        assertThat("Hedge must not share the original request.", hedge, is(not(sameInstance(request))));
+        assertThat("Unexpected hedge method.", hedge.method(), is(GET));
+        assertThat("Unexpected hedge target.", hedge.requestTarget(), is("/path"));
+        assertThat("Unexpected hedge headers.", hedge.headers().contains("foo", "bar"), is(true));
+    }
+
+    @Test
+    public void nonIdempotentRequestIsNotHedged() {
+        StreamingHttpClient client = newClient();
+        request(client, client.newRequest(POST, "/"));
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Unexpected hedge.", requests, hasSize(1));
+    }
+
+    @Test
+    public void hedgeWinsAndOriginalIsCancelled() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = requestAndHedge();
+        StreamingHttpResponse response = reqRespFactory.ok();
+        responses.get(1).onSuccess(response);
+        assertThat("Unexpected response.", subscriber.takeResult(), is(sameInstance(response)));
+        assertThat("Original not cancelled.", cancellables.get(0).isCancelled(), is(true));
+        assertThat("Hedge cancelled.", cancellables.get(1).isCancelled(), is(false));
+    }
+
+    @Test
+    public void originalWinsAndHedgeIsCancelled() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = requestAndHedge();
+        StreamingHttpResponse response = reqRespFactory.ok();
+        responses.get(0).onSuccess(response);
+        assertThat("Unexpected response.", subscriber.takeResult(), is(sameInstance(response)));
+        assertThat("Original cancelled.", cancellables.get(0).isCancelled(), is(false));
+        assertThat("Hedge not cancelled.", cancellables.get(1).isCancelled(), is(true));
+
+        // A response of the loser which raced with the cancellation is not delivered.
+        responses.get(1).onSuccess(reqRespFactory.ok());
+        assertThat("Unexpected second response.", subscriber.hasResult(), is(false));
+    }
+
+    @Test
+    public void errorWhileHedgeInFlightIsNotDelivered() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = requestAndHedge();
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat("Unexpected error.", subscriber.isErrored(), is(false));
+
+        StreamingHttpResponse response = reqRespFactory.ok();
+        responses.get(1).onSuccess(response);
+        assertThat("Unexpected response.", subscriber.takeResult(), is(sameInstance(response)));
+    }
+
+    @Test
+    public void errorWhenAllAttemptsFail() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = requestAndHedge();
+        responses.get(1).onError(new IllegalStateException("hedge"));
+        assertThat("Unexpected error.", subscriber.isErrored(), is(false));
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat("Unexpected error.", subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+    }
+
+    @Test
+    public void errorBeforeHedgeFailsRequest() {
+        StreamingHttpClient client = newClient();
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(client);
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat("Unexpected error.", subscriber.takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        assertThat("Hedge timer not cancelled.", executor.scheduledTasksPending(), is(0));
+    }
+
+    @Test
+    public void cancelCancelsAllAttempts() {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = requestAndHedge();
+        subscriber.cancel();
+        assertThat("Original not cancelled.", cancellables.get(0).isCancelled(), is(true));
+        assertThat("Hedge not cancelled.", cancellables.get(1).isCancelled(), is(true));
+    }
+
+    @Test
+    public void budgetLimitsHedgesToRatioOfRequests() {
+        StreamingHttpClient client = newClient(budget(0.5, 2));
+        for (int i = 0; i < 8; i++) {
+            request(client);
+        }
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        // The budget starts with its burst of 2 hedges, which the deposits of the 8 requests can not exceed.
+        assertThat("Unexpected number of hedges.", requests, hasSize(8 + 2));
+
+        for (int i = 0; i < 4; i++) {
+            request(client);
+        }
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        // Each request deposits half a hedge, the 4 requests pay for 2 hedges.
+        assertThat("Unexpected number of hedges.", requests, hasSize(8 + 2 + 4 + 2));
+    }
+
+    @Test
+    public void budgetIsNotConsumedWithoutHedges() {
+        StreamingHttpClient client = newClient(budget(0.5, 1));
+        request(client);
+        responses.get(0).onSuccess(reqRespFactory.ok());
+        request(client);
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        // The first request was answered within the delay, the budget is still available to hedge the second.
+        assertThat("Hedge not sent.", requests, hasSize(3));
+        assertThat("Unexpected hedge.", requests.get(2).requestTarget(), is(requests.get(1).requestTarget()));
+
+        request(client);
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        // The hedge of the second request withdrew the only hedge, the deposit of the third does not pay for another.
+        assertThat("Unexpected hedge.", requests, hasSize(4));
+    }
+
+    @Test
+    public void budgetBurstIsCapped() {
+        StreamingHttpClient client = newClient(budget(0.1, 10));
+        // Accumulate far more than 10 hedges worth of deposits.
+        for (int i = 0; i < 300; i++) {
+            request(client);
+            responses.get(i).onSuccess(reqRespFactory.ok());
+        }
+        requests.clear();
+        responses.clear();
+        cancellables.clear();
+
+        for (int i = 0; i < 12; i++) {
+            request(client);
+        }
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Unexpected number of hedges.", requests, hasSize(12 + 10));
+    }
+
+    @Test
+    public void streamingPayloadBodyIsSubscribedOnce() throws Exception {
+        StreamingHttpClient client = newClient();
+        AtomicInteger subscribes = new AtomicInteger();
+        StreamingHttpRequest request = client.put("/").payloadBody(
+                Publisher.from("foo", "bar").beforeOnSubscribe(__ -> subscribes.incrementAndGet())
+                        .map(DEFAULT_ALLOCATOR::fromAscii));
+        request(client, request);
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Hedge not sent.", requests, hasSize(2));
+        assertThat("Unexpected payload body subscribes.", subscribes.get(), is(1));
+        for (StreamingHttpRequest attempt : requests) {
+            assertThat("Unexpected payload body.",
+                    attempt.toRequest().toFuture().get().payloadBody().toString(US_ASCII), is("foobar"));
+        }
+    }
+
+    private TestSingleSubscriber<StreamingHttpResponse> requestAndHedge() {
+        StreamingHttpClient client = newClient();
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = request(client);
+        executor.advanceTimeBy(DELAY.getSeconds(), SECONDS);
+        assertThat("Hedge not sent.", requests, hasSize(2));
+        assertThat("Unexpected hedge method.", requests.get(1).method(), is(GET));
+        return subscriber;
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        return request(client, client.get("/"));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client,
+                                                                       final StreamingHttpRequest request) {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), request)).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private StreamingHttpClient newClient() {
+        return newClient(new RetryBudget.Builder().build());
+    }
+
+    private StreamingHttpClient newClient(final RetryBudget budget) {
+        HttpExecutionContext executionContext = mock(HttpExecutionContext.class);
+        when(executionContext.executor()).thenReturn(executor);
+        StreamingHttpClientFilterFactory hedging = new HedgingHttpRequesterFilter.Builder()
+                .delay(DELAY)
+                .hedgeBudget(() -> budget)
+                .build();
+        StreamingHttpClientFilterFactory attempts = client -> new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                TestSingle<StreamingHttpResponse> response = new TestSingle<>();
+                TestCancellable cancellable = new TestCancellable();
+                requests.add(request);
+                responses.add(response);
+                cancellables.add(cancellable);
+                return response.whenCancel(cancellable::cancel);
+            }
+        };
+        return from(reqRespFactory, executionContext, hedging.append(attempts));
+    }
+
+    private static RetryBudget budget(final double hedgeRatio, final int maxHedgeBurst) {
+        return new RetryBudget.Builder().retryRatio(hedgeRatio).maxRetryBurst(maxHedgeBurst).build();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.servicetalk.http.utils.LatencyPercentileTracker.RECOMPUTE_INTERVAL;
+import static io.servicetalk.http.utils.LatencyPercentileTracker.WINDOW_SIZE;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class LatencyPercentileTrackerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void noPercentileUntilEnoughSamples() {
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(0.5);
+        for (int i = 1; i < RECOMPUTE_INTERVAL; i++) {
+            tracker.record(i);
+        }
+        assertThat(tracker.percentileNanos(), is(-1L));
+        tracker.record(RECOMPUTE_INTERVAL);
+        assertThat(tracker.percentileNanos(), is(RECOMPUTE_INTERVAL / 2L));
+    }
+
+    @Test
+    public void percentileOfWindow() {
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(0.5);
+        for (int i = 0; i < 2 * WINDOW_SIZE; i++) {
+            tracker.record(i);
+        }
+        // Only the most recent WINDOW_SIZE samples, [WINDOW_SIZE, 2 * WINDOW_SIZE), are considered.
+        assertThat(tracker.percentileNanos(), is(WINDOW_SIZE + WINDOW_SIZE / 2 - 1L));
+    }
+
+    @Test
+    public void oldSamplesAreEvicted() {
+        LatencyPercentileTracker tracker = new LatencyPercentileTracker(0.99);
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            tracker.record(1000);
+        }
+        assertThat(tracker.percentileNanos(), is(1000L));
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            tracker.record(10);
+        }
+        assertThat(tracker.percentileNanos(), is(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidPercentile() {
+        new LatencyPercentileTracker(1);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.RetryBudget;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestSingleSubscriber;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.function.Supplier;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.TestStreamingHttpClient.from;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+
+public class RetryingHttpRequesterFilterTest {
+
+    private static final StreamingHttpRequestResponseFactory reqRespFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    @Rule
+    public final ServiceTalkTestTimeout timeout = new ServiceTalkTestTimeout();
+
+    private int attempts;
+    private boolean failing = true;
+
+    @Test
+    public void retriesStopWhenBudgetIsExhaustedAndResumeWhenToppedUp() {
+        // Every request deposits a quarter of a retry, the budget holds at most one retry.
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(0.25).maxRetryBurst(1).build();
+        StreamingHttpClient client = newClient(() -> budget);
+
+        assertFailedAfterAttempts(client, 2);
+        assertThat("Unexpected available retries.", budget.availableRetries(), is(0));
+
+        assertFailedAfterAttempts(client, 1);
+        assertThat("Unexpected rejected retries.", budget.rejectedRetries(), is(1L));
+
+        failing = false;
+        assertSucceeded(client);
+        assertSucceeded(client);
+        failing = true;
+        assertFailedAfterAttempts(client, 2);
+
+        assertThat("Unexpected requests.", budget.requests(), is(5L));
+        assertThat("Unexpected retries.", budget.retries(), is(2L));
+        assertThat("Unexpected rejected retries.", budget.rejectedRetries(), is(1L));
+    }
+
+    @Test
+    public void attemptsBeyondMaxRetriesDoNotConsumeBudget() {
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(0).maxRetryBurst(5).build();
+        StreamingHttpClient client = newClient(() -> budget);
+
+        assertFailedAfterAttempts(client, 2);
+        assertThat("Unexpected retries.", budget.retries(), is(1L));
+        assertThat("Unexpected rejected retries.", budget.rejectedRetries(), is(0L));
+        assertThat("Unexpected available retries.", budget.availableRetries(), is(4));
+    }
+
+    @Test
+    public void budgetPerClient() {
+        Supplier<RetryBudget> budgets = () -> new RetryBudget.Builder().retryRatio(0).maxRetryBurst(1).build();
+        StreamingHttpClientFilterFactory filter = newFilter(budgets);
+        StreamingHttpClient first = newClient(filter);
+        StreamingHttpClient second = newClient(filter);
+
+        assertFailedAfterAttempts(first, 2);
+        assertFailedAfterAttempts(first, 1);
+        assertFailedAfterAttempts(second, 2);
+    }
+
+    @Test
+    public void sharedBudget() {
+        RetryBudget budget = new RetryBudget.Builder().retryRatio(0).maxRetryBurst(1).build();
+        StreamingHttpClientFilterFactory filter = newFilter(() -> budget);
+        StreamingHttpClient first = newClient(filter);
+        StreamingHttpClient second = newClient(filter);
+
+        assertFailedAfterAttempts(first, 2);
+        assertFailedAfterAttempts(second, 1);
+        assertThat("Unexpected requests.", budget.requests(), is(2L));
+    }
+
+    private void assertFailedAfterAttempts(final StreamingHttpClient client, final int expectedAttempts) {
+        attempts = 0;
+        assertThat("Unexpected error.", request(client).takeError(), is(sameInstance(DELIBERATE_EXCEPTION)));
+        assertThat("Unexpected number of attempts.", attempts, is(expectedAttempts));
+    }
+
+    private void assertSucceeded(final StreamingHttpClient client) {
+        attempts = 0;
+        assertThat("Unexpected status.", request(client).takeResult().status(), is(OK));
+        assertThat("Unexpected number of attempts.", attempts, is(1));
+    }
+
+    private static TestSingleSubscriber<StreamingHttpResponse> request(final StreamingHttpClient client) {
+        TestSingleSubscriber<StreamingHttpResponse> subscriber = new TestSingleSubscriber<>();
+        toSource(client.request(defaultStrategy(), client.get("/"))).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static StreamingHttpClientFilterFactory newFilter(final Supplier<RetryBudget> budgets) {
+        return new RetryingHttpRequesterFilter.Builder()
+                .maxRetries(1)
+                .retryFor((meta, t) -> true)
+                .retryBudget(budgets)
+                .buildWithImmediateRetries();
+    }
+
+    private StreamingHttpClient newClient(final Supplier<RetryBudget> budgets) {
+        return newClient(newFilter(budgets));
+    }
+
+    private StreamingHttpClient newClient(final StreamingHttpClientFilterFactory retrying) {
+        StreamingHttpClientFilterFactory attempt = client -> new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return defer(() -> {
+                    ++attempts;
+                    if (failing) {
+                        return failed(DELIBERATE_EXCEPTION);
+                    }
+                    return succeeded(reqRespFactory.ok());
+                });
+            }
+        };
+        return from(reqRespFactory, mock(HttpExecutionContext.class), retrying.append(attempt));
+    }
+}
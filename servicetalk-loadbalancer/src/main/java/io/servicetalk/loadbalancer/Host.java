@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.InFlightRequestListener;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.concurrent.CompletableSource;
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.mergeAllDelayError;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static java.lang.Math.max;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An address known to a load balancer together with the connections established to it.
+ * <p>
+ * Connections are kept in a copy-on-write list, so selections can iterate over them without locking. Once the address
+ * is removed by the service discoverer, the host is marked inactive and closes all of its connections.
+ * <p>
+ * The host is notified as an {@link InFlightRequestListener} of the requests of its connections, if its load balancer
+ * registers it, and hence counts the requests it is currently processing in constant time.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class Host<Addr, C extends LoadBalancedConnection> implements AsyncCloseable, InFlightRequestListener {
+    private static final AtomicReferenceFieldUpdater<Host, List> connectionsUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, List.class, "connections");
+    private static final AtomicIntegerFieldUpdater<Host> pendingConnectsUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "pendingConnects");
+    private static final AtomicIntegerFieldUpdater<Host> inFlightUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(Host.class, "inFlight");
+    private static final AtomicReferenceFieldUpdater<Host, CompletableSource.Processor> connectWaitersUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(Host.class, CompletableSource.Processor.class, "connectWaiters");
+
+    static final List INACTIVE = emptyList();
+    private static final List NO_CONNECTIONS = new ArrayList(0);
+
+    final Addr address;
+    @SuppressWarnings("unchecked")
+    volatile List<C> connections = NO_CONNECTIONS;
+    volatile int pendingConnects;
+    private volatile int inFlight;
+    /**
+     * Completed and replaced whenever a connect finishes, only used if concurrent connects are limited.
+     */
+    @Nullable
+    volatile CompletableSource.Processor connectWaiters;
+
+    Host(final Addr address, final int maxConcurrentConnects) {
+        this.address = requireNonNull(address);
+        if (maxConcurrentConnects > 0) {
+            connectWaiters = newCompletableProcessor();
+        }
+    }
+
+    /**
+     * Returns the number of requests this host is currently processing.
+     *
+     * @return the number of requests this host is currently processing.
+     */
+    int inFlight() {
+        // A listener may be set on a connection after it accepted a request, so the count may briefly be negative.
+        return max(0, inFlight);
+    }
+
+    @Override
+    public void requestStarted() {
+        inFlightUpdater.incrementAndGet(this);
+    }
+
+    @Override
+    public void requestFinished() {
+        inFlightUpdater.decrementAndGet(this);
+    }
+
+    void connectStarted() {
+        pendingConnectsUpdater.incrementAndGet(this);
+    }
+
+    boolean tryStartConnect(final int maxConcurrentConnects) {
+        for (;;) {
+            final int pending = pendingConnects;
+            if (pending >= maxConcurrentConnects) {
+                return false;
+            }
+            if (pendingConnectsUpdater.compareAndSet(this, pending, pending + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void connectFinished() {
+        pendingConnectsUpdater.decrementAndGet(this);
+        if (connectWaiters != null) {
+            connectWaitersUpdater.getAndSet(this, newCompletableProcessor()).onComplete();
+        }
+    }
+
+    void markInactive() {
+        @SuppressWarnings("unchecked")
+        List<C> toRemove = connectionsUpdater.getAndSet(this, INACTIVE);
+        for (C conn : toRemove) {
+            conn.closeAsync().subscribe();
+        }
+    }
+
+    boolean addConnection(final C connection) {
+        for (;;) {
+            List<C> existing = this.connections;
+            if (existing == INACTIVE) {
+                connection.closeAsync().subscribe();
+                return false;
+            }
+            ArrayList<C> connectionAdded = new ArrayList<>(existing);
+            connectionAdded.add(connection);
+            if (connectionsUpdater.compareAndSet(this, existing, connectionAdded)) {
+                break;
+            }
+        }
+
+        // Instrument the new connection so we prune it on close
+        connection.onClose().beforeFinally(() -> removeConnection(connection)).subscribe();
+        return true;
+    }
+
+    boolean removeConnection(final C connection) {
+        for (;;) {
+            List<C> existing = connections;
+            if (existing == INACTIVE) {
+                return false;
+            }
+            ArrayList<C> connectionRemoved = new ArrayList<>(existing);
+            if (!connectionRemoved.remove(connection)) {
+                return false;
+            }
+            if (connectionsUpdater.compareAndSet(this, existing, connectionRemoved)) {
+                return true;
+            }
+        }
+    }
+
+    // Used for testing only
+    Entry<Addr, List<C>> asEntry() {
+        return new SimpleImmutableEntry<>(address, new ArrayList<>(connections));
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return mergeAllDelayError(connections.stream()
+                .map(AsyncCloseable::closeAsync)::iterator);
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return mergeAllDelayError(connections.stream()
+                .map(AsyncCloseable::closeAsyncGracefully)::iterator);
+    }
+
+    @Override
+    public String toString() {
+        return "Host{" +
+                "address=" + address +
+                ", removed=" + (connections == INACTIVE) +
+                ", pendingConnects=" + pendingConnects +
+                ", inFlight=" + inFlight +
+                '}';
+    }
+}
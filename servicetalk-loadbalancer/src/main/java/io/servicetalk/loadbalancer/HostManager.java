@@ -0,0 +1,246 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.PublisherSource.Subscription;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.internal.SpScPublisherProcessor;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
+
+/**
+ * Maintains the list of active {@link Host}s of a load balancer from the events of a service discoverer, and emits
+ * the corresponding {@link io.servicetalk.client.api.LoadBalancerReadyEvent}s.
+ * <p>
+ * The list of active hosts is sorted by address and replaced as a whole on each change, so selections can read it
+ * without locking.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class HostManager<Addr, C extends LoadBalancedConnection> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HostManager.class);
+
+    private static final AtomicReferenceFieldUpdater<HostManager, List> activeHostsUpdater =
+            newUpdater(HostManager.class, List.class, "activeHosts");
+
+    private volatile List<Host<Addr, C>> activeHosts = emptyList();
+
+    private final SpScPublisherProcessor<Object> eventStream = new SpScPublisherProcessor<>(32);
+    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final Object loadBalancer;
+    private final Comparator<Addr> comparator;
+    private final int maxConcurrentConnectsPerHost;
+    @Nullable
+    private final HostListener<Addr, C> listener;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param loadBalancer the load balancer which owns this instance, used for logging.
+     * @param comparator used to sort the active hosts by address.
+     * @param maxConcurrentConnectsPerHost the maximum number of concurrent connects per {@link Host}, or {@code 0}
+     * for no limit.
+     * @param listener notified when a {@link Host} is added or removed, or {@code null}.
+     */
+    HostManager(final Object loadBalancer, final Comparator<Addr> comparator, final int maxConcurrentConnectsPerHost,
+                @Nullable final HostListener<Addr, C> listener) {
+        this.loadBalancer = requireNonNull(loadBalancer);
+        this.comparator = requireNonNull(comparator);
+        this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts consuming the passed events. Has to be invoked once, after the owning load balancer is initialized,
+     * since events may be delivered synchronously.
+     *
+     * @param eventPublisher provides a stream of addresses to connect to.
+     */
+    void subscribe(final Publisher<? extends ServiceDiscovererEvent<Addr>> eventPublisher) {
+        toSource(eventPublisher).subscribe(new Subscriber<ServiceDiscovererEvent<Addr>>() {
+
+            @Override
+            public void onSubscribe(final Subscription s) {
+                // We request max value here to make sure we do not access Subscription concurrently
+                // (requestN here and cancel from discoveryCancellable). If we request-1 in onNext we would have to wrap
+                // the Subscription in a ConcurrentSubscription which is costly.
+                // Since, we synchronously process onNexts we do not really care about flow control.
+                s.request(Long.MAX_VALUE);
+                discoveryCancellable.nextCancellable(s);
+            }
+
+            @Override
+            public void onNext(final ServiceDiscovererEvent<Addr> event) {
+                LOGGER.debug("Load balancer {}, received new ServiceDiscoverer event {}.", loadBalancer, event);
+                @SuppressWarnings("unchecked")
+                final Host<Addr, C>[] addedHost = new Host[1];
+                @SuppressWarnings("unchecked")
+                final Host<Addr, C>[] removedHost = new Host[1];
+                @SuppressWarnings("unchecked")
+                final List<Host<Addr, C>> activeAddresses =
+                        activeHostsUpdater.updateAndGet(HostManager.this, currentAddresses -> {
+                            final List<Host<Addr, C>> refreshedAddresses = new ArrayList<>(currentAddresses);
+                            // Binary search because any insertion is performed at the index returned by the search,
+                            // which is consistent with the ordering defined by the comparator
+                            final int i = indexOf(refreshedAddresses, event.address());
+
+                            addedHost[0] = null;
+                            removedHost[0] = null;
+                            if (event.isAvailable()) {
+                                if (i < 0) {
+                                    addedHost[0] = new Host<>(event.address(), maxConcurrentConnectsPerHost);
+                                    refreshedAddresses.add(-i - 1, addedHost[0]);
+                                }
+                            } else if (i >= 0) {
+                                removedHost[0] = refreshedAddresses.remove(i);
+                            }
+                            return refreshedAddresses;
+                        });
+
+                LOGGER.debug("Load balancer {} now using {} addresses: {}", loadBalancer, activeAddresses.size(),
+                        activeAddresses);
+
+                // Outside of updateAndGet() as the update function may be applied more than once.
+                if (removedHost[0] != null) {
+                    removedHost[0].markInactive();
+                }
+                if (listener != null) {
+                    if (addedHost[0] != null) {
+                        listener.hostAdded(addedHost[0]);
+                    } else if (removedHost[0] != null) {
+                        listener.hostRemoved(removedHost[0]);
+                    }
+                }
+                if (event.isAvailable()) {
+                    if (activeAddresses.size() == 1) {
+                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+                    }
+                } else if (activeAddresses.isEmpty()) {
+                    eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
+                }
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                List<Host<Addr, C>> hosts = activeHosts;
+                eventStream.sendOnError(t);
+                LOGGER.error(
+                        "Load balancer {}. Service discoverer {} emitted an error. Last seen addresses (size {}) {}",
+                        loadBalancer, eventPublisher, hosts.size(), hosts, t);
+            }
+
+            @Override
+            public void onComplete() {
+                List<Host<Addr, C>> hosts = activeHosts;
+                eventStream.sendOnComplete();
+                LOGGER.error("Load balancer {}. Service discoverer {} completed. Last seen addresses (size {}) {}",
+                        loadBalancer, eventPublisher, hosts.size(), hosts);
+            }
+        });
+    }
+
+    /**
+     * Returns the currently active {@link Host}s, sorted by address.
+     *
+     * @return the currently active {@link Host}s, sorted by address.
+     */
+    List<Host<Addr, C>> activeHosts() {
+        return activeHosts;
+    }
+
+    /**
+     * Returns the stream of {@link io.servicetalk.client.api.LoadBalancerReadyEvent}s.
+     *
+     * @return the stream of {@link io.servicetalk.client.api.LoadBalancerReadyEvent}s.
+     */
+    Publisher<Object> eventStream() {
+        return eventStream;
+    }
+
+    /**
+     * Stops consuming service discoverer events, completes the {@link #eventStream()} and removes all active hosts.
+     * The {@link HostListener} is not notified about the removed hosts.
+     *
+     * @return the {@link Host}s which were active, to be closed by the caller.
+     */
+    @SuppressWarnings("unchecked")
+    List<Host<Addr, C>> close() {
+        discoveryCancellable.cancel();
+        eventStream.sendOnComplete();
+        return activeHostsUpdater.getAndSet(this, Collections.<Host<Addr, C>>emptyList());
+    }
+
+    private int indexOf(final List<Host<Addr, C>> hosts, final Addr address) {
+        int low = 0;
+        int high = hosts.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int cmp = comparator.compare(hosts.get(mid).address, address);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Notified when a {@link HostManager} adds or removes a {@link Host}.
+     *
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    interface HostListener<Addr, C extends LoadBalancedConnection> {
+
+        /**
+         * Invoked after the passed {@link Host} became active.
+         *
+         * @param host the added {@link Host}.
+         */
+        void hostAdded(Host<Addr, C> host);
+
+        /**
+         * Invoked after the passed {@link Host} was removed and marked inactive.
+         *
+         * @param host the removed {@link Host}.
+         */
+        void hostRemoved(Host<Addr, C> host);
+    }
+}
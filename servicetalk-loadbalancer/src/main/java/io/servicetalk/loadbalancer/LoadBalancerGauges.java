@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.metrics.api.MetricsRegistry;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Registers gauges which sum up the state of all open {@link RoundRobinLoadBalancer}s created by the same factory.
+ * <p>
+ * The gauges are registered once per factory and only read the state of the load balancers when sampled, so
+ * selecting connections is not affected.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class LoadBalancerGauges<ResolvedAddress, C extends LoadBalancedConnection> {
+
+    private final Set<RoundRobinLoadBalancer<ResolvedAddress, C>> loadBalancers = ConcurrentHashMap.newKeySet();
+
+    LoadBalancerGauges(final MetricsRegistry registry, final String namePrefix) {
+        registry.gauge(namePrefix + ".hosts", () -> sum(RoundRobinLoadBalancer::activeHostCount));
+        registry.gauge(namePrefix + ".hosts.ejected", () -> sum(RoundRobinLoadBalancer::ejectedHostCount));
+        registry.gauge(namePrefix + ".connections", () -> sum(RoundRobinLoadBalancer::connectionCount));
+        registry.gauge(namePrefix + ".connects.pending", () -> sum(RoundRobinLoadBalancer::pendingConnectCount));
+    }
+
+    /**
+     * Includes the passed {@link RoundRobinLoadBalancer} in the gauges until it is closed.
+     *
+     * @param loadBalancer the {@link RoundRobinLoadBalancer} to include.
+     * @return the passed {@link RoundRobinLoadBalancer}.
+     */
+    RoundRobinLoadBalancer<ResolvedAddress, C> add(final RoundRobinLoadBalancer<ResolvedAddress, C> loadBalancer) {
+        loadBalancers.add(loadBalancer);
+        loadBalancer.onClose().beforeFinally(() -> loadBalancers.remove(loadBalancer)).subscribe();
+        return loadBalancer;
+    }
+
+    private long sum(final ToIntFunction<RoundRobinLoadBalancer<ResolvedAddress, C>> value) {
+        long sum = 0;
+        for (RoundRobinLoadBalancer<ResolvedAddress, C> loadBalancer : loadBalancers) {
+            sum += value.applyAsInt(loadBalancer);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancer;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Passive outlier detection for the hosts of a {@link LoadBalancer}.
+ * <p>
+ * The outcome of requests to a host is reported via {@link #onSuccess(Object)} and {@link #onFailure(Object)}. A host
+ * is ejected if it reaches a number of consecutive failures, or if its failure rate over a sliding window of its most
+ * recent requests exceeds a threshold. An ejected host is not selected by the {@link LoadBalancer} for an ejection time
+ * which grows exponentially with every consecutive ejection. After that, a single probe request is let through: if it
+ * succeeds the host is readmitted, otherwise it is ejected again.
+ * <p>
+ * If all hosts are ejected the {@link LoadBalancer} ignores the ejections rather than failing all requests.
+ * <p>
+ * An instance may be shared by multiple {@link LoadBalancer}s. The state of a host is kept as long as at least one of
+ * them uses the host, and outcomes for hosts which are not used by any {@link LoadBalancer} are ignored.
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @see RoundRobinLoadBalancer#newRoundRobinFactory(OutlierDetector)
+ */
+public final class OutlierDetector<ResolvedAddress> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<OutlierDetector.HostState, Ejection> ejectionUpdater =
+            AtomicReferenceFieldUpdater.newUpdater(OutlierDetector.HostState.class, Ejection.class, "ejection");
+
+    private final ConcurrentMap<ResolvedAddress, HostState> states = new ConcurrentHashMap<>();
+    private final int consecutiveFailures;
+    private final double failureRate;
+    private final int windowSize;
+    private final int minimumRequests;
+    private final long baseEjectionNanos;
+    private final long maxEjectionNanos;
+    private final LongSupplier nanoClock;
+
+    OutlierDetector(final int consecutiveFailures, final double failureRate, final int windowSize,
+                    final int minimumRequests, final long baseEjectionNanos, final long maxEjectionNanos,
+                    final LongSupplier nanoClock) {
+        this.consecutiveFailures = consecutiveFailures;
+        this.failureRate = failureRate;
+        this.windowSize = windowSize;
+        this.minimumRequests = minimumRequests;
+        this.baseEjectionNanos = baseEjectionNanos;
+        this.maxEjectionNanos = maxEjectionNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Reports a successful request to the host with the passed address.
+     *
+     * @param address the address of the host.
+     */
+    public void onSuccess(final ResolvedAddress address) {
+        final HostState state = states.get(address);
+        if (state != null) {
+            state.onSuccess();
+        }
+    }
+
+    /**
+     * Reports a failed request to the host with the passed address.
+     *
+     * @param address the address of the host.
+     */
+    public void onFailure(final ResolvedAddress address) {
+        final HostState state = states.get(address);
+        if (state != null) {
+            state.onFailure(nanoClock.getAsLong());
+        }
+    }
+
+    /**
+     * Returns {@code true} if the host with the passed address is currently ejected.
+     *
+     * @param address the address of the host.
+     * @return {@code true} if the host with the passed address is currently ejected.
+     */
+    public boolean isEjected(final ResolvedAddress address) {
+        final HostState state = states.get(address);
+        return state != null && state.isEjected(nanoClock.getAsLong());
+    }
+
+    /**
+     * Determines whether a request may be sent to the host with the passed address.
+     *
+     * @param address the address of the host.
+     * @return {@code true} if the host is not ejected, or if the request is admitted as a probe.
+     */
+    boolean tryAcquire(final ResolvedAddress address) {
+        final HostState state = states.get(address);
+        return state == null || state.tryAcquire(nanoClock.getAsLong());
+    }
+
+    /**
+     * Starts tracking the host with the passed address for a user, e.g. after it was added by service discovery to a
+     * {@link LoadBalancer}. Every call must be paired with a call to {@link #remove(Object)}.
+     *
+     * @param address the address of the host.
+     */
+    void add(final ResolvedAddress address) {
+        states.compute(address, (__, state) -> {
+            if (state == null) {
+                state = new HostState();
+            }
+            ++state.users;
+            return state;
+        });
+    }
+
+    /**
+     * Stops tracking the host with the passed address for a user, e.g. after it was removed by service discovery from
+     * a {@link LoadBalancer}. The state of the host is dropped once it has no more users.
+     *
+     * @param address the address of the host.
+     */
+    void remove(final ResolvedAddress address) {
+        states.computeIfPresent(address, (__, state) -> --state.users == 0 ? null : state);
+    }
+
+    /**
+     * The ejection state of a host while it is ejected or probed, immutable so that it can be swapped atomically.
+     */
+    private static final class Ejection {
+        final long durationNanos;
+        // Start time of the ejection or the probe, depending on the state.
+        final long startNanos;
+        final boolean probing;
+
+        Ejection(final long durationNanos, final long startNanos, final boolean probing) {
+            this.durationNanos = durationNanos;
+            this.startNanos = startNanos;
+            this.probing = probing;
+        }
+
+        boolean isElapsed(final long nowNanos) {
+            return nowNanos - startNanos >= durationNanos;
+        }
+    }
+
+    private final class HostState {
+        // Number of load balancers using the host, only accessed from ConcurrentMap#compute*.
+        private int users;
+        // null while the host is healthy. Only tryAcquire() modifies it without holding the lock on "this", and only
+        // to start a probe of an ejected host, hence the outcome of a request can always overwrite it.
+        @Nullable
+        volatile Ejection ejection;
+        // All fields below are guarded by "this".
+        private final boolean[] window = new boolean[windowSize];
+        private int windowIndex;
+        private int windowCount;
+        private int windowFailures;
+        private int failures;
+        private int successes;
+        private int ejections;
+
+        boolean tryAcquire(final long nowNanos) {
+            for (;;) {
+                final Ejection current = ejection;
+                if (current == null) {
+                    return true;
+                }
+                // Admit a probe once the ejection time elapsed, or if the previous probe did not report back in time.
+                if (!current.isElapsed(nowNanos)) {
+                    return false;
+                }
+                if (ejectionUpdater.compareAndSet(this, current,
+                        new Ejection(current.durationNanos, nowNanos, true))) {
+                    return true;
+                }
+            }
+        }
+
+        boolean isEjected(final long nowNanos) {
+            final Ejection current = ejection;
+            return current != null && (current.probing || !current.isElapsed(nowNanos));
+        }
+
+        synchronized void onSuccess() {
+            final Ejection current = ejection;
+            if (current != null) {
+                if (!current.probing) {
+                    // Request was in flight before the host was ejected.
+                    return;
+                }
+                readmit();
+            }
+            failures = 0;
+            record(false);
+            if (++successes >= windowSize) {
+                // The host has been healthy for a while, start over with the base ejection time.
+                ejections = 0;
+            }
+        }
+
+        synchronized void onFailure(final long nowNanos) {
+            final Ejection current = ejection;
+            if (current != null) {
+                if (current.probing) {
+                    eject(nowNanos);
+                }
+                return;
+            }
+            successes = 0;
+            ++failures;
+            record(true);
+            if (failures >= consecutiveFailures ||
+                    (windowCount >= minimumRequests && windowFailures >= failureRate * windowCount)) {
+                eject(nowNanos);
+            }
+        }
+
+        private void record(final boolean failure) {
+            if (windowCount == window.length) {
+                if (window[windowIndex]) {
+                    --windowFailures;
+                }
+            } else {
+                ++windowCount;
+            }
+            window[windowIndex] = failure;
+            if (failure) {
+                ++windowFailures;
+            }
+            windowIndex = (windowIndex + 1) % window.length;
+        }
+
+        private void eject(final long nowNanos) {
+            ejection = new Ejection(nextEjectionNanos(), nowNanos, false);
+            ++ejections;
+        }
+
+        private long nextEjectionNanos() {
+            // The shifted value would overflow for numberOfLeadingZeros(baseEjectionNanos) or more ejections, and is
+            // way beyond any sensible maximum well before that.
+            return ejections >= numberOfLeadingZeros(baseEjectionNanos) - 1 ? maxEjectionNanos :
+                    min(maxEjectionNanos, baseEjectionNanos << ejections);
+        }
+
+        private void readmit() {
+            ejection = null;
+            windowIndex = 0;
+            windowCount = 0;
+            windowFailures = 0;
+            successes = 0;
+        }
+    }
+
+    /**
+     * A builder for {@link OutlierDetector}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     */
+    public static final class Builder<ResolvedAddress> {
+        private int consecutiveFailures = 5;
+        private double failureRate = 0.5;
+        private int windowSize = 100;
+        private int minimumRequests = 20;
+        private Duration baseEjectionTime = Duration.ofSeconds(1);
+        private Duration maxEjectionTime = Duration.ofSeconds(30);
+        @Nullable
+        private LongSupplier nanoClock;
+
+        /**
+         * Sets the number of consecutive failures after which a host is ejected.
+         *
+         * @param consecutiveFailures the number of consecutive failures after which a host is ejected.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress> consecutiveFailures(final int consecutiveFailures) {
+            if (consecutiveFailures <= 0) {
+                throw new IllegalArgumentException("consecutiveFailures: " + consecutiveFailures + " (expected >0)");
+            }
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        /**
+         * Sets the failure rate over the sliding window after which a host is ejected.
+         *
+         * @param failureRate the failure rate in the range {@code (0, 1]}.
+         * @param windowSize the number of most recent requests to a host the failure rate is computed for.
+         * @param minimumRequests the minimum number of requests in the window before the failure rate is considered.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress> failureRate(final double failureRate, final int windowSize,
+                                                    final int minimumRequests) {
+            if (!(failureRate > 0 && failureRate <= 1)) {
+                throw new IllegalArgumentException("failureRate: " + failureRate + " (expected (0, 1])");
+            }
+            if (windowSize <= 0) {
+                throw new IllegalArgumentException("windowSize: " + windowSize + " (expected >0)");
+            }
+            if (minimumRequests <= 0 || minimumRequests > windowSize) {
+                throw new IllegalArgumentException("minimumRequests: " + minimumRequests +
+                        " (expected >0 and <=windowSize)");
+            }
+            this.failureRate = failureRate;
+            this.windowSize = windowSize;
+            this.minimumRequests = minimumRequests;
+            return this;
+        }
+
+        /**
+         * Sets the ejection time of a host. The first ejection lasts for {@code baseEjectionTime}, it doubles with
+         * every consecutive ejection up to {@code maxEjectionTime}.
+         *
+         * @param baseEjectionTime the duration of the first ejection.
+         * @param maxEjectionTime the maximum duration of an ejection.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress> ejectionTime(final Duration baseEjectionTime, final Duration maxEjectionTime) {
+            if (baseEjectionTime.isNegative() || baseEjectionTime.isZero()) {
+                throw new IllegalArgumentException("baseEjectionTime: " + baseEjectionTime + " (expected >0)");
+            }
+            if (maxEjectionTime.compareTo(baseEjectionTime) < 0) {
+                throw new IllegalArgumentException("maxEjectionTime: " + maxEjectionTime +
+                        " (expected >=baseEjectionTime)");
+            }
+            this.baseEjectionTime = baseEjectionTime;
+            this.maxEjectionTime = maxEjectionTime;
+            return this;
+        }
+
+        // Visible for testing
+        Builder<ResolvedAddress> nanoClock(final LongSupplier nanoClock) {
+            this.nanoClock = requireNonNull(nanoClock);
+            return this;
+        }
+
+        /**
+         * Builds a new {@link OutlierDetector}.
+         *
+         * @return A new {@link OutlierDetector}.
+         */
+        public OutlierDetector<ResolvedAddress> build() {
+            return new OutlierDetector<>(consecutiveFailures, failureRate, windowSize, minimumRequests,
+                    baseEjectionTime.toNanos(), maxEjectionTime.toNanos(),
+                    nanoClock == null ? System::nanoTime : nanoClock);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionRejectedException;
+import io.servicetalk.client.api.InFlightRequestListener;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ScoreSupplier;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompositeCloseable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.internal.ThrowableUtils.unknownStackTrace;
+import static java.lang.Math.max;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * A {@link LoadBalancer} that uses the "power of two choices" strategy for selecting addresses. It has the following
+ * behaviour:
+ * <ul>
+ * <li>For each selection two distinct addresses are picked at random, and the address with the lower load is used.
+ * </li>
+ * <li>The load of an address is the number of its in-flight requests plus the number of connections that are
+ * currently being established for it. In-flight requests are counted per address in constant time, as reported by its
+ * connections via {@link LoadBalancedConnection#inFlightRequestListener(InFlightRequestListener)}. Connections which
+ * do not report their requests do not contribute to the load.</li>
+ * <li>Within the selected address, the better of two random connections is tried first. Connections are compared by
+ * their {@link ScoreSupplier#score() score} divided by {@code 1 + inFlight}, where {@code inFlight} is the number of
+ * their in-flight requests, if reported.</li>
+ * <li>Connections are created lazily, without any concurrency control on their creation.</li>
+ * <li>Closed connections are automatically pruned.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class PowerOfTwoChoicesLoadBalancer<ResolvedAddress, C extends LoadBalancedConnection>
+        implements LoadBalancer<C> {
+
+    private static final IllegalStateException LB_CLOSED_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new IllegalStateException("LoadBalancer has closed"),
+                    PowerOfTwoChoicesLoadBalancer.class, "selectConnection0(...)");
+    private static final NoAvailableHostException NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION =
+            unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."),
+                    PowerOfTwoChoicesLoadBalancer.class, "selectConnection0(...)");
+
+    /**
+     * See {@link RoundRobinLoadBalancer} for the rationale of the search space heuristics.
+     */
+    private static final int MIN_SEARCH_SPACE = 64;
+    private static final float SEARCH_FACTOR = 0.75f;
+
+    private volatile boolean closed;
+
+    private final HostManager<ResolvedAddress, C> hostManager;
+    private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    private final ListenableAsyncCloseable asyncCloseable;
+    private final ConcurrentMap<C, ConnectionLoad> connectionLoads = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     */
+    public PowerOfTwoChoicesLoadBalancer(
+            final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+            final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+            final Comparator<ResolvedAddress> comparator) {
+
+        this.connectionFactory = requireNonNull(connectionFactory);
+        hostManager = new HostManager<>(this, comparator, 0, null);
+        asyncCloseable = toAsyncCloseable(graceful -> {
+            closed = true;
+            CompositeCloseable cc = newCompositeCloseable().appendAll(hostManager.close())
+                    .appendAll(connectionFactory);
+            return graceful ? cc.closeAsyncGracefully() : cc.closeAsync();
+        });
+        hostManager.subscribe(eventPublisher);
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link PowerOfTwoChoicesLoadBalancer}.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link PowerOfTwoChoicesLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    LoadBalancerFactory<ResolvedAddress, C> newPowerOfTwoChoicesFactory() {
+        return (eventPublisher, connectionFactory) -> new PowerOfTwoChoicesLoadBalancer<>(eventPublisher,
+                connectionFactory,
+                comparingInt(Object::hashCode));
+    }
+
+    @Override
+    public Single<C> selectConnection(Predicate<C> selector) {
+        return defer(() -> selectConnection0(selector).subscribeShareContext());
+    }
+
+    @Override
+    public Publisher<Object> eventStream() {
+        return hostManager.eventStream();
+    }
+
+    private Single<C> selectConnection0(Predicate<C> selector) {
+        if (closed) {
+            return failed(LB_CLOSED_SELECT_CNX_EXCEPTION);
+        }
+
+        final List<Host<ResolvedAddress, C>> activeHosts = hostManager.activeHosts();
+        if (activeHosts.isEmpty()) {
+            // This is the case when SD has emitted some items but none of the hosts are active.
+            return failed(NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION);
+        }
+
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        final Host<ResolvedAddress, C> host = selectHost(activeHosts, rnd);
+
+        // Try first to see if an existing connection can be used
+        final List<C> connections = host.connections;
+        final int size = connections.size();
+        if (size > 0) {
+            // Respect the load of the connections by testing the better of two random connections first.
+            final int firstIndex = rnd.nextInt(size);
+            int secondIndex = firstIndex;
+            C first = connections.get(firstIndex);
+            if (size > 1) {
+                secondIndex = rnd.nextInt(size - 1);
+                if (secondIndex >= firstIndex) {
+                    ++secondIndex;
+                }
+                C second = connections.get(secondIndex);
+                if (weightedScore(second) > weightedScore(first)) {
+                    final C tmp = first;
+                    first = second;
+                    second = tmp;
+                }
+                if (selector.test(first)) {
+                    return succeeded(first);
+                }
+                if (selector.test(second)) {
+                    return succeeded(second);
+                }
+            } else if (selector.test(first)) {
+                return succeeded(first);
+            }
+            // With small enough search space, attempt all connections.
+            // Back off after exploring most of the search space, it gives diminishing returns.
+            final int attempts = size < MIN_SEARCH_SPACE ? size : (int) (size * SEARCH_FACTOR);
+            final int offset = rnd.nextInt(size);
+            for (int i = 0; i < attempts; i++) {
+                final int index = (offset + i) % size;
+                if (index == firstIndex || index == secondIndex) {
+                    continue;
+                }
+                final C connection = connections.get(index);
+                if (selector.test(connection)) {
+                    return succeeded(connection);
+                }
+            }
+        }
+
+        // No connection was selected: create a new one
+        host.connectStarted();
+        return connectionFactory.newConnection(host.address)
+                .beforeFinally(host::connectFinished)
+                .flatMap(newCnx -> {
+                    // Count the requests of the new connection from the first one, which is accepted by the selector.
+                    final ConnectionLoad load = new ConnectionLoad(host);
+                    connectionLoads.put(newCnx, load);
+                    newCnx.onClose().beforeFinally(() -> connectionLoads.remove(newCnx)).subscribe();
+                    newCnx.inFlightRequestListener(load);
+                    // Invoke the selector before adding the connection to the pool, otherwise, connection can be used
+                    // concurrently and hence a new connection can be rejected by the selector.
+                    if (!selector.test(newCnx)) {
+                        newCnx.closeAsync().subscribe();
+                        // Failure in selection could be temporary, hence add it to the queue and be consistent with the
+                        // fact that select failure does not close a connection.
+                        return failed(new ConnectionRejectedException("Newly created connection " + newCnx +
+                                " rejected by the selection filter."));
+                    }
+                    if (host.addConnection(newCnx)) {
+                        // If the LB has closed, we attempt to remove the connection, if the removal succeeds, close it.
+                        if (closed) {
+                            if (host.removeConnection(newCnx)) {
+                                newCnx.closeAsync().subscribe();
+                            }
+                            return failed(LB_CLOSED_SELECT_CNX_EXCEPTION);
+                        }
+                        return succeeded(newCnx);
+                    }
+                    return failed(new ConnectionRejectedException("Failed to add newly created connection for host: " +
+                            host.address + ", host inactive? " + (host.connections == Host.INACTIVE)));
+                });
+    }
+
+    private static <Addr, C extends LoadBalancedConnection> Host<Addr, C> selectHost(final List<Host<Addr, C>> hosts,
+                                                                                     final ThreadLocalRandom rnd) {
+        final int size = hosts.size();
+        if (size == 1) {
+            return hosts.get(0);
+        }
+        // Pick two distinct hosts at random.
+        final int i1 = rnd.nextInt(size);
+        int i2 = rnd.nextInt(size - 1);
+        if (i2 >= i1) {
+            ++i2;
+        }
+        final Host<Addr, C> h1 = hosts.get(i1);
+        final Host<Addr, C> h2 = hosts.get(i2);
+        // Ties are resolved in favor of h1 which is picked at random.
+        return load(h2) < load(h1) ? h2 : h1;
+    }
+
+    private static int load(final Host<?, ?> host) {
+        // A connection which is currently being established will carry at least one request once established.
+        return host.inFlight() + host.pendingConnects;
+    }
+
+    private float weightedScore(final C connection) {
+        final ConnectionLoad load = connectionLoads.get(connection);
+        return load == null ? connection.score() : connection.score() / (1 + load.inFlight());
+    }
+
+    @Override
+    public Completable onClose() {
+        return asyncCloseable.onClose();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return asyncCloseable.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return asyncCloseable.closeAsyncGracefully();
+    }
+
+    // Visible for testing
+    List<Entry<ResolvedAddress, List<C>>> activeAddresses() {
+        return hostManager.activeHosts().stream().map(Host::asEntry).collect(toList());
+    }
+
+    /**
+     * Counts the in-flight requests of a connection, and reports them to its {@link Host}.
+     */
+    private static final class ConnectionLoad implements InFlightRequestListener {
+        private static final AtomicIntegerFieldUpdater<ConnectionLoad> inFlightUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(ConnectionLoad.class, "inFlight");
+
+        private final Host<?, ?> host;
+        private volatile int inFlight;
+
+        ConnectionLoad(final Host<?, ?> host) {
+            this.host = host;
+        }
+
+        int inFlight() {
+            // The count may briefly be negative, see Host#inFlight().
+            return max(0, inFlight);
+        }
+
+        @Override
+        public void requestStarted() {
+            inFlightUpdater.incrementAndGet(this);
+            host.requestStarted();
+        }
+
+        @Override
+        public void requestFinished() {
+            inFlightUpdater.decrementAndGet(this);
+            host.requestFinished();
+        }
+    }
+}
@@ -22,49 +22,38 @@ import io.servicetalk.client.api.LoadBalancer;
 import io.servicetalk.client.api.LoadBalancerFactory;
 import io.servicetalk.client.api.NoAvailableHostException;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
-import io.servicetalk.concurrent.PublisherSource.Subscriber;
-import io.servicetalk.concurrent.PublisherSource.Subscription;
-import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.CompletableSource;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.CompositeCloseable;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
-import io.servicetalk.concurrent.api.internal.SpScPublisherProcessor;
-import io.servicetalk.concurrent.internal.SequentialCancellable;
+import io.servicetalk.metrics.api.MetricsRegistry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.AbstractMap.SimpleImmutableEntry;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.time.Duration;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
-import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Predicate;
 import javax.annotation.Nullable;
 
-import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_NOT_READY_EVENT;
-import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
 import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
 import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
-import static io.servicetalk.concurrent.api.Completable.mergeAllDelayError;
 import static io.servicetalk.concurrent.api.Single.defer;
 import static io.servicetalk.concurrent.api.Single.failed;
 import static io.servicetalk.concurrent.api.Single.succeeded;
-import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
 import static io.servicetalk.concurrent.internal.ThrowableUtils.unknownStackTrace;
-import static java.util.Collections.binarySearch;
-import static java.util.Collections.emptyList;
-import static java.util.Comparator.comparing;
 import static java.util.Comparator.comparingInt;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
-import static java.util.concurrent.atomic.AtomicReferenceFieldUpdater.newUpdater;
 import static java.util.stream.Collectors.toList;
 
 /**
@@ -72,12 +61,20 @@ import static java.util.stream.Collectors.toList;
  * <ul>
  * <li>Round robining is done at address level.</li>
  * <li>Connections are created lazily, without any concurrency control on their creation.
- * This can lead to over-provisioning connections when dealing with a requests surge.</li>
+ * This can lead to over-provisioning connections when dealing with a requests surge. If created via a
+ * {@link Builder}, a minimum number of connections can be opened when a host becomes active and the number of
+ * concurrent connection attempts per host can be limited, in which case a selection waits for an in flight connection
+ * attempt instead of starting another one, and fails with a {@link ConnectionRejectedException} if none finishes in
+ * time.</li>
  * <li>Existing connections are reused unless a selector passed to {@link #selectConnection(Predicate)} suggests
  * otherwise.
  * This can lead to situations where connections will be used to their maximum capacity (for example in the context of
  * pipelining) before new connections are created.</li>
  * <li>Closed connections are automatically pruned.</li>
+ * <li>If created via {@link #newEventLoopAffineRoundRobinFactory()}, connections which are
+ * {@link LoadBalancedConnection#isAffineToCurrentThread() affine to the calling thread} are preferred over others.</li>
+ * <li>If created via {@link #newRoundRobinFactory(OutlierDetector)}, hosts which are ejected by the
+ * {@link OutlierDetector} are skipped, unless all hosts are ejected.</li>
  * </ul>
  *
  * @param <ResolvedAddress> The resolved address type.
@@ -94,8 +91,6 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             unknownStackTrace(new NoAvailableHostException("No hosts are available to connect."),
                     RoundRobinLoadBalancer.class, "selectConnection0(...)");
 
-    private static final AtomicReferenceFieldUpdater<RoundRobinLoadBalancer, List> activeHostsUpdater =
-            newUpdater(RoundRobinLoadBalancer.class, List.class, "activeHosts");
     private static final AtomicIntegerFieldUpdater<RoundRobinLoadBalancer> indexUpdater =
             newUpdater(RoundRobinLoadBalancer.class, "index");
 
@@ -116,15 +111,21 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
      */
     private static final float SEARCH_FACTOR = 0.75f;
 
+    private static final Duration DEFAULT_CONNECT_WAIT_TIMEOUT = Duration.ofSeconds(10);
+
     private volatile boolean closed;
     @SuppressWarnings("unused")
     private volatile int index;
-    private volatile List<Host<ResolvedAddress, C>> activeHosts = emptyList();
 
-    private final SpScPublisherProcessor<Object> eventStream = new SpScPublisherProcessor<>(32);
-    private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
+    private final HostManager<ResolvedAddress, C> hostManager;
     private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
     private final ListenableAsyncCloseable asyncCloseable;
+    private final boolean eventLoopAffine;
+    @Nullable
+    private final OutlierDetector<ResolvedAddress> outlierDetector;
+    private final int minConnectionsPerHost;
+    private final int maxConcurrentConnectsPerHost;
+    private final long connectWaitTimeoutNanos;
 
     /**
      * Creates a new instance.
@@ -136,93 +137,98 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
     public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
                                   final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
                                   final Comparator<ResolvedAddress> comparator) {
+        this(eventPublisher, connectionFactory, comparator, false);
+    }
 
-        this.connectionFactory = requireNonNull(connectionFactory);
-
-        final Comparator<Host<ResolvedAddress, C>> activeAddressComparator =
-                comparing(host -> host instanceof MutableAddressHost ?
-                        ((MutableAddressHost<ResolvedAddress, C>) host).mutableAddress : host.address, comparator);
-
-        toSource(eventPublisher).subscribe(new Subscriber<ServiceDiscovererEvent<ResolvedAddress>>() {
-
-            @Override
-            public void onSubscribe(final Subscription s) {
-                // We request max value here to make sure we do not access Subscription concurrently
-                // (requestN here and cancel from discoveryCancellable). If we request-1 in onNext we would have to wrap
-                // the Subscription in a ConcurrentSubscription which is costly.
-                // Since, we synchronously process onNexts we do not really care about flow control.
-                s.request(Long.MAX_VALUE);
-                discoveryCancellable.nextCancellable(s);
-            }
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param eventLoopAffine   {@code true} to prefer connections which are
+     * {@link LoadBalancedConnection#isAffineToCurrentThread() affine to the calling thread}.
+     */
+    public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                                  final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                  final Comparator<ResolvedAddress> comparator,
+                                  final boolean eventLoopAffine) {
+        this(eventPublisher, connectionFactory, comparator, eventLoopAffine, null);
+    }
 
-            @SuppressWarnings("unchecked")
-            @Override
-            public void onNext(final ServiceDiscovererEvent<ResolvedAddress> event) {
-                LOGGER.debug("Load balancer {}, received new ServiceDiscoverer event {}.", RoundRobinLoadBalancer.this,
-                        event);
-                final List<Host<ResolvedAddress, C>> activeAddresses =
-                        activeHostsUpdater.updateAndGet(RoundRobinLoadBalancer.this, currentAddresses -> {
-                            final List<Host<ResolvedAddress, C>> refreshedAddresses = new ArrayList<>(currentAddresses);
-                            final MutableAddressHost<ResolvedAddress, C> searchHost = new MutableAddressHost();
-
-                            searchHost.mutableAddress = event.address();
-                            // Binary search because any insertion is performed at the index returned by the search,
-                            // which is consistent with the ordering defined by the comparator
-                            final int i = binarySearch(refreshedAddresses, searchHost, activeAddressComparator);
-
-                            if (event.isAvailable()) {
-                                if (i < 0) {
-                                    refreshedAddresses.add(-i - 1, new Host(event.address()));
-                                }
-                            } else if (i >= 0) {
-                                Host<ResolvedAddress, C> removed = refreshedAddresses.remove(i);
-                                if (removed != null) {
-                                    removed.markInactive();
-                                }
-                            }
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher    provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param comparator        used to compare addresses for lookup/iteration during the connection attempt phase.
+     * @param eventLoopAffine   {@code true} to prefer connections which are
+     * {@link LoadBalancedConnection#isAffineToCurrentThread() affine to the calling thread}.
+     * @param outlierDetector   {@link OutlierDetector} to skip unhealthy hosts, or {@code null} to not eject hosts.
+     */
+    public RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                                  final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                  final Comparator<ResolvedAddress> comparator,
+                                  final boolean eventLoopAffine,
+                                  @Nullable final OutlierDetector<ResolvedAddress> outlierDetector) {
+        this(eventPublisher, connectionFactory, comparator, eventLoopAffine, outlierDetector, 0, 0);
+    }
 
-                            return refreshedAddresses;
-                        });
+    RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final Comparator<ResolvedAddress> comparator,
+                           final boolean eventLoopAffine,
+                           @Nullable final OutlierDetector<ResolvedAddress> outlierDetector,
+                           final int minConnectionsPerHost,
+                           final int maxConcurrentConnectsPerHost) {
+        this(eventPublisher, connectionFactory, comparator, eventLoopAffine, outlierDetector, minConnectionsPerHost,
+                maxConcurrentConnectsPerHost, DEFAULT_CONNECT_WAIT_TIMEOUT.toNanos());
+    }
 
-                LOGGER.debug("Load balancer {} now using {} addresses: {}", RoundRobinLoadBalancer.this,
-                        activeAddresses.size(), activeAddresses);
+    RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final Comparator<ResolvedAddress> comparator,
+                           final boolean eventLoopAffine,
+                           @Nullable final OutlierDetector<ResolvedAddress> outlierDetector,
+                           final int minConnectionsPerHost,
+                           final int maxConcurrentConnectsPerHost,
+                           final long connectWaitTimeoutNanos) {
 
-                if (event.isAvailable()) {
-                    if (activeAddresses.size() == 1) {
-                        eventStream.sendOnNext(LOAD_BALANCER_READY_EVENT);
+        this.connectionFactory = requireNonNull(connectionFactory);
+        this.eventLoopAffine = eventLoopAffine;
+        this.outlierDetector = outlierDetector;
+        this.minConnectionsPerHost = minConnectionsPerHost;
+        this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+        this.connectWaitTimeoutNanos = connectWaitTimeoutNanos;
+        hostManager = new HostManager<>(this, comparator, maxConcurrentConnectsPerHost,
+                new HostManager.HostListener<ResolvedAddress, C>() {
+                    @Override
+                    public void hostAdded(final Host<ResolvedAddress, C> host) {
+                        if (outlierDetector != null) {
+                            outlierDetector.add(host.address);
+                        }
+                        prewarm(host);
                     }
-                } else if (activeAddresses.isEmpty()) {
-                    eventStream.sendOnNext(LOAD_BALANCER_NOT_READY_EVENT);
-                }
-            }
 
-            @Override
-            public void onError(final Throwable t) {
-                List<Host<ResolvedAddress, C>> hosts = activeHosts;
-                eventStream.sendOnError(t);
-                LOGGER.error(
-                        "Load balancer {}. Service discoverer {} emitted an error. Last seen addresses (size {}) {}",
-                        RoundRobinLoadBalancer.this, eventPublisher, hosts.size(), hosts, t);
-            }
-
-            @Override
-            public void onComplete() {
-                List<Host<ResolvedAddress, C>> hosts = activeHosts;
-                eventStream.sendOnComplete();
-                LOGGER.error("Load balancer {}. Service discoverer {} completed. Last seen addresses (size {}) {}",
-                        RoundRobinLoadBalancer.this, eventPublisher, hosts.size(), hosts);
-            }
-        });
+                    @Override
+                    public void hostRemoved(final Host<ResolvedAddress, C> host) {
+                        if (outlierDetector != null) {
+                            outlierDetector.remove(host.address);
+                        }
+                    }
+                });
         asyncCloseable = toAsyncCloseable(graceful -> {
             closed = true;
-            discoveryCancellable.cancel();
-            eventStream.sendOnComplete();
-            @SuppressWarnings("unchecked")
-            List<Host<ResolvedAddress, C>> currentList = activeHostsUpdater
-                    .getAndSet(RoundRobinLoadBalancer.this, Collections.<Host<ResolvedAddress, C>>emptyList());
+            final List<Host<ResolvedAddress, C>> currentList = hostManager.close();
+            if (outlierDetector != null) {
+                for (Host<ResolvedAddress, C> host : currentList) {
+                    outlierDetector.remove(host.address);
+                }
+            }
             CompositeCloseable cc = newCompositeCloseable().appendAll(currentList).appendAll(connectionFactory);
             return graceful ? cc.closeAsyncGracefully() : cc.closeAsync();
         });
+        hostManager.subscribe(eventPublisher);
     }
 
     /**
@@ -238,6 +244,44 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 comparingInt(Object::hashCode));
     }
 
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer} which prefer
+     * connections that are {@link LoadBalancedConnection#isAffineToCurrentThread() affine to the calling thread}.
+     * <p>
+     * Combined with an event loop affine I/O executor this keeps a request on the I/O thread it originated from and
+     * avoids handing it off to another thread.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates event loop affine instances of {@link RoundRobinLoadBalancer}.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    LoadBalancerFactory<ResolvedAddress, C> newEventLoopAffineRoundRobinFactory() {
+        return (eventPublisher, connectionFactory) -> new RoundRobinLoadBalancer<>(eventPublisher,
+                connectionFactory,
+                comparingInt(Object::hashCode), true);
+    }
+
+    /**
+     * Create a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer} which skip hosts
+     * that are ejected by the passed {@link OutlierDetector}.
+     * <p>
+     * The outcome of requests has to be reported to the {@link OutlierDetector}, typically by a connection factory
+     * filter of the protocol in use.
+     * @param outlierDetector {@link OutlierDetector} which tracks the health of hosts.
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer} which skip
+     * ejected hosts.
+     */
+    public static <ResolvedAddress, C extends LoadBalancedConnection>
+    LoadBalancerFactory<ResolvedAddress, C> newRoundRobinFactory(
+            final OutlierDetector<ResolvedAddress> outlierDetector) {
+        requireNonNull(outlierDetector);
+        return (eventPublisher, connectionFactory) -> new RoundRobinLoadBalancer<>(eventPublisher,
+                connectionFactory,
+                comparingInt(Object::hashCode), false, outlierDetector);
+    }
+
     @Override
     public Single<C> selectConnection(Predicate<C> selector) {
         return defer(() -> selectConnection0(selector).subscribeShareContext());
@@ -245,7 +289,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
 
     @Override
     public Publisher<Object> eventStream() {
-        return eventStream;
+        return hostManager.eventStream();
     }
 
     private Single<C> selectConnection0(Predicate<C> selector) {
@@ -253,21 +297,30 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             return failed(LB_CLOSED_SELECT_CNX_EXCEPTION);
         }
 
-        final List<Host<ResolvedAddress, C>> activeHosts = this.activeHosts;
+        final List<Host<ResolvedAddress, C>> activeHosts = hostManager.activeHosts();
         if (activeHosts.isEmpty()) {
             // This is the case when SD has emitted some items but none of the hosts are active.
             return failed(NO_ACTIVE_HOSTS_SELECT_CNX_EXCEPTION);
         }
 
         final int cursor = (indexUpdater.getAndIncrement(this) & Integer.MAX_VALUE) % activeHosts.size();
-        final Host<ResolvedAddress, C> host = activeHosts.get(cursor);
+        final Host<ResolvedAddress, C> host = outlierDetector == null ? activeHosts.get(cursor) :
+                selectHealthyHost(activeHosts, cursor, outlierDetector);
         assert host != null : "Host can't be null.";
-        assert host.address != null : "Host address can't be null.";
         final ThreadLocalRandom rnd = ThreadLocalRandom.current();
 
         // Try first to see if an existing connection can be used
         final List<C> connections = host.connections;
         final int size = connections.size();
+        if (eventLoopAffine) {
+            // Checking affinity is cheap compared to the CAS done by the selector, hence scan all connections.
+            for (int i = 0; i < size; i++) {
+                final C connection = connections.get(i);
+                if (connection.isAffineToCurrentThread() && selector.test(connection)) {
+                    return succeeded(connection);
+                }
+            }
+        }
         // With small enough search space, attempt all connections.
         // Back off after exploring most of the search space, it gives diminishing returns.
         final int attempts = size < MIN_SEARCH_SPACE ? size : (int) (size * SEARCH_FACTOR);
@@ -279,6 +332,17 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
         }
 
         // No connection was selected: create a new one
+        // Read the waiters before trying to start a connect, so a connect finishing in between is not missed.
+        final CompletableSource connectWaiters = host.connectWaiters;
+        if (!tryStartConnect(host)) {
+            // Too many connects are in flight for this host, wait for one of them to finish and select again, which
+            // then likely picks up the new connection.
+            assert connectWaiters != null;
+            return fromSource(connectWaiters)
+                    .idleTimeout(connectWaitTimeoutNanos, NANOSECONDS)
+                    .onErrorResume(cause -> connectWaitFailed(host, cause))
+                    .concat(defer(() -> selectConnection0(selector).subscribeShareContext()));
+        }
         return connectionFactory.newConnection(host.address)
                 .flatMap(newCnx -> {
                     // Invoke the selector before adding the connection to the pool, otherwise, connection can be used
@@ -295,30 +359,69 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                         // If we can't remove it, it means it's been removed concurrently and we assume that whoever
                         // removed it also closed it or that it has been removed as a consequence of closing.
                         if (closed) {
-
-                            List<C> existing = connections;
-                            for (;;) {
-                                if (existing == Host.INACTIVE) {
-                                    break;
-                                }
-                                ArrayList<C> connectionRemoved = new ArrayList<>(existing);
-                                if (!connectionRemoved.remove(newCnx)) {
-                                    break;
-                                }
-                                if (Host.connectionsUpdater.compareAndSet(host, existing, connectionRemoved)) {
-                                    newCnx.closeAsync().subscribe();
-                                    break;
-                                }
-                                existing = connections;
+                            if (host.removeConnection(newCnx)) {
+                                newCnx.closeAsync().subscribe();
                             }
-
                             return failed(LB_CLOSED_SELECT_CNX_EXCEPTION);
                         }
                         return succeeded(newCnx);
                     }
                     return failed(new ConnectionRejectedException("Failed to add newly created connection for host: " +
                             host.address + ", host inactive? " + (host.connections == Host.INACTIVE)));
-                });
+                })
+                // Finish the connect only after the connection was added, so waiting selections can pick it up.
+                .beforeFinally(host::connectFinished);
+    }
+
+    private void prewarm(final Host<ResolvedAddress, C> host) {
+        for (int i = 0; i < minConnectionsPerHost; i++) {
+            // Prewarming is best effort: connections which are not admitted by the connect limit or fail to establish
+            // are created lazily on selection.
+            if (!tryStartConnect(host)) {
+                return;
+            }
+            connectionFactory.newConnection(host.address)
+                    .beforeOnSuccess(newCnx -> {
+                        if (host.addConnection(newCnx) && closed && host.removeConnection(newCnx)) {
+                            newCnx.closeAsync().subscribe();
+                        }
+                    })
+                    .beforeFinally(host::connectFinished)
+                    .beforeOnError(cause -> LOGGER.debug("Load balancer {}, failed to prewarm a connection to {}.",
+                            this, host.address, cause))
+                    .ignoreElement()
+                    .subscribe();
+        }
+    }
+
+    private boolean tryStartConnect(final Host<ResolvedAddress, C> host) {
+        if (maxConcurrentConnectsPerHost > 0) {
+            return host.tryStartConnect(maxConcurrentConnectsPerHost);
+        }
+        host.connectStarted();
+        return true;
+    }
+
+    private Completable connectWaitFailed(final Host<ResolvedAddress, C> host, final Throwable cause) {
+        if (cause instanceof TimeoutException) {
+            return Completable.failed(new ConnectionRejectedException("No connection attempt to host " +
+                    host.address + " finished within " + connectWaitTimeoutNanos + "ns while " +
+                    maxConcurrentConnectsPerHost + " attempts were in flight.", cause));
+        }
+        return Completable.failed(cause);
+    }
+
+    private static <Addr, C extends LoadBalancedConnection> Host<Addr, C> selectHealthyHost(
+            final List<Host<Addr, C>> hosts, final int cursor, final OutlierDetector<Addr> outlierDetector) {
+        final int size = hosts.size();
+        for (int i = 0; i < size; i++) {
+            final Host<Addr, C> host = hosts.get((cursor + i) % size);
+            if (outlierDetector.tryAcquire(host.address)) {
+                return host;
+            }
+        }
+        // All hosts are ejected, rather use an ejected host than failing the request.
+        return hosts.get(cursor);
     }
 
     @Override
@@ -338,99 +441,177 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
 
     // Visible for testing
     List<Entry<ResolvedAddress, List<C>>> activeAddresses() {
-        return activeHosts.stream().map(Host::asEntry).collect(toList());
+        return hostManager.activeHosts().stream().map(Host::asEntry).collect(toList());
     }
 
-    private static class Host<Addr, C extends ListenableAsyncCloseable> implements AsyncCloseable {
-        private static final AtomicReferenceFieldUpdater<Host, List> connectionsUpdater =
-                AtomicReferenceFieldUpdater.newUpdater(Host.class, List.class, "connections");
-
-        static final List INACTIVE = emptyList();
-        private static final List NO_CONNECTIONS = new ArrayList(0);
+    int activeHostCount() {
+        return hostManager.activeHosts().size();
+    }
 
-        @Nullable
-        final Addr address;
-        @SuppressWarnings("unchecked")
-        private volatile List<C> connections = NO_CONNECTIONS;
+    int ejectedHostCount() {
+        if (outlierDetector == null) {
+            return 0;
+        }
+        int ejected = 0;
+        for (Host<ResolvedAddress, C> host : hostManager.activeHosts()) {
+            if (outlierDetector.isEjected(host.address)) {
+                ++ejected;
+            }
+        }
+        return ejected;
+    }
 
-        Host() {
-            address = null;
+    int connectionCount() {
+        int connections = 0;
+        for (Host<ResolvedAddress, C> host : hostManager.activeHosts()) {
+            connections += host.connections.size();
         }
+        return connections;
+    }
 
-        Host(Addr address) {
-            this.address = address;
+    int pendingConnectCount() {
+        int pendingConnects = 0;
+        for (Host<ResolvedAddress, C> host : hostManager.activeHosts()) {
+            pendingConnects += host.pendingConnects;
         }
+        return pendingConnects;
+    }
 
-        void markInactive() {
-            @SuppressWarnings("unchecked")
-            List<C> toRemove = connectionsUpdater.getAndSet(this, INACTIVE);
-            for (C conn : toRemove) {
-                conn.closeAsync().subscribe();
-            }
+    /**
+     * A builder for a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+        private boolean eventLoopAffine;
+        @Nullable
+        private OutlierDetector<ResolvedAddress> outlierDetector;
+        private int minConnectionsPerHost;
+        private int maxConcurrentConnectsPerHost;
+        private Duration connectWaitTimeout = DEFAULT_CONNECT_WAIT_TIMEOUT;
+        @Nullable
+        private MetricsRegistry metricsRegistry;
+        @Nullable
+        private String metricsNamePrefix;
+
+        /**
+         * Prefer connections which are {@link LoadBalancedConnection#isAffineToCurrentThread() affine to the calling
+         * thread}.
+         *
+         * @param eventLoopAffine {@code true} to prefer connections which are affine to the calling thread.
+         * @return {@code this}.
+         * @see #newEventLoopAffineRoundRobinFactory()
+         */
+        public Builder<ResolvedAddress, C> eventLoopAffine(final boolean eventLoopAffine) {
+            this.eventLoopAffine = eventLoopAffine;
+            return this;
         }
 
-        boolean addConnection(C connection) {
+        /**
+         * Skip hosts which are ejected by the passed {@link OutlierDetector}.
+         *
+         * @param outlierDetector {@link OutlierDetector} which tracks the health of hosts.
+         * @return {@code this}.
+         * @see #newRoundRobinFactory(OutlierDetector)
+         */
+        public Builder<ResolvedAddress, C> outlierDetector(final OutlierDetector<ResolvedAddress> outlierDetector) {
+            this.outlierDetector = requireNonNull(outlierDetector);
+            return this;
+        }
 
-            for (;;) {
-                List<C> existing = this.connections;
-                if (existing == INACTIVE) {
-                    connection.closeAsync().subscribe();
-                    return false;
-                }
-                ArrayList<C> connectionAdded = new ArrayList<>(existing);
-                connectionAdded.add(connection);
-                if (connectionsUpdater.compareAndSet(this, existing, connectionAdded)) {
-                    break;
-                }
+        /**
+         * Sets the number of connections which are opened in the background when a host becomes active, so that the
+         * first requests to it do not pay for establishing connections. Connections which fail to establish or close
+         * later are not replaced until a selection needs them.
+         *
+         * @param minConnectionsPerHost the number of connections to open when a host becomes active.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress, C> minConnectionsPerHost(final int minConnectionsPerHost) {
+            if (minConnectionsPerHost < 0) {
+                throw new IllegalArgumentException("minConnectionsPerHost: " + minConnectionsPerHost +
+                        " (expected >=0)");
             }
-
-            // Instrument the new connection so we prune it on close
-            connection.onClose().beforeFinally(() -> {
-                List<C> existing = connections;
-                for (;;) {
-                    if (existing == INACTIVE) {
-                        break;
-                    }
-                    ArrayList<C> connectionRemoved = new ArrayList<>(existing);
-                    if (!connectionRemoved.remove(connection) ||
-                            connectionsUpdater.compareAndSet(this, existing, connectionRemoved)) {
-                        break;
-                    }
-                    existing = connections;
-                }
-            }).subscribe();
-            return true;
+            this.minConnectionsPerHost = minConnectionsPerHost;
+            return this;
         }
 
-        // Used for testing only
-        Entry<Addr, List<C>> asEntry() {
-            assert address != null;
-            return new SimpleImmutableEntry<>(address, new ArrayList<>(connections));
+        /**
+         * Limits the number of concurrent connection attempts per host. If no existing connection can be selected
+         * and the limit is reached, the selection waits for an in flight connection attempt to finish and then
+         * selects again, instead of opening another connection. Connections opened for
+         * {@link #minConnectionsPerHost(int)} count against the same limit.
+         *
+         * @param maxConcurrentConnectsPerHost the maximum number of concurrent connection attempts per host, or
+         * {@code 0} for no limit.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress, C> maxConcurrentConnectsPerHost(final int maxConcurrentConnectsPerHost) {
+            if (maxConcurrentConnectsPerHost < 0) {
+                throw new IllegalArgumentException("maxConcurrentConnectsPerHost: " + maxConcurrentConnectsPerHost +
+                        " (expected >=0)");
+            }
+            this.maxConcurrentConnectsPerHost = maxConcurrentConnectsPerHost;
+            return this;
         }
 
-        @Override
-        public Completable closeAsync() {
-            return mergeAllDelayError(connections.stream()
-                    .map(AsyncCloseable::closeAsync)::iterator);
+        /**
+         * Sets the maximum time a selection waits for an in flight connection attempt to finish once
+         * {@link #maxConcurrentConnectsPerHost(int)} is reached. If none finishes in time, the selection fails with a
+         * {@link ConnectionRejectedException}.
+         * <p>
+         * By default a selection waits up to 10 seconds.
+         *
+         * @param connectWaitTimeout the maximum time to wait for an in flight connection attempt to finish.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress, C> connectWaitTimeout(final Duration connectWaitTimeout) {
+            if (connectWaitTimeout.isNegative() || connectWaitTimeout.isZero()) {
+                throw new IllegalArgumentException("connectWaitTimeout: " + connectWaitTimeout + " (expected >0)");
+            }
+            this.connectWaitTimeout = connectWaitTimeout;
+            return this;
         }
 
-        @Override
-        public Completable closeAsyncGracefully() {
-            return mergeAllDelayError(connections.stream()
-                    .map(AsyncCloseable::closeAsyncGracefully)::iterator);
+        /**
+         * Registers gauges with the passed {@link MetricsRegistry} which sum up the state of all open load balancers
+         * created by the built factory: the number of active hosts ({@code hosts}), ejected hosts
+         * ({@code hosts.ejected}), connections ({@code connections}) and in flight connection attempts
+         * ({@code connects.pending}), each prefixed by {@code namePrefix} and a dot.
+         *
+         * @param registry the {@link MetricsRegistry} to register the gauges with.
+         * @param namePrefix the prefix for the names of the gauges.
+         * @return {@code this}.
+         */
+        public Builder<ResolvedAddress, C> metrics(final MetricsRegistry registry, final String namePrefix) {
+            this.metricsRegistry = requireNonNull(registry);
+            this.metricsNamePrefix = requireNonNull(namePrefix);
+            return this;
         }
 
-        @Override
-        public String toString() {
-            return "Host{" +
-                    "address=" + address +
-                    ", removed=" + (connections == INACTIVE) +
-                    '}';
+        /**
+         * Builds a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer}.
+         *
+         * @return a {@link LoadBalancerFactory} that creates instances of {@link RoundRobinLoadBalancer}.
+         */
+        public LoadBalancerFactory<ResolvedAddress, C> build() {
+            final boolean eventLoopAffine = this.eventLoopAffine;
+            final OutlierDetector<ResolvedAddress> outlierDetector = this.outlierDetector;
+            final int minConnectionsPerHost = this.minConnectionsPerHost;
+            final int maxConcurrentConnectsPerHost = this.maxConcurrentConnectsPerHost;
+            final long connectWaitTimeoutNanos = connectWaitTimeout.toNanos();
+            if (metricsRegistry == null) {
+                return (eventPublisher, connectionFactory) -> new RoundRobinLoadBalancer<>(eventPublisher,
+                        connectionFactory, comparingInt(Object::hashCode), eventLoopAffine, outlierDetector,
+                        minConnectionsPerHost, maxConcurrentConnectsPerHost, connectWaitTimeoutNanos);
+            }
+            assert metricsNamePrefix != null;
+            final LoadBalancerGauges<ResolvedAddress, C> gauges =
+                    new LoadBalancerGauges<>(metricsRegistry, metricsNamePrefix);
+            return (eventPublisher, connectionFactory) -> gauges.add(new RoundRobinLoadBalancer<>(eventPublisher,
+                    connectionFactory, comparingInt(Object::hashCode), eventLoopAffine, outlierDetector,
+                    minConnectionsPerHost, maxConcurrentConnectsPerHost, connectWaitTimeoutNanos));
         }
     }
-
-    private static final class MutableAddressHost<Addr, C extends ListenableAsyncCloseable> extends Host<Addr, C> {
-        @Nullable
-        Addr mutableAddress;
-    }
 }
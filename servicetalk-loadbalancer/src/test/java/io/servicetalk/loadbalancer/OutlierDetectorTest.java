@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class OutlierDetectorTest {
+    private static final String HOST = "host";
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private long nowNanos;
+    private final OutlierDetector<String> detector = new OutlierDetector.Builder<String>()
+            .consecutiveFailures(3)
+            .failureRate(0.5, 10, 4)
+            .ejectionTime(Duration.ofSeconds(1), Duration.ofSeconds(3))
+            .nanoClock(() -> nowNanos)
+            .build();
+
+    @Before
+    public void setUp() {
+        detector.add(HOST);
+    }
+
+    @Test
+    public void ejectsAfterConsecutiveFailures() {
+        assertThat(detector.tryAcquire(HOST), is(true));
+        detector.onFailure(HOST);
+        detector.onFailure(HOST);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        detector.onFailure(HOST);
+        assertThat(detector.tryAcquire(HOST), is(false));
+        assertThat(detector.isEjected(HOST), is(true));
+    }
+
+    @Test
+    public void ejectsOnFailureRate() {
+        assertThat(detector.tryAcquire(HOST), is(true));
+        for (int i = 0; i < 3; i++) {
+            detector.onSuccess(HOST);
+            detector.onFailure(HOST);
+        }
+        assertThat(detector.tryAcquire(HOST), is(false));
+    }
+
+    @Test
+    public void probesAndReadmits() {
+        eject();
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        // Only a single probe is admitted.
+        assertThat(detector.tryAcquire(HOST), is(false));
+        detector.onSuccess(HOST);
+        assertThat(detector.isEjected(HOST), is(false));
+        assertThat(detector.tryAcquire(HOST), is(true));
+    }
+
+    @Test
+    public void probeWhichDoesNotReportBackIsReplaced() {
+        eject();
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        assertThat(detector.isEjected(HOST), is(true));
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        assertThat(detector.tryAcquire(HOST), is(false));
+    }
+
+    @Test
+    public void ejectionTimeGrowsExponentially() {
+        eject();
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        detector.onFailure(HOST);
+
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(false));
+        nowNanos += SECONDS.toNanos(1);
+        assertThat(detector.tryAcquire(HOST), is(true));
+        detector.onFailure(HOST);
+
+        // Capped by the max ejection time.
+        nowNanos += SECONDS.toNanos(3);
+        assertThat(detector.tryAcquire(HOST), is(true));
+    }
+
+    @Test
+    public void outcomesOfUntrackedHostsAreIgnored() {
+        final String other = "other";
+        detector.onFailure(other);
+        detector.onFailure(other);
+        detector.onFailure(other);
+        assertThat(detector.isEjected(other), is(false));
+        assertThat(detector.tryAcquire(other), is(true));
+
+        eject();
+        detector.remove(HOST);
+        assertThat(detector.isEjected(HOST), is(false));
+        assertThat(detector.tryAcquire(HOST), is(true));
+    }
+
+    @Test
+    public void stateIsKeptWhileAnyUserTracksTheHost() {
+        detector.add(HOST);
+        eject();
+        detector.remove(HOST);
+        assertThat(detector.isEjected(HOST), is(true));
+        detector.remove(HOST);
+        assertThat(detector.isEjected(HOST), is(false));
+    }
+
+    @Test
+    public void ejectionTimeDoesNotOverflow() {
+        final long maxEjectionNanos = Long.MAX_VALUE / 2;
+        final OutlierDetector<String> longEjections = new OutlierDetector.Builder<String>()
+                .consecutiveFailures(1)
+                .ejectionTime(Duration.ofHours(1), Duration.ofNanos(maxEjectionNanos))
+                .nanoClock(() -> nowNanos)
+                .build();
+        longEjections.add(HOST);
+        assertThat(longEjections.tryAcquire(HOST), is(true));
+        longEjections.onFailure(HOST);
+        for (int i = 0; i < 64; i++) {
+            assertThat("Ejection " + i + " admitted a request early.", longEjections.tryAcquire(HOST), is(false));
+            nowNanos += maxEjectionNanos;
+            assertThat(longEjections.tryAcquire(HOST), is(true));
+            longEjections.onFailure(HOST);
+        }
+    }
+
+    private void eject() {
+        assertThat(detector.tryAcquire(HOST), is(true));
+        for (int i = 0; i < 3; i++) {
+            detector.onFailure(HOST);
+        }
+        assertThat(detector.isEjected(HOST), is(true));
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.InFlightRequestListener;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.CompletableSource.Processor;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.BlockingTestUtils.awaitIndefinitely;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static java.util.Collections.emptyList;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PowerOfTwoChoicesLoadBalancerTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> serviceDiscoveryPublisher = new TestPublisher<>();
+    private final List<TestLoadBalancedConnection> connectionsCreated = new CopyOnWriteArrayList<>();
+    private final Map<TestLoadBalancedConnection, InFlightRequestListener> inFlightListeners =
+            new ConcurrentHashMap<>();
+    private final AtomicBoolean factoryClosed = new AtomicBoolean();
+
+    private PowerOfTwoChoicesLoadBalancer<String, TestLoadBalancedConnection> lb;
+
+    @Before
+    public void initialize() {
+        lb = new PowerOfTwoChoicesLoadBalancer<>(serviceDiscoveryPublisher,
+                new ConnectionFactory<String, TestLoadBalancedConnection>() {
+                    @Override
+                    public Single<TestLoadBalancedConnection> newConnection(final String address) {
+                        return Single.succeeded(newConnection0(address));
+                    }
+
+                    @Override
+                    public Completable onClose() {
+                        return Completable.completed();
+                    }
+
+                    @Override
+                    public Completable closeAsync() {
+                        return Completable.completed().beforeOnSubscribe(__ -> factoryClosed.set(true));
+                    }
+                }, String::compareTo);
+    }
+
+    @After
+    public void closeLoadBalancer() throws Exception {
+        awaitIndefinitely(lb.closeAsync());
+        assertTrue("ConnectionFactory not closed.", factoryClosed.get());
+    }
+
+    @Test
+    public void noServiceDiscoveryEvent() throws Exception {
+        try {
+            awaitIndefinitely(lb.selectConnection(__ -> true));
+            fail();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), instanceOf(NoAvailableHostException.class));
+        }
+    }
+
+    @Test
+    public void singleHostReusesConnection() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(__ -> true));
+        TestLoadBalancedConnection second = awaitIndefinitely(lb.selectConnection(__ -> true));
+        assertThat(second, is(first));
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void prefersLessLoadedHost() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        sendServiceDiscoveryEvent(upEvent("address-2"));
+
+        // Establish one connection per host.
+        while (connectionsCreated.size() < 2) {
+            awaitIndefinitely(lb.selectConnection(__ -> true));
+        }
+        startRequests(connectionsCreated.get(0), 10);
+
+        for (int i = 0; i < 100; i++) {
+            TestLoadBalancedConnection selected = awaitIndefinitely(lb.selectConnection(__ -> true));
+            assertThat(selected.address(), is(connectionsCreated.get(1).address()));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void finishedRequestsDoNotCountAsLoad() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        sendServiceDiscoveryEvent(upEvent("address-2"));
+
+        while (connectionsCreated.size() < 2) {
+            awaitIndefinitely(lb.selectConnection(__ -> true));
+        }
+        final TestLoadBalancedConnection busy = connectionsCreated.get(0);
+        startRequests(busy, 10);
+        final InFlightRequestListener listener = inFlightListeners.get(busy);
+        for (int i = 0; i < 10; i++) {
+            listener.requestFinished();
+        }
+        startRequests(connectionsCreated.get(1), 10);
+
+        for (int i = 0; i < 100; i++) {
+            TestLoadBalancedConnection selected = awaitIndefinitely(lb.selectConnection(__ -> true));
+            assertThat(selected.address(), is(busy.address()));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void inFlightRequestsOfAllConnectionsCountAsLoad() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        sendServiceDiscoveryEvent(upEvent("address-2"));
+
+        // Rejecting all pooled connections forces a new connection to the selected host.
+        while (connections("address-1").size() < 2 || connections("address-2").isEmpty()) {
+            awaitIndefinitely(lb.selectConnection(c -> !connections(c.address()).contains(c)));
+        }
+        // 6 in-flight requests spread over two connections to the first host, 5 on one connection to the second host.
+        for (TestLoadBalancedConnection cnx : connections("address-1").subList(0, 2)) {
+            startRequests(cnx, 3);
+        }
+        startRequests(connections("address-2").get(0), 5);
+
+        for (int i = 0; i < 100; i++) {
+            TestLoadBalancedConnection selected = awaitIndefinitely(lb.selectConnection(__ -> true));
+            assertThat(selected.address(), is("address-2"));
+        }
+    }
+
+    @Test
+    public void prefersHigherScoredConnection() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        final TestLoadBalancedConnection worse = awaitIndefinitely(lb.selectConnection(__ -> true));
+        // Reject the existing connection to force creation of a second one.
+        final Predicate<TestLoadBalancedConnection> newConnection = c -> c != worse;
+        awaitIndefinitely(lb.selectConnection(newConnection));
+        assertThat(connectionsCreated, hasSize(2));
+        when(worse.score()).thenReturn(0.1f);
+
+        // The better of two random connections is tested first, at least one of the two is the higher scored
+        // connection in 3 out of 4 cases.
+        int selectedBetter = 0;
+        for (int i = 0; i < 100; i++) {
+            if (awaitIndefinitely(lb.selectConnection(__ -> true)) == connectionsCreated.get(1)) {
+                ++selectedBetter;
+            }
+        }
+        assertTrue("Higher scored connection selected only " + selectedBetter + " times.", selectedBetter > 50);
+    }
+
+    @Test
+    public void prefersConnectionWithFewerInFlightRequests() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        final TestLoadBalancedConnection busy = awaitIndefinitely(lb.selectConnection(__ -> true));
+        awaitIndefinitely(lb.selectConnection(c -> c != busy));
+        assertThat(connectionsCreated, hasSize(2));
+        startRequests(busy, 3);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(awaitIndefinitely(lb.selectConnection(__ -> true)), is(connectionsCreated.get(1)));
+        }
+    }
+
+    @Test
+    public void allConnectionsAreAttempted() throws Exception {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        while (connectionsCreated.size() < 10) {
+            awaitIndefinitely(lb.selectConnection(c -> !connections(c.address()).contains(c)));
+        }
+
+        for (TestLoadBalancedConnection expected : connectionsCreated) {
+            assertThat(awaitIndefinitely(lb.selectConnection(c -> c == expected)), is(expected));
+        }
+        assertThat("Unexpected new connection.", connectionsCreated, hasSize(10));
+    }
+
+    @Test
+    public void handleDiscoveryEvents() {
+        sendServiceDiscoveryEvent(upEvent("address-1"));
+        sendServiceDiscoveryEvent(upEvent("address-2"));
+        List<Entry<String, List<TestLoadBalancedConnection>>> addresses = lb.activeAddresses();
+        assertThat(addresses, hasSize(2));
+
+        sendServiceDiscoveryEvent(downEvent("address-1"));
+        addresses = lb.activeAddresses();
+        assertThat(addresses, hasSize(1));
+        assertThat(addresses.get(0).getKey(), is("address-2"));
+    }
+
+    private void startRequests(final TestLoadBalancedConnection connection, final int count) {
+        final InFlightRequestListener listener = inFlightListeners.get(connection);
+        for (int i = 0; i < count; i++) {
+            listener.requestStarted();
+        }
+    }
+
+    private List<TestLoadBalancedConnection> connections(final String address) {
+        for (Entry<String, List<TestLoadBalancedConnection>> entry : lb.activeAddresses()) {
+            if (entry.getKey().equals(address)) {
+                return entry.getValue();
+            }
+        }
+        return emptyList();
+    }
+
+    private void sendServiceDiscoveryEvent(final ServiceDiscovererEvent<String> event) {
+        serviceDiscoveryPublisher.onNext(event);
+    }
+
+    private static ServiceDiscovererEvent<String> upEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, true);
+    }
+
+    private static ServiceDiscovererEvent<String> downEvent(final String address) {
+        return new DefaultServiceDiscovererEvent<>(address, false);
+    }
+
+    private TestLoadBalancedConnection newConnection0(final String address) {
+        final TestLoadBalancedConnection cnx = mock(TestLoadBalancedConnection.class);
+        final Processor closeCompletable = newCompletableProcessor();
+        when(cnx.closeAsync()).thenAnswer(__ -> {
+            closeCompletable.onComplete();
+            return closeCompletable;
+        });
+        when(cnx.onClose()).thenReturn(fromSource(closeCompletable));
+        when(cnx.address()).thenReturn(address);
+        when(cnx.score()).thenReturn(1f);
+        doAnswer(invocation -> inFlightListeners.put(cnx, invocation.getArgument(0)))
+                .when(cnx).inFlightRequestListener(any());
+        when(cnx.toString()).thenReturn(address + '@' + cnx.hashCode());
+        connectionsCreated.add(cnx);
+        return cnx;
+    }
+
+    private interface TestLoadBalancedConnection extends LoadBalancedConnection {
+        String address();
+    }
+}
@@ -16,6 +16,7 @@
 package io.servicetalk.loadbalancer;
 
 import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.ConnectionRejectedException;
 import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
 import io.servicetalk.client.api.LoadBalancedConnection;
 import io.servicetalk.client.api.LoadBalancerReadyEvent;
@@ -42,6 +43,8 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
 
+import java.time.Duration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -55,6 +58,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -74,8 +78,10 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toSet;
 import static org.hamcrest.Matchers.both;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
@@ -365,6 +371,95 @@ public class RoundRobinLoadBalancerTest {
         awaitIndefinitely(lb.selectConnection(any()));
     }
 
+    @Test
+    public void eventLoopAffinePrefersAffineConnection() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, true);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final Set<TestLoadBalancedConnection> selected = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            // Reject already selected connections to force creation of a new connection.
+            awaitIndefinitely(lb.selectConnection(selected::add));
+        }
+        assertThat(connectionsCreated, hasSize(3));
+
+        final TestLoadBalancedConnection affine = connectionsCreated.get(1);
+        when(affine.isAffineToCurrentThread()).thenReturn(true);
+        for (int i = 0; i < 10; i++) {
+            assertThat(awaitIndefinitely(lb.selectConnection(any())), is(affine));
+        }
+    }
+
+    @Test
+    public void prewarmsMinConnectionsPerHost() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, false,
+                null, 2, 0);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        assertThat(connectionsCreated, hasSize(2));
+        assertThat(lb.activeAddresses().get(0).getValue(), hasSize(2));
+
+        final TestLoadBalancedConnection selected = awaitIndefinitely(lb.selectConnection(any()));
+        assertThat(connectionsCreated, hasItem(selected));
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
+    @Test
+    public void concurrentConnectsWaitForInFlightConnect() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, false,
+                null, 0, 1);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        final Future<TestLoadBalancedConnection> first = lb.selectConnection(any()).toFuture();
+        final Future<TestLoadBalancedConnection> second = lb.selectConnection(any()).toFuture();
+        assertThat(connectionRealizers, hasSize(1));
+
+        connectionRealizers.poll().run();
+        assertThat(connectionsCreated, hasSize(1));
+        assertThat(first.get(), is(connectionsCreated.get(0)));
+        assertThat(second.get(), is(connectionsCreated.get(0)));
+        assertThat(connectionRealizers, is(empty()));
+    }
+
+    @Test
+    public void prewarmRespectsConcurrentConnectLimit() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, false,
+                null, 3, 1);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        assertThat(connectionRealizers, hasSize(1));
+        assertThat(lb.pendingConnectCount(), is(1));
+
+        final Future<TestLoadBalancedConnection> selected = lb.selectConnection(any()).toFuture();
+        assertThat(connectionRealizers, hasSize(1));
+        connectionRealizers.poll().run();
+        assertThat(selected.get(), is(connectionsCreated.get(0)));
+        assertThat(connectionsCreated, hasSize(1));
+    }
+
+    @Test
+    public void waitForInFlightConnectTimesOut() throws Exception {
+        serviceDiscoveryPublisher.onComplete();
+
+        connectionFactory = new DelegatingConnectionFactory(this::newUnrealizedConnectionSingle);
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, false,
+                null, 0, 1, MILLISECONDS.toNanos(100));
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        lb.selectConnection(any()).toFuture();
+        final Future<TestLoadBalancedConnection> waiting = lb.selectConnection(any()).toFuture();
+        assertThat(connectionRealizers, hasSize(1));
+
+        thrown.expect(ExecutionException.class);
+        thrown.expectCause(instanceOf(ConnectionRejectedException.class));
+        waiting.get();
+    }
+
     @Test
     public void earlyFailsAfterClose() throws Exception {
         thrown.expect(instanceOf(ExecutionException.class));
@@ -386,6 +481,70 @@ public class RoundRobinLoadBalancerTest {
         assertTrue("ConnectionFactory not closed.", connectionFactory.isClosed());
     }
 
+    @Test
+    public void outlierDetectionSkipsEjectedHosts() throws Exception {
+        final OutlierDetector<String> detector = newOutlierDetector();
+        newOutlierDetectingLoadBalancer(detector);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        detector.onFailure("address-1");
+        assertThat(detector.isEjected("address-1"), is(true));
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(awaitIndefinitely(lb.selectConnection(any())).address(), is("address-2"));
+        }
+    }
+
+    @Test
+    public void outlierDetectionUsesEjectedHostsIfAllAreEjected() throws Exception {
+        final OutlierDetector<String> detector = newOutlierDetector();
+        newOutlierDetectingLoadBalancer(detector);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        sendServiceDiscoveryEvents(upEvent("address-2"));
+        detector.onFailure("address-1");
+        detector.onFailure("address-2");
+
+        final Set<String> selected = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(awaitIndefinitely(lb.selectConnection(any())).address());
+        }
+        assertThat(selected, containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void outlierDetectorSharedByLoadBalancersKeepsHostState() throws Exception {
+        final OutlierDetector<String> detector = newOutlierDetector();
+        newOutlierDetectingLoadBalancer(detector);
+        final TestPublisher<ServiceDiscovererEvent<String>> otherDiscoveryPublisher = new TestPublisher<>();
+        final RoundRobinLoadBalancer<String, TestLoadBalancedConnection> other = new RoundRobinLoadBalancer<>(
+                otherDiscoveryPublisher, connectionFactory, String::compareTo, false, detector);
+        try {
+            sendServiceDiscoveryEvents(upEvent("address-1"));
+            otherDiscoveryPublisher.onNext(upEvent("address-1"));
+            detector.onFailure("address-1");
+            assertThat(detector.isEjected("address-1"), is(true));
+
+            otherDiscoveryPublisher.onNext(downEvent("address-1"));
+            assertThat("State dropped while still in use.", detector.isEjected("address-1"), is(true));
+            sendServiceDiscoveryEvents(downEvent("address-1"));
+            assertThat(detector.isEjected("address-1"), is(false));
+        } finally {
+            awaitIndefinitely(other.closeAsync());
+        }
+    }
+
+    @Test
+    public void outlierDetectorDropsHostStateOnClose() throws Exception {
+        final OutlierDetector<String> detector = newOutlierDetector();
+        newOutlierDetectingLoadBalancer(detector);
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        detector.onFailure("address-1");
+        assertThat(detector.isEjected("address-1"), is(true));
+
+        awaitIndefinitely(lb.closeAsync());
+        assertThat(detector.isEjected("address-1"), is(false));
+    }
+
     @SuppressWarnings("unchecked")
     private void sendServiceDiscoveryEvents(final ServiceDiscovererEvent... events) {
         serviceDiscoveryPublisher.onNext((ServiceDiscovererEvent<String>[]) events);
@@ -404,6 +563,19 @@ public class RoundRobinLoadBalancerTest {
         return new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo);
     }
 
+    private static OutlierDetector<String> newOutlierDetector() {
+        return new OutlierDetector.Builder<String>()
+                .consecutiveFailures(1)
+                .ejectionTime(Duration.ofHours(1), Duration.ofHours(1))
+                .build();
+    }
+
+    private void newOutlierDetectingLoadBalancer(final OutlierDetector<String> detector) {
+        serviceDiscoveryPublisher.onComplete();
+        lb = new RoundRobinLoadBalancer<>(serviceDiscoveryPublisher, connectionFactory, String::compareTo, false,
+                detector);
+    }
+
     private LegacyTestSingle<TestLoadBalancedConnection> newUnrealizedConnectionSingle(final String address) {
         final LegacyTestSingle<TestLoadBalancedConnection> unrealizedCnx = new LegacyTestSingle<>();
         connectionRealizers.offer(() -> unrealizedCnx.onSuccess(newConnection(address)));
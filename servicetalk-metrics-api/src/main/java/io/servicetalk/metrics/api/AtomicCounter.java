@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater;
+
+/**
+ * A {@link Counter} backed by a single atomic field.
+ */
+final class AtomicCounter implements Counter {
+    private static final AtomicLongFieldUpdater<AtomicCounter> countUpdater = newUpdater(AtomicCounter.class, "count");
+
+    @SuppressWarnings("unused")
+    private volatile long count;
+
+    @Override
+    public void increment() {
+        countUpdater.incrementAndGet(this);
+    }
+
+    @Override
+    public void add(final long delta) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("delta: " + delta + " (expected >=0)");
+        }
+        countUpdater.addAndGet(this, delta);
+    }
+
+    @Override
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(count);
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+/**
+ * A value which is sampled when metrics are read, rather than recorded when it changes.
+ * <p>
+ * Implementations are invoked by the thread reading metrics and must be safe to call concurrently with updates of the
+ * underlying value.
+ */
+@FunctionalInterface
+public interface Gauge {
+
+    /**
+     * Returns the current value.
+     *
+     * @return the current value.
+     */
+    long value();
+}
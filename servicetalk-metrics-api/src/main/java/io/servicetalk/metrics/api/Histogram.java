@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+/**
+ * Records the distribution of non-negative values, such as latencies in nanoseconds or payload sizes in bytes.
+ * <p>
+ * Values are accumulated until {@link #snapshotAndReset()} is called. Exporters which report recent rather than
+ * lifetime distributions call it once per reporting interval.
+ */
+public interface Histogram {
+
+    /**
+     * Records a value. Negative values are recorded as {@code 0}.
+     *
+     * @param value the value to record.
+     */
+    void record(long value);
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values.
+     */
+    long count();
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value, or {@code 0} if no value has been recorded.
+     */
+    long max();
+
+    /**
+     * Returns an estimate of the value at the passed {@code quantile}. The estimate is not smaller than the real value
+     * and differs from it by the precision of the implementation.
+     *
+     * @param quantile the quantile in the range {@code [0, 1]}, e.g. {@code 0.99} for the 99th percentile.
+     * @return an estimate of the value at the passed {@code quantile}, or {@code 0} if no value has been recorded.
+     */
+    long valueAtQuantile(double quantile);
+
+    /**
+     * Returns the values recorded since this {@link Histogram} was created or last reset, and resets it.
+     * <p>
+     * Values recorded concurrently with this call are attributed to either the snapshot or this {@link Histogram},
+     * they are neither lost nor counted twice. The {@link #max()} of such a value may end up in the other one.
+     *
+     * @return an immutable {@link Histogram} with the values recorded since this {@link Histogram} was created or last
+     * reset. Calling {@link #record(long)} or {@link #snapshotAndReset()} on it is not supported.
+     */
+    Histogram snapshotAndReset();
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link MetricsRegistry} which keeps all metrics in memory, for tests or to be read and exported periodically.
+ * <p>
+ * {@link Counter}s are backed by a single atomic field and {@link Histogram}s are {@link LogLinearHistogram}s.
+ */
+public final class InMemoryMetricsRegistry implements MetricsRegistry {
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(final String name) {
+        return counters.computeIfAbsent(requireNonNull(name), __ -> new AtomicCounter());
+    }
+
+    @Override
+    public Histogram histogram(final String name) {
+        return histograms.computeIfAbsent(requireNonNull(name), __ -> new LogLinearHistogram());
+    }
+
+    @Override
+    public void gauge(final String name, final Gauge gauge) {
+        gauges.put(requireNonNull(name), requireNonNull(gauge));
+    }
+
+    /**
+     * Returns a read-only view of all registered {@link Counter}s by name.
+     *
+     * @return a read-only view of all registered {@link Counter}s by name.
+     */
+    public Map<String, Counter> counters() {
+        return unmodifiableMap(counters);
+    }
+
+    /**
+     * Returns a read-only view of all registered {@link Histogram}s by name.
+     *
+     * @return a read-only view of all registered {@link Histogram}s by name.
+     */
+    public Map<String, Histogram> histograms() {
+        return unmodifiableMap(histograms);
+    }
+
+    /**
+     * Returns a read-only view of all registered {@link Gauge}s by name.
+     *
+     * @return a read-only view of all registered {@link Gauge}s by name.
+     */
+    public Map<String, Gauge> gauges() {
+        return unmodifiableMap(gauges);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import static java.lang.Long.numberOfLeadingZeros;
+import static java.lang.Math.ceil;
+import static java.lang.Math.min;
+import static java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater;
+
+/**
+ * A lock-free {@link Histogram} with log-linear buckets, similar to an HDR histogram.
+ * <p>
+ * Values are grouped by their highest set bit and each such group is split into 32 linear buckets, which bounds the
+ * relative error of {@link #valueAtQuantile(double)} by {@code 1/32} over the whole range of {@code long} while
+ * keeping the footprint below two thousand {@code long}s. Values smaller than 32 are recorded exactly. Recording a
+ * value is a bucket lookup and an atomic increment, it neither allocates nor locks. {@link #snapshotAndReset()} moves
+ * the buckets to a new instance, only the thread reading metrics allocates.
+ */
+public final class LogLinearHistogram implements Histogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // Magnitudes below SUB_BUCKET_BITS share the first group, every other magnitude up to 62 gets its own group.
+    static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS) << SUB_BUCKET_BITS;
+
+    private static final AtomicLongFieldUpdater<LogLinearHistogram> countUpdater =
+            newUpdater(LogLinearHistogram.class, "count");
+    private static final AtomicLongFieldUpdater<LogLinearHistogram> maxUpdater =
+            newUpdater(LogLinearHistogram.class, "max");
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final boolean immutable;
+    @SuppressWarnings("unused")
+    private volatile long count;
+    @SuppressWarnings("unused")
+    private volatile long max;
+
+    /**
+     * Create a new empty instance.
+     */
+    public LogLinearHistogram() {
+        this(false);
+    }
+
+    private LogLinearHistogram(final boolean immutable) {
+        this.immutable = immutable;
+    }
+
+    @Override
+    public void record(final long value) {
+        if (immutable) {
+            throw new UnsupportedOperationException("Histogram snapshots are immutable");
+        }
+        final long v = Math.max(0, value);
+        buckets.incrementAndGet(bucketIndex(v));
+        countUpdater.incrementAndGet(this);
+        for (;;) {
+            final long currentMax = max;
+            if (v <= currentMax || maxUpdater.compareAndSet(this, currentMax, v)) {
+                break;
+            }
+        }
+    }
+
+    @Override
+    public long count() {
+        // A concurrent snapshotAndReset() may subtract a value whose bucket it took before record() incremented count.
+        return Math.max(0, count);
+    }
+
+    @Override
+    public long max() {
+        return max;
+    }
+
+    @Override
+    public long valueAtQuantile(final double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("quantile: " + quantile + " (expected [0, 1])");
+        }
+        final long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) ceil(quantile * count));
+        final long max = this.max;
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return min(highestEquivalentValue(i), max);
+            }
+        }
+        // Buckets and count are updated independently, a concurrent record may not be visible in the buckets yet.
+        return max;
+    }
+
+    @Override
+    public LogLinearHistogram snapshotAndReset() {
+        if (immutable) {
+            throw new UnsupportedOperationException("Histogram snapshots are immutable");
+        }
+        final LogLinearHistogram snapshot = new LogLinearHistogram(true);
+        long taken = 0;
+        for (int i = 0; i < BUCKET_COUNT; ++i) {
+            final long bucket = buckets.getAndSet(i, 0);
+            if (bucket != 0) {
+                snapshot.buckets.set(i, bucket);
+                taken += bucket;
+            }
+        }
+        // The count is derived from the buckets taken, so that the snapshot is consistent and values recorded
+        // concurrently stay counted in this histogram.
+        snapshot.count = taken;
+        countUpdater.addAndGet(this, -taken);
+        snapshot.max = maxUpdater.getAndSet(this, 0);
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "{count=" + count() + ", p50=" + valueAtQuantile(0.5) +
+                ", p99=" + valueAtQuantile(0.99) + ", max=" + max + '}';
+    }
+
+    static int bucketIndex(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = (Long.SIZE - 1 - numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        return ((shift + 1) << SUB_BUCKET_BITS) + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+    }
+
+    static long highestEquivalentValue(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long top = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        // For the last bucket this overflows to Long.MIN_VALUE before subtracting, which yields Long.MAX_VALUE.
+        return ((top + 1) << shift) - 1;
+    }
+}
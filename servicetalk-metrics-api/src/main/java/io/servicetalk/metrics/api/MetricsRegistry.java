@@ -0,0 +1,51 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+/**
+ * A service provider interface to create and register metrics.
+ * <p>
+ * Instrumentation looks up its metrics once, when it is created, and updates them directly afterwards. Implementations
+ * therefore do not need to optimize lookups, but the returned {@link Counter}s and {@link Histogram}s are updated
+ * concurrently on the hot path and should neither block nor allocate.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * Returns the {@link Counter} with the passed {@code name}, creating it if it does not exist.
+     *
+     * @param name the name of the {@link Counter}.
+     * @return the {@link Counter} with the passed {@code name}.
+     */
+    Counter counter(String name);
+
+    /**
+     * Returns the {@link Histogram} with the passed {@code name}, creating it if it does not exist.
+     *
+     * @param name the name of the {@link Histogram}.
+     * @return the {@link Histogram} with the passed {@code name}.
+     */
+    Histogram histogram(String name);
+
+    /**
+     * Registers a {@link Gauge} with the passed {@code name}, replacing any {@link Gauge} previously registered with
+     * the same {@code name}.
+     *
+     * @param name the name of the {@link Gauge}.
+     * @param gauge the {@link Gauge} to register.
+     */
+    void gauge(String name, Gauge gauge);
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.api;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.servicetalk.metrics.api.LogLinearHistogram.BUCKET_COUNT;
+import static io.servicetalk.metrics.api.LogLinearHistogram.bucketIndex;
+import static io.servicetalk.metrics.api.LogLinearHistogram.highestEquivalentValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LogLinearHistogramTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    @Test
+    public void emptyHistogram() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertThat(histogram.count(), is(0L));
+        assertThat(histogram.max(), is(0L));
+        assertThat(histogram.valueAtQuantile(0.99), is(0L));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertThat(histogram.count(), is(20L));
+        assertThat(histogram.max(), is(20L));
+        assertThat(histogram.valueAtQuantile(0), is(1L));
+        assertThat(histogram.valueAtQuantile(0.5), is(10L));
+        assertThat(histogram.valueAtQuantile(0.95), is(19L));
+        assertThat(histogram.valueAtQuantile(1), is(20L));
+    }
+
+    @Test
+    public void negativeValuesAreRecordedAsZero() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        histogram.record(-5);
+        assertThat(histogram.count(), is(1L));
+        assertThat(histogram.valueAtQuantile(1), is(0L));
+    }
+
+    @Test
+    public void largeValuesAreWithinRelativeError() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            histogram.record(i * 1_000);
+        }
+        assertQuantile(histogram, 0.5, 50_000_000);
+        assertQuantile(histogram, 0.99, 99_000_000);
+        assertThat(histogram.valueAtQuantile(1), is(100_000_000L));
+    }
+
+    @Test
+    public void bucketsCoverTheWholeRange() {
+        assertThat(bucketIndex(0), is(0));
+        assertThat(bucketIndex(Long.MAX_VALUE), is(BUCKET_COUNT - 1));
+        assertThat(highestEquivalentValue(BUCKET_COUNT - 1), is(Long.MAX_VALUE));
+        for (int i = 1; i < BUCKET_COUNT; i++) {
+            // Buckets are contiguous: the first value of a bucket follows the last value of the previous bucket.
+            assertThat(bucketIndex(highestEquivalentValue(i - 1) + 1), is(i));
+            assertThat(bucketIndex(highestEquivalentValue(i)), is(i));
+        }
+    }
+
+    @Test
+    public void snapshotAndResetMovesRecordedValues() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        Histogram snapshot = histogram.snapshotAndReset();
+        assertThat(snapshot.count(), is(20L));
+        assertThat(snapshot.max(), is(20L));
+        assertThat(snapshot.valueAtQuantile(0.5), is(10L));
+        assertThat(histogram.count(), is(0L));
+        assertThat(histogram.max(), is(0L));
+        assertThat(histogram.valueAtQuantile(0.5), is(0L));
+
+        histogram.record(100);
+        assertThat(histogram.count(), is(1L));
+        assertThat(histogram.valueAtQuantile(0), is(100L));
+        assertThat("Snapshot changed after recording.", snapshot.count(), is(20L));
+        assertThat(histogram.snapshotAndReset().max(), is(100L));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotIsImmutable() {
+        new LogLinearHistogram().snapshotAndReset().record(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidQuantile() {
+        new LogLinearHistogram().valueAtQuantile(1.5);
+    }
+
+    private static void assertQuantile(Histogram histogram, double quantile, long expected) {
+        long actual = histogram.valueAtQuantile(quantile);
+        assertThat(actual, greaterThanOrEqualTo(expected));
+        assertThat(actual, lessThanOrEqualTo(expected + expected / 32));
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.http;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.utils.BeforeFinallyOnHttpResponseOperator;
+import io.servicetalk.metrics.api.Counter;
+import io.servicetalk.metrics.api.Histogram;
+import io.servicetalk.metrics.api.MetricsRegistry;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.http.api.CharSequences.newAsciiString;
+import static java.lang.System.nanoTime;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.atomic.AtomicLongFieldUpdater.newUpdater;
+
+/**
+ * The metrics of one instrumented HTTP service or requester, shared by all filters created by the same factory.
+ * <p>
+ * All metrics, apart from the per gRPC status counters which are created on first use, are looked up when this object
+ * is created, and the functions which instrument payload bodies are shared by all exchanges. The per exchange state is
+ * a single {@link ExchangeTracker}, which is both the terminal callback and the response mapping function. The
+ * remaining per exchange allocations are the operators which observe the response {@link Single} and wrap the request
+ * and response payload {@link Publisher}s, these can not be avoided without observing the exchange inside the
+ * transport.
+ */
+final class HttpMetrics {
+    private static final CharSequence GRPC_STATUS = newAsciiString("grpc-status");
+    // gRPC defines status codes 0 (OK) to 16 (UNAUTHENTICATED).
+    private static final int GRPC_STATUS_CODES = 17;
+    private static final AtomicLongFieldUpdater<HttpMetrics> inFlightUpdater =
+            newUpdater(HttpMetrics.class, "inFlight");
+
+    private final MetricsRegistry registry;
+    private final String namePrefix;
+    private final Counter requests;
+    private final Counter[] responsesByStatusClass;
+    private final Counter errors;
+    private final Counter cancellations;
+    private final Counter requestBytes;
+    private final Counter responseBytes;
+    private final Histogram latency;
+    private final Histogram timeToFirstByte;
+    private final AtomicReferenceArray<Counter> grpcStatuses = new AtomicReferenceArray<>(GRPC_STATUS_CODES);
+    private final Consumer<Object> requestItemConsumer = this::onRequestItem;
+    private final Consumer<Object> responseItemConsumer = this::onResponseItem;
+    private final UnaryOperator<Publisher<?>> requestPayloadTransformer =
+            payload -> payload.beforeOnNext(requestItemConsumer);
+    private final UnaryOperator<Publisher<?>> responsePayloadTransformer =
+            payload -> payload.beforeOnNext(responseItemConsumer);
+    private volatile long inFlight;
+
+    HttpMetrics(final MetricsRegistry registry, final String namePrefix) {
+        this.registry = requireNonNull(registry);
+        this.namePrefix = requireNonNull(namePrefix);
+        requests = registry.counter(namePrefix + ".requests");
+        // Indexed by the first digit of the status code, index 0 is unused.
+        responsesByStatusClass = new Counter[6];
+        for (int i = 1; i < responsesByStatusClass.length; ++i) {
+            responsesByStatusClass[i] = registry.counter(namePrefix + ".responses." + i + "xx");
+        }
+        errors = registry.counter(namePrefix + ".errors");
+        cancellations = registry.counter(namePrefix + ".cancellations");
+        requestBytes = registry.counter(namePrefix + ".request.bytes");
+        responseBytes = registry.counter(namePrefix + ".response.bytes");
+        latency = registry.histogram(namePrefix + ".latency");
+        timeToFirstByte = registry.histogram(namePrefix + ".ttfb");
+        registry.gauge(namePrefix + ".inflight", () -> inFlight);
+    }
+
+    /**
+     * Counts the payload bytes of the passed request.
+     *
+     * @param request the {@link StreamingHttpRequest} to instrument.
+     * @return the instrumented {@link StreamingHttpRequest}.
+     */
+    StreamingHttpRequest countPayload(final StreamingHttpRequest request) {
+        return request.transformRawPayloadBody(requestPayloadTransformer);
+    }
+
+    /**
+     * Records an exchange which completes with the passed response.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the exchange started.
+     * @param responseSingle the response of the exchange.
+     * @return the response of the exchange which updates the metrics when it terminates.
+     */
+    Single<StreamingHttpResponse> track(final long startNanos, final Single<StreamingHttpResponse> responseSingle) {
+        requests.increment();
+        inFlightUpdater.incrementAndGet(this);
+        final ExchangeTracker tracker = new ExchangeTracker(startNanos);
+        return responseSingle.liftSync(new BeforeFinallyOnHttpResponseOperator(tracker))
+                // BeforeFinallyOnHttpResponseOperator conditionally outputs a Single<Meta> with a failed
+                // Publisher<Data> instead of the real Publisher<Data> in case a cancel signal is observed before
+                // completion of Meta. So in order for the response metrics to be consistent with the data path map()
+                // needs to be applied last.
+                .map(tracker);
+    }
+
+    /**
+     * Records an exchange which failed before a response {@link Single} was available.
+     *
+     * @param startNanos the {@link System#nanoTime()} when the exchange started.
+     */
+    void trackFailure(final long startNanos) {
+        requests.increment();
+        errors.increment();
+        latency.record(nanoTime() - startNanos);
+    }
+
+    private void onRequestItem(final Object item) {
+        if (item instanceof Buffer) {
+            requestBytes.add(((Buffer) item).readableBytes());
+        }
+    }
+
+    private void onResponseItem(final Object item) {
+        if (item instanceof Buffer) {
+            responseBytes.add(((Buffer) item).readableBytes());
+        } else if (item instanceof HttpHeaders) {
+            recordGrpcStatus((HttpHeaders) item);
+        }
+    }
+
+    private void recordGrpcStatus(final HttpHeaders headers) {
+        final int code = parseGrpcStatus(headers.get(GRPC_STATUS));
+        if (code < 0) {
+            return;
+        }
+        Counter counter = grpcStatuses.get(code);
+        if (counter == null) {
+            // Registries return the same Counter for the same name, a race only looks it up twice.
+            counter = registry.counter(namePrefix + ".grpc.status." + code);
+            grpcStatuses.lazySet(code, counter);
+        }
+        counter.increment();
+    }
+
+    private static int parseGrpcStatus(@Nullable final CharSequence value) {
+        if (value == null || value.length() == 0 || value.length() > 2) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            code = code * 10 + c - '0';
+        }
+        return code < GRPC_STATUS_CODES ? code : -1;
+    }
+
+    private final class ExchangeTracker implements TerminalSignalConsumer,
+                                                   Function<StreamingHttpResponse, StreamingHttpResponse> {
+        private final long startNanos;
+
+        ExchangeTracker(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public StreamingHttpResponse apply(final StreamingHttpResponse response) {
+            timeToFirstByte.record(nanoTime() - startNanos);
+            final int statusClass = response.status().code() / 100;
+            if (statusClass > 0 && statusClass < responsesByStatusClass.length) {
+                responsesByStatusClass[statusClass].increment();
+            }
+            // Trailers-Only gRPC responses carry the status in the headers.
+            recordGrpcStatus(response.headers());
+            return response.transformRawPayloadBody(responsePayloadTransformer);
+        }
+
+        @Override
+        public void onComplete() {
+            onTerminate();
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            errors.increment();
+            onTerminate();
+        }
+
+        @Override
+        public void onCancel() {
+            cancellations.increment();
+            onTerminate();
+        }
+
+        private void onTerminate() {
+            // BeforeFinallyOnHttpResponseOperator invokes exactly one terminal callback per exchange.
+            inFlightUpdater.decrementAndGet(HttpMetrics.this);
+            latency.record(nanoTime() - startNanos);
+        }
+    }
+}
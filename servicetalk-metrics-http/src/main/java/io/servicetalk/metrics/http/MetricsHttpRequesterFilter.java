@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.http;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.metrics.api.MetricsRegistry;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static java.lang.System.nanoTime;
+
+/**
+ * An HTTP filter which records metrics of the requests sent by a client or connection.
+ * <p>
+ * The same metrics as described for {@link MetricsHttpServiceFilter} are registered, where {@code request.bytes} are
+ * the payload bytes sent and {@code response.bytes} the payload bytes received. Each subscribe to the response
+ * {@link Single}, e.g. a retry, is recorded as a separate exchange.
+ * gRPC clients send requests over HTTP, use {@code GrpcClientBuilder#appendHttpClientFilter} to instrument them.
+ */
+public final class MetricsHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                         StreamingHttpConnectionFilterFactory,
+                                                         HttpExecutionStrategyInfluencer {
+
+    private final HttpMetrics metrics;
+
+    /**
+     * Create a new instance.
+     *
+     * @param registry the {@link MetricsRegistry} to register metrics with.
+     * @param namePrefix the prefix for the names of all metrics recorded by this filter.
+     */
+    public MetricsHttpRequesterFilter(final MetricsRegistry registry, final String namePrefix) {
+        metrics = new HttpMetrics(registry, namePrefix);
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return trackRequest(delegate, strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return trackRequest(delegate(), strategy, request);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private Single<StreamingHttpResponse> trackRequest(final StreamingHttpRequester delegate,
+                                                       final HttpExecutionStrategy strategy,
+                                                       final StreamingHttpRequest request) {
+        // The payload is instrumented once per call, transforming it again for every subscribe would stack counters.
+        final StreamingHttpRequest instrumented = metrics.countPayload(request);
+        return defer(() -> {
+            final long startNanos = nanoTime();
+            final Single<StreamingHttpResponse> response;
+            try {
+                response = delegate.request(strategy, instrumented);
+            } catch (Throwable t) {
+                metrics.trackFailure(startNanos);
+                return Single.<StreamingHttpResponse>failed(t).subscribeShareContext();
+            }
+            return metrics.track(startNanos, response).subscribeShareContext();
+        });
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.http;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+import io.servicetalk.metrics.api.MetricsRegistry;
+
+import static java.lang.System.nanoTime;
+
+/**
+ * A {@link StreamingHttpServiceFilterFactory} which records metrics of the requests handled by a service.
+ * <p>
+ * The following metrics are registered with the {@link MetricsRegistry}, prefixed by the {@code namePrefix} and a dot:
+ * <ul>
+ * <li>{@code requests}, {@code errors} and {@code cancellations}: counters of all exchanges and of exchanges which
+ * terminated with an error or were cancelled.</li>
+ * <li>{@code inflight}: a gauge of the exchanges which started and whose response payload has not terminated yet.</li>
+ * <li>{@code responses.1xx} to {@code responses.5xx}: counters of responses by status class.</li>
+ * <li>{@code request.bytes} and {@code response.bytes}: counters of payload bytes received and sent.</li>
+ * <li>{@code latency} and {@code ttfb}: histograms in nanoseconds of the time until the response payload terminated
+ * and until the response meta-data was available. Use {@link io.servicetalk.metrics.api.Histogram#snapshotAndReset()}
+ * to report them per interval.</li>
+ * <li>{@code grpc.status.<code>}: counters of gRPC responses by status code, created when a code is first seen.</li>
+ * </ul>
+ * gRPC services are served over HTTP, use {@code GrpcServerBuilder#appendHttpServiceFilter} to instrument them.
+ */
+public final class MetricsHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                       HttpExecutionStrategyInfluencer {
+
+    private final HttpMetrics metrics;
+
+    /**
+     * Create a new instance.
+     *
+     * @param registry the {@link MetricsRegistry} to register metrics with.
+     * @param namePrefix the prefix for the names of all metrics recorded by this filter.
+     */
+    public MetricsHttpServiceFilter(final MetricsRegistry registry, final String namePrefix) {
+        metrics = new HttpMetrics(registry, namePrefix);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                final long startNanos = nanoTime();
+                final Single<StreamingHttpResponse> response;
+                try {
+                    response = delegate().handle(ctx, metrics.countPayload(request), responseFactory);
+                } catch (Throwable t) {
+                    metrics.trackFailure(startNanos);
+                    return Single.failed(t);
+                }
+                return metrics.track(startNanos, response);
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.metrics.http;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.StreamingHttpClient;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.netty.HttpServers;
+import io.servicetalk.metrics.api.InMemoryMetricsRegistry;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static io.servicetalk.concurrent.api.Publisher.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpSerializationProviders.textSerializer;
+import static io.servicetalk.http.netty.HttpClients.forSingleAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MetricsHttpFilterTest {
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final InMemoryMetricsRegistry registry = new InMemoryMetricsRegistry();
+    private ServerContext serverContext;
+    private HttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        serverContext = HttpServers.forAddress(localAddress(0))
+                .appendServiceFilter(new MetricsHttpServiceFilter(registry, "server"))
+                .listenStreamingAndAwait((ctx, request, responseFactory) -> {
+                    if ("/error".equals(request.path())) {
+                        return succeeded(responseFactory.internalServerError());
+                    }
+                    if ("/pending".equals(request.path())) {
+                        return succeeded(responseFactory.ok().payloadBody(never()));
+                    }
+                    if ("/grpc".equals(request.path())) {
+                        // A Trailers-Only gRPC response carries the status in the headers.
+                        return succeeded(responseFactory.ok().setHeader("grpc-status", "14"));
+                    }
+                    return succeeded(responseFactory.ok().payloadBody(request.payloadBody()));
+                });
+        client = forSingleAddress(serverHostAndPort(serverContext))
+                .appendClientFilter(new MetricsHttpRequesterFilter(registry, "client"))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try {
+            client.close();
+        } finally {
+            serverContext.close();
+        }
+    }
+
+    @Test
+    public void recordsSuccessfulExchange() throws Exception {
+        HttpResponse response = client.request(client.post("/").payloadBody("ping", textSerializer()))
+                .toFuture().get();
+        assertThat(response.status(), is(OK));
+        awaitLatency("server");
+        awaitLatency("client");
+
+        for (String prefix : new String[] {"server", "client"}) {
+            assertThat(count(prefix + ".requests"), is(1L));
+            assertThat(count(prefix + ".responses.2xx"), is(1L));
+            assertThat(count(prefix + ".responses.5xx"), is(0L));
+            assertThat(count(prefix + ".errors"), is(0L));
+            assertThat(count(prefix + ".request.bytes"), is(4L));
+            assertThat(count(prefix + ".response.bytes"), is(4L));
+            assertThat(registry.histograms().get(prefix + ".ttfb").count(), is(1L));
+            assertThat(registry.histograms().get(prefix + ".latency").max(), is(greaterThan(0L)));
+            assertThat(gauge(prefix + ".inflight"), is(0L));
+        }
+    }
+
+    @Test
+    public void recordsInFlightExchanges() throws Exception {
+        StreamingHttpClient streamingClient = client.asStreamingClient();
+        StreamingHttpResponse response = streamingClient.request(streamingClient.get("/pending")).toFuture().get();
+        // The exchange is in flight until the response payload terminates.
+        assertThat(gauge("client.inflight"), is(1L));
+        assertThat(gauge("server.inflight"), is(1L));
+
+        response.payloadBody().ignoreElements().toFuture().cancel(true);
+        awaitLatency("client");
+        assertThat(gauge("client.inflight"), is(0L));
+        assertThat(count("client.cancellations"), is(1L));
+    }
+
+    @Test
+    public void recordsStatusClass() throws Exception {
+        client.request(client.get("/error")).toFuture().get();
+        awaitLatency("client");
+        assertThat(count("client.responses.5xx"), is(1L));
+        assertThat(count("client.responses.2xx"), is(0L));
+    }
+
+    @Test
+    public void recordsGrpcStatus() throws Exception {
+        client.request(client.get("/grpc")).toFuture().get();
+        awaitLatency("client");
+        assertThat(count("client.grpc.status.14"), is(1L));
+        assertThat(registry.counters().get("client.grpc.status.0"), is(nullValue()));
+    }
+
+    private long count(String name) {
+        return registry.counters().get(name).count();
+    }
+
+    private long gauge(String name) {
+        return registry.gauges().get(name).value();
+    }
+
+    private void awaitLatency(String prefix) throws InterruptedException {
+        // The latency is recorded when the response payload terminates, which may be after the response is received.
+        while (registry.histograms().get(prefix + ".latency").count() == 0) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -43,7 +43,7 @@ import static java.util.Objects.requireNonNull;
 public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
     private static final Logger logger = LoggerFactory.getLogger(DefaultInMemoryTracer.class);
     private final InMemoryScopeManager scopeManager;
-    private final BiFunction<String, Boolean, Boolean> sampler;
+    private final OperationAwareSampler sampler;
     private final InMemorySpanEventListener listeners;
     private final int maxTagSize;
     private final boolean persistLogs;
@@ -55,7 +55,7 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
     public static final class Builder {
         private final InMemoryScopeManager scopeManager;
         private final CopyOnWriteInMemorySpanEventListenerSet listeners = new CopyOnWriteInMemorySpanEventListenerSet();
-        private BiFunction<String, Boolean, Boolean> sampler = SamplingStrategies.sampleUnlessFalse();
+        private OperationAwareSampler sampler = fromBiFunction(SamplingStrategies.sampleUnlessFalse());
         private int maxTagSize = 16;
         private boolean persistLogs;
         private boolean use128BitTraceId;
@@ -89,10 +89,27 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
          * @return this
          */
         public Builder withSampler(BiFunction<String, Boolean, Boolean> sampler) {
+            this.sampler = fromBiFunction(requireNonNull(sampler));
+            return this;
+        }
+
+        /**
+         * Sets the sampler.
+         *
+         * @param sampler policy which takes the operation name of the root span, a traceId and the sampling flag
+         *                specified in carrier (optional, could be {@code null}), and returns whether the given trace
+         *                should be sampled.
+         * @return this
+         */
+        public Builder withSampler(OperationAwareSampler sampler) {
             this.sampler = requireNonNull(sampler);
             return this;
         }
 
+        private static OperationAwareSampler fromBiFunction(BiFunction<String, Boolean, Boolean> sampler) {
+            return (operationName, traceId, requested) -> sampler.apply(traceId, requested);
+        }
+
         /**
          * Add a trace event listener.
          *
@@ -153,7 +170,7 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
     }
 
     private DefaultInMemoryTracer(
-            InMemoryScopeManager scopeManager, BiFunction<String, Boolean, Boolean> sampler,
+            InMemoryScopeManager scopeManager, OperationAwareSampler sampler,
             InMemorySpanEventListener listeners, int maxTagSize, boolean persistLogs,
             boolean use128BitTraceId) {
         this.scopeManager = scopeManager;
@@ -183,7 +200,7 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
 
     @Override
     protected InMemorySpanContext newSpanContext(final InMemoryTraceState state) {
-        return new DefaultInMemorySpanContext(state, isSampled(state.traceIdHex(), state.isSampled()));
+        return new DefaultInMemorySpanContext(state, isSampled(null, state.traceIdHex(), state.isSampled()));
     }
 
     private final class DefaultInMemorySpanBuilder extends AbstractInMemorySpanBuilder {
@@ -217,7 +234,7 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
                 spanIdHex = nextId();
                 traceIdHex = use128BitTraceId ? nextId() + spanIdHex : spanIdHex;
                 parentSpanIdHex = null;
-                sampled = isSampled(traceIdHex, null);
+                sampled = isSampled(operationName, traceIdHex, null);
             }
 
             if (sampled) {
@@ -244,9 +261,10 @@ public final class DefaultInMemoryTracer extends AbstractInMemoryTracer {
         return hexBytesOfLong(ThreadLocalRandom.current().nextLong());
     }
 
-    private boolean isSampled(String traceId, @Nullable Boolean requestedByCarrier) {
+    private boolean isSampled(@Nullable String operationName, String traceId,
+                              @Nullable Boolean requestedByCarrier) {
         try {
-            return sampler.apply(traceId, requestedByCarrier);
+            return sampler.isSampled(operationName, traceId, requestedByCarrier);
         } catch (Throwable t) {
             logger.warn("Exception from sampler={}, default to not sampling", sampler, t);
             return false; // play safe, default to not sampling
@@ -0,0 +1,35 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.inmemory;
+
+import javax.annotation.Nullable;
+
+/**
+ * A sampling policy which is aware of the operation name of the root span of a trace.
+ */
+@FunctionalInterface
+public interface OperationAwareSampler {
+    /**
+     * Determine if a trace should be sampled.
+     *
+     * @param operationName the operation name of the root span of the trace, or {@code null} if the decision is made
+     * for a span context extracted from a carrier.
+     * @param traceId the trace id.
+     * @param requested the sampling flag specified in the carrier, or {@code null} if not specified.
+     * @return {@code true} if the trace should be sampled.
+     */
+    boolean isSampled(@Nullable String operationName, String traceId, @Nullable Boolean requested);
+}
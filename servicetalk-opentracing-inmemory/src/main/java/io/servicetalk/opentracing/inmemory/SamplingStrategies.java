@@ -15,8 +15,12 @@
  */
 package io.servicetalk.opentracing.inmemory;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
 
 import static io.servicetalk.utils.internal.MathUtils.safeFindNextPositivePowerOfTwo;
 
@@ -64,4 +68,87 @@ public final class SamplingStrategies {
         return (traceId, sampleRequested) ->
                 (sampleRequested != null && sampleRequested) || (sampleCount.incrementAndGet() & sampleCountMask) == 0;
     }
+
+    /**
+     * Filter that samples as requested, but if there is no request will sample at most {@code tracesPerSecond} traces
+     * per second.
+     * <p>
+     * The rate is enforced by a lock-free token bucket which allows bursts of up to one second worth of traces.
+     * @param tracesPerSecond the maximum number of traces per second to sample when sampling is not specified.
+     * @return A filter that samples as requested, but if there is no request will sample at most
+     * {@code tracesPerSecond} traces per second.
+     */
+    public static BiFunction<String, Boolean, Boolean> sampleRespectRequestOrRateLimited(double tracesPerSecond) {
+        final TokenBucket bucket = new TokenBucket(tracesPerSecond);
+        return (traceId, sampleRequested) -> sampleRequested != null ? sampleRequested : bucket.tryAcquire();
+    }
+
+    /**
+     * Filter that samples as requested, but if there is no request will sample at least
+     * {@code minTracesPerSecondPerOperation} traces per second for every operation and share an additional budget
+     * of {@code tracesPerSecond} traces per second between all operations.
+     * <p>
+     * Frequent operations consume most of the shared budget, but rarely invoked operations still get sampled thanks
+     * to their own minimum rate. At most {@code maxOperations} distinct operations get their own minimum rate, traces
+     * of other operations and of span contexts extracted from a carrier only use the shared budget.
+     * @param tracesPerSecond the number of traces per second shared between all operations.
+     * @param minTracesPerSecondPerOperation the minimum number of traces per second for every operation.
+     * @param maxOperations the maximum number of distinct operations tracked.
+     * @return A filter that samples as requested, but if there is no request will sample at least
+     * {@code minTracesPerSecondPerOperation} traces per second for every operation and share an additional budget
+     * of {@code tracesPerSecond} traces per second between all operations.
+     */
+    public static OperationAwareSampler sampleRespectRequestOrPerOperation(
+            double tracesPerSecond, double minTracesPerSecondPerOperation, int maxOperations) {
+        return sampleRespectRequestOrPerOperation(tracesPerSecond, minTracesPerSecondPerOperation, maxOperations,
+                System::nanoTime);
+    }
+
+    static OperationAwareSampler sampleRespectRequestOrPerOperation(
+            double tracesPerSecond, double minTracesPerSecondPerOperation, int maxOperations,
+            LongSupplier nanoClock) {
+        return new PerOperationSampler(tracesPerSecond, minTracesPerSecondPerOperation, maxOperations, nanoClock);
+    }
+
+    private static final class PerOperationSampler implements OperationAwareSampler {
+        private final TokenBucket shared;
+        private final double minTracesPerSecondPerOperation;
+        private final int maxOperations;
+        private final LongSupplier nanoClock;
+        private final ConcurrentMap<String, TokenBucket> operations = new ConcurrentHashMap<>();
+
+        PerOperationSampler(double tracesPerSecond, double minTracesPerSecondPerOperation, int maxOperations,
+                            LongSupplier nanoClock) {
+            if (maxOperations < 0) {
+                throw new IllegalArgumentException("maxOperations: " + maxOperations + " (expected >=0)");
+            }
+            if (!(minTracesPerSecondPerOperation > 0)) {
+                throw new IllegalArgumentException("minTracesPerSecondPerOperation: " +
+                        minTracesPerSecondPerOperation + " (expected >0)");
+            }
+            shared = new TokenBucket(tracesPerSecond, nanoClock);
+            this.minTracesPerSecondPerOperation = minTracesPerSecondPerOperation;
+            this.maxOperations = maxOperations;
+            this.nanoClock = nanoClock;
+        }
+
+        @Override
+        public boolean isSampled(@Nullable final String operationName, final String traceId,
+                                 @Nullable final Boolean requested) {
+            if (requested != null) {
+                return requested;
+            }
+            if (operationName != null) {
+                TokenBucket bucket = operations.get(operationName);
+                if (bucket == null && operations.size() < maxOperations) {
+                    bucket = operations.computeIfAbsent(operationName,
+                            __ -> new TokenBucket(minTracesPerSecondPerOperation, nanoClock));
+                }
+                if (bucket != null && bucket.tryAcquire()) {
+                    return true;
+                }
+            }
+            return shared.tryAcquire();
+        }
+    }
 }
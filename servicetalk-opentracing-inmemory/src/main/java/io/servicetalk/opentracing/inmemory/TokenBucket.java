@@ -0,0 +1,70 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.inmemory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static java.lang.Math.max;
+
+/**
+ * A lock-free token bucket which allows a number of permits per second, with a burst of up to one second worth of
+ * permits.
+ * <p>
+ * The state is a single timestamp at which the bucket is empty, the bucket holds one token per elapsed
+ * {@code intervalNanos} since then, up to {@code burstNanos / intervalNanos} tokens.
+ */
+final class TokenBucket {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicLong emptyAtNanos;
+
+    TokenBucket(double permitsPerSecond) {
+        this(permitsPerSecond, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, LongSupplier nanoClock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond: " + permitsPerSecond + " (expected >0)");
+        }
+        intervalNanos = max(1, (long) (1_000_000_000 / permitsPerSecond));
+        burstNanos = max(intervalNanos, 1_000_000_000);
+        this.nanoClock = nanoClock;
+        emptyAtNanos = new AtomicLong(nanoClock.getAsLong() - burstNanos);
+    }
+
+    /**
+     * Try to acquire a single permit.
+     *
+     * @return {@code true} if a permit was acquired.
+     */
+    boolean tryAcquire() {
+        final long now = nanoClock.getAsLong();
+        for (;;) {
+            final long emptyAt = emptyAtNanos.get();
+            // Tokens beyond the burst are discarded. Compare by difference, nanoTime() may wrap around.
+            final long fullAt = now - burstNanos;
+            final long next = (emptyAt - fullAt > 0 ? emptyAt : fullAt) + intervalNanos;
+            if (next - now > 0) {
+                return false;
+            }
+            if (emptyAtNanos.compareAndSet(emptyAt, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.inmemory;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.opentracing.inmemory.api.InMemoryScopeManager;
+import io.servicetalk.opentracing.inmemory.api.InMemorySpan;
+import io.servicetalk.opentracing.inmemory.api.InMemorySpanContext;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+
+public class DefaultInMemoryTracerSamplingTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final List<String> operations = new ArrayList<>();
+    private final List<Boolean> requests = new ArrayList<>();
+    private boolean decision;
+    private final DefaultInMemoryTracer tracer = new DefaultInMemoryTracer.Builder(mock(InMemoryScopeManager.class))
+            .withSampler(this::sample).build();
+
+    @Test
+    public void rootSpanAsksSamplerWithOperation() {
+        decision = true;
+        InMemorySpan span = tracer.buildSpan("op").start();
+        assertThat("Unexpected sampling decision.", span.context().isSampled(), is(true));
+        assertThat("Sampler not asked with the operation.", operations, contains("op"));
+        assertThat("Unexpected requested flag.", requests, contains(nullValue()));
+
+        decision = false;
+        span = tracer.buildSpan("other").start();
+        assertThat("Unexpected sampling decision.", span.context().isSampled(), is(false));
+        assertThat("Sampler not asked with the operation.", operations, contains("op", "other"));
+    }
+
+    @Test
+    public void childOfSampledParentIsSampled() {
+        decision = true;
+        InMemorySpan parent = tracer.buildSpan("parent").start();
+        operations.clear();
+        decision = false;
+        InMemorySpan child = tracer.buildSpan("child").asChildOf(parent).start();
+        assertThat("Child did not inherit the parent decision.", child.context().isSampled(), is(true));
+        assertThat("Sampler asked for a child span.", operations, is(empty()));
+    }
+
+    @Test
+    public void childOfUnsampledParentIsNotSampled() {
+        decision = false;
+        InMemorySpan parent = tracer.buildSpan("parent").start();
+        operations.clear();
+        decision = true;
+        InMemorySpan child = tracer.buildSpan("child").asChildOf(parent).start();
+        assertThat("Child did not inherit the parent decision.", child.context().isSampled(), is(false));
+        assertThat("Sampler asked for a child span.", operations, is(empty()));
+    }
+
+    @Test
+    public void extractedContextPassesRequestedFlag() {
+        decision = false;
+        InMemorySpanContext context = tracer.newSpanContext(
+                new DefaultInMemoryTraceState("0000000000000001", "0000000000000002", null, true));
+        assertThat("Unexpected sampling decision.", context.isSampled(), is(false));
+        assertThat("Sampler asked with an operation.", operations, contains(nullValue()));
+        assertThat("Requested flag not passed to the sampler.", requests, contains(true));
+
+        InMemorySpan child = tracer.buildSpan("child").asChildOf(context).start();
+        assertThat("Child did not inherit the extracted decision.", child.context().isSampled(), is(false));
+        assertThat("Sampler asked for a child span.", operations, contains(nullValue()));
+    }
+
+    @Test
+    public void samplerExceptionDoesNotSample() {
+        DefaultInMemoryTracer failingTracer = new DefaultInMemoryTracer.Builder(mock(InMemoryScopeManager.class))
+                .withSampler((OperationAwareSampler) (operationName, traceId, requested) -> {
+                    throw new IllegalStateException("deliberate");
+                }).build();
+        assertThat(failingTracer.buildSpan("op").start().context().isSampled(), is(false));
+    }
+
+    @Test
+    public void perOperationSamplerThroughTracer() {
+        DefaultInMemoryTracer perOpTracer = new DefaultInMemoryTracer.Builder(mock(InMemoryScopeManager.class))
+                .withSampler(SamplingStrategies.sampleRespectRequestOrPerOperation(1, 1, 10, () -> 0L)).build();
+        // Each operation gets its own permit, the shared permit goes to the first operation.
+        assertThat(perOpTracer.buildSpan("a").start().context().isSampled(), is(true));
+        assertThat(perOpTracer.buildSpan("a").start().context().isSampled(), is(true));
+        assertThat(perOpTracer.buildSpan("a").start().context().isSampled(), is(false));
+        assertThat(perOpTracer.buildSpan("b").start().context().isSampled(), is(true));
+        assertThat(perOpTracer.buildSpan("b").start().context().isSampled(), is(false));
+    }
+
+    private boolean sample(@Nullable final String operationName, final String traceId,
+                           @Nullable final Boolean requested) {
+        operations.add(operationName);
+        requests.add(requested);
+        return decision;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.inmemory;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.function.BiFunction;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.opentracing.inmemory.SamplingStrategies.sampleRespectRequestOrEveryN;
+import static io.servicetalk.opentracing.inmemory.SamplingStrategies.sampleRespectRequestOrPerOperation;
+import static io.servicetalk.opentracing.inmemory.SamplingStrategies.sampleRespectRequestOrRateLimited;
+import static io.servicetalk.opentracing.inmemory.SamplingStrategies.sampleUnlessFalse;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class SamplingStrategiesTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private long nanos;
+
+    @Test
+    public void unlessFalse() {
+        BiFunction<String, Boolean, Boolean> sampler = sampleUnlessFalse();
+        assertThat(sampler.apply("trace", null), is(true));
+        assertThat(sampler.apply("trace", true), is(true));
+        assertThat(sampler.apply("trace", false), is(false));
+    }
+
+    @Test
+    public void respectRequestOrEveryN() {
+        BiFunction<String, Boolean, Boolean> sampler = sampleRespectRequestOrEveryN(4);
+        int sampled = 0;
+        for (int i = 0; i < 16; i++) {
+            if (sampler.apply("trace", null)) {
+                ++sampled;
+            }
+        }
+        assertThat("Unexpected number of sampled traces.", sampled, is(4));
+        assertThat(sampler.apply("trace", true), is(true));
+        assertThat(sampler.apply("trace", false), is(false));
+    }
+
+    @Test
+    public void rateLimitedRespectsRequest() {
+        BiFunction<String, Boolean, Boolean> sampler = sampleRespectRequestOrRateLimited(1);
+        assertThat("Burst not available.", sampler.apply("trace", null), is(true));
+        for (int i = 0; i < 100; i++) {
+            assertThat("Requested sampling ignored.", sampler.apply("trace", true), is(true));
+            assertThat("Requested no sampling ignored.", sampler.apply("trace", false), is(false));
+        }
+    }
+
+    @Test
+    public void perOperationRespectsRequest() {
+        OperationAwareSampler sampler = perOperation(1, 1, 10);
+        assertThat(sampler.isSampled("op", "trace", true), is(true));
+        assertThat(sampler.isSampled("op", "trace", false), is(false));
+        // Requests do not consume the budget.
+        assertThat(sampler.isSampled("op", "trace", null), is(true));
+    }
+
+    @Test
+    public void perOperationMinimumRateThenSharedBudget() {
+        OperationAwareSampler sampler = perOperation(1, 2, 10);
+        assertThat("Unexpected traces sampled for op.", sampleAll(sampler, "op"), is(2 + 1));
+        // The shared budget is used up, but another operation still gets its minimum rate.
+        assertThat("Unexpected traces sampled for other.", sampleAll(sampler, "other"), is(2));
+
+        nanos += MILLISECONDS.toNanos(500);
+        // Half a second refills one permit of the per operation rate, the shared rate needs a full second.
+        assertThat("Unexpected traces sampled after refill.", sampleAll(sampler, "op"), is(1));
+    }
+
+    @Test
+    public void extractedContextUsesSharedBudget() {
+        OperationAwareSampler sampler = perOperation(2, 100, 10);
+        assertThat("Unexpected traces sampled without operation.", sampleAll(sampler, null), is(2));
+        assertThat("Operation minimum rate not applied.", sampler.isSampled("op", "trace", null), is(true));
+    }
+
+    @Test
+    public void operationsBeyondMaxUseSharedBudget() {
+        OperationAwareSampler sampler = perOperation(1, 5, 1);
+        assertThat("Unexpected traces sampled for op.", sampleAll(sampler, "op"), is(5 + 1));
+        assertThat("Untracked operation got its own rate.", sampleAll(sampler, "other"), is(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void perOperationRejectsNegativeMaxOperations() {
+        sampleRespectRequestOrPerOperation(1, 1, -1);
+    }
+
+    private OperationAwareSampler perOperation(final double tracesPerSecond,
+                                               final double minTracesPerSecondPerOperation,
+                                               final int maxOperations) {
+        return sampleRespectRequestOrPerOperation(tracesPerSecond, minTracesPerSecondPerOperation, maxOperations,
+                () -> nanos);
+    }
+
+    private static int sampleAll(final OperationAwareSampler sampler, @Nullable final String op) {
+        int sampled = 0;
+        while (sampler.isSampled(op, "trace", null)) {
+            ++sampled;
+        }
+        return sampled;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.inmemory;
+
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class TokenBucketTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private long nanos = 42;
+
+    @Test
+    public void burstIsOneSecondOfPermits() {
+        TokenBucket bucket = new TokenBucket(10, () -> nanos);
+        assertThat("Unexpected burst.", acquireAll(bucket), is(10));
+    }
+
+    @Test
+    public void permitsAreRefilledAtRate() {
+        TokenBucket bucket = new TokenBucket(10, () -> nanos);
+        acquireAll(bucket);
+
+        nanos += MILLISECONDS.toNanos(100);
+        assertThat("Permit not refilled.", bucket.tryAcquire(), is(true));
+        assertThat("Unexpected permit.", bucket.tryAcquire(), is(false));
+
+        nanos += MILLISECONDS.toNanos(50);
+        assertThat("Permit refilled early.", bucket.tryAcquire(), is(false));
+        nanos += MILLISECONDS.toNanos(50);
+        assertThat("Permit not refilled.", bucket.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void idleTimeDoesNotExceedBurst() {
+        TokenBucket bucket = new TokenBucket(10, () -> nanos);
+        acquireAll(bucket);
+
+        nanos += SECONDS.toNanos(10);
+        assertThat("Unexpected burst after idle time.", acquireAll(bucket), is(10));
+    }
+
+    @Test
+    public void fractionalRateAllowsOnePermit() {
+        TokenBucket bucket = new TokenBucket(0.5, () -> nanos);
+        assertThat("Unexpected burst.", acquireAll(bucket), is(1));
+
+        nanos += SECONDS.toNanos(1);
+        assertThat("Permit refilled early.", bucket.tryAcquire(), is(false));
+        nanos += SECONDS.toNanos(1);
+        assertThat("Permit not refilled.", bucket.tryAcquire(), is(true));
+    }
+
+    @Test
+    public void clockWrapAround() {
+        nanos = Long.MAX_VALUE - MILLISECONDS.toNanos(50);
+        TokenBucket bucket = new TokenBucket(10, () -> nanos);
+        acquireAll(bucket);
+
+        nanos += MILLISECONDS.toNanos(100);
+        assertThat("Permit not refilled.", bucket.tryAcquire(), is(true));
+        assertThat("Unexpected permit.", bucket.tryAcquire(), is(false));
+
+        nanos += SECONDS.toNanos(10);
+        assertThat("Unexpected burst after idle time.", acquireAll(bucket), is(10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroRate() {
+        new TokenBucket(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nanRate() {
+        new TokenBucket(Double.NaN);
+    }
+
+    private static int acquireAll(final TokenBucket bucket) {
+        int acquired = 0;
+        while (bucket.tryAcquire()) {
+            ++acquired;
+        }
+        return acquired;
+    }
+}
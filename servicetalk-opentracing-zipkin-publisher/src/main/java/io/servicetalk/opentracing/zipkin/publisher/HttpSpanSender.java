@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.zipkin.publisher;
+
+import io.servicetalk.concurrent.CompletableSource.Processor;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.netty.HttpClients;
+import io.servicetalk.opentracing.zipkin.publisher.ZipkinPublisher.Encoder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.LongConsumer;
+
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_TYPE;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SUCCESSFUL_2XX;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * A {@link SpanSender} which {@code POST}s every batch to the zipkin HTTP collector API using a ServiceTalk
+ * {@link HttpClient}.
+ * <p>
+ * At most {@link #MAX_IN_FLIGHT_BATCHES} batches are sent concurrently, batches sent while the collector has
+ * not responded to as many are dropped. Closing waits for the batches in flight, but at most
+ * {@value #CLOSE_TIMEOUT_SECONDS} seconds, before the {@link HttpClient} is closed.
+ */
+final class HttpSpanSender implements SpanSender {
+    /**
+     * The maximum number of batches sent concurrently.
+     */
+    static final int MAX_IN_FLIGHT_BATCHES = 16;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+    private static final Logger logger = LoggerFactory.getLogger(HttpSpanSender.class);
+    private static final AtomicIntegerFieldUpdater<HttpSpanSender> inFlightUpdater =
+            newUpdater(HttpSpanSender.class, "inFlight");
+
+    private final HttpClient client;
+    private final Encoder encoder;
+    private final LongConsumer onDropped;
+    private final Processor allSent = newCompletableProcessor();
+    private volatile int inFlight;
+    private volatile boolean closing;
+
+    HttpSpanSender(InetSocketAddress collectorAddress, Encoder encoder, LongConsumer onDropped) {
+        this.encoder = encoder;
+        this.onDropped = onDropped;
+        client = HttpClients.forResolvedAddress(collectorAddress).build();
+    }
+
+    @Override
+    public void send(final byte[] encodedSpans, final int numSpans) {
+        // Only the event loop of the publisher increments, so checking before incrementing does not overshoot.
+        if (inFlight >= MAX_IN_FLIGHT_BATCHES) {
+            logger.debug("Dropping {} spans, {} batches are already sent to the zipkin collector", numSpans,
+                    MAX_IN_FLIGHT_BATCHES);
+            onDropped.accept(numSpans);
+            return;
+        }
+        inFlightUpdater.incrementAndGet(this);
+        client.request(client.post(encoder.httpPath)
+                .setHeader(CONTENT_TYPE, encoder.contentType)
+                .payloadBody(client.executionContext().bufferAllocator().wrap(encodedSpans)))
+                .whenOnError(cause -> {
+                    logger.debug("Failed to send {} spans to the zipkin collector", numSpans, cause);
+                    onDropped.accept(numSpans);
+                })
+                .whenFinally(this::onSendTerminated)
+                .subscribe(response -> {
+                    if (response.status().statusClass() != SUCCESSFUL_2XX) {
+                        logger.debug("Zipkin collector rejected {} spans with status {}", numSpans,
+                                response.status());
+                        onDropped.accept(numSpans);
+                    }
+                });
+    }
+
+    @Override
+    public void close(final Runnable onClosed) {
+        closing = true;
+        if (inFlight == 0) {
+            allSent.onComplete();
+        }
+        fromSource(allSent).concat(client.closeAsyncGracefully())
+                .idleTimeout(CLOSE_TIMEOUT_SECONDS, SECONDS)
+                .onErrorResume(cause -> {
+                    // Batches still in flight fail and are accounted for as dropped.
+                    logger.debug("Failed to close the zipkin collector client gracefully", cause);
+                    return client.closeAsync();
+                })
+                .whenFinally(onClosed)
+                .subscribe();
+    }
+
+    private void onSendTerminated() {
+        // close() checks inFlight after setting closing, so either it or the last batch completes allSent.
+        if (inFlightUpdater.decrementAndGet(this) == 0 && closing) {
+            allSent.onComplete();
+        }
+    }
+}
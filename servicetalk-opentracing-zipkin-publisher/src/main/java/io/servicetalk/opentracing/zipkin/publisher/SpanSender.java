@@ -0,0 +1,38 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.zipkin.publisher;
+
+/**
+ * Sends batches of already encoded spans to a zipkin collector.
+ * <p>
+ * All methods are invoked from the single event loop thread of the owning {@link ZipkinPublisher}.
+ */
+interface SpanSender {
+    /**
+     * Send a batch of encoded spans.
+     *
+     * @param encodedSpans the spans encoded as a list via {@link zipkin2.codec.SpanBytesEncoder#encodeList}.
+     * @param numSpans the number of spans contained in {@code encodedSpans}.
+     */
+    void send(byte[] encodedSpans, int numSpans);
+
+    /**
+     * Close this sender after all previously sent batches have been written or failed.
+     *
+     * @param onClosed invoked once this sender is closed.
+     */
+    void close(Runnable onClosed);
+}
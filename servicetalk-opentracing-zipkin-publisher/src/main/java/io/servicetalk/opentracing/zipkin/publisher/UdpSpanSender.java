@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.opentracing.zipkin.publisher;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.MaxMessagesRecvByteBufAllocator;
+import io.netty.channel.socket.DatagramPacket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+import java.util.function.LongConsumer;
+
+import static io.netty.channel.ChannelOption.RCVBUF_ALLOCATOR;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.datagramChannel;
+
+/**
+ * A {@link SpanSender} which writes every batch as a single {@link DatagramPacket}.
+ */
+final class UdpSpanSender implements SpanSender {
+    /**
+     * The default maximum {@link DatagramPacket} size.
+     */
+    static final int DEFAULT_MAX_DATAGRAM_PACKET_SIZE = 2048;
+    private static final Logger logger = LoggerFactory.getLogger(UdpSpanSender.class);
+    private static final MaxMessagesRecvByteBufAllocator DEFAULT_RECV_BUF_ALLOCATOR =
+            new FixedRecvByteBufAllocator(DEFAULT_MAX_DATAGRAM_PACKET_SIZE);
+
+    private final Channel channel;
+    private final InetSocketAddress collectorAddress;
+    private final LongConsumer onDropped;
+
+    UdpSpanSender(EventLoopGroup group, InetSocketAddress collectorAddress, LongConsumer onDropped)
+            throws InterruptedException {
+        this.collectorAddress = collectorAddress;
+        this.onDropped = onDropped;
+        channel = new Bootstrap()
+                .group(group)
+                .channel(datagramChannel(group))
+                .option(RCVBUF_ALLOCATOR, DEFAULT_RECV_BUF_ALLOCATOR)
+                .handler(new ChannelHandlerAdapter() { })
+                .bind(0).sync().channel();
+    }
+
+    @Override
+    public void send(final byte[] encodedSpans, final int numSpans) {
+        channel.writeAndFlush(new DatagramPacket(Unpooled.wrappedBuffer(encodedSpans), collectorAddress))
+                .addListener(future -> {
+                    if (!future.isSuccess()) {
+                        logger.debug("Failed to send {} spans to the zipkin collector", numSpans, future.cause());
+                        onDropped.accept(numSpans);
+                    }
+                });
+    }
+
+    @Override
+    public void close(final Runnable onClosed) {
+        channel.close().addListener(__ -> onClosed.run());
+    }
+}
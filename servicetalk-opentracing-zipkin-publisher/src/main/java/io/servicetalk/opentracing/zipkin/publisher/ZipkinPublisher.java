@@ -19,17 +19,9 @@ import io.servicetalk.opentracing.inmemory.api.InMemorySpan;
 import io.servicetalk.opentracing.inmemory.api.InMemorySpanEventListener;
 import io.servicetalk.opentracing.inmemory.api.InMemorySpanLog;
 
-import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.Unpooled;
-import io.netty.channel.Channel;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelOutboundHandlerAdapter;
-import io.netty.channel.ChannelPromise;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.FixedRecvByteBufAllocator;
-import io.netty.channel.MaxMessagesRecvByteBufAllocator;
-import io.netty.channel.socket.DatagramPacket;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.ScheduledFuture;
 import io.opentracing.tag.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,44 +33,76 @@ import java.io.Closeable;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 import javax.annotation.Nullable;
 
-import static io.netty.channel.ChannelOption.RCVBUF_ALLOCATOR;
-import static io.servicetalk.transport.netty.internal.BuilderUtils.datagramChannel;
 import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createEventLoopGroup;
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.System.nanoTime;
 import static java.lang.Thread.currentThread;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * A publisher of {@link io.opentracing.Span}s to the zipkin transport.
+ * <p>
+ * Finished spans are put in a bounded queue and sent in batches, either when {@link Builder#batchSize(int)} spans are
+ * queued or when {@link Builder#batchInterval(Duration)} elapses, whichever comes first. Spans which do not fit in the
+ * queue are dropped and accounted for by {@link #droppedSpans()}.
  */
 public final class ZipkinPublisher implements InMemorySpanEventListener, Closeable {
     private static final Logger logger = LoggerFactory.getLogger(ZipkinPublisher.class);
 
     /**
-     * The default maximum {@link DatagramPacket} size.
+     * Upper bound of the bytes {@link SpanBytesEncoder#encodeList(List)} adds to the size of the encoded spans for the
+     * list itself, in addition to one byte per span.
      */
-    private static final int DEFAULT_MAX_DATAGRAM_PACKET_SIZE = 2048;
-    private static final MaxMessagesRecvByteBufAllocator DEFAULT_RECV_BUF_ALLOCATOR =
-            new FixedRecvByteBufAllocator(DEFAULT_MAX_DATAGRAM_PACKET_SIZE);
+    private static final int LIST_OVERHEAD = 5;
 
     private final Endpoint endpoint;
+    private final Encoder encoder;
     private final EventLoopGroup group;
-    private final Channel channel;
+    private final SpanSender sender;
+    private final BlockingQueue<Span> queue;
+    private final int batchSize;
+    private final int maxBatchBytes;
+    private final ScheduledFuture<?> flushTimer;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final AtomicLong droppedSpans = new AtomicLong();
+    private final AtomicLong encodeTimeNanos = new AtomicLong();
+    private final Runnable flushTask = this::flush;
+    // Only accessed from the single event loop thread.
+    private final List<Span> batch;
+    private final List<Span> chunk;
+    private volatile boolean closed;
 
     /**
      * The serialization format for the zipkin write format data.
      */
     public enum Encoder {
-        JSON_V1(SpanBytesEncoder.JSON_V1), JSON_V2(SpanBytesEncoder.JSON_V2),
-        THRIFT(SpanBytesEncoder.THRIFT), PROTO3(SpanBytesEncoder.PROTO3);
+        JSON_V1(SpanBytesEncoder.JSON_V1, "/api/v1/spans", "application/json"),
+        JSON_V2(SpanBytesEncoder.JSON_V2, "/api/v2/spans", "application/json"),
+        THRIFT(SpanBytesEncoder.THRIFT, "/api/v1/spans", "application/x-thrift"),
+        PROTO3(SpanBytesEncoder.PROTO3, "/api/v2/spans", "application/x-protobuf");
 
         final SpanBytesEncoder encoder;
+        final String httpPath;
+        final CharSequence contentType;
 
-        Encoder(SpanBytesEncoder encoder) {
+        Encoder(SpanBytesEncoder encoder, String httpPath, CharSequence contentType) {
             this.encoder = encoder;
+            this.httpPath = httpPath;
+            this.contentType = contentType;
         }
     }
 
@@ -86,32 +110,44 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
      * The networking transport to use.
      */
     public enum Transport {
-        UDP {
-            Bootstrap buildBootstrap(EventLoopGroup group, Encoder encoder, SocketAddress collectorAddress) {
-                if (!(collectorAddress instanceof InetSocketAddress)) {
-                    throw new IllegalArgumentException("collectorAddress " + collectorAddress +
-                            " is invalid for transport " + this);
-                }
-                return new Bootstrap()
-                        .group(group)
-                        .channel(datagramChannel(group))
-                        .option(RCVBUF_ALLOCATOR, DEFAULT_RECV_BUF_ALLOCATOR)
-                        .handler(new ChannelOutboundHandlerAdapter() {
-                            @Override
-                            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
-                                if (msg instanceof Span) {
-                                    byte[] bytes = encoder.encoder.encode((Span) msg);
-                                    ctx.write(new DatagramPacket(Unpooled.wrappedBuffer(bytes),
-                                            (InetSocketAddress) collectorAddress));
-                                } else {
-                                    ctx.write(msg, promise);
-                                }
-                            }
-                        });
+        /**
+         * Sends every batch as a single datagram, batches are split to not exceed the maximum datagram size.
+         */
+        UDP(UdpSpanSender.DEFAULT_MAX_DATAGRAM_PACKET_SIZE) {
+            @Override
+            SpanSender newSender(EventLoopGroup group, Encoder encoder, SocketAddress collectorAddress,
+                                 LongConsumer onDropped) throws InterruptedException {
+                return new UdpSpanSender(group, toInetSocketAddress(collectorAddress), onDropped);
+            }
+        },
+        /**
+         * {@code POST}s every batch to the zipkin collector HTTP API ({@code /api/v1/spans} or {@code /api/v2/spans}
+         * depending on the {@link Encoder}).
+         */
+        HTTP(MAX_VALUE) {
+            @Override
+            SpanSender newSender(EventLoopGroup group, Encoder encoder, SocketAddress collectorAddress,
+                                 LongConsumer onDropped) {
+                return new HttpSpanSender(toInetSocketAddress(collectorAddress), encoder, onDropped);
             }
         };
 
-        abstract Bootstrap buildBootstrap(EventLoopGroup group, Encoder encoder, SocketAddress collectorAddress);
+        final int maxBatchBytes;
+
+        Transport(int maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+        }
+
+        abstract SpanSender newSender(EventLoopGroup group, Encoder encoder, SocketAddress collectorAddress,
+                                      LongConsumer onDropped) throws InterruptedException;
+
+        InetSocketAddress toInetSocketAddress(SocketAddress collectorAddress) {
+            if (!(collectorAddress instanceof InetSocketAddress)) {
+                throw new IllegalArgumentException("collectorAddress " + collectorAddress +
+                        " is invalid for transport " + this);
+            }
+            return (InetSocketAddress) collectorAddress;
+        }
     }
 
     /**
@@ -124,6 +160,9 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
         private InetSocketAddress localAddress;
         private Encoder encoder = Encoder.JSON_V2;
         private Transport transport = Transport.UDP;
+        private int maxQueueSize = 10_000;
+        private int batchSize = 100;
+        private Duration batchInterval = Duration.ofSeconds(1);
 
         /**
          * Create a new instance.
@@ -190,12 +229,57 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
             return this;
         }
 
+        /**
+         * Configures the maximum number of finished spans which are queued before being sent. Spans finished while the
+         * queue is full are dropped.
+         *
+         * @param maxQueueSize the maximum number of queued spans.
+         * @return this.
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            if (maxQueueSize <= 0) {
+                throw new IllegalArgumentException("maxQueueSize: " + maxQueueSize + " (expected >0)");
+            }
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * Configures the maximum number of spans sent in a single batch. A batch is sent as soon as this many spans are
+         * queued. The {@link Transport} may split a batch further, e.g. to not exceed the maximum datagram size.
+         *
+         * @param batchSize the maximum number of spans per batch.
+         * @return this.
+         */
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize: " + batchSize + " (expected >0)");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Configures the maximum amount of time a finished span is queued before it is sent.
+         *
+         * @param batchInterval the maximum amount of time a finished span is queued.
+         * @return this.
+         */
+        public Builder batchInterval(Duration batchInterval) {
+            if (batchInterval.isNegative() || batchInterval.isZero()) {
+                throw new IllegalArgumentException("batchInterval: " + batchInterval + " (expected >0)");
+            }
+            this.batchInterval = batchInterval;
+            return this;
+        }
+
         /**
          * Note that this may block while the underlying channel is bound/connected.
          * @return An interface which can publish tracing data using the zipkin API.
          */
         public ZipkinPublisher build() {
-            return new ZipkinPublisher(serviceName, collectorAddress, localAddress, encoder, transport);
+            return new ZipkinPublisher(serviceName, collectorAddress, localAddress, encoder, transport, maxQueueSize,
+                    batchSize, batchInterval);
         }
     }
 
@@ -203,26 +287,36 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
                             SocketAddress collectorAddress,
                             @Nullable InetSocketAddress localAddress,
                             Encoder encoder,
-                            Transport transport) {
+                            Transport transport,
+                            int maxQueueSize,
+                            int batchSize,
+                            Duration batchInterval) {
         requireNonNull(serviceName);
         requireNonNull(collectorAddress);
-        requireNonNull(encoder);
+        this.encoder = requireNonNull(encoder);
         requireNonNull(transport);
 
         endpoint = buildEndpoint(serviceName, localAddress);
+        queue = new ArrayBlockingQueue<>(maxQueueSize);
+        this.batchSize = batchSize;
+        maxBatchBytes = transport.maxBatchBytes;
+        batch = new ArrayList<>(batchSize);
+        chunk = new ArrayList<>(batchSize);
 
         group = createEventLoopGroup(1, new DefaultThreadFactory("zipkin-publisher", true));
         try {
-            final Bootstrap bootstrap = transport.buildBootstrap(group, encoder, collectorAddress);
-            channel = bootstrap.bind(0).sync().channel();
+            sender = transport.newSender(group, encoder, collectorAddress, droppedSpans::addAndGet);
         } catch (InterruptedException e) {
             currentThread().interrupt(); // Reset the interrupted flag.
+            group.shutdownGracefully(0, 0, SECONDS);
             throw new IllegalStateException("Failed to create " + transport + " client");
         } catch (Exception e) {
             logger.warn("Failed to create {} client", transport, e);
             group.shutdownGracefully(0, 0, SECONDS);
             throw e;
         }
+        final long intervalNanos = batchInterval.toNanos();
+        flushTimer = group.next().scheduleAtFixedRate(flushTask, intervalNanos, intervalNanos, NANOSECONDS);
     }
 
     static Endpoint buildEndpoint(String serviceName, @Nullable InetSocketAddress localSocketAddress) {
@@ -234,10 +328,51 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
         return builder.build();
     }
 
+    /**
+     * Get the number of finished spans which are queued and not yet sent.
+     *
+     * @return the number of finished spans which are queued and not yet sent.
+     */
+    public int queueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Get the total number of finished spans which were dropped, because the queue was full, the publisher was
+     * closed, or the {@link Transport} failed to deliver them.
+     *
+     * @return the total number of dropped spans.
+     */
+    public long droppedSpans() {
+        return droppedSpans.get();
+    }
+
+    /**
+     * Get the total time spent encoding spans, in nanoseconds.
+     *
+     * @return the total time spent encoding spans, in nanoseconds.
+     */
+    public long encodeTimeNanos() {
+        return encodeTimeNanos.get();
+    }
+
+    /**
+     * Sends all queued spans and closes the underlying transport.
+     * <p>
+     * This method does not block. The I/O thread of this publisher shuts down once the transport is closed, which
+     * for {@link Transport#HTTP} includes waiting for the batches in flight.
+     */
     @Override
     public void close() {
-        channel.close();
-        group.shutdownGracefully(0, 1, SECONDS);
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushTimer.cancel(false);
+        group.execute(() -> {
+            flush();
+            sender.close(() -> group.shutdownGracefully(0, 1, SECONDS));
+        });
     }
 
     @Override
@@ -278,6 +413,54 @@ public final class ZipkinPublisher implements InMemorySpanEventListener, Closeab
             builder.kind(Span.Kind.CLIENT);
         }
 
-        channel.writeAndFlush(builder.build());
+        if (closed || !queue.offer(builder.build())) {
+            droppedSpans.incrementAndGet();
+            return;
+        }
+        if (queue.size() >= batchSize && flushPending.compareAndSet(false, true)) {
+            try {
+                group.execute(flushTask);
+            } catch (RejectedExecutionException e) {
+                // Concurrently closed, the queued spans are sent by close().
+                logger.debug("Failed to schedule sending of queued spans", e);
+            }
+        }
+    }
+
+    private void flush() {
+        flushPending.set(false);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                sendBatch();
+            } catch (Throwable cause) {
+                logger.warn("Failed to send {} spans", batch.size(), cause);
+                droppedSpans.addAndGet(batch.size());
+            } finally {
+                batch.clear();
+                chunk.clear();
+            }
+        }
+    }
+
+    private void sendBatch() {
+        int chunkBytes = LIST_OVERHEAD;
+        for (Span span : batch) {
+            final int spanBytes = encoder.encoder.sizeInBytes(span) + 1;
+            if (!chunk.isEmpty() && chunkBytes + spanBytes > maxBatchBytes) {
+                sendChunk();
+                chunkBytes = LIST_OVERHEAD;
+            }
+            chunk.add(span);
+            chunkBytes += spanBytes;
+        }
+        sendChunk();
+    }
+
+    private void sendChunk() {
+        final long begin = nanoTime();
+        final byte[] encodedSpans = encoder.encoder.encodeList(chunk);
+        encodeTimeNanos.addAndGet(nanoTime() - begin);
+        sender.send(encodedSpans, chunk.size());
+        chunk.clear();
     }
 }
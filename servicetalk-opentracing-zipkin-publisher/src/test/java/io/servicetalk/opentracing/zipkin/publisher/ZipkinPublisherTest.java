@@ -15,11 +15,15 @@
  */
 package io.servicetalk.opentracing.zipkin.publisher;
 
+import io.servicetalk.buffer.api.Buffer;
 import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.http.netty.HttpServers;
 import io.servicetalk.opentracing.inmemory.DefaultInMemoryTracer;
 import io.servicetalk.opentracing.inmemory.api.InMemorySpan;
 import io.servicetalk.opentracing.inmemory.api.InMemoryTracer;
 import io.servicetalk.opentracing.zipkin.publisher.ZipkinPublisher.Encoder;
+import io.servicetalk.opentracing.zipkin.publisher.ZipkinPublisher.Transport;
+import io.servicetalk.transport.api.ServerContext;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
@@ -42,17 +46,24 @@ import zipkin2.Span;
 import zipkin2.codec.SpanBytesDecoder;
 
 import java.net.InetSocketAddress;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
 
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.opentracing.asynccontext.AsyncContextInMemoryScopeManager.SCOPE_MANAGER;
+import static io.servicetalk.opentracing.zipkin.publisher.HttpSpanSender.MAX_IN_FLIGHT_BATCHES;
 import static io.servicetalk.opentracing.zipkin.publisher.ZipkinPublisher.Encoder.JSON_V1;
 import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 public class ZipkinPublisherTest {
@@ -123,40 +134,150 @@ public class ZipkinPublisherTest {
         }
     }
 
+    @Test
+    public void testBatchSize() throws Exception {
+        try (TestReceiver receiver = new TestReceiver(SpanBytesDecoder.JSON_V2)) {
+            try (ZipkinPublisher publisher = new ZipkinPublisher.Builder("test",
+                    receiver.channel.localAddress())
+                    .batchSize(3)
+                    .batchInterval(Duration.ofDays(1))
+                    .build()) {
+                InMemorySpan span = newSpan();
+                for (int i = 0; i < 3; ++i) {
+                    publisher.onSpanFinished(span, 1000 * 1000);
+                }
+                // The batch is sent before the publisher is closed, as soon as it is complete.
+                for (int i = 0; i < 3; ++i) {
+                    assertSpan(receiver.queue.take());
+                }
+                assertThat(publisher.queueSize(), is(0));
+                assertThat(publisher.encodeTimeNanos(), greaterThan(0L));
+            }
+        }
+    }
+
+    @Test
+    public void testDatagramSizeLimit() throws Exception {
+        try (TestReceiver receiver = new TestReceiver(SpanBytesDecoder.JSON_V2)) {
+            try (ZipkinPublisher publisher = buildPublisher((InetSocketAddress) receiver.channel.localAddress(),
+                    Encoder.JSON_V2)) {
+                InMemorySpan span = newSpan();
+                // More spans than fit in a single datagram.
+                for (int i = 0; i < 20; ++i) {
+                    publisher.onSpanFinished(span, 1000 * 1000);
+                }
+            }
+            for (int i = 0; i < 20; ++i) {
+                assertSpan(receiver.queue.take());
+            }
+        }
+    }
+
+    @Test
+    public void testDroppedSpans() throws Exception {
+        try (TestReceiver receiver = new TestReceiver(SpanBytesDecoder.JSON_V2)) {
+            try (ZipkinPublisher publisher = new ZipkinPublisher.Builder("test",
+                    receiver.channel.localAddress())
+                    .maxQueueSize(2)
+                    .batchInterval(Duration.ofDays(1))
+                    .build()) {
+                InMemorySpan span = newSpan();
+                for (int i = 0; i < 5; ++i) {
+                    publisher.onSpanFinished(span, 1000 * 1000);
+                }
+                assertThat(publisher.queueSize(), is(2));
+                assertThat(publisher.droppedSpans(), is(3L));
+            }
+            assertSpan(receiver.queue.take());
+            assertSpan(receiver.queue.take());
+        }
+    }
+
+    @Test
+    public void testHttpTransport() throws Exception {
+        BlockingQueue<Span> queue = new LinkedBlockingDeque<>();
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .listenAndAwait((ctx, request, responseFactory) -> {
+                    assertEquals("/api/v2/spans", request.path());
+                    Buffer payload = request.payloadBody();
+                    byte[] b = new byte[payload.readableBytes()];
+                    payload.readBytes(b);
+                    SpanBytesDecoder.PROTO3.decodeList(b, queue);
+                    return succeeded(responseFactory.accepted());
+                })) {
+            try (ZipkinPublisher publisher = new ZipkinPublisher.Builder("test", serverContext.listenAddress())
+                    .encoder(Encoder.PROTO3)
+                    .protocol(Transport.HTTP)
+                    .build()) {
+                publisher.onSpanFinished(newSpan(), 1000 * 1000);
+            }
+            assertSpan(queue.take());
+        }
+    }
+
+    @Test
+    public void testHttpInFlightBatchesAreBounded() throws Exception {
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .listenAndAwait((ctx, request, responseFactory) -> never())) {
+            try (ZipkinPublisher publisher = new ZipkinPublisher.Builder("test", serverContext.listenAddress())
+                    .protocol(Transport.HTTP)
+                    .batchSize(1)
+                    .batchInterval(Duration.ofDays(1))
+                    .build()) {
+                InMemorySpan span = newSpan();
+                for (int i = 0; i < MAX_IN_FLIGHT_BATCHES + 4; ++i) {
+                    publisher.onSpanFinished(span, 1000 * 1000);
+                }
+                // The collector never responds, so every batch beyond the limit is dropped.
+                while (publisher.droppedSpans() < 4) {
+                    Thread.sleep(10);
+                }
+                assertThat(publisher.queueSize(), is(0));
+                assertThat(publisher.droppedSpans(), is(4L));
+            }
+        }
+    }
+
     private void testRoundTrip(Encoder encoder, SpanBytesDecoder decoder) throws Exception {
         try (TestReceiver receiver = new TestReceiver(decoder)) {
             try (ZipkinPublisher publisher = buildPublisher((InetSocketAddress) receiver.channel.localAddress(),
                     encoder)) {
-                InMemorySpan span = tracer.buildSpan("test operation")
-                        .withTag("stringKey", "string")
-                        .withTag("boolKey", true)
-                        .withTag("shortKey", Short.MAX_VALUE)
-                        .withTag("intKey", Integer.MAX_VALUE)
-                        .withTag("longKey", Long.MAX_VALUE)
-                        .withTag("floatKey", Float.MAX_VALUE)
-                        .withTag("doubleKey", Double.MAX_VALUE)
-                        .start();
-                span.log("some event happened");
-                span.finish();
-                publisher.onSpanFinished(span, 1000 * 1000);
+                publisher.onSpanFinished(newSpan(), 1000 * 1000);
             }
-            Span span = receiver.queue.take();
-
-            assertNotNull(span);
-            assertEquals("test operation", span.name());
-            assertEquals(1000 * 1000, (long) span.duration());
-            Map<String, String> tags = span.tags();
-            assertEquals("string", tags.get("stringKey"));
-            assertEquals(Boolean.TRUE.toString(), tags.get("boolKey"));
-            assertEquals(String.valueOf(Short.MAX_VALUE), tags.get("shortKey"));
-            assertEquals(String.valueOf(Integer.MAX_VALUE), tags.get("intKey"));
-            assertEquals(String.valueOf(Long.MAX_VALUE), tags.get("longKey"));
-            assertEquals(String.valueOf(Float.MAX_VALUE), tags.get("floatKey"));
-            assertEquals(String.valueOf(Double.MAX_VALUE), tags.get("doubleKey"));
-            assertTrue(span.annotations().stream().anyMatch(a -> a.value().equals("some event happened")));
+            assertSpan(receiver.queue.take());
         }
     }
 
+    private InMemorySpan newSpan() {
+        InMemorySpan span = tracer.buildSpan("test operation")
+                .withTag("stringKey", "string")
+                .withTag("boolKey", true)
+                .withTag("shortKey", Short.MAX_VALUE)
+                .withTag("intKey", Integer.MAX_VALUE)
+                .withTag("longKey", Long.MAX_VALUE)
+                .withTag("floatKey", Float.MAX_VALUE)
+                .withTag("doubleKey", Double.MAX_VALUE)
+                .start();
+        span.log("some event happened");
+        span.finish();
+        return span;
+    }
+
+    private static void assertSpan(Span span) {
+        assertNotNull(span);
+        assertEquals("test operation", span.name());
+        assertEquals(1000 * 1000, (long) span.duration());
+        Map<String, String> tags = span.tags();
+        assertEquals("string", tags.get("stringKey"));
+        assertEquals(Boolean.TRUE.toString(), tags.get("boolKey"));
+        assertEquals(String.valueOf(Short.MAX_VALUE), tags.get("shortKey"));
+        assertEquals(String.valueOf(Integer.MAX_VALUE), tags.get("intKey"));
+        assertEquals(String.valueOf(Long.MAX_VALUE), tags.get("longKey"));
+        assertEquals(String.valueOf(Float.MAX_VALUE), tags.get("floatKey"));
+        assertEquals(String.valueOf(Double.MAX_VALUE), tags.get("doubleKey"));
+        assertTrue(span.annotations().stream().anyMatch(a -> a.value().equals("some event happened")));
+    }
+
     private ZipkinPublisher buildPublisher(InetSocketAddress remoteAddress, Encoder encoder) {
         return new ZipkinPublisher.Builder("test", remoteAddress)
                 .encoder(encoder)
@@ -181,7 +302,7 @@ public class ZipkinPublisherTest {
                                 protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket msg) {
                                     byte[] b = new byte[msg.content().readableBytes()];
                                     msg.content().readBytes(b);
-                                    decoder.decode(b, queue);
+                                    decoder.decodeList(b, queue);
                                 }
                             });
                         }
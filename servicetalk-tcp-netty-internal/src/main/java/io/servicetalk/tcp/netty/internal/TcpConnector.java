@@ -105,7 +105,10 @@ public final class TcpConnector {
                 }
             };
 
-            EventLoop loop = toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor()).eventLoopGroup().next();
+            // next() prefers the calling EventLoop if the IoExecutor is event loop affine, which keeps the new
+            // connection on the same I/O thread as the caller.
+            EventLoop loop = toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor()).next().eventLoopGroup()
+                    .next();
             if (!(resolvedRemoteAddress instanceof FileDescriptorSocketAddress)) {
                 return attachCancelSubscriber(connectWithBootstrap(localAddress, resolvedRemoteAddress, config,
                         autoRead, loop, executionContext.bufferAllocator(), handler), cancellable);
@@ -27,7 +27,7 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
 
 import static io.servicetalk.buffer.netty.BufferUtils.extractByteBufOrCreate;
-import static io.servicetalk.buffer.netty.BufferUtils.newBufferFrom;
+import static io.servicetalk.buffer.netty.BufferUtils.newUnreleasableBufferFrom;
 
 /**
  * A {@link ChannelHandler} that converts does the following conversions:
@@ -39,7 +39,7 @@ import static io.servicetalk.buffer.netty.BufferUtils.newBufferFrom;
  *     <li>{@link ByteBufHolder} to {@link Buffer} for reads.</li>
  * </ul>
  *
- * This also releases any {@link ByteBuf} once converted to {@link Buffer}.
+ * This also releases any pooled {@link ByteBuf} once converted to {@link Buffer}.
  */
 @Sharable
 public final class BufferHandler extends ChannelDuplexHandler {
@@ -52,11 +52,11 @@ public final class BufferHandler extends ChannelDuplexHandler {
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) {
         if (msg instanceof ByteBuf) {
-            ctx.fireChannelRead(newBufferFrom((ByteBuf) msg));
+            ctx.fireChannelRead(newUnreleasableBufferFrom((ByteBuf) msg));
         } else if (msg instanceof ByteBufHolder) {
             ByteBufHolder holder = (ByteBufHolder) msg;
             ByteBuf byteBuf = holder.content();
-            ctx.fireChannelRead(newBufferFrom(byteBuf));
+            ctx.fireChannelRead(newUnreleasableBufferFrom(byteBuf));
         } else {
             ctx.fireChannelRead(msg);
         }
@@ -100,6 +100,16 @@ public final class ChannelSet implements ListenableAsyncCloseable {
         return added;
     }
 
+    /**
+     * Returns the number of {@link Channel}s in this {@link ChannelSet}, e.g. to be sampled as a gauge of open
+     * connections.
+     *
+     * @return the number of {@link Channel}s in this {@link ChannelSet}.
+     */
+    public int size() {
+        return channelMap.size();
+    }
+
     @Override
     public Completable closeAsync() {
         return new SubscribableCompletable() {
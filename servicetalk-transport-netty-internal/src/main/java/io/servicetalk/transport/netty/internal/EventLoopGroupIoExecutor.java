@@ -15,13 +15,36 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.servicetalk.concurrent.Cancellable;
+
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
 
 final class EventLoopGroupIoExecutor extends AbstractNettyIoExecutor<EventLoopGroup>
         implements EventLoopAwareNettyIoExecutor {
 
+    /**
+     * {@link EventLoop}s of the group if this executor prefers the calling {@link EventLoop}, {@code null} otherwise.
+     */
+    @Nullable
+    private final EventLoop[] affineEventLoops;
+
     EventLoopGroupIoExecutor(EventLoopGroup eventLoopGroup, boolean interruptOnCancel) {
+        this(eventLoopGroup, interruptOnCancel, false);
+    }
+
+    EventLoopGroupIoExecutor(EventLoopGroup eventLoopGroup, boolean interruptOnCancel, boolean eventLoopAffine) {
         super(eventLoopGroup, interruptOnCancel);
+        affineEventLoops = eventLoopAffine ? eventLoops(eventLoopGroup) : null;
     }
 
     @Override
@@ -36,6 +59,61 @@ final class EventLoopGroupIoExecutor extends AbstractNettyIoExecutor<EventLoopGr
 
     @Override
     public EventLoopAwareNettyIoExecutor next() {
-        return new EventLoopIoExecutor(eventLoop.next(), interruptOnCancel);
+        return new EventLoopIoExecutor(nextEventLoop(), interruptOnCancel);
+    }
+
+    @Override
+    public Cancellable execute(final Runnable task) throws RejectedExecutionException {
+        final EventLoop current = currentEventLoop();
+        if (current == null) {
+            return super.execute(task);
+        }
+        Future<?> future = current.submit(task);
+        return () -> future.cancel(interruptOnCancel);
+    }
+
+    @Override
+    public Cancellable schedule(final Runnable task, final long delay, final TimeUnit unit)
+            throws RejectedExecutionException {
+        final EventLoop current = currentEventLoop();
+        if (current == null) {
+            return super.schedule(task, delay, unit);
+        }
+        ScheduledFuture<?> future = current.schedule(task, delay, unit);
+        return () -> future.cancel(interruptOnCancel);
+    }
+
+    /**
+     * Select the {@link EventLoop} for a new unit of work (e.g. a connection). If this executor is event loop affine
+     * and the calling thread is one of its {@link EventLoop}s, that {@link EventLoop} is returned.
+     *
+     * @return the {@link EventLoop} to use.
+     */
+    private EventLoop nextEventLoop() {
+        final EventLoop current = currentEventLoop();
+        return current != null ? current : eventLoop.next();
+    }
+
+    @Nullable
+    private EventLoop currentEventLoop() {
+        if (affineEventLoops == null) {
+            return null;
+        }
+        for (EventLoop loop : affineEventLoops) {
+            if (loop.inEventLoop()) {
+                return loop;
+            }
+        }
+        return null;
+    }
+
+    private static EventLoop[] eventLoops(EventLoopGroup eventLoopGroup) {
+        final List<EventLoop> loops = new ArrayList<>();
+        for (EventExecutor executor : eventLoopGroup) {
+            if (executor instanceof EventLoop) {
+                loops.add((EventLoop) executor);
+            }
+        }
+        return loops.toArray(new EventLoop[0]);
     }
 }
@@ -61,6 +61,24 @@ public final class NettyIoExecutors {
         return new EventLoopGroupIoExecutor(createEventLoopGroup(ioThreads, threadFactory), true);
     }
 
+    /**
+     * Create a new event loop affine {@link NettyIoExecutor}.
+     * <p>
+     * When the calling thread is one of its I/O threads, the returned executor prefers that I/O thread for new
+     * connections, {@link io.servicetalk.concurrent.api.Executor#execute(Runnable) tasks} and
+     * {@link io.servicetalk.concurrent.api.Executor#schedule(Runnable, long, java.util.concurrent.TimeUnit) timers}
+     * submitted via {@link NettyIoExecutor#asExecutor()}. Sharing it between a server and the clients it uses to call
+     * downstream services keeps a request on a single I/O thread end to end (thread-per-core).
+     *
+     * @param ioThreads number of threads.
+     * @param threadFactory the {@link ThreadFactory} to use.
+     * @return The created {@link IoExecutor}
+     */
+    public static NettyIoExecutor createEventLoopAffineIoExecutor(int ioThreads, ThreadFactory threadFactory) {
+        validateIoThreads(ioThreads);
+        return new EventLoopGroupIoExecutor(createEventLoopGroup(ioThreads, threadFactory), true, true);
+    }
+
     /**
      * Create a new {@link EventLoopGroup}.
      *
@@ -29,9 +29,14 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.RecvByteBufAllocator.DelegatingHandle;
 import io.netty.channel.RecvByteBufAllocator.ExtendedHandle;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.ByteToMessageDecoder.Cumulator;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.UncheckedBooleanSupplier;
 
+import static io.netty.handler.codec.ByteToMessageDecoder.MERGE_CUMULATOR;
+import static io.servicetalk.buffer.netty.BufferAllocators.PREFER_HEAP_ALLOCATOR;
+import static io.servicetalk.buffer.netty.BufferUtils.getByteBufAllocator;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -58,6 +63,17 @@ public final class PooledRecvByteBufAllocatorInitializers {
     public static final ChannelInitializer COPY_HANDLER_INITIALIZER = channel ->
             channel.pipeline().addLast(CopyByteBufHandler.INSTANCE);
 
+    /**
+     * {@link Cumulator} for {@link ByteToMessageDecoder}s whose output is passed to the user. It behaves like
+     * {@link ByteToMessageDecoder#MERGE_CUMULATOR} but never expands the cumulation into memory from a
+     * {@link ByteBufAllocator#isDirectBufferPooled() pooled} channel allocator, so that decoders can hand out retained
+     * slices of the cumulation without copying or releasing them.
+     */
+    public static final Cumulator UNPOOLED_MERGE_CUMULATOR = (alloc, cumulation, in) ->
+            MERGE_CUMULATOR.cumulate(unpooled(alloc), cumulation, in);
+
+    private static final ByteBufAllocator UNPOOLED_HEAP_ALLOCATOR = getByteBufAllocator(PREFER_HEAP_ALLOCATOR);
+
     private PooledRecvByteBufAllocatorInitializers() {
         // No instances
     }
@@ -144,9 +160,15 @@ public final class PooledRecvByteBufAllocatorInitializers {
 
         @Override
         protected void channelRead0(final ChannelHandlerContext ctx, final ByteBuf buf) {
-            final ByteBuf buffer = ctx.alloc().heapBuffer(buf.readableBytes());
+            // Data read from the socket is handed to the user and never released, so it must not be copied into pooled
+            // memory even if the channel allocator is pooled. Pooled allocators only apply to the write path.
+            final ByteBuf buffer = unpooled(ctx.alloc()).heapBuffer(buf.readableBytes());
             // We must not release the incoming buf here because it will be released by SimpleChannelInboundHandler
             ctx.fireChannelRead(buffer.writeBytes(buf));
         }
     }
+
+    private static ByteBufAllocator unpooled(final ByteBufAllocator alloc) {
+        return alloc.isDirectBufferPooled() ? UNPOOLED_HEAP_ALLOCATOR : alloc;
+    }
 }
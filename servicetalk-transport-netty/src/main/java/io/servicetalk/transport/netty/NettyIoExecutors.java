@@ -72,6 +72,35 @@ public final class NettyIoExecutors {
         return createIoExecutor(newIoThreadFactory());
     }
 
+    /**
+     * Creates a new event loop affine {@link IoExecutor} with the specified number of {@code ioThreads}.
+     * <p>
+     * When the calling thread is one of its I/O threads, the returned {@link IoExecutor} prefers that I/O thread for
+     * new connections, tasks and timers. Sharing it between a server and the clients it uses to call downstream
+     * services keeps a request on a single I/O thread end to end (thread-per-core). Use it together with an event
+     * loop affine load balancer and an execution strategy that does not offload.
+     *
+     * @param ioThreads number of threads.
+     * @param threadFactory the {@link ThreadFactory} to use. If possible you should use an instance
+     * of {@link IoThreadFactory} as it allows internal optimizations.
+     * @return The created {@link IoExecutor}
+     */
+    public static IoExecutor createEventLoopAffineIoExecutor(int ioThreads, ThreadFactory threadFactory) {
+        return io.servicetalk.transport.netty.internal.NettyIoExecutors.createEventLoopAffineIoExecutor(ioThreads,
+                threadFactory);
+    }
+
+    /**
+     * Creates a new event loop affine {@link IoExecutor} with the specified number of {@code ioThreads}.
+     *
+     * @param ioThreads number of threads.
+     * @return The created {@link IoExecutor}
+     * @see #createEventLoopAffineIoExecutor(int, ThreadFactory)
+     */
+    public static IoExecutor createEventLoopAffineIoExecutor(int ioThreads) {
+        return createEventLoopAffineIoExecutor(ioThreads, newIoThreadFactory());
+    }
+
     private static IoThreadFactory newIoThreadFactory() {
         return new IoThreadFactory(NettyIoExecutor.class.getSimpleName());
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.utils.internal;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import java.util.zip.Deflater;
+
+/**
+ * Internal utilities for the <a href="https://tools.ietf.org/html/rfc1952">gzip</a> format.
+ */
+public final class GzipUtils {
+    /**
+     * The length of the gzip trailer, which holds the CRC32 and the size of the uncompressed data.
+     */
+    public static final int GZIP_TRAILER_LENGTH = 8;
+    private static final int GZIP_HEADER_LENGTH = 10;
+    private static final int FHCRC = 0x02;
+    private static final int FEXTRA = 0x04;
+    private static final int FNAME = 0x08;
+    private static final int FCOMMENT = 0x10;
+
+    private GzipUtils() {
+    }
+
+    /**
+     * Get the length of the gzip header at the reader index of {@code buffer}. The reader index is not modified.
+     *
+     * @param buffer the {@link Buffer} to parse.
+     * @return the length of the header, or {@code -1} if {@code buffer} does not contain the complete header yet.
+     * @throws IllegalArgumentException if {@code buffer} does not start with a gzip header.
+     */
+    public static int gzipHeaderLength(final Buffer buffer) {
+        // https://tools.ietf.org/html/rfc1952#section-2.3
+        final int start = buffer.readerIndex();
+        final int end = buffer.writerIndex();
+        if (end - start < GZIP_HEADER_LENGTH) {
+            return -1;
+        }
+        if (buffer.getByte(start) != 0x1f || buffer.getByte(start + 1) != (byte) 0x8b ||
+                buffer.getByte(start + 2) != Deflater.DEFLATED) {
+            throw new IllegalArgumentException("Invalid gzip header");
+        }
+        final int flags = buffer.getByte(start + 3);
+        int index = start + GZIP_HEADER_LENGTH;
+        if ((flags & FEXTRA) != 0) {
+            if (end - index < 2) {
+                return -1;
+            }
+            index += 2 + buffer.getUnsignedShortLE(index);
+        }
+        if ((flags & FNAME) != 0) {
+            index = skipZeroTerminated(buffer, index, end);
+            if (index < 0) {
+                return -1;
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            index = skipZeroTerminated(buffer, index, end);
+            if (index < 0) {
+                return -1;
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            index += 2;
+        }
+        return index > end ? -1 : index - start;
+    }
+
+    private static int skipZeroTerminated(final Buffer buffer, final int index, final int end) {
+        if (index >= end) {
+            return -1;
+        }
+        final int zero = buffer.indexOf(index, end, (byte) 0);
+        return zero < 0 ? -1 : zero + 1;
+    }
+}